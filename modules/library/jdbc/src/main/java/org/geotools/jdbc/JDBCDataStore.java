@@ -269,6 +269,14 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
      */
     protected int batchInsertSize = 1;
 
+    /**
+     * The number of updates and deletes grouped in the same JDBC batch by the feature writers, if
+     * the dialect supports it.
+     *
+     * <p>By default 1, meaning each update and delete is executed right away.
+     */
+    protected int batchUpdateSize = 1;
+
     /** flag controlling whether primary key columns of a table are exposed via the feature type. */
     protected boolean exposePrimaryKeyColumns = false;
 
@@ -445,6 +453,35 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         this.batchInsertSize = batchInsertSize;
     }
 
+    /** @return the number of updates and deletes grouped in the same JDBC batch. */
+    public int getBatchUpdateSize() {
+        return batchUpdateSize;
+    }
+
+    /**
+     * Set the number of updates and deletes grouped in the same JDBC batch by the feature writers.
+     * Only used with prepared statement dialects that {@linkplain
+     * PreparedStatementSQLDialect#isBatchUpdateSupported() support it}.
+     *
+     * <p>Consecutive changes with the same set of modified attributes share the same statement and
+     * are executed together once the batch is full, or when the writer is closed. As for {@link
+     * #setBatchInsertSize(int)}, the writer has to be closed before the connection, and the
+     * failures are reported on the write that fills the batch or on close, listing the ids of the
+     * features that could not be changed.
+     *
+     * @param batchUpdateSize
+     */
+    public void setBatchUpdateSize(int batchUpdateSize) {
+        this.batchUpdateSize = batchUpdateSize;
+    }
+
+    /** Returns true if the feature writers should batch their updates and deletes */
+    boolean isBatchUpdateEnabled() {
+        return batchUpdateSize > 1
+                && dialect instanceof PreparedStatementSQLDialect
+                && ((PreparedStatementSQLDialect) dialect).isBatchUpdateSupported();
+    }
+
     /**
      * Determines if the datastore creates feature types which include those columns / attributes
      * which compose the primary key.
@@ -656,8 +693,14 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
     /** Returns the supported aggregate functions and the visitors they map to. */
     public Map<Class<? extends FeatureVisitor>, String> getAggregateFunctions() {
         if (aggregateFunctions == null) {
-            aggregateFunctions = new HashMap();
-            dialect.registerAggregateFunctions(aggregateFunctions);
+            // checked first, a connection initialized meanwhile only makes the result stale
+            boolean cache = dialect.canCacheAggregateFunctions();
+            HashMap<Class<? extends FeatureVisitor>, String> functions = new HashMap<>();
+            dialect.registerAggregateFunctions(functions);
+            if (!cache) {
+                return functions;
+            }
+            aggregateFunctions = functions;
         }
         return aggregateFunctions;
     }
@@ -1771,6 +1814,14 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         // first to figure out what the id will be, then the insert statement
         synchronized (this) {
             try {
+                // large batches go through the dialect bulk loading, if any
+                int bulkInsertThreshold = dialect.getBulkInsertThreshold();
+                if (bulkInsertThreshold > 0
+                        && features.size() >= bulkInsertThreshold
+                        && dialect.canBulkInsert(featureType, features, cx)) {
+                    features = bulkInsert(features, featureType, cx, key);
+                }
+
                 if (dialect instanceof PreparedStatementSQLDialect) {
                     Map<InsertionClassifier, Collection<SimpleFeature>> kinds =
                             InsertionClassifier.classify(featureType, features);
@@ -1794,6 +1845,52 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         }
     }
 
+    /**
+     * Bulk loads the features whose primary key values can all be computed before the insert, and
+     * returns the other ones, which need to go through regular inserts.
+     */
+    private Collection<SimpleFeature> bulkInsert(
+            Collection<? extends SimpleFeature> features,
+            SimpleFeatureType featureType,
+            Connection cx,
+            PrimaryKey key)
+            throws IOException, SQLException {
+        List<SimpleFeature> useExistings = new ArrayList<>();
+        List<SimpleFeature> notUseExistings = new ArrayList<>();
+        for (SimpleFeature cur : features) {
+            (InsertionClassifier.useExisting(cur) ? useExistings : notUseExistings).add(cur);
+        }
+
+        List<SimpleFeature> loaded = new ArrayList<>(features.size());
+        List<List<Object>> keyValues = new ArrayList<>(features.size());
+        List<SimpleFeature> remaining = new ArrayList<>();
+        for (List<SimpleFeature> group : Arrays.asList(useExistings, notUseExistings)) {
+            if (group.isEmpty()) {
+                continue;
+            }
+            KeysFetcher keysFetcher = KeysFetcher.create(this, cx, group == useExistings, key);
+            List<List<Object>> groupKeyValues = keysFetcher.getNextValues(cx, group);
+            if (groupKeyValues == null) {
+                remaining.addAll(group);
+            } else {
+                loaded.addAll(group);
+                keyValues.addAll(groupKeyValues);
+            }
+        }
+
+        if (!loaded.isEmpty()) {
+            LOGGER.log(Level.FINE, "Bulk loading {0} new features", loaded.size());
+            dialect.bulkInsert(featureType, key, loaded, keyValues, cx);
+
+            // report the feature ids as user data since we cant set the fid
+            for (int i = 0; i < loaded.size(); i++) {
+                String fid = featureType.getTypeName() + "." + encodeFID(keyValues.get(i));
+                loaded.get(i).getUserData().put("fid", fid);
+            }
+        }
+        return remaining;
+    }
+
     /** Specialized insertion for dialects that are using prepared statements. */
     private void insertPS(
             Collection<SimpleFeature> features,
@@ -2098,6 +2195,68 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         }
     }
 
+    /**
+     * Updates an existing feature, adding the statement to a batch instead of executing it right
+     * away. Only used with prepared statement dialects.
+     */
+    void update(
+            SimpleFeatureType featureType,
+            List<AttributeDescriptor> attributes,
+            List<Object> values,
+            String fid,
+            Connection cx,
+            StatementBatch batch)
+            throws IOException, SQLException {
+        if (attributes.isEmpty()) {
+            LOGGER.warning("Update called with no attributes, doing nothing.");
+            return;
+        }
+
+        Set<String> pkColumnNames = getColumnNames(getPrimaryKey(featureType));
+        boolean nonPkeyColumn = false;
+        for (AttributeDescriptor att : attributes) {
+            if (!pkColumnNames.contains(att.getLocalName())) {
+                nonPkeyColumn = true;
+            }
+        }
+        if (!nonPkeyColumn) {
+            throw new IllegalArgumentException(
+                    "Illegal update, must include at least one non primary key column, "
+                            + "all primary key columns are ignored.");
+        }
+
+        AttributeDescriptor[] atts = attributes.toArray(new AttributeDescriptor[attributes.size()]);
+        Object[] vals = values.toArray(new Object[values.size()]);
+        Filter filter = filterFactory.id(Collections.singleton(filterFactory.featureId(fid)));
+        PreparedFilterToSQL toSQL = createPreparedFilterToSQL(featureType);
+
+        String sql = encodeUpdateSQLPS(featureType, atts, vals, filter, pkColumnNames, toSQL);
+        PreparedStatement ps = batch.prepare(sql, cx);
+        if (batch.size() == 0) {
+            ((PreparedStatementSQLDialect) dialect).onUpdate(ps, cx, featureType);
+        }
+        setUpdateValues(ps, atts, vals, pkColumnNames, toSQL, cx);
+        batch.add(fid);
+    }
+
+    /**
+     * Deletes an existing feature, adding the statement to a batch instead of executing it right
+     * away. Only used with prepared statement dialects.
+     */
+    void delete(SimpleFeatureType featureType, String fid, Connection cx, StatementBatch batch)
+            throws IOException, SQLException {
+        Filter filter = filterFactory.id(Collections.singleton(filterFactory.featureId(fid)));
+        PreparedFilterToSQL toSQL = createPreparedFilterToSQL(featureType);
+
+        String sql = encodeDeleteSQLPS(featureType, filter, toSQL);
+        PreparedStatement ps = batch.prepare(sql, cx);
+        if (batch.size() == 0) {
+            ((PreparedStatementSQLDialect) dialect).onDelete(ps, cx, featureType);
+        }
+        setPreparedFilterValues(ps, toSQL, 0, cx);
+        batch.add(fid);
+    }
+
     /**
      * Returns a JDBC Connection to the underlying database for the specified GeoTools {@link
      * Transaction}. This has two main use cases:
@@ -4167,16 +4326,36 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
     /** Generates a 'DELETE FROM' prepared statement. */
     protected PreparedStatement deleteSQLPS(
             SimpleFeatureType featureType, Filter filter, Connection cx) throws SQLException {
+        PreparedFilterToSQL toSQL = null;
+        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+            toSQL = createPreparedFilterToSQL(featureType);
+        }
+
+        String sql = encodeDeleteSQLPS(featureType, filter, toSQL);
+        PreparedStatement ps = cx.prepareStatement(sql);
+
+        if (toSQL != null) {
+            setPreparedFilterValues(ps, toSQL, 0, cx);
+        }
+
+        return ps;
+    }
+
+    /**
+     * Encodes the SQL of a 'DELETE FROM' prepared statement, the filter is encoded only if an
+     * encoder is provided
+     */
+    private String encodeDeleteSQLPS(
+            SimpleFeatureType featureType, Filter filter, PreparedFilterToSQL toSQL)
+            throws SQLException {
         StringBuffer sql = new StringBuffer();
 
         sql.append("DELETE FROM ");
         encodeTableName(featureType.getTypeName(), sql, null);
 
-        PreparedFilterToSQL toSQL = null;
-        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+        if (toSQL != null) {
             // encode filter
             try {
-                toSQL = createPreparedFilterToSQL(featureType);
                 sql.append(" ").append(toSQL.encodeToString(filter));
             } catch (FilterToSQLException e) {
                 throw new RuntimeException(e);
@@ -4184,13 +4363,7 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         }
 
         LOGGER.fine(sql.toString());
-        PreparedStatement ps = cx.prepareStatement(sql.toString());
-
-        if (toSQL != null) {
-            setPreparedFilterValues(ps, toSQL, 0, cx);
-        }
-
-        return ps;
+        return sql.toString();
     }
 
     /**
@@ -4439,6 +4612,33 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
             Set<String> pkColumnNames,
             Connection cx)
             throws IOException, SQLException {
+        PreparedFilterToSQL toSQL = null;
+        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+            toSQL = createPreparedFilterToSQL(featureType);
+        }
+
+        String sql =
+                encodeUpdateSQLPS(featureType, attributes, values, filter, pkColumnNames, toSQL);
+        PreparedStatement ps = cx.prepareStatement(sql);
+        LOGGER.log(Level.FINE, "Updating features with prepared statement: {0}", sql);
+
+        setUpdateValues(ps, attributes, values, pkColumnNames, toSQL, cx);
+
+        return ps;
+    }
+
+    /**
+     * Encodes the SQL of an 'UPDATE' prepared statement, the filter is encoded only if an encoder
+     * is provided
+     */
+    private String encodeUpdateSQLPS(
+            SimpleFeatureType featureType,
+            AttributeDescriptor[] attributes,
+            Object[] values,
+            Filter filter,
+            Set<String> pkColumnNames,
+            PreparedFilterToSQL toSQL)
+            throws IOException, SQLException {
         PreparedStatementSQLDialect dialect = (PreparedStatementSQLDialect) getSQLDialect();
 
         StringBuffer sql = new StringBuffer();
@@ -4476,19 +4676,28 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         sql.setLength(sql.length() - 1);
         sql.append(" ");
 
-        PreparedFilterToSQL toSQL = null;
-        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+        if (toSQL != null) {
             // encode filter
             try {
-                toSQL = createPreparedFilterToSQL(featureType);
                 sql.append(" ").append(toSQL.encodeToString(filter));
             } catch (FilterToSQLException e) {
                 throw new RuntimeException(e);
             }
         }
 
-        PreparedStatement ps = cx.prepareStatement(sql.toString());
-        LOGGER.log(Level.FINE, "Updating features with prepared statement: {0}", sql);
+        return sql.toString();
+    }
+
+    /** Sets the new attribute values and the filter values of an 'UPDATE' prepared statement */
+    private void setUpdateValues(
+            PreparedStatement ps,
+            AttributeDescriptor[] attributes,
+            Object[] values,
+            Set<String> pkColumnNames,
+            PreparedFilterToSQL toSQL,
+            Connection cx)
+            throws IOException, SQLException {
+        PreparedStatementSQLDialect dialect = (PreparedStatementSQLDialect) getSQLDialect();
 
         int i = 0;
         int j = 0;
@@ -4518,8 +4727,6 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         if (toSQL != null) {
             setPreparedFilterValues(ps, toSQL, j, cx);
         }
-
-        return ps;
     }
 
     /**
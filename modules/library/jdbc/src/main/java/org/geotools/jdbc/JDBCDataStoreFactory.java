@@ -138,6 +138,19 @@ public abstract class JDBCDataStoreFactory implements DataStoreFactorySpi {
                     false,
                     1);
 
+    /**
+     * If different from one, the feature writers will group updates and deletes in JDBC batches,
+     * when the dialect supports it
+     */
+    public static final Param BATCH_UPDATE_SIZE =
+            new Param(
+                    "Batch update size",
+                    Integer.class,
+                    "Number of records updated or deleted in the same batch (default, 1). "
+                            + "Only used with prepared statements",
+                    false,
+                    1);
+
     /** Maximum amount of time the pool will wait when trying to grab a new connection * */
     public static final Param MAXWAIT =
             new Param(
@@ -318,6 +331,12 @@ public abstract class JDBCDataStoreFactory implements DataStoreFactorySpi {
             dataStore.setBatchInsertSize(batchInsertSize);
         }
 
+        // batch update size
+        Integer batchUpdateSize = (Integer) BATCH_UPDATE_SIZE.lookUp(params);
+        if (batchUpdateSize != null && batchUpdateSize > 0) {
+            dataStore.setBatchUpdateSize(batchUpdateSize);
+        }
+
         // namespace
         String namespace = (String) NAMESPACE.lookUp(params);
 
@@ -465,6 +484,7 @@ public abstract class JDBCDataStoreFactory implements DataStoreFactorySpi {
         parameters.put(MINCONN.key, MINCONN);
         parameters.put(FETCHSIZE.key, FETCHSIZE);
         parameters.put(BATCH_INSERT_SIZE.key, BATCH_INSERT_SIZE);
+        parameters.put(BATCH_UPDATE_SIZE.key, BATCH_UPDATE_SIZE);
         parameters.put(MAXWAIT.key, MAXWAIT);
         if (getValidationQuery() != null) parameters.put(VALIDATECONN.key, VALIDATECONN);
         parameters.put(TEST_WHILE_IDLE.key, TEST_WHILE_IDLE);
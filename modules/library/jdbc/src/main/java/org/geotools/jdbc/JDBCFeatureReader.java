@@ -224,6 +224,12 @@ public class JDBCFeatureReader implements FeatureReader<SimpleFeatureType, Simpl
         if (ff == null) ff = featureSource.getDataStore().getFeatureFactory();
         builder = new SimpleFeatureBuilder(featureType, ff);
 
+        // reuse the feature if asked to, unless joined features have to be attached to it
+        if (Boolean.TRUE.equals(hints.get(Hints.FEATURE_REUSE))
+                && (query == null || query.getJoins().isEmpty())) {
+            builder.setFeatureReuse(true);
+        }
+
         // find the primary key
         try {
             pkey = dataStore.getPrimaryKey(featureType);
@@ -34,20 +34,35 @@ import org.opengis.feature.simple.SimpleFeatureType;
 /**
  * Inserts features in the database. Buffers the insertions until BUFFER_SIZE is reached or the
  * writer is closed.
+ *
+ * <p>When the dialect supports bulk loading, the features added through {@link
+ * ContentFeatureStore#addFeatures(Collection)}, whose ids are reported back to the original
+ * features only once they are inserted, are buffered up to {@link #BULK_BUFFER_SIZE} instead, so
+ * that large collections can be bulk loaded.
  */
 public class JDBCInsertFeatureWriter extends JDBCFeatureReader
         implements FeatureWriter<SimpleFeatureType, SimpleFeature> {
+
+    /** Number of features added through addFeatures that are bulk loaded together */
+    static final int BULK_BUFFER_SIZE = 10000;
+
     /** Grouping elements together in order to have a decent batch size. */
-    private final ResultSetFeature[] buffer;
+    private ResultSetFeature[] buffer;
 
     private int curBufferPos = 0;
 
+    private final int batchInsertSize;
+
+    private final int bulkBufferSize;
+
     public JDBCInsertFeatureWriter(
             String sql, Connection cx, JDBCFeatureSource featureSource, Query query)
             throws SQLException, IOException {
         super(sql, cx, featureSource, featureSource.getSchema(), query);
         md = rs.getMetaData();
-        buffer = new ResultSetFeature[dataStore.getBatchInsertSize()];
+        batchInsertSize = dataStore.getBatchInsertSize();
+        buffer = new ResultSetFeature[batchInsertSize];
+        bulkBufferSize = getBulkBufferSize();
     }
 
     public JDBCInsertFeatureWriter(
@@ -55,12 +70,24 @@ public class JDBCInsertFeatureWriter extends JDBCFeatureReader
             throws SQLException, IOException {
         super(ps, cx, featureSource, featureSource.getSchema(), query);
         md = rs.getMetaData();
-        buffer = new ResultSetFeature[dataStore.getBatchInsertSize()];
+        batchInsertSize = dataStore.getBatchInsertSize();
+        buffer = new ResultSetFeature[batchInsertSize];
+        bulkBufferSize = getBulkBufferSize();
     }
 
     public JDBCInsertFeatureWriter(JDBCUpdateFeatureWriter other) throws IOException {
         super(other);
-        buffer = new ResultSetFeature[dataStore.getBatchInsertSize()];
+        batchInsertSize = dataStore.getBatchInsertSize();
+        buffer = new ResultSetFeature[batchInsertSize];
+        bulkBufferSize = getBulkBufferSize();
+    }
+
+    private int getBulkBufferSize() {
+        int threshold = dataStore.getSQLDialect().getBulkInsertThreshold();
+        if (threshold <= 0) {
+            return batchInsertSize;
+        }
+        return Math.max(batchInsertSize, Math.max(threshold, BULK_BUFFER_SIZE));
     }
 
     private ResultSetFeature getOrCreateRSF() throws IOException {
@@ -93,9 +120,16 @@ public class JDBCInsertFeatureWriter extends JDBCFeatureReader
     }
 
     public void write() throws IOException {
-        if (++curBufferPos >= buffer.length) {
+        ResultSetFeature written = buffer[curBufferPos++];
+        int bufferSize = batchInsertSize;
+        if (written.getUserData().containsKey(ContentFeatureStore.ORIGINAL_FEATURE_KEY)) {
+            bufferSize = bulkBufferSize;
+        }
+        if (curBufferPos >= bufferSize) {
             // buffer full => do the inserts
             flush();
+        } else if (curBufferPos == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, bulkBufferSize));
         }
     }
 
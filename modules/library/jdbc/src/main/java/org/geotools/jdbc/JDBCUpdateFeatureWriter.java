@@ -40,6 +40,9 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
     ResultSetFeature last;
     ReferencedEnvelope lastBounds;
 
+    /** Groups the updates and deletes in JDBC batches, null if batching is disabled */
+    StatementBatch batch;
+
     public JDBCUpdateFeatureWriter(
             String sql, Connection cx, JDBCFeatureSource featureSource, Query query)
             throws SQLException, IOException {
@@ -47,6 +50,7 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
         super(sql, cx, featureSource, featureSource.getSchema(), query);
         md = rs.getMetaData();
         last = new ResultSetFeature(rs, cx);
+        initBatch();
     }
 
     public JDBCUpdateFeatureWriter(
@@ -56,6 +60,13 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
         super(ps, cx, featureSource, featureSource.getSchema(), query);
         md = rs.getMetaData();
         last = new ResultSetFeature(rs, ps.getConnection());
+        initBatch();
+    }
+
+    private void initBatch() {
+        if (dataStore.isBatchUpdateEnabled()) {
+            batch = new StatementBatch(dataStore.getBatchUpdateSize());
+        }
     }
 
     public SimpleFeature next()
@@ -81,7 +92,11 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
 
     public void remove() throws IOException {
         try {
-            dataStore.delete(featureType, last.getID(), st.getConnection());
+            if (batch != null) {
+                dataStore.delete(featureType, last.getID(), st.getConnection(), batch);
+            } else {
+                dataStore.delete(featureType, last.getID(), st.getConnection());
+            }
 
             // issue notification
             ContentEntry entry = featureSource.getEntry();
@@ -117,7 +132,11 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
             }
 
             // do the write
-            dataStore.update(featureType, changed, values, filter, st.getConnection());
+            if (batch != null) {
+                dataStore.update(featureType, changed, values, fid, st.getConnection(), batch);
+            } else {
+                dataStore.update(featureType, changed, values, filter, st.getConnection());
+            }
 
             // issue notification
             ContentEntry entry = featureSource.getEntry();
@@ -130,11 +149,31 @@ public class JDBCUpdateFeatureWriter extends JDBCFeatureReader
         }
     }
 
+    /** Executes the pending batched updates and deletes, if any */
+    void flushBatch() throws IOException {
+        if (batch != null) {
+            try {
+                batch.flush();
+            } catch (SQLException e) {
+                throw (IOException) new IOException().initCause(e);
+            }
+        }
+    }
+
     public void close() throws IOException {
-        super.close();
-        if (last != null) {
-            last.close();
-            last = null;
+        try {
+            if (batch != null) {
+                batch.close();
+                batch = null;
+            }
+        } catch (SQLException e) {
+            throw (IOException) new IOException().initCause(e);
+        } finally {
+            super.close();
+            if (last != null) {
+                last.close();
+                last = null;
+            }
         }
     }
 }
@@ -52,7 +52,8 @@ public class JDBCUpdateInsertFeatureWriter extends JDBCUpdateFeatureWriter {
         // check parent
         boolean hasNext = super.hasNext();
         if (!hasNext) {
-            // update phase is up, switch to insert mode
+            // update phase is up, run the pending updates and switch to insert mode
+            flushBatch();
             inserter = new JDBCInsertFeatureWriter(this);
             return inserter.hasNext();
         }
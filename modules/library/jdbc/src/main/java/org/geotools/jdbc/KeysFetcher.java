@@ -123,6 +123,23 @@ abstract class KeysFetcher {
         }
     }
 
+    /**
+     * Computes the key values of a batch of features before they get inserted, used for bulk
+     * loading where the keys generated by the database cannot be read back.
+     *
+     * @return the key values of each feature, in the same order as the features, or null if some
+     *     of them can only be known after the insert
+     */
+    public List<List<Object>> getNextValues(
+            Connection cx, Collection<? extends SimpleFeature> features)
+            throws IOException, SQLException {
+        List<List<Object>> result = new ArrayList<>(features.size());
+        for (SimpleFeature feature : features) {
+            result.add(getNextValues(cx, feature));
+        }
+        return result;
+    }
+
     public abstract void addKeyColumns(StringBuffer sql);
 
     public abstract void addKeyBindings(StringBuffer sql);
@@ -356,6 +373,30 @@ abstract class KeysFetcher {
             return ret;
         }
 
+        @Override
+        public List<List<Object>> getNextValues(
+                Connection cx, Collection<? extends SimpleFeature> features)
+                throws IOException, SQLException {
+            List<List<Object>> columns = new ArrayList<>(fetchers.size());
+            for (KeyFetcher fetcher : fetchers) {
+                List<Object> values = fetcher.getNext(cx, features.size());
+                if (values == null) {
+                    return null;
+                }
+                columns.add(values);
+            }
+
+            List<List<Object>> result = new ArrayList<>(features.size());
+            for (int i = 0; i < features.size(); i++) {
+                List<Object> keyValues = new ArrayList<>(columns.size());
+                for (List<Object> column : columns) {
+                    keyValues.add(column.get(i));
+                }
+                result.add(keyValues);
+            }
+            return result;
+        }
+
         @Override
         public boolean hasAutoGeneratedKeys() {
             for (KeyFetcher fetcher : fetchers) {
@@ -374,6 +415,21 @@ abstract class KeysFetcher {
 
         public abstract Object getNext(Connection cx) throws IOException, SQLException;
 
+        /**
+         * Returns the next <tt>count</tt> values, or null if they are only known after the
+         * insert
+         */
+        public List<Object> getNext(Connection cx, int count) throws IOException, SQLException {
+            if (isPostInsert()) {
+                return null;
+            }
+            List<Object> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(getNext(cx));
+            }
+            return values;
+        }
+
         KeyFetcher(JDBCDataStore ds, PrimaryKeyColumn col) {
             this.col = col;
             StringBuffer colName = new StringBuffer();
@@ -602,5 +658,14 @@ abstract class KeysFetcher {
                         .getNextSequenceValue(ds.getDatabaseSchema(), sequenceName, cx);
             }
         }
+
+        @Override
+        public List<Object> getNext(Connection cx, int count) throws SQLException {
+            // bulk loads need the values upfront, even if the dialect would rather let the
+            // database pick them during the insert
+            String sequenceName = ((SequencedPrimaryKeyColumn) col).getSequenceName();
+            return ds.getSQLDialect()
+                    .getNextSequenceValues(ds.getDatabaseSchema(), sequenceName, count, cx);
+        }
     }
 }
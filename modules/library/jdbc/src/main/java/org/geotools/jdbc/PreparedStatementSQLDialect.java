@@ -376,4 +376,14 @@ public abstract class PreparedStatementSQLDialect extends SQLDialect {
      */
     public void onUpdate(PreparedStatement update, Connection cx, SimpleFeatureType featureType)
             throws SQLException {}
+
+    /**
+     * Returns true if the UPDATE and DELETE statements issued by the feature writers can be
+     * grouped in JDBC batches, see {@link JDBCDataStore#setBatchUpdateSize(int)}. Dialects whose
+     * driver handles {@link PreparedStatement#addBatch()} and reports the update counts of each
+     * row should opt in by returning true, the default is false.
+     */
+    public boolean isBatchUpdateSupported() {
+        return false;
+    }
 }
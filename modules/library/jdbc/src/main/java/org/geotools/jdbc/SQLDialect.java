@@ -28,6 +28,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +53,7 @@ import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.opengis.feature.FeatureVisitor;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
@@ -382,6 +384,16 @@ public abstract class SQLDialect {
         aggregates.put(SumVisitor.class, "sum");
     }
 
+    /**
+     * Returns true if {@link #registerAggregateFunctions(Map)} registers the final set of aggregate
+     * functions, allowing the datastore to cache them. Subclasses whose registrations depend on
+     * information read in {@link #initializeConnection(Connection)}, such as the database version,
+     * should return false until that information is available.
+     */
+    public boolean canCacheAggregateFunctions() {
+        return true;
+    }
+
     /**
      * Register the dialect mappings between Geotools FilterFunction names and database related
      * function.
@@ -1158,6 +1170,35 @@ public abstract class SQLDialect {
         return null;
     }
 
+    /**
+     * Obtains the next <tt>count</tt> values of a sequence, incrementing the sequence in the
+     * process. Used to compute the keys of a whole batch of features before a bulk insert.
+     *
+     * <p>The default implementation calls {@link #getNextSequenceValue(String, String,
+     * Connection)} once per value, subclasses should override to grab all the values in a single
+     * query.
+     *
+     * @param schemaName The schema name, this might be <code>null</code>.
+     * @param sequenceName The name of the sequence.
+     * @param count The number of values to generate.
+     * @param cx The database connection.
+     * @return The next values of the sequence, or <code>null</code> if the dialect cannot
+     *     generate them.
+     */
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        List<Object> values = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            Object value = getNextSequenceValue(schemaName, sequenceName, cx);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
     /**
      * Encodes how to get the next sequence value from the DB.
      *
@@ -1167,6 +1208,60 @@ public abstract class SQLDialect {
         return null;
     }
 
+    /**
+     * Returns the minimum number of features an insert must contain to be loaded with {@link
+     * #bulkInsert(SimpleFeatureType, PrimaryKey, Collection, List, Connection)}, or a non positive
+     * value if the dialect does not support bulk loading (the default).
+     */
+    public int getBulkInsertThreshold() {
+        return -1;
+    }
+
+    /**
+     * Returns true if the features can be loaded with {@link #bulkInsert(SimpleFeatureType,
+     * PrimaryKey, Collection, List, Connection)} on the provided connection. Called before the
+     * primary key values of the features get computed, the default implementation returns false.
+     *
+     * @param featureType The feature type of the features, matching the table structure.
+     * @param features The features to be inserted.
+     * @param cx The database connection.
+     */
+    public boolean canBulkInsert(
+            SimpleFeatureType featureType,
+            Collection<? extends SimpleFeature> features,
+            Connection cx)
+            throws SQLException {
+        return false;
+    }
+
+    /**
+     * Inserts a batch of new features using a database specific bulk loading facility, instead of
+     * the usual INSERT statements.
+     *
+     * <p>The primary key values are all computed before the insert and provided in
+     * <tt>keyValues</tt>, in the same order as the features and as the columns of the primary key
+     * of the table. The insert runs in the transaction the connection is part of, if any.
+     *
+     * <p>This method is given a direct connection to the database, but this connection should never
+     * be closed. Only called if {@link #canBulkInsert(SimpleFeatureType, Collection, Connection)}
+     * returned true for the same features.
+     *
+     * @param featureType The feature type of the features, matching the table structure.
+     * @param key The primary key of the table.
+     * @param features The features to be inserted.
+     * @param keyValues The primary key values of each feature.
+     * @param cx The database connection.
+     */
+    public void bulkInsert(
+            SimpleFeatureType featureType,
+            PrimaryKey key,
+            Collection<? extends SimpleFeature> features,
+            List<List<Object>> keyValues,
+            Connection cx)
+            throws SQLException, IOException {
+        throw new UnsupportedOperationException("Bulk loading is not supported by this dialect");
+    }
+
     /**
      * Returns true if this dialect can encode both {@linkplain Query#getStartIndex()} and
      * {@linkplain Query#getMaxFeatures()} into native SQL.
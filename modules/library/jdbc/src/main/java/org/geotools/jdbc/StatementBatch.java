@@ -0,0 +1,136 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Groups consecutive executions of the same prepared statement in a JDBC batch, so that they are
+ * sent to the database in a single round trip. The batch is executed when it reaches the
+ * configured size, when a statement with a different SQL is prepared, and on {@link #flush()}.
+ *
+ * <p>Each row is tracked with the id of the feature it changes, so that the features whose
+ * statement failed can be reported.
+ */
+class StatementBatch implements AutoCloseable {
+
+    static final Logger LOGGER = Logging.getLogger(StatementBatch.class);
+
+    final int batchSize;
+
+    String sql;
+
+    PreparedStatement ps;
+
+    List<String> fids = new ArrayList<>();
+
+    StatementBatch(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the statement for the provided SQL, reusing the current one if the SQL is the same,
+     * or executing the pending rows and preparing a new one otherwise
+     */
+    PreparedStatement prepare(String sql, Connection cx) throws IOException, SQLException {
+        if (ps != null && sql.equals(this.sql)) {
+            return ps;
+        }
+
+        close();
+        this.ps = cx.prepareStatement(sql);
+        this.sql = sql;
+        return ps;
+    }
+
+    /** Number of rows waiting to be executed */
+    int size() {
+        return fids.size();
+    }
+
+    /** Adds the current parameters of the statement as a new row for the feature */
+    void add(String fid) throws IOException, SQLException {
+        ps.addBatch();
+        fids.add(fid);
+        if (fids.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /** Executes the pending rows */
+    void flush() throws IOException, SQLException {
+        if (fids.isEmpty()) {
+            return;
+        }
+
+        LOGGER.log(Level.FINE, "Executing batch of {0} rows: {1}", new Object[] {fids.size(), sql});
+        try {
+            int[] counts;
+            try {
+                counts = ps.executeBatch();
+            } catch (BatchUpdateException e) {
+                throw failure(e.getUpdateCounts(), e);
+            }
+            for (int count : counts) {
+                if (count == Statement.EXECUTE_FAILED) {
+                    throw failure(counts, null);
+                }
+            }
+        } finally {
+            fids.clear();
+        }
+    }
+
+    /** Builds an exception listing the features whose row failed or was not executed */
+    IOException failure(int[] counts, SQLException cause) {
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < fids.size(); i++) {
+            if (counts == null || i >= counts.length || counts[i] == Statement.EXECUTE_FAILED) {
+                failed.add(fids.get(i));
+            }
+        }
+        IOException e = new IOException("Failed to execute " + sql + " for features " + failed);
+        if (cause != null) {
+            e.initCause(cause);
+        }
+        return e;
+    }
+
+    /** Executes the pending rows and releases the statement */
+    @Override
+    public void close() throws IOException, SQLException {
+        if (ps != null) {
+            try {
+                flush();
+            } finally {
+                ps.close();
+                ps = null;
+                sql = null;
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.geotools.jdbc;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -218,4 +219,22 @@ public class JDBCDataStoreTest {
         verify(callback, times(1)).afterNext(rowData, false);
         verify(callback, times(1)).finish(reader);
     }
+
+    @Test
+    public void testAggregateFunctionsCachedOnceComplete() {
+        JDBCDataStore store = new JDBCDataStore();
+        BasicSQLDialect dialect = mock(BasicSQLDialect.class);
+        store.setSQLDialect(dialect);
+
+        // the dialect still misses the information read from a connection
+        when(dialect.canCacheAggregateFunctions()).thenReturn(false);
+        store.getAggregateFunctions();
+        store.getAggregateFunctions();
+        verify(dialect, times(2)).registerAggregateFunctions(anyMap());
+
+        when(dialect.canCacheAggregateFunctions()).thenReturn(true);
+        store.getAggregateFunctions();
+        store.getAggregateFunctions();
+        verify(dialect, times(3)).registerAggregateFunctions(anyMap());
+    }
 }
@@ -18,7 +18,7 @@ package org.geotools.data;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -112,6 +112,12 @@ public class Diff {
     /** Spatial index; allowing quick qccess to features */
     private SpatialIndex spatialIndex;
 
+    /**
+     * Envelopes the added and modified features have been indexed with, by feature id, allowing to
+     * remove them from the spatial index without recomputing their bounds
+     */
+    private final Map<String, Envelope> indexedBounds;
+
     /** Simple object used for locking */
     Object mutex;
 
@@ -128,6 +134,7 @@ public class Diff {
         order = Collections.unmodifiableList(addedFidList);
 
         spatialIndex = new Quadtree();
+        indexedBounds = new HashMap<String, Envelope>();
         mutex = this;
     }
 
@@ -147,7 +154,10 @@ public class Diff {
         added = Collections.unmodifiableMap(addedFeatures);
         order = Collections.unmodifiableList(addedFidList);
 
-        spatialIndex = copySTRtreeFrom(other);
+        synchronized (other) {
+            indexedBounds = new HashMap<String, Envelope>(other.indexedBounds);
+            spatialIndex = copySTRtreeFrom(other);
+        }
         nextFID = other.nextFID;
         mutex = this;
     }
@@ -170,6 +180,7 @@ public class Diff {
             addedFidList.clear();
             modifiedFeatures.clear();
             spatialIndex = new Quadtree();
+            indexedBounds.clear();
         }
     }
 
@@ -181,9 +192,8 @@ public class Diff {
      */
     public void modify(String fid, SimpleFeature f) {
         synchronized (mutex) {
-            SimpleFeature old;
+            removeFromSpatialIndex(fid);
             if (addedFeatures.containsKey(fid)) {
-                old = addedFeatures.get(fid);
                 if (f == null) {
                     addedFeatures.remove(fid);
                     addedFidList.remove(fid);
@@ -191,46 +201,62 @@ public class Diff {
                     addedFeatures.put(fid, f);
                 }
             } else {
-                old = modifiedFeatures.get(fid);
                 modifiedFeatures.put(fid, f);
             }
-            if (old != null) {
-                spatialIndex.remove(ReferencedEnvelope.reference(old.getBounds()), old);
-            }
-            addToSpatialIndex(f);
+            addToSpatialIndex(fid, f);
         }
     }
 
     public void add(String fid, SimpleFeature f) {
         synchronized (mutex) {
+            removeFromSpatialIndex(fid);
             addedFeatures.put(fid, f);
             addedFidList.add(fid); // preserve order features are added in
-            addToSpatialIndex(f);
+            addToSpatialIndex(fid, f);
         }
     }
 
     protected void addToSpatialIndex(SimpleFeature f) {
-        if (f.getDefaultGeometry() != null) {
-            BoundingBox bounds = f.getBounds();
-            if (!bounds.isEmpty()) spatialIndex.insert(ReferencedEnvelope.reference(bounds), f);
+        addToSpatialIndex(f.getID(), f);
+    }
+
+    /** Indexes the feature by the bounds of its geometries, features without bounds are skipped */
+    private void addToSpatialIndex(String fid, SimpleFeature f) {
+        if (f == null || f == NULL) {
+            return;
+        }
+        BoundingBox bounds = f.getBounds();
+        if (bounds != null && !bounds.isEmpty()) {
+            Envelope envelope = ReferencedEnvelope.reference(bounds);
+            spatialIndex.insert(envelope, f);
+            indexedBounds.put(fid, envelope);
+        }
+    }
+
+    /**
+     * Removes the feature indexed with the specified id, if any. Must be called before the feature
+     * is replaced in the added or modified maps
+     */
+    private void removeFromSpatialIndex(String fid) {
+        Envelope envelope = indexedBounds.remove(fid);
+        if (envelope != null) {
+            SimpleFeature indexed = modifiedFeatures.get(fid);
+            if (indexed == null) {
+                indexed = addedFeatures.get(fid);
+            }
+            spatialIndex.remove(envelope, indexed);
         }
     }
 
     public void remove(String fid) {
         synchronized (mutex) {
-            SimpleFeature old = null;
-
+            removeFromSpatialIndex(fid);
             if (addedFeatures.containsKey(fid)) {
-                old = (SimpleFeature) addedFeatures.get(fid);
                 addedFeatures.remove(fid);
                 addedFidList.remove(fid);
             } else {
-                old = (SimpleFeature) modifiedFeatures.get(fid);
                 modifiedFeatures.put(fid, Diff.NULL);
             }
-            if (old != null) {
-                spatialIndex.remove(ReferencedEnvelope.reference(old.getBounds()), old);
-            }
         }
     }
 
@@ -298,19 +324,14 @@ public class Diff {
         Quadtree tree = new Quadtree();
 
         synchronized (diff) {
-            Iterator<Entry<String, SimpleFeature>> i = diff.added.entrySet().iterator();
-            while (i.hasNext()) {
-                Entry<String, SimpleFeature> e = i.next();
-                SimpleFeature f = (SimpleFeature) e.getValue();
-                if (!diff.modifiedFeatures.containsKey(f.getID())) {
-                    tree.insert(ReferencedEnvelope.reference(f.getBounds()), f);
+            for (Entry<String, Envelope> e : diff.indexedBounds.entrySet()) {
+                SimpleFeature f = diff.modifiedFeatures.get(e.getKey());
+                if (f == null) {
+                    f = diff.addedFeatures.get(e.getKey());
+                }
+                if (f != null) {
+                    tree.insert(e.getValue(), f);
                 }
-            }
-            Iterator<Entry<String, SimpleFeature>> j = diff.getModified().entrySet().iterator();
-            while (j.hasNext()) {
-                Entry<String, SimpleFeature> e = j.next();
-                SimpleFeature f = (SimpleFeature) e.getValue();
-                tree.insert(ReferencedEnvelope.reference(f.getBounds()), f);
             }
         }
 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.opengis.feature.Feature;
@@ -47,6 +48,10 @@ import org.opengis.filter.spatial.Within;
  * <p>Used to implement In-Process Transaction support. This implementation will need to peek ahead
  * in order to check for deletetions.
  *
+ * <p>The pending changes are looked up by feature id while the delegate reader is consumed, and
+ * when the filter has spatial bounds only the added and modified features found in the {@link
+ * Diff} spatial index are considered afterwards.
+ *
  * @author Jody Garnett, Refractions Research
  */
 public class DiffFeatureReader<T extends FeatureType, F extends Feature>
@@ -58,7 +63,12 @@ public class DiffFeatureReader<T extends FeatureType, F extends Feature>
     F next = null;
 
     private Filter filter;
-    private Set encounteredFids;
+
+    /** Ids of the pending features returned while consuming the delegate reader */
+    private Set<String> encounteredFids;
+
+    /** Bounds of the filter used to query the diff spatial index, if any */
+    private Envelope filterBounds;
 
     private Iterator<F> addedIterator;
     private Iterator<F> modifiedIterator;
@@ -94,12 +104,13 @@ public class DiffFeatureReader<T extends FeatureType, F extends Feature>
         this.reader = reader;
         this.diff = diff2;
         this.filter = filter;
-        encounteredFids = new HashSet();
+        encounteredFids = new HashSet<String>();
 
         if (filter instanceof Id) {
             fidFilter = true;
-        } else if (isSubsetOfBboxFilter(filter)) {
-            indexedGeometryFilter = true;
+        } else {
+            filterBounds = extractBboxForSpatialIndexQuery(filter);
+            indexedGeometryFilter = filterBounds != null;
         }
 
         synchronized (diff) {
@@ -149,11 +160,13 @@ public class DiffFeatureReader<T extends FeatureType, F extends Feature>
             }
 
             String fid = peek.getIdentifier().getID();
-            encounteredFids.add(fid);
-
             Map<String, SimpleFeature> modified = diff.getModified();
-            if (modified.containsKey(fid)) {
-                F changed = (F) modified.get(fid);
+            F changed = (F) modified.get(fid);
+            if (changed != null || diff.getAdded().containsKey(fid)) {
+                // only pending features can show up again while querying the diff
+                encounteredFids.add(fid);
+            }
+            if (changed != null) {
                 if (changed == Diff.NULL || !filter.evaluate(changed)) {
                     continue;
                 } else {
@@ -236,18 +249,35 @@ public class DiffFeatureReader<T extends FeatureType, F extends Feature>
                 next = (F) diff.getModified().get(fid);
                 if (next == null) {
                     next = (F) diff.getAdded().get(fid);
+                } else if (next == Diff.NULL) {
+                    next = null;
                 }
             }
         }
     }
 
     protected List getIndexedFeatures() {
-        // TODO: check geom is default geom.
-        Envelope env = null;
-        env = extractBboxForSpatialIndexQuery((BinarySpatialOperator) filter);
-        return diff.queryIndex(env);
+        return diff.queryIndex(filterBounds);
+    }
+
+    /**
+     * Extracts the area a feature must intersect to match the filter, or null if the filter does
+     * not constrain the location of the features. The diff indexes the features by the bounds of
+     * all their geometries, so the result can be used whatever geometry the filter targets.
+     */
+    protected Envelope extractBboxForSpatialIndexQuery(Filter filter) {
+        Envelope bounds =
+                (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, new Envelope());
+        if (bounds == null
+                || bounds.isNull()
+                || Double.isInfinite(bounds.getWidth())
+                || Double.isInfinite(bounds.getHeight())) {
+            return null;
+        }
+        return bounds;
     }
 
+    /** @deprecated use {@link #extractBboxForSpatialIndexQuery(Filter)} instead */
     protected Envelope extractBboxForSpatialIndexQuery(BinarySpatialOperator filter) {
         org.opengis.filter.expression.Expression leftGeom = filter.getExpression1();
         org.opengis.filter.expression.Expression rightGeom = filter.getExpression2();
@@ -268,6 +298,7 @@ public class DiffFeatureReader<T extends FeatureType, F extends Feature>
                 .equals(ae.getPropertyName());
     }
 
+    /** @deprecated no longer used, the spatial index is queried for any filter with bounds */
     protected boolean isSubsetOfBboxFilter(Filter f) {
         return filter instanceof Contains
                 || filter instanceof Crosses
@@ -19,8 +19,10 @@ package org.geotools.data;
 import java.io.IOException;
 import java.util.NoSuchElementException;
 import org.geotools.feature.IllegalAttributeException;
+import org.geotools.filter.FilterCompiler;
 import org.geotools.filter.visitor.BindingFilterVisitor;
 import org.opengis.feature.Feature;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.FeatureType;
 import org.opengis.filter.Filter;
 
@@ -54,10 +56,15 @@ public class FilteringFeatureReader<T extends FeatureType, F extends Feature>
      */
     public FilteringFeatureReader(FeatureReader<T, F> featureReader, Filter filter) {
         this.featureReader = featureReader;
+        T featureType = featureReader.getFeatureType();
+        Filter bound = (Filter) filter.accept(new BindingFilterVisitor(featureType), null);
+        // simple features are evaluated by a filter compiled for their type
         this.filter =
-                (Filter)
-                        filter.accept(
-                                new BindingFilterVisitor(featureReader.getFeatureType()), null);
+                FilterCompiler.compile(
+                        bound,
+                        featureType instanceof SimpleFeatureType
+                                ? (SimpleFeatureType) featureType
+                                : null);
         next = null;
     }
 
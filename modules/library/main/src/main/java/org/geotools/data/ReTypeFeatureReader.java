@@ -19,6 +19,7 @@ package org.geotools.data;
 import java.io.IOException;
 import java.util.NoSuchElementException;
 import org.geotools.feature.FeatureTypes;
+import org.geotools.feature.simple.ReusableSimpleFeature;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.util.Classes;
 import org.opengis.feature.IllegalAttributeException;
@@ -167,6 +168,11 @@ public class ReTypeFeatureReader
         SimpleFeature next = reader.next();
         String id = next.getID();
 
+        // if the delegate reuses its features, the retyped ones can be reused as well
+        if (next instanceof ReusableSimpleFeature && !builder.isFeatureReuse()) {
+            builder.setFeatureReuse(true);
+        }
+
         String xpath;
 
         for (int i = 0; i < types.length; i++) {
@@ -55,6 +55,9 @@ import org.opengis.feature.type.Name;
  */
 public class MemoryDataStore extends ContentDataStore {
 
+    /** True if readers iterate published snapshots of the content */
+    volatile boolean snapshotReads;
+
     public MemoryDataStore() {
         super();
     }
@@ -127,6 +130,7 @@ public class MemoryDataStore extends ContentDataStore {
             throw new DataSourceException("Problem using reader", e);
         } finally {
             reader.close();
+            publish();
         }
     }
 
@@ -154,6 +158,7 @@ public class MemoryDataStore extends ContentDataStore {
             }
         } finally {
             reader.close();
+            publish();
         }
     }
     /**
@@ -172,6 +177,7 @@ public class MemoryDataStore extends ContentDataStore {
             for (Object item : collection) {
                 addFeatureInternal((SimpleFeature) item);
             }
+            publish();
         }
     }
 
@@ -185,6 +191,7 @@ public class MemoryDataStore extends ContentDataStore {
                     addFeatureInternal(iterator.next());
                 }
             }
+            publish();
         }
     }
     /**
@@ -201,6 +208,7 @@ public class MemoryDataStore extends ContentDataStore {
             for (int i = 0; i < features.length; i++) {
                 addFeatureInternal(features[i]);
             }
+            publish();
         }
     }
 
@@ -217,6 +225,7 @@ public class MemoryDataStore extends ContentDataStore {
     public void addFeature(SimpleFeature feature) {
         synchronized (entries) {
             addFeatureInternal(feature);
+            publish();
         }
     }
 
@@ -233,6 +242,64 @@ public class MemoryDataStore extends ContentDataStore {
         }
     }
 
+    /**
+     * Switches snapshot reads on or off, off by default.
+     *
+     * <p>With snapshot reads the writers publish immutable versions of the content once done, that
+     * is when a FeatureWriter is closed or an addFeature(s) call returns, and the readers iterate
+     * the last published version without locking. Stored features are no longer modified in place,
+     * a modified copy replaces them. Old versions are reclaimed once no reader iterates them.
+     *
+     * <p>Filters the indexes can answer are still looked up in the latest content, synchronizing
+     * briefly with the writers.
+     *
+     * @param snapshotReads true to enable snapshot reads
+     */
+    public void setSnapshotReads(boolean snapshotReads) {
+        synchronized (entries) {
+            this.snapshotReads = snapshotReads;
+            for (ContentEntry entry : entries.values()) {
+                ((MemoryEntry) entry).setSnapshotReads(snapshotReads);
+            }
+        }
+    }
+
+    /**
+     * Returns true if readers iterate published snapshots of the content.
+     *
+     * @see #setSnapshotReads(boolean)
+     */
+    public boolean isSnapshotReads() {
+        return snapshotReads;
+    }
+
+    /** Publishes the content added to the entries to the snapshot readers. */
+    private void publish() {
+        if (snapshotReads) {
+            synchronized (entries) {
+                for (ContentEntry entry : entries.values()) {
+                    ((MemoryEntry) entry).publish();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an index on an attribute of the typeName features.
+     *
+     * <p>The default geometry is always indexed, attribute indexes speed up equality filters on
+     * string, boolean and numeric attributes, and range filters on numeric attributes. The index
+     * is kept up to date as features are added, modified and removed.
+     *
+     * @param typeName Type name of the features to index
+     * @param attributeName Attribute to index
+     * @throws IOException If typeName cannot be found
+     * @throws IllegalArgumentException If the attribute does not exist or cannot be indexed
+     */
+    public void createAttributeIndex(String typeName, String attributeName) throws IOException {
+        entry(typeName).addAttributeIndex(attributeName);
+    }
+
     /**
      * Access MemoryState for typeName.
      *
@@ -16,12 +16,17 @@
  */
 package org.geotools.data.memory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.geotools.data.store.ContentEntry;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.locationtech.jts.geom.Envelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
 
 /**
  * Entry used to store features (of a single FeatureType).
@@ -52,6 +57,12 @@ public class MemoryEntry extends ContentEntry {
      */
     private final Map<String, SimpleFeature> memory;
 
+    /** Indexes of the features in {@link #memory}, guarded by the memory map lock */
+    private final MemoryIndex index;
+
+    /** Published versions of {@link #memory} in snapshot read mode, null otherwise */
+    volatile MemoryVersions versions;
+
     /**
      * Entry to store content of the provided SimpleFeatureType.
      *
@@ -62,6 +73,15 @@ public class MemoryEntry extends ContentEntry {
         super(store, schema.getName());
         this.schema = schema;
         memory = Collections.synchronizedMap(new LinkedHashMap<String, SimpleFeature>());
+        index = new MemoryIndex(schema);
+        if (store.isSnapshotReads()) {
+            versions =
+                    new MemoryVersions(
+                            schema,
+                            Collections.<SimpleFeature>emptyList(),
+                            Collections.<String>emptyList(),
+                            new Envelope());
+        }
     }
 
     protected MemoryState createContentState(ContentEntry entry) {
@@ -71,6 +91,10 @@ public class MemoryEntry extends ContentEntry {
     /**
      * Access the {@link #memory} field used to store feature content.
      *
+     * <p>Features added, replaced or removed directly in the map are only picked up by the indexes
+     * when the number of features changes, and features modified in place are not picked up at
+     * all. Use a FeatureWriter to edit the content instead.
+     *
      * @return the memory
      */
     public Map<String, SimpleFeature> getMemory() {
@@ -99,6 +123,171 @@ public class MemoryEntry extends ContentEntry {
                             + feature.getFeatureType().getTypeName()
                             + ")");
         }
-        getMemory().put(feature.getID(), feature);
+        synchronized (memory) {
+            memory.put(feature.getID(), feature);
+            index.add(feature);
+            if (versions != null) {
+                versions.put(feature);
+            }
+        }
+    }
+
+    /**
+     * Applies the attributes of the modified feature to the stored one.
+     *
+     * <p>In snapshot read mode readers may be iterating the stored feature, a modified copy
+     * replaces it instead.
+     *
+     * @param live the stored feature
+     * @param modified the feature holding the new attribute values
+     */
+    void modifyFeature(SimpleFeature live, SimpleFeature modified) {
+        synchronized (memory) {
+            if (versions == null) {
+                live.setAttributes(modified.getAttributes());
+                index.add(live);
+            } else {
+                SimpleFeature copy = SimpleFeatureBuilder.copy(live);
+                copy.setAttributes(modified.getAttributes());
+                memory.put(copy.getID(), copy);
+                index.add(copy);
+                versions.put(copy);
+            }
+        }
+    }
+
+    /** Updates the indexes after the stored feature has been removed from {@link #memory}. */
+    void featureRemoved(SimpleFeature feature) {
+        synchronized (memory) {
+            index.remove(feature.getID());
+            if (versions != null) {
+                versions.remove(feature.getID());
+            }
+        }
+    }
+
+    /**
+     * Switches snapshot reads on or off.
+     *
+     * @see MemoryDataStore#setSnapshotReads(boolean)
+     */
+    void setSnapshotReads(boolean snapshotReads) {
+        synchronized (memory) {
+            if (!snapshotReads) {
+                versions = null;
+            } else if (versions == null) {
+                MemoryIndex current = getIndex();
+                versions =
+                        new MemoryVersions(
+                                schema,
+                                memory.values(),
+                                current.getAttributeIndexes(),
+                                current.getBounds());
+            }
+        }
+    }
+
+    /** Publishes the changes made so far to the snapshot readers, if any. */
+    void publish() {
+        MemoryVersions current = versions;
+        if (current != null && current.isDirty()) {
+            synchronized (memory) {
+                current.publish(index.getBounds());
+            }
+        }
+    }
+
+    /**
+     * Number of stored features, taken from the published snapshot in snapshot read mode.
+     *
+     * @return number of features
+     */
+    int size() {
+        MemoryVersions current = versions;
+        if (current != null) {
+            return current.getSnapshot().size();
+        }
+        return memory.size();
+    }
+
+    /**
+     * Adds an index on the specified attribute.
+     *
+     * @see MemoryDataStore#createAttributeIndex(String, String)
+     */
+    void addAttributeIndex(String attribute) {
+        synchronized (memory) {
+            getIndex().addAttributeIndex(attribute);
+            if (versions != null) {
+                versions.addAttributeIndex(attribute);
+                versions.publish(index.getBounds());
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the features that may match the filter, in insertion order, using the
+     * indexes to narrow them down when possible. The filter still has to be evaluated against the
+     * returned features.
+     *
+     * <p>In snapshot read mode the last published version and its indexes are used, without
+     * synchronizing with the writers.
+     *
+     * @param filter
+     * @return features to be checked against the filter
+     */
+    Iterable<SimpleFeature> getCandidates(Filter filter) {
+        MemoryVersions current = versions;
+        if (current != null) {
+            MemoryVersions.Snapshot snapshot = current.getSnapshot();
+            if (filter != Filter.INCLUDE) {
+                List<SimpleFeature> candidates = snapshot.query(filter);
+                if (candidates != null) {
+                    return candidates;
+                }
+            }
+            return snapshot;
+        }
+        synchronized (memory) {
+            if (filter != Filter.INCLUDE) {
+                List<SimpleFeature> candidates = getIndex().query(filter);
+                if (candidates != null) {
+                    return candidates;
+                }
+            }
+            return new ArrayList<>(memory.values());
+        }
+    }
+
+    /**
+     * Bounds of all the stored features, kept up to date as features are added and removed, taken
+     * from the published snapshot in snapshot read mode.
+     *
+     * @return the bounds, a null envelope if there is no geometry
+     */
+    Envelope getBounds() {
+        MemoryVersions current = versions;
+        if (current != null) {
+            return new Envelope(current.getSnapshot().getBounds());
+        }
+        synchronized (memory) {
+            return new Envelope(getIndex().getBounds());
+        }
+    }
+
+    /** Access the index, rebuilding it if the memory map has been changed directly. */
+    private MemoryIndex getIndex() {
+        if (index.size() != memory.size()) {
+            index.rebuild(memory.values());
+            if (versions != null) {
+                versions =
+                        new MemoryVersions(
+                                schema,
+                                memory.values(),
+                                index.getAttributeIndexes(),
+                                index.getBounds());
+            }
+        }
+        return index;
     }
 }
@@ -17,31 +17,48 @@
 package org.geotools.data.memory;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
 import org.geotools.data.DataSourceException;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.store.ContentState;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.FilterCompiler;
 import org.opengis.feature.IllegalAttributeException;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
 
-/** Read contents from MemoryDataStore. */
+/**
+ * Read contents from MemoryDataStore.
+ *
+ * <p>The features matching the query filter are picked using the entry indexes when possible, and
+ * only the matching ones are copied. The filter is applied again on the copies by the feature
+ * source, which also takes care of the transaction changes.
+ */
 public class MemoryFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
 
     SimpleFeatureType featureType;
     Iterator<SimpleFeature> iterator;
+    Filter filter;
+    SimpleFeature next;
 
     public MemoryFeatureReader(ContentState state, Query query) throws IOException {
         featureType = state.getFeatureType();
         MemoryEntry entry = (MemoryEntry) state.getEntry();
 
-        final List<SimpleFeature> internalCollection = new ArrayList<>(entry.getMemory().values());
-        iterator = internalCollection.iterator();
+        Filter queryFilter = query.getFilter() == null ? Filter.INCLUDE : query.getFilter();
+        iterator = entry.getCandidates(queryFilter).iterator();
+        filter = FilterCompiler.compile(queryFilter, featureType);
+    }
+
+    /** Reads the candidates matching the filter, used by the splits of a parallel read */
+    MemoryFeatureReader(
+            SimpleFeatureType featureType, Iterable<SimpleFeature> candidates, Filter filter) {
+        this.featureType = featureType;
+        this.filter = FilterCompiler.compile(filter, featureType);
+        this.iterator = candidates.iterator();
     }
 
     public SimpleFeatureType getFeatureType() {
@@ -54,21 +71,33 @@ public class MemoryFeatureReader implements FeatureReader<SimpleFeatureType, Sim
             throw new IOException("Feature Reader has been closed");
         }
 
-        try {
-            return SimpleFeatureBuilder.copy((SimpleFeature) iterator.next());
-        } catch (NoSuchElementException end) {
-            throw new DataSourceException("There are no more Features", end);
+        if (!hasNext()) {
+            throw new DataSourceException(
+                    "There are no more Features", new NoSuchElementException());
         }
+        SimpleFeature feature = next;
+        next = null;
+        return SimpleFeatureBuilder.copy(feature);
     }
 
     public boolean hasNext() {
-        return (iterator != null) && iterator.hasNext();
+        if (iterator == null) {
+            return false;
+        }
+        while (next == null && iterator.hasNext()) {
+            SimpleFeature candidate = iterator.next();
+            if (filter.evaluate(candidate)) {
+                next = candidate;
+            }
+        }
+        return next != null;
     }
 
     public void close() {
         if (iterator != null) {
             iterator = null;
         }
+        next = null;
 
         if (featureType != null) {
             featureType = null;
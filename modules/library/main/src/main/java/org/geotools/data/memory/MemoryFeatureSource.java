@@ -17,11 +17,15 @@
 package org.geotools.data.memory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.data.util.FeatureSpliterator;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.geometry.jts.ReferencedEnvelope3D;
 import org.opengis.feature.FeatureVisitor;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
@@ -58,33 +62,41 @@ public class MemoryFeatureSource extends ContentFeatureSource {
 
     @Override
     protected ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
-        if (query.getFilter() == Filter.INCLUDE) { // filtering not implemented
-            FeatureReader<SimpleFeatureType, SimpleFeature> featureReader =
-                    getReaderInternal(query);
-            CoordinateReferenceSystem crs =
-                    featureReader.getFeatureType().getCoordinateReferenceSystem();
-            ReferencedEnvelope bounds = ReferencedEnvelope.create(crs);
-            try {
-                while (featureReader.hasNext()) {
-                    SimpleFeature feature = featureReader.next();
-                    bounds.include(feature.getBounds());
-                }
-            } finally {
-                featureReader.close();
-            }
+        MemoryEntry entry = getEntry();
+        Filter filter = query.getFilter();
+        CoordinateReferenceSystem crs = getSchema().getCoordinateReferenceSystem();
+        ReferencedEnvelope bounds = ReferencedEnvelope.create(crs);
+        if (filter == Filter.INCLUDE && !(bounds instanceof ReferencedEnvelope3D)) {
+            // kept up to date by the entry
+            bounds.expandToInclude(entry.getBounds());
             return bounds;
         }
-        return null; // feature by feature scan required to count records
+        if (!query.isMaxFeaturesUnlimited() || query.getStartIndex() != null) {
+            return null; // feature by feature scan required to honour offset and limit
+        }
+        for (SimpleFeature feature : entry.getCandidates(filter)) {
+            if (filter.evaluate(feature)) {
+                bounds.include(feature.getBounds());
+            }
+        }
+        return bounds;
     }
 
     @Override
     protected int getCountInternal(Query query) throws IOException {
-        if (query.getFilter() == Filter.INCLUDE) {
-            MemoryEntry entry = getEntry();
-            return entry.getMemory().size();
+        MemoryEntry entry = getEntry();
+        Filter filter = query.getFilter();
+        if (filter == Filter.INCLUDE) {
+            return entry.size();
+        }
+        // the candidates are evaluated in place, no need to copy them as the reader does
+        int count = 0;
+        for (SimpleFeature feature : entry.getCandidates(filter)) {
+            if (filter.evaluate(feature)) {
+                count++;
+            }
         }
-        // feature by feature count required
-        return -1;
+        return count;
     }
 
     @Override
@@ -93,6 +105,18 @@ public class MemoryFeatureSource extends ContentFeatureSource {
         return new MemoryFeatureReader(getState(), query);
     }
 
+    @Override
+    protected FeatureSpliterator<SimpleFeature> getSpliteratorInternal(Query query)
+            throws IOException {
+        Filter filter = query.getFilter() == null ? Filter.INCLUDE : query.getFilter();
+        // the candidates are captured up front, the ranges are then read independently
+        List<SimpleFeature> candidates = new ArrayList<>();
+        for (SimpleFeature feature : getEntry().getCandidates(filter)) {
+            candidates.add(feature);
+        }
+        return new MemoryFeatureSpliterator(getState().getFeatureType(), candidates, filter);
+    }
+
     @Override
     protected SimpleFeatureType buildFeatureType() {
         return getState()
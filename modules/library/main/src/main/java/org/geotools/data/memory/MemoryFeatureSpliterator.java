@@ -0,0 +1,71 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import java.util.List;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.store.RangeFeatureSpliterator;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+/**
+ * Splits the candidates of a query in ranges read in parallel, each range being read by a {@link
+ * MemoryFeatureReader}, which evaluates the filter and copies the matching features.
+ */
+class MemoryFeatureSpliterator extends RangeFeatureSpliterator {
+
+    /** Ranges are not split below this size, copying smaller ones is not worth a task */
+    static final int MIN_SPLIT_SIZE = 1000;
+
+    SimpleFeatureType featureType;
+
+    List<SimpleFeature> candidates;
+
+    Filter filter;
+
+    MemoryFeatureSpliterator(
+            SimpleFeatureType featureType, List<SimpleFeature> candidates, Filter filter) {
+        super(
+                0,
+                candidates.size(),
+                MIN_SPLIT_SIZE,
+                filter == Filter.INCLUDE
+                        ? ORDERED | NONNULL | SIZED | SUBSIZED
+                        : ORDERED | NONNULL);
+        this.featureType = featureType;
+        this.candidates = candidates;
+        this.filter = filter;
+    }
+
+    MemoryFeatureSpliterator(MemoryFeatureSpliterator parent, int start, int end) {
+        super(parent, start, end);
+        this.featureType = parent.featureType;
+        this.candidates = parent.candidates;
+        this.filter = parent.filter;
+    }
+
+    @Override
+    protected FeatureReader<SimpleFeatureType, SimpleFeature> openReader(int start, int end) {
+        return new MemoryFeatureReader(featureType, candidates.subList(start, end), filter);
+    }
+
+    @Override
+    protected RangeFeatureSpliterator createSplit(int start, int end) {
+        return new MemoryFeatureSpliterator(this, start, end);
+    }
+}
@@ -93,6 +93,7 @@ public class MemoryFeatureWriter implements FeatureWriter<SimpleFeatureType, Sim
         if (live != null) {
             // remove existing content
             iterator.remove();
+            state.getEntry().featureRemoved(live);
             live = null;
             current = null;
         } else {
@@ -130,7 +131,7 @@ public class MemoryFeatureWriter implements FeatureWriter<SimpleFeatureType, Sim
                 // accept modifications
                 //
                 try {
-                    live.setAttributes(current.getAttributes());
+                    state.getEntry().modifyFeature(live, current);
                 } catch (Exception e) {
                     throw new DataSourceException(
                             "Unable to accept modifications to "
@@ -163,6 +164,8 @@ public class MemoryFeatureWriter implements FeatureWriter<SimpleFeatureType, Sim
     public void close() {
         if (iterator != null) {
             iterator = null;
+            // make the changes visible to snapshot readers
+            state.getEntry().publish();
         }
 
         if (featureType != null) {
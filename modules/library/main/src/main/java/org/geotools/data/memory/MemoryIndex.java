@@ -0,0 +1,732 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.geotools.util.Converters;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Indexes the features of a {@link MemoryEntry}: a spatial index on the default geometry, the
+ * bounds of all the features, and optional indexes on attributes, kept up to date as features are
+ * added, modified and removed.
+ *
+ * <p>The indexes are used to narrow down the features that may match a filter, the filter still
+ * has to be evaluated against the returned features. The spatial index is a JTS {@link Quadtree},
+ * as it supports inserts and removals without being rebuilt.
+ *
+ * <p>The index is not thread safe, access to it is synchronized on the entry memory map. The
+ * indexes of the {@link MemoryVersions} snapshots are only queried once published, and can be used
+ * by multiple readers at the same time.
+ */
+class MemoryIndex {
+
+    /** Key of the attribute values that cannot be looked up, they are always candidates */
+    static final Object OTHER = new Object();
+
+    static final Comparator<Item> INSERTION_ORDER =
+            new Comparator<Item>() {
+                public int compare(Item i1, Item i2) {
+                    return Long.compare(i1.sequence, i2.sequence);
+                }
+            };
+
+    final SimpleFeatureType schema;
+
+    final GeometryDescriptor geometry;
+
+    /** Position of the default geometry, or -1 if there is none */
+    final int geometryPosition;
+
+    /** True if the feature bounds are the ones of the default geometry */
+    final boolean singleGeometry;
+
+    Map<String, Item> items = new HashMap<>();
+
+    Quadtree tree = new Quadtree();
+
+    List<AttributeIndex> attributes = new ArrayList<>();
+
+    Envelope bounds = new Envelope();
+
+    /** Set when a feature on the border of the bounds is removed, the bounds may shrink */
+    boolean boundsDirty;
+
+    long sequence;
+
+    MemoryIndex(SimpleFeatureType schema) {
+        this.schema = schema;
+        this.geometry = schema.getGeometryDescriptor();
+        this.geometryPosition = geometry == null ? -1 : schema.indexOf(geometry.getName());
+        boolean single = true;
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            Class<?> binding = ad.getType().getBinding();
+            if (ad != geometry
+                    && (Geometry.class.isAssignableFrom(binding)
+                            || binding.isAssignableFrom(Geometry.class))) {
+                single = false;
+            }
+        }
+        this.singleGeometry = single;
+    }
+
+    /** Number of indexed features */
+    int size() {
+        return items.size();
+    }
+
+    /** Adds the feature to the indexes, or updates them if the feature is already indexed */
+    void add(SimpleFeature feature) {
+        add(feature, sequence);
+    }
+
+    /**
+     * Adds the feature to the indexes, or updates them if the feature is already indexed. New
+     * features are sorted by the provided order instead of the insertion order, the indexes of the
+     * {@link MemoryVersions} snapshots use the feature storage positions.
+     */
+    void add(SimpleFeature feature, long order) {
+        Item item = items.get(feature.getID());
+        if (item == null) {
+            item = new Item(order);
+            sequence = Math.max(sequence, order + 1);
+            items.put(feature.getID(), item);
+        } else {
+            unindex(item);
+        }
+        item.feature = feature;
+        index(item);
+    }
+
+    /** Removes the feature with the specified id from the indexes */
+    void remove(String fid) {
+        Item item = items.remove(fid);
+        if (item != null) {
+            unindex(item);
+        }
+    }
+
+    /** Indexes again all the features, in the provided order */
+    void rebuild(Iterable<SimpleFeature> features) {
+        items = new HashMap<>();
+        tree = new Quadtree();
+        for (AttributeIndex attribute : attributes) {
+            attribute.clear();
+        }
+        bounds = new Envelope();
+        boundsDirty = false;
+        sequence = 0;
+        for (SimpleFeature feature : features) {
+            add(feature);
+        }
+    }
+
+    /** Returns the bounds of all the indexed features */
+    Envelope getBounds() {
+        if (boundsDirty) {
+            bounds = new Envelope();
+            for (Item item : items.values()) {
+                if (item.bounds != null) {
+                    bounds.expandToInclude(item.bounds);
+                }
+            }
+            boundsDirty = false;
+        }
+        return bounds;
+    }
+
+    /** Names of the indexed attributes */
+    List<String> getAttributeIndexes() {
+        List<String> names = new ArrayList<>(attributes.size());
+        for (AttributeIndex attribute : attributes) {
+            names.add(attribute.name);
+        }
+        return names;
+    }
+
+    /**
+     * Adds an index on the specified attribute, used for equality filters, and for range filters
+     * on numeric attributes
+     *
+     * @throws IllegalArgumentException If the attribute does not exist or cannot be indexed
+     */
+    void addAttributeIndex(String name) {
+        AttributeDescriptor ad = schema.getDescriptor(name);
+        if (ad == null) {
+            throw new IllegalArgumentException(
+                    "No attribute " + name + " in " + schema.getTypeName());
+        }
+        for (AttributeIndex attribute : attributes) {
+            if (attribute.name.equals(name)) {
+                return;
+            }
+        }
+        AttributeIndex attribute = new AttributeIndex(ad, schema.indexOf(name));
+        attributes.add(attribute);
+        int last = attributes.size() - 1;
+        for (Item item : items.values()) {
+            item.keys = Arrays.copyOf(item.keys, attributes.size());
+            item.keys[last] = attribute.add(item);
+        }
+    }
+
+    /**
+     * Returns the features that may match the filter, in insertion order, or null if the indexes
+     * cannot narrow down the features to be checked
+     */
+    List<SimpleFeature> query(Filter filter) {
+        List<Item> sorted = queryItems(filter);
+        if (sorted == null) {
+            return null;
+        }
+        List<SimpleFeature> features = new ArrayList<>(sorted.size());
+        for (Item item : sorted) {
+            features.add(item.feature);
+        }
+        return features;
+    }
+
+    /**
+     * Returns the index items of the features that may match the filter, sorted by their order, or
+     * null if the indexes cannot narrow down the features to be checked
+     */
+    List<Item> queryItems(Filter filter) {
+        Collection<Item> candidates = candidates(filter);
+        if (candidates == null) {
+            return null;
+        }
+        List<Item> sorted = new ArrayList<>(candidates);
+        Collections.sort(sorted, INSERTION_ORDER);
+        return sorted;
+    }
+
+    private void index(Item item) {
+        SimpleFeature feature = item.feature;
+        item.envelope = null;
+        if (geometryPosition >= 0) {
+            Object value = feature.getAttribute(geometryPosition);
+            if (value instanceof Geometry && !((Geometry) value).isEmpty()) {
+                item.envelope = new Envelope(((Geometry) value).getEnvelopeInternal());
+                tree.insert(item.envelope, item);
+            }
+        }
+        if (singleGeometry) {
+            item.bounds = item.envelope;
+        } else {
+            ReferencedEnvelope featureBounds = ReferencedEnvelope.reference(feature.getBounds());
+            item.bounds = featureBounds.isEmpty() ? null : new Envelope(featureBounds);
+        }
+        if (item.bounds != null) {
+            bounds.expandToInclude(item.bounds);
+        }
+        if (item.keys.length != attributes.size()) {
+            item.keys = new Object[attributes.size()];
+        }
+        for (int i = 0; i < item.keys.length; i++) {
+            item.keys[i] = attributes.get(i).add(item);
+        }
+    }
+
+    private void unindex(Item item) {
+        if (item.envelope != null) {
+            tree.remove(item.envelope, item);
+        }
+        Envelope b = item.bounds;
+        if (b != null
+                && (b.getMinX() <= bounds.getMinX()
+                        || b.getMinY() <= bounds.getMinY()
+                        || b.getMaxX() >= bounds.getMaxX()
+                        || b.getMaxY() >= bounds.getMaxY())) {
+            boundsDirty = true;
+        }
+        for (int i = 0; i < item.keys.length; i++) {
+            attributes.get(i).remove(item, item.keys[i]);
+        }
+    }
+
+    private Collection<Item> candidates(Filter filter) {
+        if (filter == Filter.EXCLUDE) {
+            return Collections.emptyList();
+        } else if (filter instanceof Id) {
+            List<Item> result = new ArrayList<>();
+            for (Identifier id : ((Id) filter).getIdentifiers()) {
+                if (!(id instanceof FeatureId)) {
+                    return null;
+                }
+                Item item = items.get(((FeatureId) id).getID());
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+            return result;
+        } else if (filter instanceof And) {
+            // the smallest set of candidates is enough, the filter is evaluated anyways
+            Collection<Item> best = null;
+            for (Filter child : ((And) filter).getChildren()) {
+                Collection<Item> candidates = candidates(child);
+                if (candidates != null && (best == null || candidates.size() < best.size())) {
+                    best = candidates;
+                }
+            }
+            return best;
+        } else if (filter instanceof Or) {
+            Set<Item> result = new HashSet<>();
+            for (Filter child : ((Or) filter).getChildren()) {
+                Collection<Item> candidates = candidates(child);
+                if (candidates == null) {
+                    return null;
+                }
+                result.addAll(candidates);
+            }
+            return result;
+        } else if (filter instanceof BinarySpatialOperator) {
+            return spatialCandidates((BinarySpatialOperator) filter);
+        } else if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            AttributeIndex attribute = getAttributeIndex(between.getExpression());
+            if (attribute == null
+                    || !(between.getLowerBoundary() instanceof Literal)
+                    || !(between.getUpperBoundary() instanceof Literal)) {
+                return null;
+            }
+            return attribute.range(
+                    ((Literal) between.getLowerBoundary()).getValue(),
+                    true,
+                    ((Literal) between.getUpperBoundary()).getValue(),
+                    true);
+        } else if (filter instanceof BinaryComparisonOperator) {
+            return comparisonCandidates((BinaryComparisonOperator) filter);
+        }
+        return null;
+    }
+
+    private Collection<Item> spatialCandidates(BinarySpatialOperator filter) {
+        // all these operators imply the envelopes intersect
+        if (geometry == null
+                || !(filter instanceof BBOX
+                        || filter instanceof Intersects
+                        || filter instanceof Contains
+                        || filter instanceof Within
+                        || filter instanceof Overlaps
+                        || filter instanceof Crosses
+                        || filter instanceof Touches
+                        || filter instanceof Equals)) {
+            return null;
+        }
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        PropertyName property;
+        Literal literal;
+        if (e1 instanceof PropertyName && e2 instanceof Literal) {
+            property = (PropertyName) e1;
+            literal = (Literal) e2;
+        } else if (e2 instanceof PropertyName && e1 instanceof Literal) {
+            property = (PropertyName) e2;
+            literal = (Literal) e1;
+        } else {
+            return null;
+        }
+        String name = property.getPropertyName();
+        if (!"".equals(name) && !geometry.getLocalName().equals(name)) {
+            return null;
+        }
+
+        Object value = literal.getValue();
+        Envelope envelope;
+        CoordinateReferenceSystem crs = null;
+        if (value instanceof Geometry) {
+            envelope = ((Geometry) value).getEnvelopeInternal();
+            Object userData = ((Geometry) value).getUserData();
+            if (userData instanceof CoordinateReferenceSystem) {
+                crs = (CoordinateReferenceSystem) userData;
+            }
+        } else if (value instanceof Envelope) {
+            envelope = (Envelope) value;
+            if (value instanceof ReferencedEnvelope) {
+                crs = ((ReferencedEnvelope) value).getCoordinateReferenceSystem();
+            }
+        } else {
+            return null;
+        }
+        CoordinateReferenceSystem nativeCRS = geometry.getCoordinateReferenceSystem();
+        if (envelope.isNull()) {
+            return null;
+        } else if (crs != null && nativeCRS != null && !CRS.equalsIgnoreMetadata(crs, nativeCRS)) {
+            return null;
+        }
+
+        List<Item> result = new ArrayList<>();
+        for (Object candidate : tree.query(envelope)) {
+            Item item = (Item) candidate;
+            if (item.envelope.intersects(envelope)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private Collection<Item> comparisonCandidates(BinaryComparisonOperator filter) {
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        AttributeIndex attribute;
+        Object value;
+        boolean flipped;
+        if (e2 instanceof Literal && (attribute = getAttributeIndex(e1)) != null) {
+            value = ((Literal) e2).getValue();
+            flipped = false;
+        } else if (e1 instanceof Literal && (attribute = getAttributeIndex(e2)) != null) {
+            value = ((Literal) e1).getValue();
+            flipped = true;
+        } else {
+            return null;
+        }
+
+        if (filter instanceof PropertyIsEqualTo) {
+            return filter.isMatchingCase() ? attribute.equalTo(value) : null;
+        }
+        boolean inclusive;
+        boolean less;
+        if (filter instanceof PropertyIsLessThan) {
+            less = true;
+            inclusive = false;
+        } else if (filter instanceof PropertyIsLessThanOrEqualTo) {
+            less = true;
+            inclusive = true;
+        } else if (filter instanceof PropertyIsGreaterThan) {
+            less = false;
+            inclusive = false;
+        } else if (filter instanceof PropertyIsGreaterThanOrEqualTo) {
+            less = false;
+            inclusive = true;
+        } else {
+            return null;
+        }
+        if (less != flipped) {
+            return attribute.range(null, false, value, inclusive);
+        } else {
+            return attribute.range(value, inclusive, null, false);
+        }
+    }
+
+    private AttributeIndex getAttributeIndex(Expression expression) {
+        if (expression instanceof PropertyName) {
+            String name = ((PropertyName) expression).getPropertyName();
+            for (AttributeIndex attribute : attributes) {
+                if (attribute.name.equals(name)) {
+                    return attribute;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the exact numeric value of a number, or null if it is not a finite number of a known
+     * type
+     */
+    static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isNaN(d) || Double.isInfinite(d) ? null : new BigDecimal(d);
+        } else if (value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        return null;
+    }
+
+    /** An indexed feature, along with the index entries it has been stored under */
+    static class Item {
+        final long sequence;
+
+        SimpleFeature feature;
+
+        /** Envelope of the default geometry, or null if the feature is not in the spatial index */
+        Envelope envelope;
+
+        /** Bounds of all the feature geometries, or null if there is none */
+        Envelope bounds;
+
+        /** The keys used in each attribute index */
+        Object[] keys = new Object[0];
+
+        Item(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Index on the values of an attribute. The values are mapped to either a single item or a set
+     * of items, numbers are normalized to their exact decimal value and kept sorted.
+     */
+    static class AttributeIndex {
+        final String name;
+
+        final int position;
+
+        final Class<?> binding;
+
+        final boolean numeric;
+
+        final Map<Object, Object> values;
+
+        final Set<Item> others = new HashSet<>();
+
+        AttributeIndex(AttributeDescriptor descriptor, int position) {
+            this.name = descriptor.getLocalName();
+            this.position = position;
+            this.binding = descriptor.getType().getBinding();
+            this.numeric = Number.class.isAssignableFrom(binding);
+            if (numeric) {
+                values = new TreeMap<>();
+            } else if (String.class.equals(binding) || Boolean.class.equals(binding)) {
+                values = new HashMap<>();
+            } else {
+                throw new IllegalArgumentException(
+                        "Cannot index "
+                                + name
+                                + ", "
+                                + binding.getSimpleName()
+                                + " values are not supported");
+            }
+        }
+
+        void clear() {
+            values.clear();
+            others.clear();
+        }
+
+        /** Adds the item, returning the key it has been stored under */
+        @SuppressWarnings("unchecked")
+        Object add(Item item) {
+            Object key = key(item.feature.getAttribute(position));
+            if (key == OTHER) {
+                others.add(item);
+            } else if (key != null) {
+                Object current = values.get(key);
+                if (current == null) {
+                    values.put(key, item);
+                } else if (current instanceof Item) {
+                    Set<Item> set = new HashSet<>();
+                    set.add((Item) current);
+                    set.add(item);
+                    values.put(key, set);
+                } else {
+                    ((Set<Item>) current).add(item);
+                }
+            }
+            return key;
+        }
+
+        @SuppressWarnings("unchecked")
+        void remove(Item item, Object key) {
+            if (key == OTHER) {
+                others.remove(item);
+            } else if (key != null) {
+                Object current = values.get(key);
+                if (current == item) {
+                    values.remove(key);
+                } else if (current instanceof Set) {
+                    Set<Item> set = (Set<Item>) current;
+                    set.remove(item);
+                    if (set.size() == 1) {
+                        values.put(key, set.iterator().next());
+                    }
+                }
+            }
+        }
+
+        /** Null values never match equality or range filters, and are not indexed */
+        private Object key(Object value) {
+            if (value == null) {
+                return null;
+            } else if (numeric) {
+                BigDecimal key = toDecimal(value);
+                return key == null ? OTHER : key;
+            }
+            return binding.isInstance(value) ? value : OTHER;
+        }
+
+        /**
+         * Returns the items that may be equal to the value, or null if the value cannot be looked
+         * up. Both the value and the value converted to the attribute binding are looked up, as
+         * the equality filter tries both.
+         */
+        Collection<Item> equalTo(Object value) {
+            List<Object> keys = new ArrayList<>(2);
+            if (value == null) {
+                return null;
+            } else if (numeric) {
+                BigDecimal key =
+                        value instanceof String ? parseDecimal((String) value) : toDecimal(value);
+                if (key != null) {
+                    keys.add(key);
+                }
+                key = toDecimal(Converters.convert(value, binding));
+                if (key != null) {
+                    keys.add(key);
+                }
+            } else if (binding.isInstance(value)) {
+                keys.add(value);
+            } else if (String.class.equals(binding)) {
+                // strings are compared to other values as numbers, cannot look them up
+                return null;
+            } else {
+                Object converted = Converters.convert(value, binding);
+                if (converted != null) {
+                    keys.add(converted);
+                }
+            }
+            if (keys.isEmpty()) {
+                return null;
+            }
+
+            Set<Item> result = new LinkedHashSet<Item>(others);
+            for (Object key : keys) {
+                collect(values.get(key), result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the items that may be in the specified range, or null if the range cannot be
+         * looked up. A null boundary leaves the range open on that side.
+         */
+        Collection<Item> range(
+                Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+            if (!numeric
+                    || (lower != null && !(lower instanceof Number))
+                    || (upper != null && !(upper instanceof Number))) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            NavigableMap<Object, Object> range = (NavigableMap<Object, Object>) values;
+            if (lower != null) {
+                BigDecimal key = loosest(lower, true);
+                if (key == null) {
+                    return null;
+                }
+                range = range.tailMap(key, lowerInclusive);
+            }
+            if (upper != null) {
+                BigDecimal key = loosest(upper, false);
+                if (key == null) {
+                    return null;
+                }
+                range = range.headMap(key, upperInclusive);
+            }
+
+            List<Item> result = new ArrayList<>(others);
+            for (Object value : range.values()) {
+                collect(value, result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the loosest of the boundary and the boundary converted to the attribute binding,
+         * as the comparison filters may compare the values either way
+         */
+        private BigDecimal loosest(Object boundary, boolean lower) {
+            BigDecimal key = toDecimal(boundary);
+            if (key == null) {
+                return null;
+            }
+            BigDecimal converted = toDecimal(Converters.convert(boundary, binding));
+            if (converted != null && (converted.compareTo(key) < 0) == lower) {
+                key = converted;
+            }
+            return key;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void collect(Object value, Collection<Item> target) {
+            if (value instanceof Item) {
+                target.add((Item) value);
+            } else if (value != null) {
+                target.addAll((Set<Item>) value);
+            }
+        }
+
+        /** Parses the string the same way the equality filter does */
+        private static BigDecimal parseDecimal(String value) {
+            try {
+                return BigDecimal.valueOf(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                try {
+                    return toDecimal(Double.valueOf(value));
+                } catch (NumberFormatException e2) {
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+/**
+ * Copy on write storage of the features of a {@link MemoryEntry}, publishing immutable {@link
+ * Snapshot}s that readers iterate without locking.
+ *
+ * <p>The features are kept in insertion order in fixed size chunks. A published snapshot shares
+ * the chunks with the storage, a chunk is copied the first time it is changed after a publication,
+ * so that publishing only costs the copy of the chunk directory and of the changed chunks. Old
+ * snapshots are reclaimed by the garbage collector once the readers iterating them are done.
+ *
+ * <p>The snapshots are indexed the same way: a base {@link MemoryIndex} is shared by the
+ * snapshots, and each snapshot adds a small index of the features changed since the base was
+ * built. The base is only rebuilt once the changes outgrow a fraction of the features, so that
+ * publishing costs are proportional to the changes, and filtered reads do not synchronize with the
+ * writers either.
+ *
+ * <p>Changes are made under the entry memory map lock, and only become visible to readers once
+ * {@link #publish(Envelope)} is called.
+ */
+class MemoryVersions {
+
+    static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The base index is rebuilt once more than a chunk and more than 1 / REBASE_RATIO of the
+     * features changed
+     */
+    static final int REBASE_RATIO = 8;
+
+    final SimpleFeatureType schema;
+
+    /** Names of the attributes indexed in the snapshots */
+    List<String> indexed;
+
+    /** Chunks of features, removed features leave a null slot behind */
+    SimpleFeature[][] chunks = new SimpleFeature[0][];
+
+    /** Marks the chunks referenced by the published snapshot, copied before being changed */
+    boolean[] shared = new boolean[0];
+
+    /** Number of used slots, the next feature goes at this position */
+    int slots;
+
+    /** Number of null slots left behind by removals */
+    int removed;
+
+    Map<String, Integer> positions = new HashMap<>();
+
+    /** Index of the features as they were when it was built, shared by the snapshots */
+    MemoryIndex base;
+
+    /** Ids of the features added, modified or removed since the base index was built */
+    Set<String> changed = new HashSet<>();
+
+    /** Set when the feature positions or the indexed attributes changed, the base is stale */
+    boolean rebase = true;
+
+    volatile Snapshot snapshot;
+
+    volatile boolean dirty;
+
+    /**
+     * Creates the storage with the provided features, and publishes them
+     *
+     * @param schema the features type
+     * @param features the initial features
+     * @param indexed the attributes to be indexed in the snapshots
+     * @param bounds the bounds of the initial features
+     */
+    MemoryVersions(
+            SimpleFeatureType schema,
+            Collection<SimpleFeature> features,
+            List<String> indexed,
+            Envelope bounds) {
+        this.schema = schema;
+        this.indexed = new ArrayList<>(indexed);
+        for (SimpleFeature feature : features) {
+            put(feature);
+        }
+        publish(bounds);
+    }
+
+    /** Adds the feature, or replaces the one with the same id keeping its position */
+    void put(SimpleFeature feature) {
+        Integer slot = positions.get(feature.getID());
+        if (slot == null) {
+            slot = slots++;
+            positions.put(feature.getID(), slot);
+        }
+        writable(slot / CHUNK_SIZE)[slot % CHUNK_SIZE] = feature;
+        changed.add(feature.getID());
+        dirty = true;
+    }
+
+    /** Removes the feature with the specified id */
+    void remove(String fid) {
+        Integer slot = positions.remove(fid);
+        if (slot != null) {
+            writable(slot / CHUNK_SIZE)[slot % CHUNK_SIZE] = null;
+            changed.add(fid);
+            removed++;
+            dirty = true;
+            if (removed > CHUNK_SIZE && removed > slots / 2) {
+                compact();
+            }
+        }
+    }
+
+    /** Indexes the attribute in the snapshots published from now on */
+    void addAttributeIndex(String attribute) {
+        if (!indexed.contains(attribute)) {
+            indexed = new ArrayList<>(indexed);
+            indexed.add(attribute);
+            rebase = true;
+            dirty = true;
+        }
+    }
+
+    /** Returns true if there are changes not published yet */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Publishes the changes made so far, and returns the new snapshot
+     *
+     * @param bounds the bounds of the features being published
+     */
+    Snapshot publish(Envelope bounds) {
+        if (dirty || snapshot == null) {
+            if (rebase || changed.size() > Math.max(CHUNK_SIZE, slots / REBASE_RATIO)) {
+                base = createIndex();
+                for (int i = 0; i < slots; i++) {
+                    SimpleFeature feature = chunks[i / CHUNK_SIZE][i % CHUNK_SIZE];
+                    if (feature != null) {
+                        base.add(feature, i);
+                    }
+                }
+                changed = new HashSet<>();
+                rebase = false;
+            }
+            MemoryIndex delta = createIndex();
+            for (String fid : changed) {
+                Integer slot = positions.get(fid);
+                if (slot != null) {
+                    delta.add(chunks[slot / CHUNK_SIZE][slot % CHUNK_SIZE], slot);
+                }
+            }
+
+            int used = (slots + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            snapshot =
+                    new Snapshot(
+                            Arrays.copyOf(chunks, used),
+                            slots,
+                            slots - removed,
+                            base,
+                            delta,
+                            new HashSet<>(changed),
+                            new Envelope(bounds));
+            Arrays.fill(shared, 0, used, true);
+            dirty = false;
+        }
+        return snapshot;
+    }
+
+    /** Returns the last published snapshot, can be called without locking */
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private MemoryIndex createIndex() {
+        MemoryIndex index = new MemoryIndex(schema);
+        for (String attribute : indexed) {
+            index.addAttributeIndex(attribute);
+        }
+        return index;
+    }
+
+    private SimpleFeature[] writable(int chunk) {
+        if (chunk >= chunks.length) {
+            int length = Math.max(chunk + 1, chunks.length * 2);
+            chunks = Arrays.copyOf(chunks, length);
+            shared = Arrays.copyOf(shared, length);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new SimpleFeature[CHUNK_SIZE];
+        } else if (shared[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            shared[chunk] = false;
+        }
+        return chunks[chunk];
+    }
+
+    /** Packs the features again once too many slots have been left empty by removals */
+    private void compact() {
+        SimpleFeature[][] previous = chunks;
+        int previousSlots = slots;
+        chunks = new SimpleFeature[0][];
+        shared = new boolean[0];
+        slots = 0;
+        removed = 0;
+        positions.clear();
+        rebase = true;
+        for (int i = 0; i < previousSlots; i++) {
+            SimpleFeature feature = previous[i / CHUNK_SIZE][i % CHUNK_SIZE];
+            if (feature != null) {
+                put(feature);
+            }
+        }
+    }
+
+    /**
+     * An immutable version of the features, in insertion order. The features themselves are not
+     * modified once published either, a modified feature is stored as a new instance.
+     */
+    static class Snapshot implements Iterable<SimpleFeature> {
+        final SimpleFeature[][] chunks;
+
+        final int slots;
+
+        final int size;
+
+        /** Shared index, the features in {@link #changed} are looked up in {@link #delta} */
+        final MemoryIndex base;
+
+        /** Index of the features changed since the base was built */
+        final MemoryIndex delta;
+
+        final Set<String> changed;
+
+        final Envelope bounds;
+
+        Snapshot(
+                SimpleFeature[][] chunks,
+                int slots,
+                int size,
+                MemoryIndex base,
+                MemoryIndex delta,
+                Set<String> changed,
+                Envelope bounds) {
+            this.chunks = chunks;
+            this.slots = slots;
+            this.size = size;
+            this.base = base;
+            this.delta = delta;
+            this.changed = changed;
+            this.bounds = bounds;
+        }
+
+        /**
+         * Returns the snapshot features that may match the filter, in insertion order, or null if
+         * the indexes cannot narrow down the features to be checked. The indexes are only queried,
+         * readers of the same snapshot can use them at the same time.
+         */
+        List<SimpleFeature> query(Filter filter) {
+            List<MemoryIndex.Item> current = base.queryItems(filter);
+            if (current == null) {
+                return null;
+            }
+            List<MemoryIndex.Item> updated = delta.queryItems(filter);
+            if (updated == null) {
+                return null;
+            }
+            // both lists are sorted by storage position, merge them skipping the stale entries
+            List<SimpleFeature> result = new ArrayList<>(current.size() + updated.size());
+            int next = 0;
+            for (MemoryIndex.Item item : current) {
+                if (changed.contains(item.feature.getID())) {
+                    continue;
+                }
+                while (next < updated.size() && updated.get(next).sequence < item.sequence) {
+                    result.add(updated.get(next++).feature);
+                }
+                result.add(item.feature);
+            }
+            while (next < updated.size()) {
+                result.add(updated.get(next++).feature);
+            }
+            return result;
+        }
+
+        /** Bounds of the snapshot features, a null envelope if there is no geometry */
+        Envelope getBounds() {
+            return bounds;
+        }
+
+        /** Number of features in the snapshot */
+        int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<SimpleFeature> iterator() {
+            return new Iterator<SimpleFeature>() {
+                int slot = -1;
+
+                SimpleFeature next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && ++slot < slots) {
+                        next = chunks[slot / CHUNK_SIZE][slot % CHUNK_SIZE];
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public SimpleFeature next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    SimpleFeature result = next;
+                    next = null;
+                    return result;
+                }
+            };
+        }
+    }
+}
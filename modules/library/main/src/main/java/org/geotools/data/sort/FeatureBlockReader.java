@@ -16,29 +16,52 @@
  */
 package org.geotools.data.sort;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 
 /**
- * Reads the features stored in the specified block of a {@link RandomAccessFile}
+ * Reads back the features of a {@link FeatureRun}, in the format written by {@link
+ * FeatureRunWriter}, through a buffered {@link FileChannel}
  *
  * @author Andrea Aime - GeoSolutions
  */
-class FeatureBlockReader {
+class FeatureBlockReader implements Closeable {
+
+    static final int BUFFER_SIZE = 32 * 1024;
 
     SimpleFeature curr;
 
-    long offset;
+    long count;
+
+    FileChannel channel;
+
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    byte[] types;
 
-    int count;
+    SimpleFeatureBuilder builder;
 
-    SimpleFeatureIO io;
+    WKBReader wkbReader = new WKBReader();
 
-    public FeatureBlockReader(SimpleFeatureIO io, long start, int count) {
-        this.offset = start;
-        this.count = count;
-        this.io = io;
+    public FeatureBlockReader(FeatureRun run, SimpleFeatureType schema) throws IOException {
+        this.count = run.count;
+        this.types = FeatureRunWriter.getTypes(schema);
+        this.builder = new SimpleFeatureBuilder(schema);
+        this.channel = FileChannel.open(run.file.toPath(), StandardOpenOption.READ);
+        // start with an empty buffer
+        buffer.flip();
     }
 
     public SimpleFeature feature() throws IOException {
@@ -58,17 +81,134 @@ class FeatureBlockReader {
             return null;
         }
 
-        // move to the next feature offset
-        io.seek(offset);
+        String fid = readString();
+        for (byte type : types) {
+            byte tag = readByte();
+            if (tag == FeatureRunWriter.NULL) {
+                builder.add(null);
+            } else if (tag == FeatureRunWriter.TYPED) {
+                builder.add(readValue(type));
+            } else {
+                builder.add(deserialize(readBytes()));
+            }
+        }
+        count--;
 
-        // read the feature
-        SimpleFeature sf = io.read();
+        return builder.buildFeature(fid);
+    }
 
-        // update the offset for the next feature
-        offset = io.getOffset();
-        count--;
+    private Object readValue(byte type) throws IOException {
+        switch (type) {
+            case FeatureRunWriter.BOOLEAN:
+                return readByte() != 0;
+            case FeatureRunWriter.BYTE:
+                return readByte();
+            case FeatureRunWriter.SHORT:
+                return (short) readVarLong();
+            case FeatureRunWriter.INTEGER:
+                return (int) readVarLong();
+            case FeatureRunWriter.LONG:
+                return readVarLong();
+            case FeatureRunWriter.FLOAT:
+                ensure(4);
+                return buffer.getFloat();
+            case FeatureRunWriter.DOUBLE:
+                ensure(8);
+                return buffer.getDouble();
+            case FeatureRunWriter.STRING:
+                return readString();
+            case FeatureRunWriter.DATE:
+                return new java.util.Date(readVarLong());
+            case FeatureRunWriter.SQL_DATE:
+                return new java.sql.Date(readVarLong());
+            case FeatureRunWriter.SQL_TIME:
+                return new java.sql.Time(readVarLong());
+            case FeatureRunWriter.SQL_TIMESTAMP:
+                java.sql.Timestamp timestamp = new java.sql.Timestamp(readVarLong());
+                timestamp.setNanos((int) readVarLong());
+                return timestamp;
+            case FeatureRunWriter.GEOMETRY:
+                try {
+                    return wkbReader.read(readBytes());
+                } catch (ParseException e) {
+                    throw new IOException("Failed to parse the geometry WKB", e);
+                }
+            default:
+                throw new IOException("Unexpected attribute type " + type);
+        }
+    }
+
+    private Object deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Could not read back object", e);
+        }
+    }
+
+    private String readString() throws IOException {
+        int length = (int) readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        return new String(readRaw(length - 1), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+        return readRaw((int) readVarLong());
+    }
+
+    private byte[] readRaw(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        if (length <= buffer.capacity()) {
+            ensure(length);
+            buffer.get(bytes);
+        } else {
+            // larger than the buffer, drain it and read the rest straight from the channel
+            int buffered = buffer.remaining();
+            buffer.get(bytes, 0, buffered);
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes, buffered, length - buffered);
+            while (wrapped.hasRemaining()) {
+                if (channel.read(wrapped) < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private byte readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    private long readVarLong() throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /** Makes sure the buffer holds at least the specified amount of bytes, reading if needed */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+        }
+    }
 
-        // return the feature
-        return sf;
+    @Override
+    public void close() throws IOException {
+        channel.close();
     }
 }
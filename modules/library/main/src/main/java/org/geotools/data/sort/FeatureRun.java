@@ -0,0 +1,44 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.sort;
+
+import java.io.File;
+import java.io.IOException;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/** A sorted run of features stored in a temporary file by a {@link FeatureRunWriter} */
+class FeatureRun {
+
+    File file;
+
+    long count;
+
+    public FeatureRun(File file, long count) {
+        this.file = file;
+        this.count = count;
+    }
+
+    /** Opens a reader on the run features */
+    public FeatureBlockReader open(SimpleFeatureType schema) throws IOException {
+        return new FeatureBlockReader(this, schema);
+    }
+
+    /** Deletes the file backing the run */
+    public void delete() {
+        file.delete();
+    }
+}
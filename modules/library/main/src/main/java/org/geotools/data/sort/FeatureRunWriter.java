@@ -0,0 +1,319 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.sort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import org.geotools.util.Classes;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBWriter;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Writes a sorted run of features to a temporary file in a compact binary format, read back by a
+ * {@link FeatureBlockReader}.
+ *
+ * <p>Each value is preceded by a tag telling if it is null, encoded according to the attribute
+ * binding, or serialized. Integral numbers are written as variable length zig-zag integers, strings
+ * in UTF-8, dates as their time and geometries as WKB. Values whose class is not exactly the one of
+ * the binding fall back on Java serialization, so that they are read back unchanged.
+ */
+class FeatureRunWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // value tags
+    static final byte NULL = 0;
+
+    static final byte TYPED = 1;
+
+    static final byte SERIALIZED = 2;
+
+    // attribute types, the position in TYPE_CLASSES
+    static final byte OBJECT = 0;
+
+    static final byte BOOLEAN = 1;
+
+    static final byte BYTE = 2;
+
+    static final byte SHORT = 3;
+
+    static final byte INTEGER = 4;
+
+    static final byte LONG = 5;
+
+    static final byte FLOAT = 6;
+
+    static final byte DOUBLE = 7;
+
+    static final byte STRING = 8;
+
+    static final byte DATE = 9;
+
+    static final byte SQL_DATE = 10;
+
+    static final byte SQL_TIME = 11;
+
+    static final byte SQL_TIMESTAMP = 12;
+
+    static final byte GEOMETRY = 13;
+
+    static final Class<?>[] TYPE_CLASSES = {
+        Object.class,
+        Boolean.class,
+        Byte.class,
+        Short.class,
+        Integer.class,
+        Long.class,
+        Float.class,
+        Double.class,
+        String.class,
+        java.util.Date.class,
+        java.sql.Date.class,
+        java.sql.Time.class,
+        java.sql.Timestamp.class,
+        Geometry.class
+    };
+
+    /** Returns the type used to encode each attribute of the schema */
+    static byte[] getTypes(SimpleFeatureType schema) {
+        byte[] types = new byte[schema.getAttributeCount()];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> binding = schema.getDescriptor(i).getType().getBinding();
+            types[i] = getType(Classes.primitiveToWrapper(binding));
+        }
+        return types;
+    }
+
+    private static byte getType(Class<?> binding) {
+        if (Geometry.class.isAssignableFrom(binding)) {
+            return GEOMETRY;
+        }
+        for (byte type = BOOLEAN; type < GEOMETRY; type++) {
+            if (TYPE_CLASSES[type] == binding) {
+                return type;
+            }
+        }
+        return OBJECT;
+    }
+
+    File file;
+
+    FileChannel channel;
+
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    byte[] types;
+
+    long count;
+
+    WKBWriter wkb2D;
+
+    WKBWriter wkb3D;
+
+    boolean finished;
+
+    public FeatureRunWriter(SimpleFeatureType schema) throws IOException {
+        this.types = getTypes(schema);
+        this.file = File.createTempFile("sorted", ".features");
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /** Writes the feature at the end of the run */
+    public void write(SimpleFeature feature) throws IOException {
+        writeString(feature.getID());
+        for (int i = 0; i < types.length; i++) {
+            Object value = feature.getAttribute(i);
+            if (value == null) {
+                ensure(1);
+                buffer.put(NULL);
+            } else if (isTyped(types[i], value)) {
+                ensure(1);
+                buffer.put(TYPED);
+                writeValue(types[i], value);
+            } else {
+                ensure(1);
+                buffer.put(SERIALIZED);
+                writeBytes(serialize(value));
+            }
+        }
+        count++;
+    }
+
+    private boolean isTyped(byte type, Object value) {
+        if (type == GEOMETRY) {
+            return value instanceof Geometry;
+        }
+        // identity comparison, the value is read back as an instance of the binding
+        return type != OBJECT && value.getClass() == TYPE_CLASSES[type];
+    }
+
+    private void writeValue(byte type, Object value) throws IOException {
+        switch (type) {
+            case BOOLEAN:
+                ensure(1);
+                buffer.put((byte) (((Boolean) value) ? 1 : 0));
+                break;
+            case BYTE:
+                ensure(1);
+                buffer.put((Byte) value);
+                break;
+            case SHORT:
+            case INTEGER:
+            case LONG:
+                writeVarLong(((Number) value).longValue());
+                break;
+            case FLOAT:
+                ensure(4);
+                buffer.putFloat((Float) value);
+                break;
+            case DOUBLE:
+                ensure(8);
+                buffer.putDouble((Double) value);
+                break;
+            case STRING:
+                writeString((String) value);
+                break;
+            case DATE:
+            case SQL_DATE:
+            case SQL_TIME:
+                writeVarLong(((Date) value).getTime());
+                break;
+            case SQL_TIMESTAMP:
+                java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+                writeVarLong(timestamp.getTime());
+                writeVarLong(timestamp.getNanos());
+                break;
+            case GEOMETRY:
+                writeBytes(getWKBWriter((Geometry) value).write((Geometry) value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected attribute type " + type);
+        }
+    }
+
+    private WKBWriter getWKBWriter(Geometry geometry) {
+        Coordinate coordinate = geometry.getCoordinate();
+        if (coordinate != null && !Double.isNaN(coordinate.z)) {
+            if (wkb3D == null) {
+                wkb3D = new WKBWriter(3, true);
+            }
+            return wkb3D;
+        }
+        if (wkb2D == null) {
+            wkb2D = new WKBWriter(2, true);
+        }
+        return wkb2D;
+    }
+
+    private byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        }
+        return bos.toByteArray();
+    }
+
+    /** Writes the string length plus one (zero standing for null) followed by its UTF-8 bytes */
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1);
+            writeRaw(bytes);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(bytes.length);
+        writeRaw(bytes);
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flush();
+            if (bytes.length > buffer.capacity()) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        ensure(10);
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Completes the run, returning a reference to it that can be used to read it back */
+    public FeatureRun finish() throws IOException {
+        flush();
+        channel.close();
+        finished = true;
+        return new FeatureRun(file, count);
+    }
+
+    /** Releases the file, deleting it unless the run has been completed */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            try {
+                channel.close();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+}
@@ -16,14 +16,19 @@
  */
 package org.geotools.data.sort;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.geotools.data.Query;
 import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.simple.DelegateSimpleFeatureReader;
@@ -36,8 +41,53 @@ import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.filter.sort.SortBy;
 
+/**
+ * External merge sort of the features of a reader.
+ *
+ * <p>Features are accumulated in memory until either the {@link Hints#MAX_MEMORY_SORT} feature
+ * count or the {@link Hints#MAX_MEMORY_SORT_BYTES} estimated size is reached. If all the features
+ * fit they are sorted in memory, otherwise each batch is sorted and spilled to disk as a {@link
+ * FeatureRun}, written on a dedicated thread while the next one is read, and the runs are merged
+ * back by a {@link MergeSortReader}. Since two batches can be in memory at the same time, each gets
+ * half of the memory.
+ */
 class MergeSortDumper {
 
+    /** Default amount of memory used to hold features, when no hint is provided */
+    static final long DEFAULT_MAX_MEMORY = 32 * 1024 * 1024;
+
+    /** Default maximum number of features kept in memory, as returned by getMaxFeatures */
+    static final int DEFAULT_MAX_FEATURES = 1000;
+
+    /** Maximum number of runs merged at once, more runs get merged in multiple passes */
+    static final int MERGE_FACTOR = 64;
+
+    /** Maximum number of runs written to disk at the same time, across all the sorts */
+    static final int SPILL_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Writes the runs to disk. The blocking IO is kept out of the common fork join pool, used to
+     * sort the runs, and the number of threads stays bounded whatever the number of sorts.
+     */
+    static final ExecutorService SPILL_EXECUTOR;
+
+    static {
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        SPILL_THREADS,
+                        SPILL_THREADS,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread thread = new Thread(r, "merge-sort-spill");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        SPILL_EXECUTOR = executor;
+    }
+
     static final boolean canSort(SimpleFeatureType schema, SortBy[] sortBy) {
         if (sortBy == SortBy.UNSORTED) {
             return true;
@@ -72,9 +122,11 @@ class MergeSortDumper {
 
     static SimpleFeatureReader getDelegateReader(SimpleFeatureReader reader, Query query)
             throws IOException {
-        int maxFeatures = getMaxFeatures(query);
+        // without an explicit feature count limit only the memory one applies
+        int maxFeatures = getHint(query, Hints.MAX_MEMORY_SORT, Integer.MAX_VALUE).intValue();
+        long maxMemory = getMaxMemory(query);
 
-        return getDelegateReader(reader, query.getSortBy(), maxFeatures);
+        return getDelegateReader(reader, query.getSortBy(), maxFeatures, maxMemory);
     }
 
     /**
@@ -84,24 +136,38 @@ class MergeSortDumper {
      * @return
      */
     static int getMaxFeatures(Query query) {
+        return getHint(query, Hints.MAX_MEMORY_SORT, DEFAULT_MAX_FEATURES).intValue();
+    }
+
+    /** Gets the max amount of memory, in bytes, used to hold features from the query and hints */
+    static long getMaxMemory(Query query) {
+        return getHint(query, Hints.MAX_MEMORY_SORT_BYTES, DEFAULT_MAX_MEMORY).longValue();
+    }
+
+    private static Number getHint(Query query, Hints.Key key, Number defaultValue) {
         Hints hints = null;
         if (query != null) {
             hints = query.getHints();
         }
-        int maxFeatures = 1000;
-        if (hints != null && hints.get(Hints.MAX_MEMORY_SORT) != null) {
-            maxFeatures = (Integer) hints.get(Hints.MAX_MEMORY_SORT);
-        } else if (Hints.getSystemDefault(Hints.MAX_MEMORY_SORT) != null) {
-            maxFeatures = (Integer) Hints.getSystemDefault(Hints.MAX_MEMORY_SORT);
+        if (hints != null && hints.get(key) != null) {
+            return (Number) hints.get(key);
+        } else if (Hints.getSystemDefault(key) != null) {
+            return (Number) Hints.getSystemDefault(key);
         }
-        return maxFeatures;
+        return defaultValue;
     }
 
     static SimpleFeatureReader getDelegateReader(
             SimpleFeatureReader reader, SortBy[] sortBy, int maxFeatures) throws IOException {
         if (maxFeatures < 0) {
-            maxFeatures = getMaxFeatures(Query.ALL);
+            maxFeatures = getHint(Query.ALL, Hints.MAX_MEMORY_SORT, Integer.MAX_VALUE).intValue();
         }
+        return getDelegateReader(reader, sortBy, maxFeatures, getMaxMemory(Query.ALL));
+    }
+
+    static SimpleFeatureReader getDelegateReader(
+            SimpleFeatureReader reader, SortBy[] sortBy, int maxFeatures, long maxMemory)
+            throws IOException {
         Comparator<SimpleFeature> comparator = SortedFeatureReader.getComparator(sortBy);
 
         // easy case, no sorting needed
@@ -120,65 +186,105 @@ class MergeSortDumper {
                             + Arrays.toString(sortBy));
         }
 
-        int count = 0;
-        File file = null;
-        SimpleFeatureIO io = null;
+        long maxRunMemory = maxMemory / 2;
+        long memory = 0;
         List<SimpleFeature> features = new ArrayList<SimpleFeature>();
-        List<FeatureBlockReader> readers = new ArrayList<FeatureBlockReader>();
-        boolean cleanFile = true;
+        List<FeatureRun> runs = new ArrayList<FeatureRun>();
+        CompletableFuture<FeatureRun> pending = null;
+        boolean cleanRuns = true;
         try {
-            // read and store into files as necessary
+            // read and spill sorted runs to disk as necessary
             while (reader.hasNext()) {
                 SimpleFeature f = reader.next();
                 features.add(f);
-                count++;
-
-                if (count > maxFeatures) {
-                    Collections.sort(features, comparator);
-                    if (io == null) {
-                        file = File.createTempFile("sorted", ".features");
-                        file.delete();
-                        io = new SimpleFeatureIO(file, schema);
+                memory += estimateSize(f);
+
+                if (features.size() > maxFeatures || memory > maxRunMemory) {
+                    if (pending != null) {
+                        runs.add(await(pending));
                     }
-                    FeatureBlockReader fbr = storeToFile(io, features);
-                    readers.add(fbr);
-                    count = 0;
-                    features.clear();
+                    pending = spill(schema, features, comparator);
+                    features = new ArrayList<SimpleFeature>();
+                    memory = 0;
                 }
             }
-            // if we got to file storing, store residual features to file too
-            if (count > 0 && io != null) {
-                Collections.sort(features, comparator);
-                file = File.createTempFile("sorted", ".features");
-                file.delete();
-                FeatureBlockReader fbr = storeToFile(io, features);
-                readers.add(fbr);
-            }
 
-            // return the appropriate reader
-            if (io == null) {
-                // simple case, we managed to keep everything in memory, sort and return a
-                // reader based on the collection contents
-                Collections.sort(features, comparator);
-
-                SimpleFeatureIterator fi = new ListFeatureCollection(schema, features).features();
+            // simple case, we managed to keep everything in memory, sort and return a
+            // reader based on the collection contents
+            if (pending == null) {
+                SimpleFeatureIterator fi =
+                        new ListFeatureCollection(schema, sort(features, comparator)).features();
                 return new DelegateSimpleFeatureReader(schema, fi);
-            } else {
-                // go merge-sort
-                cleanFile = false;
-                return new MergeSortReader(schema, io, readers, comparator);
             }
 
+            // store the residual features to file too, and go merge-sort
+            FeatureRun last = await(pending);
+            pending = null;
+            runs.add(last);
+            if (!features.isEmpty()) {
+                runs.add(writeRun(schema, sort(features, comparator)));
+            }
+            runs = merge(schema, runs, comparator);
+            MergeSortReader result = new MergeSortReader(schema, runs, comparator);
+            cleanRuns = false;
+            return result;
         } finally {
-            if (cleanFile && io != null) {
-                io.close(true);
-                file.delete();
+            if (cleanRuns) {
+                if (pending != null) {
+                    try {
+                        runs.add(await(pending));
+                    } catch (IOException | RuntimeException e) {
+                        // the failed spill already removed its own file
+                    }
+                }
+                for (FeatureRun run : runs) {
+                    run.delete();
+                }
             }
 
             reader.close();
         }
     }
 
+    /** Sorts the features in the calling thread, and writes them to disk on the spill executor */
+    static CompletableFuture<FeatureRun> spill(
+            SimpleFeatureType schema,
+            List<SimpleFeature> features,
+            Comparator<SimpleFeature> comparator) {
+        SimpleFeature[] sorted = sort(features, comparator);
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        return writeRun(schema, sorted);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                SPILL_EXECUTOR);
+    }
+
+    /** Waits for a spill to complete, unwrapping the exceptions it may have thrown */
+    static FeatureRun await(CompletableFuture<FeatureRun> spill) throws IOException {
+        try {
+            return spill.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /** Stable sort of the features, using multiple threads on large lists */
+    static SimpleFeature[] sort(
+            List<SimpleFeature> features, Comparator<SimpleFeature> comparator) {
+        SimpleFeature[] array = features.toArray(new SimpleFeature[features.size()]);
+        Arrays.parallelSort(array, comparator);
+        return array;
+    }
+
     /**
      * Writes the feature attributes to a binary file
      *
@@ -186,15 +292,77 @@ class MergeSortDumper {
      * @return
      * @throws IOException
      */
-    static FeatureBlockReader storeToFile(SimpleFeatureIO io, List<SimpleFeature> features)
+    static FeatureRun writeRun(SimpleFeatureType schema, SimpleFeature[] features)
             throws IOException {
-        long start = io.getOffset();
+        try (FeatureRunWriter writer = new FeatureRunWriter(schema)) {
+            for (SimpleFeature sf : features) {
+                writer.write(sf);
+            }
+            return writer.finish();
+        }
+    }
 
-        // write each attribute in the random access file
-        for (SimpleFeature sf : features) {
-            io.write(sf);
+    /**
+     * Merges consecutive groups of runs until there are no more than {@link #MERGE_FACTOR} of
+     * them, so that the final merge does not keep too many files open at the same time
+     */
+    static List<FeatureRun> merge(
+            SimpleFeatureType schema, List<FeatureRun> runs, Comparator<SimpleFeature> comparator)
+            throws IOException {
+        List<FeatureRun> merged = new ArrayList<FeatureRun>();
+        try {
+            while (runs.size() > MERGE_FACTOR) {
+                for (int i = 0; i < runs.size(); i += MERGE_FACTOR) {
+                    List<FeatureRun> group =
+                            runs.subList(i, Math.min(i + MERGE_FACTOR, runs.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    try (MergeSortReader reader = new MergeSortReader(schema, group, comparator);
+                            FeatureRunWriter writer = new FeatureRunWriter(schema)) {
+                        while (reader.hasNext()) {
+                            writer.write(reader.next());
+                        }
+                        merged.add(writer.finish());
+                    }
+                }
+                runs = merged;
+                merged = new ArrayList<FeatureRun>();
+            }
+            return runs;
+        } catch (IOException | RuntimeException e) {
+            for (FeatureRun run : merged) {
+                run.delete();
+            }
+            for (FeatureRun run : runs) {
+                run.delete();
+            }
+            throw e;
         }
+    }
 
-        return new FeatureBlockReader(io, start, features.size());
+    /**
+     * Estimates the memory used by a feature, accounting for the object headers, the attribute
+     * values and the geometry coordinates
+     */
+    static long estimateSize(SimpleFeature feature) {
+        long size = 64;
+        String id = feature.getID();
+        if (id != null) {
+            size += 40 + 2 * id.length();
+        }
+        for (Object value : feature.getAttributes()) {
+            size += 8;
+            if (value instanceof Geometry) {
+                Geometry geometry = (Geometry) value;
+                size += 80 * geometry.getNumGeometries() + 40 * geometry.getNumPoints();
+            } else if (value instanceof CharSequence) {
+                size += 40 + 2 * ((CharSequence) value).length();
+            } else if (value != null) {
+                size += 24;
+            }
+        }
+        return size;
     }
 }
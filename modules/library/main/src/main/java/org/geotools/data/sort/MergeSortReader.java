@@ -17,7 +17,6 @@
 package org.geotools.data.sort;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -26,30 +25,49 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
 /**
- * Reads from a list of {@link FeatureBlockReader} backed by a {@link RandomAccessFile} and performs
- * the classic merge-sort algorithm
+ * Performs a k-way merge of sorted {@link FeatureRun}s, keeping the run readers in a binary heap
+ * of their indexes ordered by their current feature. Equal features are returned in run order, so
+ * that the merge is stable. Closing the reader deletes the runs.
  *
  * @author Andrea Aime - GeoSolutions
  */
 class MergeSortReader implements SimpleFeatureReader {
 
-    List<FeatureBlockReader> readers;
+    List<FeatureRun> runs;
 
-    SimpleFeatureIO io;
+    FeatureBlockReader[] readers;
+
+    /** Indexes of the readers that still have features, in heap order */
+    int[] heap;
+
+    int size;
 
     SimpleFeatureType schema;
 
     Comparator<SimpleFeature> comparator;
 
     public MergeSortReader(
-            SimpleFeatureType schema,
-            SimpleFeatureIO io,
-            List<FeatureBlockReader> readers,
-            Comparator<SimpleFeature> comparator) {
+            SimpleFeatureType schema, List<FeatureRun> runs, Comparator<SimpleFeature> comparator)
+            throws IOException {
         this.schema = schema;
         this.comparator = comparator;
-        this.readers = readers;
-        this.io = io;
+        this.runs = runs;
+        this.readers = new FeatureBlockReader[runs.size()];
+        this.heap = new int[runs.size()];
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = runs.get(i).open(schema);
+                if (readers[i].feature() != null) {
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
     }
 
     public SimpleFeatureType getFeatureType() {
@@ -58,36 +76,66 @@ class MergeSortReader implements SimpleFeatureReader {
 
     public SimpleFeature next()
             throws IOException, IllegalArgumentException, NoSuchElementException {
-        if (readers.size() == 0) {
+        if (size == 0) {
             throw new NoSuchElementException();
         }
 
-        // find the smallest feature
-        int selected = 0;
-        for (int i = 1; i < readers.size(); i++) {
-            SimpleFeature sf = readers.get(selected).feature();
-            SimpleFeature cf = readers.get(i).feature();
-            if (comparator.compare(sf, cf) > 0) {
-                selected = i;
-            }
-        }
-
-        // move on the reader of the selected feature
-        FeatureBlockReader reader = readers.get(selected);
+        // the smallest feature is the current one of the reader at the top of the heap
+        FeatureBlockReader reader = readers[heap[0]];
         SimpleFeature sf = reader.feature();
+
+        // move on the reader, and restore the heap order
         if (reader.next() == null) {
-            readers.remove(selected);
+            heap[0] = heap[--size];
+        }
+        if (size > 0) {
+            siftDown(0);
         }
 
-        // return the selected feature
         return sf;
     }
 
+    private void siftDown(int position) throws IOException {
+        int index = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], index)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+
+    /** Compares the current features of two readers, breaking ties with the run order */
+    private boolean less(int r1, int r2) throws IOException {
+        int result = comparator.compare(readers[r1].feature(), readers[r2].feature());
+        return result < 0 || (result == 0 && r1 < r2);
+    }
+
     public boolean hasNext() throws IOException {
-        return readers.size() > 0;
+        return size > 0;
     }
 
     public void close() throws IOException {
-        io.close(true);
+        size = 0;
+        try {
+            for (FeatureBlockReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (FeatureRun run : runs) {
+                run.delete();
+            }
+        }
     }
 }
@@ -68,7 +68,8 @@ public class SortedFeatureReader implements SimpleFeatureReader {
      *
      * @param reader The reader to be sorted
      * @param query The query holding the SortBy directives, and the eventual max features in memory
-     *     hint {@link Hints#MAX_MEMORY_SORT}
+     *     hint {@link Hints#MAX_MEMORY_SORT} and max memory hint {@link
+     *     Hints#MAX_MEMORY_SORT_BYTES}
      */
     public SortedFeatureReader(SimpleFeatureReader reader, Query query) throws IOException {
         this.delegate = MergeSortDumper.getDelegateReader(reader, query);
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotools.data.DataUtilities;
@@ -31,6 +32,10 @@ import org.geotools.data.Join;
 import org.geotools.data.Query;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.util.FeatureIteratorSpliterator;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.data.util.FeatureStreams;
+import org.geotools.data.util.SplittableFeatureCollection;
 import org.geotools.feature.FeatureIterator;
 import org.geotools.feature.FeatureTypes;
 import org.geotools.feature.SchemaException;
@@ -49,7 +54,8 @@ import org.opengis.filter.Filter;
  *
  * @author Jody Garnett (Refractions Research, Inc.)
  */
-public class ContentFeatureCollection implements SimpleFeatureCollection {
+public class ContentFeatureCollection
+        implements SimpleFeatureCollection, SplittableFeatureCollection<SimpleFeature> {
 
     protected static final Logger LOGGER = Logging.getLogger(ContentFeatureCollection.class);
     /** feature store the collection originated from. */
@@ -166,6 +172,28 @@ public class ContentFeatureCollection implements SimpleFeatureCollection {
         }
     }
 
+    /**
+     * Returns a spliterator over the features of the collection. When the feature source can split
+     * its native data for this query the spliterator reads ranges of it in parallel, otherwise it
+     * wraps {@link #features()} and is read sequentially.
+     *
+     * <p>The spliterator must be closed to release the resources of all its splits, see {@link
+     * FeatureStreams#toFeatureStream(FeatureSpliterator, boolean)}.
+     */
+    @Override
+    public FeatureSpliterator<SimpleFeature> spliterator() {
+        try {
+            FeatureSpliterator<SimpleFeature> spliterator = featureSource.getSpliterator(query);
+            if (spliterator != null) {
+                return spliterator;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new FeatureIteratorSpliterator<>(
+                features(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
     public ReferencedEnvelope getBounds() {
         FeatureReader<SimpleFeatureType, SimpleFeature> reader = null;
         try {
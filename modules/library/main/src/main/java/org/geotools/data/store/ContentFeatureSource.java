@@ -18,6 +18,7 @@ package org.geotools.data.store;
 
 import java.awt.RenderingHints;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import org.geotools.data.DataUtilities;
 import org.geotools.data.Diff;
 import org.geotools.data.DiffFeatureReader;
@@ -51,11 +53,26 @@ import org.geotools.data.crs.ForceCoordinateSystemFeatureReader;
 import org.geotools.data.crs.ReprojectFeatureReader;
 import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.data.sort.SortedFeatureReader;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.data.util.FeatureStreams;
 import org.geotools.data.util.NullProgressListener;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.SchemaException;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.feature.visitor.ApproxDistinctCountVisitor;
+import org.geotools.feature.visitor.ApproxMedianVisitor;
+import org.geotools.feature.visitor.ApproxQuantileVisitor;
+import org.geotools.feature.visitor.AverageVisitor;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MedianVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.feature.visitor.ParallelFeatureVisitor;
+import org.geotools.feature.visitor.StandardDeviationVisitor;
+import org.geotools.feature.visitor.SumVisitor;
+import org.geotools.feature.visitor.UniqueVisitor;
 import org.geotools.filter.function.Collection_AverageFunction;
 import org.geotools.filter.function.Collection_BoundsFunction;
 import org.geotools.filter.function.Collection_MaxFunction;
@@ -79,6 +96,7 @@ import org.opengis.filter.identity.FeatureId;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.geometry.BoundingBox;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.ProgressListener;
 
 /**
  * Abstract implementation of FeatureSource.
@@ -103,6 +121,28 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
  * @author Justin Deoliveira, The Open Planning Project
  */
 public abstract class ContentFeatureSource implements SimpleFeatureSource {
+    /**
+     * The aggregating visitors known to only keep attribute values around, the features they visit
+     * can be reused. Subclasses are not listed, they may hold on to the features; other visitors
+     * can still ask for reuse setting the {@link Hints#FEATURE_REUSE} query hint.
+     */
+    static final Set<Class<?>> FEATURE_REUSE_VISITORS =
+            Collections.unmodifiableSet(
+                    new HashSet<>(
+                            Arrays.asList(
+                                    ApproxDistinctCountVisitor.class,
+                                    ApproxMedianVisitor.class,
+                                    ApproxQuantileVisitor.class,
+                                    AverageVisitor.class,
+                                    BoundsVisitor.class,
+                                    CountVisitor.class,
+                                    MaxVisitor.class,
+                                    MedianVisitor.class,
+                                    MinVisitor.class,
+                                    StandardDeviationVisitor.class,
+                                    SumVisitor.class,
+                                    UniqueVisitor.class)));
+
     /**
      * The entry for the feature source.
      *
@@ -578,6 +618,18 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
             query = dq;
         }
 
+        // sorting in memory holds on to the features, so they cannot be reused
+        if (!canSort()
+                && query.getSortBy() != null
+                && query.getSortBy().length != 0
+                && Boolean.TRUE.equals(query.getHints().get(Hints.FEATURE_REUSE))) {
+            Hints hints = new Hints(query.getHints());
+            hints.remove(Hints.FEATURE_REUSE);
+            Query dq = new Query(query);
+            dq.setHints(hints);
+            query = dq;
+        }
+
         // check for a join
         if (!query.getJoins().isEmpty() && getQueryCapabilities().isJoiningSupported()) {
             throw new IOException("Feature source does not support joins");
@@ -618,7 +670,9 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
                     (DiffTransactionState) getTransaction().getState(getEntry());
             reader =
                     new DiffFeatureReader<SimpleFeatureType, SimpleFeature>(
-                            reader, state.getDiff());
+                            reader,
+                            state.getDiff(),
+                            query.getFilter() != null ? query.getFilter() : Filter.INCLUDE);
         }
 
         // filtering
@@ -778,7 +832,21 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
             return;
         }
 
-        // subclass could not handle, resort to manually walkign through
+        if (visitor instanceof ParallelFeatureVisitor
+                && visitInParallel(query, (ParallelFeatureVisitor) visitor, progress)) {
+            return;
+        }
+
+        // subclass could not handle, resort to manually walkign through. The built-in aggregating
+        // visitors do not hold on to the features, so let the reader reuse them if it can
+        if (FEATURE_REUSE_VISITORS.contains(visitor.getClass())
+                && getSupportedHints().contains(Hints.FEATURE_REUSE)
+                && !query.getHints().containsKey(Hints.FEATURE_REUSE)) {
+            Hints hints = new Hints(query.getHints());
+            hints.put(Hints.FEATURE_REUSE, Boolean.TRUE);
+            query = new Query(query);
+            query.setHints(hints);
+        }
         FeatureReader<SimpleFeatureType, SimpleFeature> reader = getReader(query);
         try {
             float size = progress instanceof NullProgressListener ? 0.0f : (float) getCount(query);
@@ -812,6 +880,54 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
         }
     }
 
+    /**
+     * Visits the splits of {@link #getSpliterator(Query)} in parallel, each one with its own
+     * partial visitor, and combines the partials back in the visitor.
+     *
+     * @return true if the visitor has been handled, false if the data or the visitor cannot be
+     *     split
+     */
+    boolean visitInParallel(Query query, ParallelFeatureVisitor visitor, ProgressListener progress)
+            throws IOException {
+        ParallelFeatureVisitor probe = visitor.createPartial();
+        if (probe == null || probe.getClass() != visitor.getClass() || !canVisitInParallel(query)) {
+            return false;
+        }
+        FeatureSpliterator<SimpleFeature> spliterator = getSpliterator(query);
+        if (spliterator == null) {
+            return false;
+        }
+
+        try (Stream<SimpleFeature> features = FeatureStreams.toFeatureStream(spliterator, true)) {
+            progress.started();
+            ParallelFeatureVisitor result =
+                    features.collect(
+                            visitor::createPartial,
+                            ParallelFeatureVisitor::visit,
+                            ParallelFeatureVisitor::combine);
+            visitor.combine(result);
+        } catch (UncheckedIOException e) {
+            progress.exceptionOccurred(e.getCause());
+            throw e.getCause();
+        } catch (RuntimeException unexpected) {
+            progress.exceptionOccurred(unexpected);
+            throw new IOException(
+                    "Problem visiting " + query.getTypeName() + ":" + unexpected, unexpected);
+        } finally {
+            progress.complete();
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if {@link ParallelFeatureVisitor}s can be run over the splits returned by {@link
+     * #getSpliteratorInternal(Query)}, using the common fork/join pool. Subclasses managing their
+     * own threads, or honouring a threading configuration, can override and return false.
+     */
+    protected boolean canVisitInParallel(Query query) {
+        return true;
+    }
+
     /**
      * Subclass method which allows subclasses to natively handle a visitor.
      *
@@ -858,6 +974,67 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
     protected abstract FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(
             Query query) throws IOException;
 
+    /**
+     * Returns a spliterator over the features specified by a query, able to split the native data
+     * so that the features can be read in parallel, or null if the query cannot be split.
+     *
+     * <p>The query sorting, paging, reprojection and transaction handling would break the
+     * independence of the splits, null is returned without consulting {@link
+     * #getSpliteratorInternal(Query)} when any of them is required. Filtering and retyping are
+     * applied on top of the spliterator according to {@link #canFilter()} and {@link
+     * #canRetype()}, as {@link #getReader(Query)} does.
+     */
+    FeatureSpliterator<SimpleFeature> getSpliterator(Query query) throws IOException {
+        query = joinQuery(query);
+        query = resolvePropertyNames(query);
+        if ((transaction != null && transaction != Transaction.AUTO_COMMIT && !canTransact())
+                || (query.getSortBy() != null && query.getSortBy().length > 0)
+                || query.getStartIndex() != null
+                || query.getMaxFeatures() != Query.DEFAULT_MAX
+                || query.getCoordinateSystem() != null
+                || query.getCoordinateSystemReproject() != null
+                || !query.getJoins().isEmpty()) {
+            return null;
+        }
+
+        FeatureSpliterator<SimpleFeature> spliterator = getSpliteratorInternal(query);
+        if (spliterator == null) {
+            return null;
+        }
+
+        Filter filter = Filter.INCLUDE;
+        if (!canFilter() && query.getFilter() != null) {
+            filter = query.getFilter();
+        }
+        SimpleFeatureType target = null;
+        if (!canRetype() && query.getPropertyNames() != Query.ALL_NAMES) {
+            target = SimpleFeatureTypeBuilder.retype(getSchema(), query.getPropertyNames());
+            if (target.equals(getSchema())) {
+                target = null;
+            }
+        }
+        if (filter != Filter.INCLUDE || target != null) {
+            spliterator = new WrappingFeatureSpliterator(spliterator, filter, target);
+        }
+        return spliterator;
+    }
+
+    /**
+     * Subclass hook returning a spliterator over the features specified by a query, splitting the
+     * native data so that the features can be read in parallel (see {@link
+     * RangeFeatureSpliterator} for a base class), or null if the data cannot be split.
+     *
+     * <p>The query handed to this method does not require sorting, paging, reprojection or
+     * transaction handling, the spliterator has to honour the filter and the property names just
+     * like the reader returned by {@link #getReaderInternal(Query)} would.
+     *
+     * <p>The default implementation returns null, the features are then read sequentially.
+     */
+    protected FeatureSpliterator<SimpleFeature> getSpliteratorInternal(Query query)
+            throws IOException {
+        return null;
+    }
+
     /**
      * Determines if the datastore can natively perform reprojection.
      *
@@ -0,0 +1,159 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Base class for {@link FeatureSpliterator}s reading a range of positions in the native data
+ * (records in a file, items in a list), that can be split in two halves until the ranges reach a
+ * minimum size. Each split opens its own reader, lazily, on the first call to {@link
+ * #tryAdvance(Consumer)}.
+ *
+ * <p>The splits that opened a reader are tracked in a queue shared among all splits generated from
+ * the same root, so that closing the root (as the stream does) closes all of them, even if the
+ * traversal is short-circuited.
+ */
+public abstract class RangeFeatureSpliterator implements FeatureSpliterator<SimpleFeature> {
+
+    static final Logger LOGGER = Logging.getLogger(RangeFeatureSpliterator.class);
+
+    Queue<RangeFeatureSpliterator> opened;
+
+    int minSplitSize;
+
+    int characteristics;
+
+    /** First position of the range, included */
+    protected int start;
+
+    /** Last position of the range, excluded */
+    protected int end;
+
+    FeatureReader<SimpleFeatureType, SimpleFeature> reader;
+
+    /**
+     * Builds a root spliterator
+     *
+     * @param start the first position, included
+     * @param end the last position, excluded
+     * @param minSplitSize the ranges are not split below this size
+     * @param characteristics the {@link java.util.Spliterator} characteristics
+     */
+    protected RangeFeatureSpliterator(int start, int end, int minSplitSize, int characteristics) {
+        this.opened = new ConcurrentLinkedQueue<>();
+        this.start = start;
+        this.end = end;
+        this.minSplitSize = Math.max(1, minSplitSize);
+        this.characteristics = characteristics;
+    }
+
+    /** Builds a split of the parent spliterator, sharing its settings and resource tracking */
+    protected RangeFeatureSpliterator(RangeFeatureSpliterator parent, int start, int end) {
+        this.opened = parent.opened;
+        this.start = start;
+        this.end = end;
+        this.minSplitSize = parent.minSplitSize;
+        this.characteristics = parent.characteristics;
+    }
+
+    /** Opens a reader over the features between start (included) and end (excluded) */
+    protected abstract FeatureReader<SimpleFeatureType, SimpleFeature> openReader(
+            int start, int end) throws IOException;
+
+    /** Creates a split reading the features between start (included) and end (excluded) */
+    protected abstract RangeFeatureSpliterator createSplit(int start, int end);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SimpleFeature> action) {
+        try {
+            if (reader == null) {
+                if (start >= end) {
+                    return false;
+                }
+                reader = openReader(start, end);
+                opened.add(this);
+            }
+            if (reader.hasNext()) {
+                action.accept(reader.next());
+                return true;
+            }
+            closeReader();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public RangeFeatureSpliterator trySplit() {
+        // cannot split once we started reading, or if the ranges would become too small
+        int size = end - start;
+        if (reader != null || size < 2 * minSplitSize) {
+            return null;
+        }
+        int middle = start + size / 2;
+        RangeFeatureSpliterator prefix = createSplit(start, middle);
+        start = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(0, end - start);
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    @Override
+    public void close() {
+        closeReader();
+        for (RangeFeatureSpliterator split : opened) {
+            split.closeReader();
+        }
+        opened.clear();
+    }
+
+    /** Closes the reader of this split only, marking its range as consumed */
+    void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close split reader", e);
+            } finally {
+                reader = null;
+                // tryAdvance will not reopen the range
+                start = end;
+            }
+        }
+    }
+}
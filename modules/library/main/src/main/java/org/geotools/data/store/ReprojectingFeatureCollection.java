@@ -74,6 +74,9 @@ public class ReprojectingFeatureCollection extends DecoratingSimpleFeatureCollec
     /** Transformer used to transform geometries; */
     GeometryCoordinateSequenceTransformer transformer;
 
+    /** Maximum number of features reprojected together by the iterators */
+    int batchSize = ReprojectingFeatureIterator.DEFAULT_BATCH_SIZE;
+
     public ReprojectingFeatureCollection(
             FeatureCollection<SimpleFeatureType, SimpleFeature> delegate,
             CoordinateReferenceSystem target) {
@@ -119,6 +122,16 @@ public class ReprojectingFeatureCollection extends DecoratingSimpleFeatureCollec
         this.transformer = transformer;
     }
 
+    /**
+     * Sets the maximum number of features reprojected together, 1 reprojects the features one at a
+     * time as they are requested
+     *
+     * @see ReprojectingFeatureIterator#setBatchSize(int)
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     private MathTransform transform(
             CoordinateReferenceSystem source, CoordinateReferenceSystem target) {
         try {
@@ -142,8 +155,11 @@ public class ReprojectingFeatureCollection extends DecoratingSimpleFeatureCollec
 
     public SimpleFeatureIterator features() {
         try {
-            return new ReprojectingFeatureIterator(
-                    delegate.features(), transform, schema, transformer);
+            ReprojectingFeatureIterator iterator =
+                    new ReprojectingFeatureIterator(
+                            delegate.features(), transform, schema, transformer);
+            iterator.setBatchSize(batchSize);
+            return iterator;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -167,7 +183,10 @@ public class ReprojectingFeatureCollection extends DecoratingSimpleFeatureCollec
             }
         }
 
-        return new ReprojectingFeatureCollection(delegate.subCollection(filter), target);
+        ReprojectingFeatureCollection result =
+                new ReprojectingFeatureCollection(delegate.subCollection(filter), target);
+        result.setBatchSize(batchSize);
+        return result;
     }
 
     public SimpleFeatureCollection sort(SortBy order) {
@@ -17,8 +17,11 @@
 package org.geotools.data.store;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.simple.ReusableSimpleFeature;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.geometry.jts.GeometryCoordinateSequenceTransformer;
 import org.geotools.referencing.ReferencingFactoryFinder;
@@ -34,8 +37,21 @@ import org.opengis.referencing.operation.MathTransform2D;
 import org.opengis.referencing.operation.OperationNotFoundException;
 import org.opengis.referencing.operation.TransformException;
 
+/**
+ * Reprojects the geometries of the features returned by a delegate iterator.
+ *
+ * <p>Unless the batch size is set to 1, the iterator reads a batch of features ahead of the caller
+ * and reprojects all their geometries with a single {@link MathTransform} call, see {@link
+ * GeometryCoordinateSequenceTransformer#transform(Geometry[])}.
+ */
 public class ReprojectingFeatureIterator implements SimpleFeatureIterator {
 
+    /** Default number of features reprojected together */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /** Number of points after which a batch is closed, even if not full */
+    static final int MAX_BATCH_POINTS = 16384;
+
     /** decorated iterator */
     SimpleFeatureIterator delegate;
 
@@ -48,6 +64,18 @@ public class ReprojectingFeatureIterator implements SimpleFeatureIterator {
     /** Transformer */
     GeometryCoordinateSequenceTransformer tx;
 
+    /** Maximum number of features reprojected together */
+    int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Source features read ahead of the caller */
+    List<SimpleFeature> sources = new ArrayList<SimpleFeature>();
+
+    /** The reprojected features, or null if the batch has to be reprojected one by one */
+    List<SimpleFeature> reprojected;
+
+    /** Position of the next feature in the current batch */
+    int position;
+
     public ReprojectingFeatureIterator(
             SimpleFeatureIterator delegate,
             MathTransform transform,
@@ -85,19 +113,99 @@ public class ReprojectingFeatureIterator implements SimpleFeatureIterator {
         return delegate;
     }
 
+    /** Returns the maximum number of features reprojected together */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of features reprojected together, 1 disables the read ahead and
+     * reprojects the features as they are requested
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
     public boolean hasNext() {
-        return delegate.hasNext();
+        return position < sources.size() || delegate.hasNext();
     }
 
     public SimpleFeature next() {
-        SimpleFeature feature = (SimpleFeature) delegate.next();
+        if (batchSize == 1 && position >= sources.size()) {
+            SimpleFeature feature = (SimpleFeature) delegate.next();
+            try {
+                return reproject(feature);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        if (position >= sources.size()) {
+            readBatch();
+        }
+        SimpleFeature source = sources.get(position);
+        SimpleFeature feature = reprojected != null ? reprojected.get(position) : null;
+        sources.set(position, null);
+        position++;
+        if (feature != null) {
+            return feature;
+        }
         try {
-            return reproject(feature);
+            return reproject(source);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /** Reads the next batch of features, and reprojects all of them at once */
+    void readBatch() {
+        sources.clear();
+        reprojected = null;
+        position = 0;
+
+        List<Geometry> geometries = new ArrayList<Geometry>();
+        int points = 0;
+        while (sources.size() < batchSize && points < MAX_BATCH_POINTS && delegate.hasNext()) {
+            // the feature is kept around while the next ones are read
+            SimpleFeature feature = ReusableSimpleFeature.detach(delegate.next());
+            sources.add(feature);
+            for (Object value : feature.getAttributes()) {
+                if (value instanceof Geometry) {
+                    geometries.add((Geometry) value);
+                    points += ((Geometry) value).getNumPoints();
+                }
+            }
+        }
+        if (sources.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+
+        Geometry[] transformed;
+        try {
+            transformed = tx.transform(geometries.toArray(new Geometry[geometries.size()]));
+        } catch (TransformException | RuntimeException e) {
+            // reproject one feature at a time instead, to report the one that failed
+            return;
+        }
+
+        reprojected = new ArrayList<SimpleFeature>(sources.size());
+        int g = 0;
+        for (SimpleFeature feature : sources) {
+            List<Object> attributes = feature.getAttributes();
+            for (int i = 0; i < attributes.size(); i++) {
+                if (attributes.get(i) instanceof Geometry) {
+                    attributes.set(i, transformed[g++]);
+                }
+            }
+            try {
+                reprojected.add(SimpleFeatureBuilder.build(schema, attributes, feature.getID()));
+            } catch (IllegalAttributeException e) {
+                // reported when the feature is reprojected on its own
+                reprojected.add(null);
+            }
+        }
+    }
+
     SimpleFeature reproject(SimpleFeature feature) throws IOException {
 
         List<Object> attributes = feature.getAttributes();
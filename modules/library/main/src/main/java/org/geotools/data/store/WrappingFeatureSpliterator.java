@@ -0,0 +1,97 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+/**
+ * Applies the query filter and retyping on top of the spliterator returned by a feature source
+ * that cannot filter or retype natively, the same way {@link ContentFeatureSource#getReader} wraps
+ * the readers.
+ */
+class WrappingFeatureSpliterator implements FeatureSpliterator<SimpleFeature> {
+
+    Spliterator<SimpleFeature> delegate;
+
+    Filter filter;
+
+    SimpleFeatureType target;
+
+    SimpleFeature current;
+
+    /**
+     * @param delegate the wrapped spliterator
+     * @param filter the filter to apply, or {@link Filter#INCLUDE}
+     * @param target the type to retype the features to, or null
+     */
+    WrappingFeatureSpliterator(
+            Spliterator<SimpleFeature> delegate, Filter filter, SimpleFeatureType target) {
+        this.delegate = delegate;
+        this.filter = filter;
+        this.target = target;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SimpleFeature> action) {
+        while (delegate.tryAdvance(f -> current = f)) {
+            SimpleFeature feature = current;
+            current = null;
+            if (filter.evaluate(feature)) {
+                if (target != null) {
+                    feature = SimpleFeatureBuilder.retype(feature, target);
+                }
+                action.accept(feature);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<SimpleFeature> trySplit() {
+        Spliterator<SimpleFeature> split = delegate.trySplit();
+        return split == null ? null : new WrappingFeatureSpliterator(split, filter, target);
+    }
+
+    @Override
+    public long estimateSize() {
+        // filtering can only make the actual result smaller
+        return delegate.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = delegate.characteristics();
+        if (filter != Filter.INCLUDE) {
+            characteristics &= ~(SIZED | SUBSIZED);
+        }
+        return characteristics;
+    }
+
+    @Override
+    public void close() {
+        if (delegate instanceof FeatureSpliterator) {
+            ((FeatureSpliterator<?>) delegate).close();
+        }
+    }
+}
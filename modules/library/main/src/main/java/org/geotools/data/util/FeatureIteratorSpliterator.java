@@ -0,0 +1,74 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.util;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import org.geotools.feature.FeatureIterator;
+import org.opengis.feature.Feature;
+
+/**
+ * A {@link FeatureSpliterator} reading a {@link FeatureIterator}. The iterator is read
+ * sequentially, splits are batches of features already read, so parallel traversals only
+ * parallelize the processing of the features.
+ *
+ * @param <F> the feature type
+ */
+public class FeatureIteratorSpliterator<F extends Feature> implements FeatureSpliterator<F> {
+
+    FeatureIterator<F> iterator;
+
+    Spliterator<F> delegate;
+
+    public FeatureIteratorSpliterator(FeatureIterator<F> iterator, int characteristics) {
+        this.iterator = iterator;
+        this.delegate =
+                Spliterators.spliteratorUnknownSize(
+                        new FeatureStreams.StreamFeatureIterator<>(iterator), characteristics);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super F> action) {
+        return delegate.tryAdvance(action);
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super F> action) {
+        delegate.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<F> trySplit() {
+        return delegate.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+        return delegate.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return delegate.characteristics();
+    }
+
+    @Override
+    public void close() {
+        iterator.close();
+    }
+}
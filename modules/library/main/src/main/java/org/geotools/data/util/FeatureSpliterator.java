@@ -0,0 +1,40 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.util;
+
+import java.io.Closeable;
+import java.util.Spliterator;
+import org.geotools.feature.FeatureIterator;
+import org.opengis.feature.Feature;
+
+/**
+ * A {@link Spliterator} over features, that might be backed by open files or connections, and thus
+ * needs to be closed once the traversal is done, just like a {@link FeatureIterator}.
+ *
+ * <p>Implementations that can split the native data (e.g., record ranges in a file, or slices of
+ * an in memory list) allow streams of features to be traversed in parallel. Closing the spliterator
+ * the stream has been built from releases the resources of all the splits generated from it.
+ *
+ * @param <F> the feature type
+ * @see FeatureStreams#toFeatureStream(FeatureSpliterator, boolean)
+ */
+public interface FeatureSpliterator<F extends Feature> extends Spliterator<F>, Closeable {
+
+    /** Releases the resources held by this spliterator and by all the splits generated from it */
+    @Override
+    void close();
+}
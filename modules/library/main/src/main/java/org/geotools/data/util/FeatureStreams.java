@@ -18,7 +18,6 @@ package org.geotools.data.util;
 
 import java.io.Closeable;
 import java.util.Iterator;
-import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.geotools.feature.FeatureCollection;
@@ -37,19 +36,37 @@ public final class FeatureStreams {
 
     /**
      * Converts FeatureCollection to Stream of Features Use with try-with-resources clause for auto
-     * closing
+     * closing. The stream is sequential, but when the collection can split its native data (see
+     * {@link SplittableFeatureCollection}) calling {@link Stream#parallel()} on it reads the
+     * features in parallel.
      *
      * @param fc
      * @return
      */
+    @SuppressWarnings("unchecked")
     public static <T extends Feature, K extends FeatureType> Stream<T> toFeatureStream(
             FeatureCollection<K, T> fc) {
-        StreamFeatureIterator<T> fi = new StreamFeatureIterator<>(fc.features());
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(fi, 0), false)
-                .onClose(
-                        () -> {
-                            fi.close();
-                        });
+        FeatureSpliterator<T> spliterator;
+        if (fc instanceof SplittableFeatureCollection) {
+            spliterator = ((SplittableFeatureCollection<T>) fc).spliterator();
+        } else {
+            spliterator = new FeatureIteratorSpliterator<>(fc.features(), 0);
+        }
+        return toFeatureStream(spliterator, false);
+    }
+
+    /**
+     * Converts a FeatureSpliterator to a Stream of Features, closing the stream closes the
+     * spliterator and all the splits generated from it. Use with try-with-resources clause for
+     * auto closing
+     *
+     * @param spliterator
+     * @param parallel
+     * @return
+     */
+    public static <T extends Feature> Stream<T> toFeatureStream(
+            FeatureSpliterator<T> spliterator, boolean parallel) {
+        return StreamSupport.stream(spliterator, parallel).onClose(spliterator::close);
     }
 
     /**
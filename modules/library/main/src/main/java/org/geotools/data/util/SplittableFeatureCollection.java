@@ -0,0 +1,35 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.util;
+
+import org.opengis.feature.Feature;
+
+/**
+ * A feature collection able to provide a {@link FeatureSpliterator} over its contents, used by
+ * {@link FeatureStreams#toFeatureStream(org.geotools.feature.FeatureCollection)} in place of a
+ * sequential iteration over {@code features()}.
+ *
+ * @param <F> the feature type
+ */
+public interface SplittableFeatureCollection<F extends Feature> {
+
+    /**
+     * Returns a spliterator over the features of the collection, splitting the native data when
+     * possible. The spliterator must be closed to release the resources of all its splits.
+     */
+    FeatureSpliterator<F> spliterator();
+}
@@ -0,0 +1,117 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.simple;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.geotools.filter.identity.FeatureIdImpl;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A feature that the reader returning it overwrites in place for each record, instead of building
+ * a new feature every time. Readers return it when asked to with the {@code
+ * Hints.FEATURE_REUSE} query hint, see {@link SimpleFeatureBuilder#setFeatureReuse(boolean)}.
+ *
+ * <p>The feature, its identifier and user data are only valid until the next call to {@code
+ * hasNext()} or {@code next()} on the reader. Code that needs to hold on to the feature longer
+ * must {@link #copy()} it. The attribute values are never reused, so they can be kept around
+ * without copying.
+ */
+public class ReusableSimpleFeature extends SimpleFeatureImpl {
+
+    public ReusableSimpleFeature(SimpleFeatureType featureType, boolean validating) {
+        super(
+                new Object[featureType.getAttributeCount()],
+                featureType,
+                new ReusableFeatureId(),
+                validating);
+    }
+
+    /**
+     * Moves the feature to the next record. The feature takes ownership of the provided values,
+     * and returns its previous values array cleared, for the caller to fill in the next record.
+     *
+     * @param id The identifier of the record
+     * @param values The values of the record
+     * @return The previous values array of the feature
+     */
+    public Object[] reset(String id, Object[] values) {
+        Object[] previous = this.values;
+        this.values = values;
+        ((ReusableFeatureId) this.id).reset(id);
+        if (userData != null) {
+            userData.clear();
+        }
+        if (attributeUserData != null) {
+            for (Map<Object, Object> map : attributeUserData) {
+                if (map != null) {
+                    map.clear();
+                }
+            }
+        }
+        if (validating) {
+            validate();
+        }
+        Arrays.fill(previous, null);
+        return previous;
+    }
+
+    /** Returns a copy of the feature that is not affected by the reader moving to other records */
+    @SuppressWarnings("unchecked")
+    public SimpleFeature copy() {
+        SimpleFeatureImpl copy =
+                new SimpleFeatureImpl(
+                        values.clone(), featureType, new FeatureIdImpl(getID()), validating, index);
+        if (userData != null && !userData.isEmpty()) {
+            copy.getUserData().putAll(userData);
+        }
+        if (attributeUserData != null) {
+            copy.attributeUserData = new HashMap[attributeUserData.length];
+            for (int i = 0; i < attributeUserData.length; i++) {
+                if (attributeUserData[i] != null && !attributeUserData[i].isEmpty()) {
+                    copy.attributeUserData[i] = new HashMap<>(attributeUserData[i]);
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a feature that can be retained past the next read: a copy of the feature if it is a
+     * {@link ReusableSimpleFeature}, the feature itself otherwise
+     */
+    public static SimpleFeature detach(SimpleFeature feature) {
+        if (feature instanceof ReusableSimpleFeature) {
+            return ((ReusableSimpleFeature) feature).copy();
+        }
+        return feature;
+    }
+
+    /** A feature identifier whose value can be changed without tracking the original one */
+    static class ReusableFeatureId extends FeatureIdImpl {
+
+        ReusableFeatureId() {
+            super("");
+        }
+
+        void reset(String id) {
+            this.fid = id;
+        }
+    }
+}
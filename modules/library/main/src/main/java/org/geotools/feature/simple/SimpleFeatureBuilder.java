@@ -135,6 +135,9 @@ public class SimpleFeatureBuilder extends FeatureBuilder<FeatureType, Feature> {
 
     boolean validating;
 
+    /** The feature returned by each build when reusing features, null otherwise */
+    ReusableSimpleFeature reusable;
+
     public SimpleFeatureBuilder(SimpleFeatureType featureType) {
         this(featureType, CommonFactoryFinder.getFeatureFactory(null));
     }
@@ -153,7 +156,11 @@ public class SimpleFeatureBuilder extends FeatureBuilder<FeatureType, Feature> {
     }
 
     public void reset() {
-        values = new Object[featureType.getAttributeCount()];
+        if (reusable != null) {
+            Arrays.fill(values, null);
+        } else {
+            values = new Object[featureType.getAttributeCount()];
+        }
         next = 0;
         userData = null;
         featureUserData = null;
@@ -305,8 +312,18 @@ public class SimpleFeatureBuilder extends FeatureBuilder<FeatureType, Feature> {
         Object[] values = this.values;
         Map<Object, Object>[] userData = this.userData;
         Map<Object, Object> featureUserData = this.featureUserData;
-        reset();
-        SimpleFeature sf = factory.createSimpleFeature(values, featureType, id);
+        SimpleFeature sf;
+        if (reusable != null) {
+            // swap the value arrays, the builder fills the previous one of the feature next
+            this.values = reusable.reset(id, values);
+            next = 0;
+            this.userData = null;
+            this.featureUserData = null;
+            sf = reusable;
+        } else {
+            reset();
+            sf = factory.createSimpleFeature(values, featureType, id);
+        }
 
         // handle the per attribute user data
         if (userData != null) {
@@ -527,4 +544,23 @@ public class SimpleFeatureBuilder extends FeatureBuilder<FeatureType, Feature> {
     public void setValidating(boolean validating) {
         this.validating = validating;
     }
+
+    /**
+     * Returns true if the builder returns the same {@link ReusableSimpleFeature} from each build
+     * call
+     */
+    public boolean isFeatureReuse() {
+        return reusable != null;
+    }
+
+    /**
+     * Makes {@link #buildFeature(String)} return the same {@link ReusableSimpleFeature} on each
+     * call, overwriting its values, instead of a new feature. Meant for readers honouring the
+     * {@code Hints.FEATURE_REUSE} hint, the feature factory is not used in this mode.
+     *
+     * @param reuse True to reuse the feature, false to build a new one each time
+     */
+    public void setFeatureReuse(boolean reuse) {
+        reusable = reuse ? new ReusableSimpleFeature(featureType, validating) : null;
+    }
 }
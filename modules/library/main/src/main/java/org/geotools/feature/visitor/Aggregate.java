@@ -34,6 +34,38 @@ import org.opengis.filter.expression.Expression;
  * method to generate the expect CalcResult from a calculated raw value.
  */
 public enum Aggregate {
+    APPROX_COUNT_DISTINCT {
+        @Override
+        public FeatureCalc create(Expression aggregateAttribute) {
+            return new ApproxDistinctCountVisitor(aggregateAttribute);
+        }
+
+        @Override
+        public FeatureCalc create(Expression aggregateAttribute, double error) {
+            return new ApproxDistinctCountVisitor(aggregateAttribute, error);
+        }
+
+        @Override
+        public CalcResult wrap(Expression aggregateAttribute, Object value) {
+            return new ApproxDistinctCountVisitor.ApproxDistinctCountResult(value);
+        }
+    },
+    APPROX_MEDIAN {
+        @Override
+        public FeatureCalc create(Expression aggregateAttribute) {
+            return new ApproxMedianVisitor(aggregateAttribute);
+        }
+
+        @Override
+        public FeatureCalc create(Expression aggregateAttribute, double error) {
+            return new ApproxMedianVisitor(aggregateAttribute, error);
+        }
+
+        @Override
+        public CalcResult wrap(Expression aggregateAttribute, Object value) {
+            return new ApproxMedianVisitor.ApproxMedianResult(value);
+        }
+    },
     AVERAGE {
         @Override
         public FeatureCalc create(Expression aggregateAttribute) {
@@ -145,6 +177,18 @@ public enum Aggregate {
      */
     public abstract FeatureCalc create(Expression expression);
 
+    /**
+     * Factory method creating a visitor using an aggregate attribute and an error bound. The
+     * approximate aggregates use the error bound to size their sketches, the exact ones ignore it.
+     *
+     * @param expression Expression used to sample collection (often a PropertyName)
+     * @param error The relative error allowed on the result
+     * @return a new instance of the visitor
+     */
+    public FeatureCalc create(Expression expression, double error) {
+        return create(expression);
+    }
+
     /**
      * Wraps a raw value in the appropriate visitor calculation result. The typical usage of this is
      * to wrap values returned by stores able to handle the visitor (for example the JDBCDataStore).
@@ -0,0 +1,175 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import java.util.Arrays;
+import java.util.List;
+import org.geotools.util.Converters;
+import org.opengis.feature.Feature;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Approximate counterpart of {@link UniqueVisitor}, estimating the number of distinct values of an
+ * expression with a HyperLogLog sketch instead of keeping all the values in memory. The sketches
+ * of partial visitors are merged, so the visitor can run in parallel.
+ *
+ * <p>Null values are not counted, as in the SQL {@code count(distinct ...)}. Numbers are compared
+ * by value within the same type, like the {@link UniqueVisitor} set would.
+ */
+public class ApproxDistinctCountVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
+
+    /** The default relative standard error, about one percent (16KB of registers) */
+    public static final double DEFAULT_ERROR = 0.01;
+
+    private final Expression expr;
+
+    private final double error;
+
+    HyperLogLog sketch;
+
+    boolean visited = false;
+
+    /** The count computed by a store, if it handled the visitor natively */
+    Long value;
+
+    public ApproxDistinctCountVisitor(Expression expr) {
+        this(expr, DEFAULT_ERROR);
+    }
+
+    /**
+     * @param expr the expression to be evaluated
+     * @param error the relative standard error of the estimate, the memory used grows with the
+     *     inverse of its square
+     */
+    public ApproxDistinctCountVisitor(Expression expr, double error) {
+        this.expr = expr;
+        this.error = error;
+        this.sketch = new HyperLogLog(HyperLogLog.precisionFor(error));
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expr);
+    }
+
+    public Expression getExpression() {
+        return expr;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    public void visit(Feature feature) {
+        Object attribValue = expr.evaluate(feature);
+        if (attribValue != null) {
+            sketch.add(attribValue);
+            visited = true;
+        }
+    }
+
+    /** Returns the estimated number of distinct values */
+    public long getCount() {
+        if (value != null) {
+            return value;
+        }
+        return visited ? sketch.estimate() : 0;
+    }
+
+    /**
+     * Overwrites the result stored by the visitor. This should only be used by optimizations which
+     * will tell the visitor the answer rather than visiting all features.
+     */
+    public void setValue(Object count) {
+        value = Converters.convert(count, Long.class);
+    }
+
+    public void reset() {
+        sketch = new HyperLogLog(sketch.precision);
+        visited = false;
+        value = null;
+    }
+
+    public ApproxDistinctCountVisitor createPartial() {
+        return new ApproxDistinctCountVisitor(expr, error);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        ApproxDistinctCountVisitor other = (ApproxDistinctCountVisitor) partial;
+        if (other.visited) {
+            sketch.merge(other.sketch);
+            visited = true;
+        }
+    }
+
+    public CalcResult getResult() {
+        if (value != null) {
+            return new ApproxDistinctCountResult(value);
+        }
+        if (!visited) {
+            return CalcResult.NULL_RESULT;
+        }
+        return new ApproxDistinctCountResult(sketch);
+    }
+
+    public static class ApproxDistinctCountResult extends AbstractCalcResult {
+
+        final HyperLogLog sketch;
+
+        final Long count;
+
+        ApproxDistinctCountResult(HyperLogLog sketch) {
+            this.sketch = sketch;
+            this.count = null;
+        }
+
+        /** Wraps a count computed without a sketch, such results cannot be merged */
+        public ApproxDistinctCountResult(Object count) {
+            this.sketch = null;
+            this.count = Converters.convert(count, Long.class);
+        }
+
+        public Object getValue() {
+            return sketch != null ? sketch.estimate() : count;
+        }
+
+        public boolean isCompatible(CalcResult targetResults) {
+            return targetResults == CalcResult.NULL_RESULT
+                    || targetResults instanceof ApproxDistinctCountResult;
+        }
+
+        public CalcResult merge(CalcResult resultsToAdd) {
+            if (!isCompatible(resultsToAdd)) {
+                throw new IllegalArgumentException("Parameter is not a compatible type");
+            }
+            if (resultsToAdd == CalcResult.NULL_RESULT) {
+                return this;
+            }
+            ApproxDistinctCountResult other = (ApproxDistinctCountResult) resultsToAdd;
+            if (sketch == null || other.sketch == null) {
+                // distinct counts do not add up, only the sketches can be merged
+                throw new IllegalArgumentException(
+                        "Optimized distinct count results cannot be merged.");
+            }
+            HyperLogLog merged = new HyperLogLog(sketch.precision);
+            merged.merge(sketch);
+            merged.merge(other.sketch);
+            return new ApproxDistinctCountResult(merged);
+        }
+    }
+}
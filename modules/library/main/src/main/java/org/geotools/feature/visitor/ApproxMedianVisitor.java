@@ -0,0 +1,110 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import org.geotools.util.Converters;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Approximate counterpart of {@link MedianVisitor}, estimating the median of a numeric expression
+ * with a t-digest sketch instead of keeping and sorting all the values.
+ */
+public class ApproxMedianVisitor extends TDigestVisitor {
+
+    /** The median computed by a store, if it handled the visitor natively */
+    Double value;
+
+    public ApproxMedianVisitor(Expression expr) {
+        this(expr, DEFAULT_RANK_ERROR);
+    }
+
+    public ApproxMedianVisitor(Expression expr, double rankError) {
+        super(expr, rankError);
+    }
+
+    public ApproxMedianVisitor createPartial() {
+        return new ApproxMedianVisitor(expr, rankError);
+    }
+
+    /** Returns the estimated median, or NaN if no value has been visited */
+    public double getMedian() {
+        return value != null ? value : getQuantile(0.5);
+    }
+
+    /**
+     * Overwrites the result stored by the visitor. This should only be used by optimizations which
+     * will tell the visitor the answer rather than visiting all features.
+     */
+    public void setValue(Object median) {
+        value = Converters.convert(median, Double.class);
+    }
+
+    public void reset() {
+        super.reset();
+        value = null;
+    }
+
+    public CalcResult getResult() {
+        if (value != null) {
+            return new ApproxMedianResult(value);
+        }
+        if (digest.size() == 0) {
+            return CalcResult.NULL_RESULT;
+        }
+        return new ApproxMedianResult(digest);
+    }
+
+    public static class ApproxMedianResult extends SketchResult {
+
+        final Double median;
+
+        ApproxMedianResult(TDigest digest) {
+            super(digest);
+            this.median = null;
+        }
+
+        /** Wraps a median computed without a sketch, such results cannot be merged */
+        public ApproxMedianResult(Object median) {
+            super(null);
+            this.median = Converters.convert(median, Double.class);
+        }
+
+        public Object getValue() {
+            return digest != null ? digest.quantile(0.5) : median;
+        }
+
+        public boolean isCompatible(CalcResult targetResults) {
+            return targetResults == CalcResult.NULL_RESULT
+                    || targetResults instanceof ApproxMedianResult;
+        }
+
+        public CalcResult merge(CalcResult resultsToAdd) {
+            if (!isCompatible(resultsToAdd)) {
+                throw new IllegalArgumentException("Parameter is not a compatible type");
+            }
+            if (resultsToAdd == CalcResult.NULL_RESULT) {
+                return this;
+            }
+            ApproxMedianResult other = (ApproxMedianResult) resultsToAdd;
+            if (digest == null || other.digest == null) {
+                throw new IllegalArgumentException(
+                        "Optimized median results cannot be merged.");
+            }
+            return new ApproxMedianResult(mergeSketch(other));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Approximate counterpart of {@link QuantileListVisitor}, estimating the breaks of classes of
+ * equal size with a t-digest sketch instead of keeping and sorting all the values.
+ *
+ * <p>The result contains an array of lists, one per class, each holding the lower and upper
+ * break of the class, so that it can be used in place of the {@link QuantileListVisitor} one for
+ * numeric classifications.
+ */
+public class ApproxQuantileVisitor extends TDigestVisitor {
+
+    int bins;
+
+    public ApproxQuantileVisitor(Expression expr, int bins) {
+        this(expr, bins, DEFAULT_RANK_ERROR);
+    }
+
+    public ApproxQuantileVisitor(Expression expr, int bins, double rankError) {
+        super(expr, rankError);
+        this.bins = bins;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public ApproxQuantileVisitor createPartial() {
+        return new ApproxQuantileVisitor(expr, bins, rankError);
+    }
+
+    public CalcResult getResult() {
+        if (bins == 0 || digest.size() == 0) {
+            return CalcResult.NULL_RESULT;
+        }
+        return new ApproxQuantileResult(digest, bins);
+    }
+
+    public static class ApproxQuantileResult extends SketchResult {
+
+        final int bins;
+
+        ApproxQuantileResult(TDigest digest, int bins) {
+            super(digest);
+            this.bins = bins;
+        }
+
+        public Object getValue() {
+            int classes = (int) Math.min(bins, digest.size());
+            List[] bin = new List[classes];
+            double lower = digest.quantile(0);
+            for (int i = 0; i < classes; i++) {
+                double upper = digest.quantile((double) (i + 1) / classes);
+                List<Double> breaks = new ArrayList<>();
+                breaks.add(lower);
+                breaks.add(upper);
+                bin[i] = breaks;
+                lower = upper;
+            }
+            return bin;
+        }
+
+        public boolean isCompatible(CalcResult targetResults) {
+            return targetResults == CalcResult.NULL_RESULT
+                    || (targetResults instanceof ApproxQuantileResult
+                            && ((ApproxQuantileResult) targetResults).bins == bins);
+        }
+
+        public CalcResult merge(CalcResult resultsToAdd) {
+            if (!isCompatible(resultsToAdd)) {
+                throw new IllegalArgumentException("Parameter is not a compatible type");
+            }
+            if (resultsToAdd == CalcResult.NULL_RESULT) {
+                return this;
+            }
+            return new ApproxQuantileResult(
+                    mergeSketch((ApproxQuantileResult) resultsToAdd), bins);
+        }
+    }
+}
@@ -33,7 +33,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class AverageVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class AverageVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
     private Expression expr;
 
     /**
@@ -133,6 +134,27 @@ public class AverageVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return expr;
     }
 
+    public AverageVisitor createPartial() {
+        return new AverageVisitor(expr);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        AverageStrategy partialStrategy = ((AverageVisitor) partial).strategy;
+        if (partialStrategy == null) {
+            return;
+        }
+        if (strategy == null) {
+            strategy = partialStrategy;
+        } else {
+            Number sum =
+                    CalcUtil.sum(
+                            new Number[] {
+                                (Number) strategy.getSum(), (Number) partialStrategy.getSum()
+                            });
+            strategy.set(strategy.getCount() + partialStrategy.getCount(), sum);
+        }
+    }
+
     /**
      * Returns the average from the visitor's current
      *
@@ -25,7 +25,7 @@ import org.locationtech.jts.geom.Envelope;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class BoundsVisitor implements FeatureCalc {
+public class BoundsVisitor implements FeatureCalc, ParallelFeatureVisitor {
     ReferencedEnvelope bounds = new ReferencedEnvelope();
 
     public void visit(org.opengis.feature.Feature feature) {
@@ -47,6 +47,17 @@ public class BoundsVisitor implements FeatureCalc {
         return new BoundsResult(bounds);
     }
 
+    public BoundsVisitor createPartial() {
+        return new BoundsVisitor();
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        ReferencedEnvelope partialBounds = ((BoundsVisitor) partial).bounds;
+        if (partialBounds != null && !partialBounds.isNull()) {
+            bounds.include(partialBounds);
+        }
+    }
+
     public static class BoundsResult extends AbstractCalcResult {
         private ReferencedEnvelope bbox;
 
@@ -26,7 +26,7 @@ import org.opengis.feature.simple.SimpleFeature;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class CountVisitor implements FeatureCalc {
+public class CountVisitor implements FeatureCalc, ParallelFeatureVisitor {
     Integer count = null;
 
     public void init(SimpleFeatureCollection collection) {
@@ -66,6 +66,17 @@ public class CountVisitor implements FeatureCalc {
         return new CountResult(count);
     }
 
+    public CountVisitor createPartial() {
+        return new CountVisitor();
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        Integer partialCount = ((CountVisitor) partial).count;
+        if (partialCount != null) {
+            count = getCount() + partialCount;
+        }
+    }
+
     public static class CountResult extends AbstractCalcResult {
         private int count;
 
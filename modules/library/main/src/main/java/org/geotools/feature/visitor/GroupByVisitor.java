@@ -33,7 +33,8 @@ import org.opengis.filter.expression.Expression;
 import org.opengis.util.ProgressListener;
 
 /** Group features by one or several attributes and applies an aggregator visitor to each group. */
-public class GroupByVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class GroupByVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
 
     private final Aggregate aggregate;
     private final Expression expression;
@@ -97,6 +98,27 @@ public class GroupByVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return expression;
     }
 
+    /** Returns null if the aggregate visitor cannot be computed in parts */
+    public GroupByVisitor createPartial() {
+        if (!(visitorProtoType instanceof ParallelFeatureVisitor)) {
+            return null;
+        }
+        return new GroupByVisitor(aggregate, expression, groupByAttributes, progressListener);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        Map<List<Object>, FeatureCalc> groups = inMemoryGroupBy.groupByIndexes;
+        for (Map.Entry<List<Object>, FeatureCalc> entry :
+                ((GroupByVisitor) partial).inMemoryGroupBy.groupByIndexes.entrySet()) {
+            FeatureCalc calc = groups.get(entry.getKey());
+            if (calc == null) {
+                groups.put(entry.getKey(), entry.getValue());
+            } else {
+                ((ParallelFeatureVisitor) calc).combine((ParallelFeatureVisitor) entry.getValue());
+            }
+        }
+    }
+
     public FeatureVisitor getAggregateVisitor() {
         return visitorProtoType;
     }
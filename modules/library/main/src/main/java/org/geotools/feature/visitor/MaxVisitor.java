@@ -32,7 +32,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions Research Inc.
  * @since 2.2.M2
  */
-public class MaxVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class MaxVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
     private Expression expr;
     Comparable maxvalue;
     Comparable curvalue;
@@ -140,6 +141,18 @@ public class MaxVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return expr;
     }
 
+    public MaxVisitor createPartial() {
+        return new MaxVisitor(expr);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        // the result merge takes care of values of different types
+        CalcResult result = getResult().merge(((MaxVisitor) partial).getResult());
+        if (result != CalcResult.NULL_RESULT) {
+            setValue(result.getValue());
+        }
+    }
+
     public CalcResult getResult() {
         if (!visited) {
             return CalcResult.NULL_RESULT;
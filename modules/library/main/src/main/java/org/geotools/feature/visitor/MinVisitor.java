@@ -32,7 +32,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class MinVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class MinVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
     private Expression expr;
     Comparable minvalue;
     Comparable curvalue;
@@ -123,6 +124,18 @@ public class MinVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return expr;
     }
 
+    public MinVisitor createPartial() {
+        return new MinVisitor(expr);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        // the result merge takes care of values of different types
+        CalcResult result = getResult().merge(((MinVisitor) partial).getResult());
+        if (result != CalcResult.NULL_RESULT) {
+            setValue(result.getValue());
+        }
+    }
+
     /**
      * Overwrites the result stored by the visitor. This should only be used by optimizations which
      * will tell the visitor the answer rather than visiting all features.
@@ -0,0 +1,46 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import org.opengis.feature.FeatureVisitor;
+
+/**
+ * A visitor whose computation can be split over separate subsets of the features, visited
+ * concurrently, and then combined back. Used by data stores able to read their contents in
+ * parallel, see {@link org.geotools.data.store.ContentFeatureSource#accepts}.
+ *
+ * <p>Each subset is visited by its own partial visitor, created by {@link #createPartial()}, and
+ * the partials are then combined into the original visitor. A visitor is accessed by a single
+ * thread at a time, implementations do not need to be thread safe.
+ *
+ * <p>Subclasses of implementations carrying additional state need to override both methods, the
+ * parallel execution is used only if the partial has the same class as the original visitor.
+ */
+public interface ParallelFeatureVisitor extends FeatureVisitor {
+
+    /**
+     * Returns a new, empty visitor performing the same computation as this one, or null if this
+     * visitor instance cannot be computed in parts
+     */
+    ParallelFeatureVisitor createPartial();
+
+    /**
+     * Combines the results of a partial visitor, created by {@link #createPartial()}, into this
+     * one. The partials are combined in the order of the subsets they visited.
+     */
+    void combine(ParallelFeatureVisitor partial);
+}
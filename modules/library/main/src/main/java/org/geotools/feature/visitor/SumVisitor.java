@@ -36,7 +36,7 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class SumVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class SumVisitor implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
     private Expression expr;
 
     SumStrategy strategy;
@@ -115,6 +115,18 @@ public class SumVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return expr;
     }
 
+    public SumVisitor createPartial() {
+        return new SumVisitor(expr);
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        // the result merge takes care of values of different types
+        CalcResult result = getResult().merge(((SumVisitor) partial).getResult());
+        if (result != CalcResult.NULL_RESULT) {
+            setValue(result.getValue());
+        }
+    }
+
     public Object getSum() {
         return strategy.getResult();
     }
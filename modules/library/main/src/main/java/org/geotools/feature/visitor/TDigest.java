@@ -0,0 +1,193 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning and Ertl), a sketch of the distribution of a stream of numbers
+ * answering quantile queries with bounded memory, and supporting the merge of digests built on
+ * separate subsets of the values.
+ *
+ * <p>Values are buffered and periodically merged into at most about {@code compression}
+ * centroids, sized by the k1 scale function so that the centroids near the tails stay small. The
+ * rank error is in the order of {@code 1 / compression} around the median, and much smaller
+ * towards the tails.
+ */
+class TDigest {
+
+    static final double MIN_COMPRESSION = 20;
+
+    static final double MAX_COMPRESSION = 10000;
+
+    final double compression;
+
+    double[] means = new double[0];
+
+    double[] weights = new double[0];
+
+    /** Values not merged in the centroids yet */
+    double[] buffer;
+
+    int buffered;
+
+    /** Total weight of the centroids */
+    double total;
+
+    double min = Double.POSITIVE_INFINITY;
+
+    double max = Double.NEGATIVE_INFINITY;
+
+    TDigest(double compression) {
+        this.compression = Math.max(MIN_COMPRESSION, Math.min(MAX_COMPRESSION, compression));
+        this.buffer = new double[(int) (5 * this.compression)];
+    }
+
+    /** Returns the compression that keeps the rank error around the one provided */
+    static double compressionFor(double rankError) {
+        if (!(rankError > 0)) {
+            throw new IllegalArgumentException("The rank error must be positive, was " + rankError);
+        }
+        return Math.ceil(1 / rankError);
+    }
+
+    /** Number of values added to the digest */
+    long size() {
+        return Math.round(total) + buffered;
+    }
+
+    void add(double value) {
+        if (buffered == buffer.length) {
+            compress();
+        }
+        buffer[buffered++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /** Adds the values summarized by the other digest to this one */
+    void merge(TDigest other) {
+        other.compress();
+        compress();
+        if (other.means.length > 0) {
+            merge(other.means, other.weights, other.means.length);
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    /** Returns the estimated value at the given quantile, or NaN if the digest is empty */
+    double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, was " + q);
+        }
+        compress();
+        int n = means.length;
+        if (n == 0) {
+            return Double.NaN;
+        } else if (n == 1) {
+            return means[0];
+        }
+
+        // each centroid is centered at the middle of its weight, interpolate between the centers
+        double target = q * total;
+        if (target <= weights[0] / 2) {
+            return interpolate(min, means[0], target / (weights[0] / 2));
+        }
+        double center = weights[0] / 2;
+        for (int i = 0; i < n - 1; i++) {
+            double next = center + (weights[i] + weights[i + 1]) / 2;
+            if (target <= next) {
+                return interpolate(means[i], means[i + 1], (target - center) / (next - center));
+            }
+            center = next;
+        }
+        double last = weights[n - 1] / 2;
+        return interpolate(means[n - 1], max, Math.min(1, (target - center) / last));
+    }
+
+    private static double interpolate(double a, double b, double t) {
+        return a + (b - a) * t;
+    }
+
+    /** Merges the buffered values into the centroids */
+    void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        merge(buffer, null, buffered);
+        buffered = 0;
+    }
+
+    /**
+     * Merges the centroids with a sorted sequence of values, in a single pass over both
+     *
+     * @param otherWeights the weights of the values, or null if they all weight one
+     */
+    private void merge(double[] otherMeans, double[] otherWeights, int otherCount) {
+        for (int j = 0; j < otherCount; j++) {
+            total += otherWeights == null ? 1 : otherWeights[j];
+        }
+        int count = means.length + otherCount;
+        double[] newMeans = new double[count];
+        double[] newWeights = new double[count];
+        int merged = 0;
+        double before = 0;
+        double mean = 0;
+        double weight = 0;
+        int i = 0;
+        int j = 0;
+        for (int step = 0; step < count; step++) {
+            double nextMean;
+            double nextWeight;
+            if (j >= otherCount || (i < means.length && means[i] <= otherMeans[j])) {
+                nextMean = means[i];
+                nextWeight = weights[i];
+                i++;
+            } else {
+                nextMean = otherMeans[j];
+                nextWeight = otherWeights == null ? 1 : otherWeights[j];
+                j++;
+            }
+            if (step == 0) {
+                mean = nextMean;
+                weight = nextWeight;
+            } else if (k((before + weight + nextWeight) / total) - k(before / total) <= 1) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                newMeans[merged] = mean;
+                newWeights[merged] = weight;
+                merged++;
+                before += weight;
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        newMeans[merged] = mean;
+        newWeights[merged] = weight;
+        merged++;
+        means = Arrays.copyOf(newMeans, merged);
+        weights = Arrays.copyOf(newWeights, merged);
+    }
+
+    /** The k1 scale function, limiting the size of the centroids near the tails */
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, q) - 1);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import java.util.Arrays;
+import java.util.List;
+import org.geotools.util.Converters;
+import org.opengis.feature.Feature;
+import org.opengis.filter.expression.Expression;
+
+/**
+ * Base class for visitors estimating quantiles of a numeric expression with a t-digest sketch,
+ * using bounded memory regardless of the number of features visited. The sketches of partial
+ * visitors are merged, so the visitors can run in parallel.
+ *
+ * <p>Values that are null, or cannot be converted to a number, are skipped and counted as nulls,
+ * NaN and infinite values are skipped as well.
+ */
+public abstract class TDigestVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, ParallelFeatureVisitor {
+
+    /** The default rank error, one percent */
+    public static final double DEFAULT_RANK_ERROR = 0.01;
+
+    protected final Expression expr;
+
+    protected final double rankError;
+
+    TDigest digest;
+
+    int countNull = 0;
+
+    int countNaN = 0;
+
+    /**
+     * @param expr the expression to be evaluated
+     * @param rankError the approximate rank error of the quantiles, e.g. 0.01 allows the median
+     *     to be any value between the 49th and 51st percentiles
+     */
+    protected TDigestVisitor(Expression expr, double rankError) {
+        this.expr = expr;
+        this.rankError = rankError;
+        this.digest = new TDigest(TDigest.compressionFor(rankError));
+    }
+
+    @Override
+    public List<Expression> getExpressions() {
+        return Arrays.asList(expr);
+    }
+
+    public Expression getExpression() {
+        return expr;
+    }
+
+    public double getRankError() {
+        return rankError;
+    }
+
+    public void visit(Feature feature) {
+        Object value = expr.evaluate(feature);
+        Double number = value == null ? null : Converters.convert(value, Double.class);
+        if (number == null) {
+            countNull++;
+        } else if (Double.isNaN(number) || Double.isInfinite(number)) {
+            countNaN++;
+        } else {
+            digest.add(number);
+        }
+    }
+
+    public void combine(ParallelFeatureVisitor partial) {
+        TDigestVisitor other = (TDigestVisitor) partial;
+        digest.merge(other.digest);
+        countNull += other.countNull;
+        countNaN += other.countNaN;
+    }
+
+    /** Returns the estimated value at the given quantile, or NaN if no value has been visited */
+    public double getQuantile(double quantile) {
+        return digest.quantile(quantile);
+    }
+
+    /** @return the number of values summarized in the sketch */
+    public long getCount() {
+        return digest.size();
+    }
+
+    /** @return the number of features which returned a NaN */
+    public int getNaNCount() {
+        return countNaN;
+    }
+
+    /** @return the number of features which returned a null */
+    public int getNullCount() {
+        return countNull;
+    }
+
+    public void reset() {
+        digest = new TDigest(digest.compression);
+        countNull = 0;
+        countNaN = 0;
+    }
+
+    /** A result carrying the sketch, so that it can be merged with other results */
+    abstract static class SketchResult extends AbstractCalcResult {
+
+        final TDigest digest;
+
+        SketchResult(TDigest digest) {
+            this.digest = digest;
+        }
+
+        /** Merges the sketches into a new one, leaving the source ones untouched */
+        TDigest mergeSketch(SketchResult other) {
+            TDigest merged = new TDigest(Math.max(digest.compression, other.digest.compression));
+            merged.merge(digest);
+            merged.merge(other.digest);
+            return merged;
+        }
+    }
+}
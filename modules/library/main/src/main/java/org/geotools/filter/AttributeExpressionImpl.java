@@ -24,8 +24,10 @@ import java.util.logging.Logger;
 import org.geotools.filter.expression.PropertyAccessor;
 import org.geotools.filter.expression.PropertyAccessorFactory;
 import org.geotools.filter.expression.PropertyAccessors;
+import org.geotools.filter.expression.SimpleFeaturePropertyAccessorFactory;
 import org.geotools.util.Converters;
 import org.geotools.util.factory.Hints;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.Name;
 import org.opengis.filter.expression.ExpressionVisitor;
@@ -172,6 +174,7 @@ public class AttributeExpressionImpl extends DefaultExpression implements Proper
         } else {
             this.attPath = attPath;
         }
+        attributeIndex = null;
     }
 
     /**
@@ -193,6 +196,16 @@ public class AttributeExpressionImpl extends DefaultExpression implements Proper
     public <T> T evaluate(Object obj, Class<T> target) {
         // NC- new method
 
+        if (obj instanceof SimpleFeature) {
+            // plain attributes of simple features are read by index
+            SimpleFeature feature = (SimpleFeature) obj;
+            int index = getAttributeIndex(feature.getFeatureType());
+            if (index >= 0) {
+                Object value = feature.getAttribute(index);
+                return target == null ? (T) value : Converters.convert(value, target);
+            }
+        }
+
         PropertyAccessor accessor = getLastPropertyAccessor();
         AtomicReference<Object> value = new AtomicReference<Object>();
         AtomicReference<Exception> e = new AtomicReference<Exception>();
@@ -253,6 +266,38 @@ public class AttributeExpressionImpl extends DefaultExpression implements Proper
         }
     }
 
+    /**
+     * Returns the index of the attribute this expression reads in simple features of the specified
+     * type, or -1 if the property accessors are needed. The index is cached for the last type seen,
+     * compared by identity.
+     */
+    private int getAttributeIndex(SimpleFeatureType type) {
+        AttributeIndex current = attributeIndex;
+        if (current == null || current.type != type) {
+            current =
+                    new AttributeIndex(
+                            type,
+                            SimpleFeaturePropertyAccessorFactory.getAttributeIndex(type, attPath));
+            attributeIndex = current;
+        }
+        return current.index;
+    }
+
+    /** The index of the attribute in a feature type */
+    private static final class AttributeIndex {
+        final SimpleFeatureType type;
+
+        final int index;
+
+        AttributeIndex(SimpleFeatureType type, int index) {
+            this.type = type;
+            this.index = index;
+        }
+    }
+
+    // attribute index caching, avoids looking up the property accessors for simple features
+    private volatile AttributeIndex attributeIndex;
+
     // accessor caching, scanning the registry every time is really very expensive
     private PropertyAccessor lastAccessor;
 
@@ -0,0 +1,456 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.geotools.util.Converters;
+import org.opengis.feature.Attribute;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Compiles a filter into a tree of predicates bound to a specific {@link SimpleFeatureType}, which
+ * evaluates faster than walking the filter objects against each feature.
+ *
+ * <p>The compiled form:
+ *
+ * <ul>
+ *   <li>reads the attributes by index rather than looking them up by name through the property
+ *       accessors
+ *   <li>converts the literals compared to attributes to the attribute binding once, so that the
+ *       comparisons do not need to convert values for each feature
+ *   <li>folds the constant parts, such as comparisons between literals and logic operators
+ *       having an {@link Filter#INCLUDE} or {@link Filter#EXCLUDE} child
+ *   <li>reorders the children of logic operators so that the cheapest and most selective ones run
+ *       first, short circuiting the evaluation of the others
+ * </ul>
+ *
+ * The comparisons still rely on the filter implementation to compare the values, so the compiled
+ * filter gives the same results as the original one. The parts of the filter that cannot be
+ * compiled are evaluated as they are.
+ *
+ * <p>The returned filter compiles itself again when it is evaluated against features of another
+ * type, and evaluates objects that are not simple features with the original filter. It delegates
+ * {@link Filter#accept(FilterVisitor, Object)} to the original filter.
+ */
+public final class FilterCompiler {
+
+    /** Cost of evaluating a comparison between an attribute and a literal */
+    static final double ATTRIBUTE_COST = 1;
+
+    /** Cost of evaluating a comparison involving arbitrary expressions */
+    static final double EXPRESSION_COST = 4;
+
+    /** Cost of evaluating a filter that could not be compiled */
+    static final double FILTER_COST = 10;
+
+    private FilterCompiler() {}
+
+    /**
+     * Compiles the filter, binding it to the type of the first simple feature it evaluates.
+     *
+     * @param filter the filter to compile
+     * @return a filter giving the same results as the provided one
+     */
+    public static Filter compile(Filter filter) {
+        return compile(filter, null);
+    }
+
+    /**
+     * Compiles the filter for the specified feature type.
+     *
+     * @param filter the filter to compile
+     * @param type the type of the features to be evaluated, or null to use the type of the first
+     *     simple feature evaluated
+     * @return a filter giving the same results as the provided one
+     */
+    public static Filter compile(Filter filter, SimpleFeatureType type) {
+        if (filter == null
+                || filter == Filter.INCLUDE
+                || filter == Filter.EXCLUDE
+                || filter instanceof CompiledFilter) {
+            return filter;
+        }
+        CompiledFilter compiled = new CompiledFilter(filter);
+        if (type != null) {
+            compiled.binding = new Binding(type, new Compilation(type).compile(filter).predicate);
+        }
+        return compiled;
+    }
+
+    /** A compiled filter, bound to the last feature type it evaluated */
+    static final class CompiledFilter implements Filter {
+
+        final Filter filter;
+
+        volatile Binding binding;
+
+        /** The binding used before the current one, in case features alternate two types */
+        volatile Binding previous;
+
+        CompiledFilter(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean evaluate(Object object) {
+            if (!(object instanceof SimpleFeature)) {
+                return filter.evaluate(object);
+            }
+            SimpleFeature feature = (SimpleFeature) object;
+            SimpleFeatureType type = feature.getFeatureType();
+            Binding current = binding;
+            if (current == null || current.type != type) {
+                current = bind(type, current);
+            }
+            return current.predicate.test(feature);
+        }
+
+        private Binding bind(SimpleFeatureType type, Binding current) {
+            Binding result = previous;
+            if (result == null || result.type != type) {
+                if (current != null && current.type.equals(type)) {
+                    result = new Binding(type, current.predicate);
+                } else {
+                    result = new Binding(type, new Compilation(type).compile(filter).predicate);
+                }
+            }
+            previous = current;
+            binding = result;
+            return result;
+        }
+
+        @Override
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return filter.accept(visitor, extraData);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CompiledFilter && filter.equals(((CompiledFilter) obj).filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return filter.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return filter.toString();
+        }
+    }
+
+    /** A predicate compiled for a feature type */
+    static final class Binding {
+        final SimpleFeatureType type;
+
+        final Predicate<SimpleFeature> predicate;
+
+        Binding(SimpleFeatureType type, Predicate<SimpleFeature> predicate) {
+            this.type = type;
+            this.predicate = predicate;
+        }
+    }
+
+    /** A compiled filter, along with the estimates used to order the logic operator children */
+    static final class Node {
+        static final Node TRUE = new Node(f -> true, 0, 1);
+
+        static final Node FALSE = new Node(f -> false, 0, 0);
+
+        final Predicate<SimpleFeature> predicate;
+
+        /** Relative cost of evaluating the predicate */
+        final double cost;
+
+        /** Estimated fraction of the features matching the predicate */
+        final double selectivity;
+
+        Node(Predicate<SimpleFeature> predicate, double cost, double selectivity) {
+            this.predicate = predicate;
+            this.cost = cost;
+            this.selectivity = selectivity;
+        }
+
+        static Node constant(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        boolean isConstant() {
+            return this == TRUE || this == FALSE;
+        }
+    }
+
+    /** A compiled expression */
+    static final class Operand {
+        final java.util.function.Function<SimpleFeature, Object> getter;
+
+        /** The attribute binding, if the operand reads an attribute */
+        final Class<?> binding;
+
+        final boolean constant;
+
+        final Object value;
+
+        Operand(java.util.function.Function<SimpleFeature, Object> getter, Class<?> binding) {
+            this.getter = getter;
+            this.binding = binding;
+            this.constant = false;
+            this.value = null;
+        }
+
+        Operand(Object value) {
+            this.getter = f -> value;
+            this.binding = null;
+            this.constant = true;
+            this.value = value;
+        }
+
+        boolean isAttribute() {
+            return binding != null;
+        }
+    }
+
+    /** Compiles the filters for a feature type */
+    static final class Compilation {
+
+        final SimpleFeatureType type;
+
+        Compilation(SimpleFeatureType type) {
+            this.type = type;
+        }
+
+        Node compile(Filter filter) {
+            if (filter == Filter.INCLUDE) {
+                return Node.TRUE;
+            } else if (filter == Filter.EXCLUDE) {
+                return Node.FALSE;
+            } else if (filter instanceof And || filter instanceof Or) {
+                return compileLogic((BinaryLogicOperator) filter, filter instanceof And);
+            } else if (filter instanceof Not) {
+                Node child = compile(((Not) filter).getFilter());
+                if (child.isConstant()) {
+                    return Node.constant(child == Node.FALSE);
+                }
+                Predicate<SimpleFeature> predicate = child.predicate;
+                return new Node(f -> !predicate.test(f), child.cost, 1 - child.selectivity);
+            } else if (filter instanceof MultiCompareFilterImpl) {
+                return compileComparison((MultiCompareFilterImpl) filter);
+            } else if (filter instanceof PropertyIsNull) {
+                return compileNull((PropertyIsNull) filter);
+            }
+            return compileFallback(filter, filter instanceof PropertyIsBetween ? 0.25 : 0.5);
+        }
+
+        Node compileFallback(Filter filter, double selectivity) {
+            return new Node(filter::evaluate, FILTER_COST, selectivity);
+        }
+
+        Node compileLogic(BinaryLogicOperator filter, boolean and) {
+            List<Node> children = new ArrayList<>();
+            for (Filter child : filter.getChildren()) {
+                Node node = compile(child);
+                if (node.isConstant()) {
+                    // a false child decides an and, a true one decides an or
+                    if ((node == Node.TRUE) != and) {
+                        return node;
+                    }
+                } else {
+                    children.add(node);
+                }
+            }
+            if (children.isEmpty()) {
+                return Node.constant(and);
+            } else if (children.size() == 1) {
+                return children.get(0);
+            }
+
+            // run first the children that are cheap and likely to short circuit the others
+            Comparator<Node> rank =
+                    Comparator.comparingDouble(
+                            n -> n.cost / Math.max(and ? 1 - n.selectivity : n.selectivity, 1e-3));
+            children.sort(rank);
+
+            @SuppressWarnings("unchecked")
+            Predicate<SimpleFeature>[] predicates = new Predicate[children.size()];
+            double cost = 0;
+            double selectivity = and ? 1 : 0;
+            for (int i = 0; i < predicates.length; i++) {
+                Node child = children.get(i);
+                predicates[i] = child.predicate;
+                cost += child.cost;
+                selectivity =
+                        and
+                                ? selectivity * child.selectivity
+                                : 1 - (1 - selectivity) * (1 - child.selectivity);
+            }
+            Predicate<SimpleFeature> predicate;
+            if (and) {
+                predicate =
+                        f -> {
+                            for (Predicate<SimpleFeature> p : predicates) {
+                                if (!p.test(f)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        };
+            } else {
+                predicate =
+                        f -> {
+                            for (Predicate<SimpleFeature> p : predicates) {
+                                if (p.test(f)) {
+                                    return true;
+                                }
+                            }
+                            return false;
+                        };
+            }
+            return new Node(predicate, cost, selectivity);
+        }
+
+        Node compileComparison(MultiCompareFilterImpl filter) {
+            Operand o1 = compile(filter.getExpression1());
+            Operand o2 = compile(filter.getExpression2());
+            if (o1.constant && o2.constant) {
+                return Node.constant(filter.evaluate(null));
+            }
+
+            // convert the literal to the attribute binding once and for all
+            if (o1.isAttribute() && o2.constant) {
+                o2 = convert(o2, o1.binding);
+            } else if (o2.isAttribute() && o1.constant) {
+                o1 = convert(o1, o2.binding);
+            }
+
+            double selectivity;
+            if (filter instanceof PropertyIsEqualTo) {
+                selectivity = 0.1;
+            } else if (filter instanceof PropertyIsNotEqualTo) {
+                selectivity = 0.9;
+            } else {
+                selectivity = 1d / 3;
+            }
+            double cost =
+                    (o1.isAttribute() || o1.constant) && (o2.isAttribute() || o2.constant)
+                            ? ATTRIBUTE_COST
+                            : EXPRESSION_COST;
+
+            java.util.function.Function<SimpleFeature, Object> g1 = o1.getter;
+            java.util.function.Function<SimpleFeature, Object> g2 = o2.getter;
+            Predicate<SimpleFeature> predicate =
+                    f -> {
+                        Object v1 = g1.apply(f);
+                        Object v2 = g2.apply(f);
+                        if (isComplex(v1) || isComplex(v2)) {
+                            // multi valued or wrapped values, let the filter handle them
+                            return filter.evaluate(f);
+                        }
+                        return filter.evaluateInternal(v1, v2);
+                    };
+            return new Node(predicate, cost, selectivity);
+        }
+
+        Node compileNull(PropertyIsNull filter) {
+            Operand operand = compile(filter.getExpression());
+            if (operand.constant) {
+                return Node.constant(filter.evaluate(null));
+            }
+            java.util.function.Function<SimpleFeature, Object> getter = operand.getter;
+            Predicate<SimpleFeature> predicate =
+                    f -> {
+                        Object value = getter.apply(f);
+                        if (isComplex(value)) {
+                            return filter.evaluate(f);
+                        }
+                        return value == null;
+                    };
+            double cost = operand.isAttribute() ? ATTRIBUTE_COST : EXPRESSION_COST;
+            return new Node(predicate, cost, 0.1);
+        }
+
+        Operand compile(Expression expression) {
+            if (expression == null) {
+                return new Operand(null);
+            } else if (expression instanceof Literal) {
+                return new Operand(((Literal) expression).getValue());
+            } else if (expression instanceof PropertyName) {
+                String name = ((PropertyName) expression).getPropertyName();
+                int index = name == null || name.isEmpty() ? -1 : type.indexOf(name);
+                if (index >= 0) {
+                    Class<?> binding = type.getDescriptor(index).getType().getBinding();
+                    return new Operand(f -> f.getAttribute(index), binding);
+                }
+            } else if (expression instanceof BinaryExpression) {
+                // fold the math between literals
+                BinaryExpression math = (BinaryExpression) expression;
+                if (math.getExpression1() instanceof Literal
+                        && math.getExpression2() instanceof Literal) {
+                    return new Operand(expression.evaluate(null));
+                }
+            }
+            return new Operand(expression::evaluate, null);
+        }
+
+        /**
+         * Converts a constant to the binding of the attribute it is compared to, if the conversion
+         * does not lose information. Constants compared to strings are not converted, the filters
+         * compare strings to other values as numbers whenever they can be parsed.
+         */
+        Operand convert(Operand constant, Class<?> binding) {
+            Object value = constant.value;
+            if (value == null
+                    || binding.isInstance(value)
+                    || !(Number.class.isAssignableFrom(binding)
+                            || Boolean.class.equals(binding)
+                            || Date.class.isAssignableFrom(binding))) {
+                return constant;
+            }
+            Object converted = Converters.convert(value, binding);
+            if (converted != null
+                    && Objects.equals(value, Converters.convert(converted, value.getClass()))) {
+                return new Operand(converted);
+            }
+            return constant;
+        }
+
+        static boolean isComplex(Object value) {
+            return value instanceof Collection || value instanceof Attribute;
+        }
+    }
+}
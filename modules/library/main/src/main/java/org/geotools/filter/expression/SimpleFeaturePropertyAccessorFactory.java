@@ -102,6 +102,20 @@ public class SimpleFeaturePropertyAccessorFactory implements PropertyAccessorFac
         return null;
     }
 
+    /**
+     * Returns the index of the attribute returned by the accessors of this factory for a simple
+     * feature of the specified type, or -1 if the xpath does not select an attribute of the type.
+     *
+     * @param type the feature type
+     * @param xpath the property xpath, a plain attribute name possibly prefixed and indexed
+     */
+    public static int getAttributeIndex(SimpleFeatureType type, String xpath) {
+        if (xpath == null || !propertyPattern.matcher(xpath).matches()) {
+            return -1;
+        }
+        return type.indexOf(stripPrefixIndex(xpath));
+    }
+
     /**
      * We strip off namespace prefix, we need new feature model to do this property
      *
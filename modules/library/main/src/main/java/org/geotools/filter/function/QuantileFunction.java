@@ -18,6 +18,8 @@ package org.geotools.filter.function;
 
 import static org.geotools.filter.capability.FunctionNameImpl.parameter;
 
+import org.geotools.feature.visitor.ApproxQuantileVisitor;
+import org.geotools.feature.visitor.FeatureCalc;
 import org.geotools.feature.visitor.QuantileListVisitor;
 import org.geotools.filter.capability.FunctionNameImpl;
 import org.opengis.filter.capability.FunctionName;
@@ -25,6 +27,9 @@ import org.opengis.filter.capability.FunctionName;
 /**
  * Breaks a SimpleFeatureCollection into classes with an equal number of items in each.
  *
+ * <p>The optional third parameter is the rank error allowed on the class breaks of numeric
+ * values, e.g. 0.01, large collections are then classified with bounded memory.
+ *
  * @author Cory Horner, Refractions Research Inc.
  */
 public class QuantileFunction extends AbstractQuantityClassificationFunction {
@@ -34,13 +39,25 @@ public class QuantileFunction extends AbstractQuantityClassificationFunction {
                     "Quantile",
                     RangedClassifier.class,
                     parameter("value", Double.class),
-                    parameter("classes", Integer.class));
+                    parameter("classes", Integer.class),
+                    parameter("rankError", Double.class, 0, 1));
 
     public QuantileFunction() {
         super(NAME);
     }
 
-    protected QuantileListVisitor getListVisitor() {
+    /**
+     * Returns the visitor finding the values in each bin. When a rank error is provided, the class
+     * breaks of numeric values are estimated with bounded memory by a {@link
+     * ApproxQuantileVisitor}, instead of sorting all the values.
+     */
+    protected FeatureCalc getListVisitor() {
+        if (getParameters().size() > 2) {
+            Double rankError = getParameters().get(2).evaluate(null, Double.class);
+            if (rankError != null && rankError > 0) {
+                return new ApproxQuantileVisitor(getParameters().get(0), getClasses(), rankError);
+            }
+        }
         // use a visitor to find the values in each bin
         return new QuantileListVisitor(getParameters().get(0), getClasses());
     }
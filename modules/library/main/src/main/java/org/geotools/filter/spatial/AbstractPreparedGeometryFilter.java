@@ -17,6 +17,7 @@
 package org.geotools.filter.spatial;
 
 import org.geotools.filter.GeometryFilterImpl;
+import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
@@ -41,6 +42,13 @@ import org.opengis.filter.expression.Literal;
  * If <strong>BOTH</strong> of the expressions are literals then a cached value is generated by calling {@link #basicEvaluate(Geometry, Geometry)}.
  * </p>
  * <p>
+ * The prepared geometries are built on first use, see {@link #getLeftPreparedGeometry()} and
+ * {@link #getRightPreparedGeometry()}. Each filter prepares its own literal, the copies made by
+ * the filter visitors share it with the original filter through {@link
+ * #sharePreparedGeometries(AbstractPreparedGeometryFilter)}. Preparation can be disabled setting
+ * the {@link Hints#PREPARED_GEOMETRY_FILTERS} system default hint to false.
+ * </p>
+ * <p>
  * The method {@link #basicEvaluate(Geometry, Geometry)} is required to be implemented so that a cached value can be generated in the case
  * that both expressions are literals
  * </p>
@@ -61,10 +69,10 @@ import org.opengis.filter.expression.Literal;
  * case BOTH:
  * return cacheValue;
  * case RIGHT: {
- * return rightPreppedGeom.intersects(getLeftGeometry(feature));
+ * return getRightPreparedGeometry().intersects(getLeftGeometry(feature));
  * }
  * case LEFT: {
- * return leftPreppedGeom.intersects(getRightGeometry(feature));
+ * return getLeftPreparedGeometry().intersects(getRightGeometry(feature));
  * }
  * default: {
  * left = getLeftGeometry(feature);
@@ -125,20 +133,29 @@ public abstract class AbstractPreparedGeometryFilter extends GeometryFilterImpl
         }
     }
 
-    private final PreparedGeometryFactory pGeomFac;
+    private static final PreparedGeometryFactory PREPARED_GEOMETRY_FACTORY =
+            new PreparedGeometryFactory();
 
     /** Indicates which expressions are {@link Literal}s */
     protected Literals literals;
     /**
      * The PreparedGeometry for the left Geometry. Null if the left geometry is not a {@link
-     * Literal}
+     * Literal}, or has not been prepared yet: subclasses should not read it directly, but use
+     * {@link #getLeftPreparedGeometry()}, which prepares it on demand
      */
-    protected PreparedGeometry leftPreppedGeom;
+    protected volatile PreparedGeometry leftPreppedGeom;
     /**
      * The PreparedGeometry for the right Geometry. Null if the right geometry is not a {@link
-     * Literal}
+     * Literal}, or has not been prepared yet: subclasses should not read it directly, but use
+     * {@link #getRightPreparedGeometry()}, which prepares it on demand
      */
-    protected PreparedGeometry rightPreppedGeom;
+    protected volatile PreparedGeometry rightPreppedGeom;
+
+    /** Whether the literal geometries have been prepared already */
+    private volatile boolean prepared;
+
+    /** The literal geometry preparation, shared with the copies of this filter */
+    private SharedPreparedGeometry sharedPrepared;
     /**
      * If both expressions are literals the value will never change. In that case this field is that
      * calculated value. It is false otherwise.
@@ -147,7 +164,6 @@ public abstract class AbstractPreparedGeometryFilter extends GeometryFilterImpl
 
     protected AbstractPreparedGeometryFilter(Expression e1, Expression e2) {
         super(e1, e2);
-        pGeomFac = new PreparedGeometryFactory();
         if (e1 != null) setExpression1(e1);
         if (e2 != null) setExpression2(e2);
     }
@@ -155,48 +171,118 @@ public abstract class AbstractPreparedGeometryFilter extends GeometryFilterImpl
     protected AbstractPreparedGeometryFilter(
             Expression e1, Expression e2, MatchAction matchAction) {
         super(e1, e2, matchAction);
-        pGeomFac = new PreparedGeometryFactory();
         if (e1 != null) setExpression1(e1);
         if (e2 != null) setExpression2(e2);
     }
 
     private void prepare() {
+        leftPreppedGeom = rightPreppedGeom = null;
+        prepared = false;
+        synchronized (this) {
+            sharedPrepared = null;
+        }
+        cacheValue = false;
         if (expression1 == null || expression2 == null) {
             // filter not yet fully configured so wait
             return;
         }
         literals = Literals.calculate(expression1, expression2);
-        switch (literals) {
-            case BOTH:
-                {
-                    Geometry left = (Geometry) ((Literal) expression1).getValue();
-                    Geometry right = (Geometry) ((Literal) expression2).getValue();
-                    cacheValue = basicEvaluate(left, right);
-                    leftPreppedGeom = rightPreppedGeom = null;
-                    break;
-                }
-            case LEFT:
-                {
-                    Geometry left = (Geometry) ((Literal) expression1).getValue();
-                    leftPreppedGeom = pGeomFac.create(left);
-                    rightPreppedGeom = null;
-                    cacheValue = false;
-                    break;
-                }
-            case RIGHT:
-                {
-                    Geometry right = (Geometry) ((Literal) expression2).getValue();
-                    rightPreppedGeom = pGeomFac.create(right);
-                    leftPreppedGeom = null;
-                    cacheValue = false;
-                    break;
-                }
-            default:
-                {
-                    leftPreppedGeom = rightPreppedGeom = null;
-                    cacheValue = false;
-                }
+        if (literals == Literals.BOTH) {
+            Geometry left = (Geometry) ((Literal) expression1).getValue();
+            Geometry right = (Geometry) ((Literal) expression2).getValue();
+            cacheValue = basicEvaluate(left, right);
+        }
+    }
+
+    /**
+     * Returns the prepared geometry of the left literal, or null if the left expression is not a
+     * literal geometry, or preparation is disabled
+     */
+    protected PreparedGeometry getLeftPreparedGeometry() {
+        if (!prepared) {
+            prepareLiterals();
+        }
+        return leftPreppedGeom;
+    }
+
+    /**
+     * Returns the prepared geometry of the right literal, or null if the right expression is not
+     * a literal geometry, or preparation is disabled
+     */
+    protected PreparedGeometry getRightPreparedGeometry() {
+        if (!prepared) {
+            prepareLiterals();
+        }
+        return rightPreppedGeom;
+    }
+
+    private void prepareLiterals() {
+        Geometry literal = getPreparableLiteral();
+        if (literal != null && isPreparationEnabled()) {
+            PreparedGeometry prepped = getSharedPrepared(literal).get();
+            if (literals == Literals.LEFT) {
+                leftPreppedGeom = prepped;
+            } else {
+                rightPreppedGeom = prepped;
+            }
+        }
+        prepared = true;
+    }
+
+    /** Returns the literal geometry to be prepared, or null if there is none */
+    private Geometry getPreparableLiteral() {
+        if (literals == Literals.LEFT) {
+            return (Geometry) ((Literal) expression1).getValue();
+        } else if (literals == Literals.RIGHT) {
+            return (Geometry) ((Literal) expression2).getValue();
         }
+        return null;
+    }
+
+    private synchronized SharedPreparedGeometry getSharedPrepared(Geometry literal) {
+        if (sharedPrepared == null) {
+            sharedPrepared = new SharedPreparedGeometry(literal);
+        }
+        return sharedPrepared;
+    }
+
+    /**
+     * Makes this filter use the geometry prepared by the filter it has been copied from, so that
+     * the literal is only prepared once. Nothing is shared unless the literals are the same, see
+     * {@link #isSameLiteral(Geometry, Geometry)}.
+     *
+     * @param source the filter this one is a copy of
+     */
+    public void sharePreparedGeometries(AbstractPreparedGeometryFilter source) {
+        Geometry literal = getPreparableLiteral();
+        Geometry sourceLiteral = source.getPreparableLiteral();
+        if (literal != null
+                && sourceLiteral != null
+                && literals == source.literals
+                && isSameLiteral(sourceLiteral, literal)) {
+            SharedPreparedGeometry shared = source.getSharedPrepared(sourceLiteral);
+            synchronized (this) {
+                sharedPrepared = shared;
+            }
+            leftPreppedGeom = rightPreppedGeom = null;
+            prepared = false;
+        }
+    }
+
+    /**
+     * Returns true if the geometry prepared for the source literal can be used in place of this
+     * filter literal. Geometries are mutable, by default only the same instance is accepted.
+     *
+     * @param source the literal of the filter this one is a copy of
+     * @param literal the literal of this filter
+     */
+    protected boolean isSameLiteral(Geometry source, Geometry literal) {
+        return source == literal;
+    }
+
+    /** Returns true unless the {@link Hints#PREPARED_GEOMETRY_FILTERS} hint disables preparation */
+    static boolean isPreparationEnabled() {
+        return !Boolean.FALSE.equals(Hints.getSystemDefault(Hints.PREPARED_GEOMETRY_FILTERS));
     }
 
     @Override
@@ -223,4 +309,29 @@ public abstract class AbstractPreparedGeometryFilter extends GeometryFilterImpl
      * @return true if the filter evaluates to true for the two geometries
      */
     protected abstract boolean basicEvaluate(Geometry left, Geometry right);
+
+    /** A literal geometry, prepared on first use by whichever filter sharing it needs it first */
+    private static final class SharedPreparedGeometry {
+        final Geometry geometry;
+
+        volatile PreparedGeometry prepared;
+
+        SharedPreparedGeometry(Geometry geometry) {
+            this.geometry = geometry;
+        }
+
+        PreparedGeometry get() {
+            PreparedGeometry result = prepared;
+            if (result == null) {
+                synchronized (this) {
+                    result = prepared;
+                    if (result == null) {
+                        result = PREPARED_GEOMETRY_FACTORY.create(geometry);
+                        prepared = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
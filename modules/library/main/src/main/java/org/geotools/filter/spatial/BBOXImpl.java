@@ -162,6 +162,18 @@ public class BBOXImpl extends AbstractPreparedGeometryFilter implements BBOX {
         super.setExpression2(expression);
     }
 
+    /**
+     * Copies rebuild the bounding polygon, a rectangle is fully described by its envelope so an
+     * equal one can use the same prepared geometry
+     */
+    @Override
+    protected boolean isSameLiteral(Geometry source, Geometry literal) {
+        return super.isSameLiteral(source, literal)
+                || (source.isRectangle()
+                        && literal.isRectangle()
+                        && source.getEnvelopeInternal().equals(literal.getEnvelopeInternal()));
+    }
+
     @Override
     public boolean evaluateInternal(Geometry left, Geometry right) {
         switch (literals) {
@@ -169,11 +181,17 @@ public class BBOXImpl extends AbstractPreparedGeometryFilter implements BBOX {
                 return cacheValue;
             case RIGHT:
                 {
-                    return preppedEvaluate(rightPreppedGeom, left);
+                    PreparedGeometry prepped = getRightPreparedGeometry();
+                    return prepped != null
+                            ? preppedEvaluate(prepped, left)
+                            : basicEvaluate(left, right);
                 }
             case LEFT:
                 {
-                    return preppedEvaluate(leftPreppedGeom, right);
+                    PreparedGeometry prepped = getLeftPreparedGeometry();
+                    return prepped != null
+                            ? preppedEvaluate(prepped, right)
+                            : basicEvaluate(left, right);
                 }
             default:
                 {
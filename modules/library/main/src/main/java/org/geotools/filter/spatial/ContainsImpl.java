@@ -18,6 +18,7 @@ package org.geotools.filter.spatial;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Contains;
@@ -46,7 +47,12 @@ public class ContainsImpl extends AbstractPreparedGeometryFilter implements Cont
                 }
             case LEFT:
                 {
-                    return leftPreppedGeom.contains(right);
+                    PreparedGeometry prepped = getLeftPreparedGeometry();
+                    if (prepped == null) {
+                        return basicEvaluate(left, right);
+                    }
+                    Envelope envLeft = prepped.getGeometry().getEnvelopeInternal();
+                    return envLeft.contains(right.getEnvelopeInternal()) && prepped.contains(right);
                 }
             default:
                 {
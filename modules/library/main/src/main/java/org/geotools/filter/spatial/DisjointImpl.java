@@ -18,6 +18,7 @@ package org.geotools.filter.spatial;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Disjoint;
@@ -40,11 +41,11 @@ public class DisjointImpl extends AbstractPreparedGeometryFilter implements Disj
                 return cacheValue;
             case RIGHT:
                 {
-                    return rightPreppedGeom.disjoint(left);
+                    return preppedEvaluate(getRightPreparedGeometry(), left, right);
                 }
             case LEFT:
                 {
-                    return leftPreppedGeom.disjoint(right);
+                    return preppedEvaluate(getLeftPreparedGeometry(), right, left);
                 }
             default:
                 {
@@ -53,6 +54,14 @@ public class DisjointImpl extends AbstractPreparedGeometryFilter implements Disj
         }
     }
 
+    private boolean preppedEvaluate(PreparedGeometry prepped, Geometry other, Geometry literal) {
+        if (prepped == null) {
+            return basicEvaluate(other, literal);
+        }
+        Envelope envPrepped = prepped.getGeometry().getEnvelopeInternal();
+        return !envPrepped.intersects(other.getEnvelopeInternal()) || prepped.disjoint(other);
+    }
+
     @Override
     protected boolean basicEvaluate(Geometry left, Geometry right) {
         Envelope envLeft = left.getEnvelopeInternal();
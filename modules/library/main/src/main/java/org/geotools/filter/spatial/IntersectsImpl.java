@@ -18,6 +18,7 @@ package org.geotools.filter.spatial;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Intersects;
@@ -39,11 +40,11 @@ public class IntersectsImpl extends AbstractPreparedGeometryFilter implements In
                 return cacheValue;
             case RIGHT:
                 {
-                    return rightPreppedGeom.intersects(left);
+                    return preppedEvaluate(getRightPreparedGeometry(), left, right);
                 }
             case LEFT:
                 {
-                    return leftPreppedGeom.intersects(right);
+                    return preppedEvaluate(getLeftPreparedGeometry(), right, left);
                 }
             default:
                 {
@@ -52,6 +53,14 @@ public class IntersectsImpl extends AbstractPreparedGeometryFilter implements In
         }
     }
 
+    private boolean preppedEvaluate(PreparedGeometry prepped, Geometry other, Geometry literal) {
+        if (prepped == null) {
+            return basicEvaluate(other, literal);
+        }
+        Envelope envPrepped = prepped.getGeometry().getEnvelopeInternal();
+        return envPrepped.intersects(other.getEnvelopeInternal()) && prepped.intersects(other);
+    }
+
     public Object accept(FilterVisitor visitor, Object extraData) {
         return visitor.visit(this, extraData);
     }
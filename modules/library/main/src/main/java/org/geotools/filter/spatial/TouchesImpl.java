@@ -17,6 +17,7 @@
 package org.geotools.filter.spatial;
 
 import org.geotools.filter.GeometryFilterImpl;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
@@ -33,7 +34,10 @@ public class TouchesImpl extends GeometryFilterImpl implements Touches {
     }
 
     public boolean evaluateInternal(Geometry left, Geometry right) {
-        return left.touches(right);
+        Envelope envLeft = left.getEnvelopeInternal();
+        Envelope envRight = right.getEnvelopeInternal();
+        if (envRight.intersects(envLeft)) return left.touches(right);
+        return false;
     }
 
     public Object accept(FilterVisitor visitor, Object extraData) {
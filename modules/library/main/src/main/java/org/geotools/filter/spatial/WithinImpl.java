@@ -18,6 +18,7 @@ package org.geotools.filter.spatial;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Within;
@@ -40,14 +41,19 @@ public class WithinImpl extends AbstractPreparedGeometryFilter implements Within
                 return cacheValue;
             case RIGHT:
                 {
+                    PreparedGeometry prepped = getRightPreparedGeometry();
+                    if (prepped == null) {
+                        return basicEvaluate(left, right);
+                    }
                     // if the right contains left then left is within right
-                    return rightPreppedGeom.contains(left);
+                    Envelope envRight = prepped.getGeometry().getEnvelopeInternal();
+                    return envRight.contains(left.getEnvelopeInternal()) && prepped.contains(left);
                 }
             case LEFT:
                 {
                     // since within does not have an optimization with prepared geometries
                     // there is nothing to be gained in this case so use the normal check
-                    return basicEvaluate(leftPreppedGeom.getGeometry(), right);
+                    return basicEvaluate(left, right);
                 }
             default:
                 {
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.spatial.AbstractPreparedGeometryFilter;
 import org.geotools.util.factory.GeoTools;
 import org.opengis.filter.And;
 import org.opengis.filter.ExcludeFilter;
@@ -28,6 +29,7 @@ import org.opengis.filter.FilterFactory2;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.Id;
 import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.MultiValuedFilter.MatchAction;
 import org.opengis.filter.NativeFilter;
 import org.opengis.filter.Not;
 import org.opengis.filter.Or;
@@ -55,6 +57,7 @@ import org.opengis.filter.expression.Subtract;
 import org.opengis.filter.spatial.BBOX;
 import org.opengis.filter.spatial.BBOX3D;
 import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.BinarySpatialOperator;
 import org.opengis.filter.spatial.Contains;
 import org.opengis.filter.spatial.Crosses;
 import org.opengis.filter.spatial.DWithin;
@@ -245,11 +248,15 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
             double maxx = filter.getMaxX();
             double maxy = filter.getMaxY();
             String srs = filter.getSRS();
-            return getFactory(extraData)
-                    .bbox(propertyName, minx, miny, maxx, maxy, srs, filter.getMatchAction());
+            MatchAction matchAction = filter.getMatchAction();
+            BBOX copy =
+                    getFactory(extraData)
+                            .bbox(propertyName, minx, miny, maxx, maxy, srs, matchAction);
+            return sharePreparedGeometries(filter, copy);
         }
 
-        return getFactory(extraData).bbox(propertyName, filter.getBounds());
+        return sharePreparedGeometries(
+                filter, getFactory(extraData).bbox(propertyName, filter.getBounds()));
     }
 
     public Object visit(Beyond filter, Object extraData) {
@@ -264,7 +271,9 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
     public Object visit(Contains filter, Object extraData) {
         Expression geometry1 = visit(filter.getExpression1(), extraData);
         Expression geometry2 = visit(filter.getExpression2(), extraData);
-        return getFactory(extraData).contains(geometry1, geometry2, filter.getMatchAction());
+        return sharePreparedGeometries(
+                filter,
+                getFactory(extraData).contains(geometry1, geometry2, filter.getMatchAction()));
     }
 
     public Object visit(Crosses filter, Object extraData) {
@@ -276,7 +285,9 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
     public Object visit(Disjoint filter, Object extraData) {
         Expression geometry1 = visit(filter.getExpression1(), extraData);
         Expression geometry2 = visit(filter.getExpression2(), extraData);
-        return getFactory(extraData).disjoint(geometry1, geometry2, filter.getMatchAction());
+        return sharePreparedGeometries(
+                filter,
+                getFactory(extraData).disjoint(geometry1, geometry2, filter.getMatchAction()));
     }
 
     public Object visit(DWithin filter, Object extraData) {
@@ -297,7 +308,9 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
     public Object visit(Intersects filter, Object extraData) {
         Expression geometry1 = visit(filter.getExpression1(), extraData);
         Expression geometry2 = visit(filter.getExpression2(), extraData);
-        return getFactory(extraData).intersects(geometry1, geometry2, filter.getMatchAction());
+        return sharePreparedGeometries(
+                filter,
+                getFactory(extraData).intersects(geometry1, geometry2, filter.getMatchAction()));
     }
 
     public Object visit(Overlaps filter, Object extraData) {
@@ -315,7 +328,9 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
     public Object visit(Within filter, Object extraData) {
         Expression geometry1 = visit(filter.getExpression1(), extraData);
         Expression geometry2 = visit(filter.getExpression2(), extraData);
-        return getFactory(extraData).within(geometry1, geometry2, filter.getMatchAction());
+        return sharePreparedGeometries(
+                filter,
+                getFactory(extraData).within(geometry1, geometry2, filter.getMatchAction()));
     }
 
     public Object visitNullFilter(Object extraData) {
@@ -493,4 +508,14 @@ public class DuplicatingFilterVisitor implements FilterVisitor, ExpressionVisito
     public Object visit(NativeFilter filter, Object extraData) {
         return getFactory(extraData).nativeFilter(filter.getNative());
     }
+
+    /** Lets the copy of a spatial filter use the literal geometry prepared by the original one */
+    protected Filter sharePreparedGeometries(BinarySpatialOperator filter, Filter copy) {
+        if (filter instanceof AbstractPreparedGeometryFilter
+                && copy instanceof AbstractPreparedGeometryFilter) {
+            ((AbstractPreparedGeometryFilter) copy)
+                    .sharePreparedGeometries((AbstractPreparedGeometryFilter) filter);
+        }
+        return copy;
+    }
 }
@@ -21,8 +21,10 @@ import java.util.List;
 import org.geotools.referencing.operation.transform.AffineTransform2D;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryComponentFilter;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.LinearRing;
@@ -177,8 +179,77 @@ public class GeometryCoordinateSequenceTransformer {
             throw new IllegalArgumentException("Unsupported geometry type " + g.getClass());
         }
 
-        // copy over user data
-        // do a special check for coordinate reference system
+        copyUserData(g, transformed);
+
+        return transformed;
+    }
+
+    /**
+     * Applies the transform to the provided geometries, gathering their coordinates in a single
+     * array so that the math transform is invoked once for all of them, instead of once per
+     * coordinate sequence.
+     *
+     * <p>The coordinates are transformed in place on copies of the geometries. Curved geometries,
+     * geometries with less ordinates than the transform source dimensions, and all geometries when
+     * a custom {@link CoordinateSequenceTransformer} is used, are transformed one by one with
+     * {@link #transform(Geometry)} instead.
+     *
+     * @param geometries the geometries to transform, null elements are allowed
+     * @return the transformed geometries, in the same order
+     * @throws TransformException
+     */
+    public Geometry[] transform(Geometry[] geometries) throws TransformException {
+        final int dimension = transform.getSourceDimensions();
+        final boolean batch =
+                inputCSTransformer == null && dimension == transform.getTargetDimensions();
+
+        Geometry[] transformed = new Geometry[geometries.length];
+        boolean[] inPlace = new boolean[geometries.length];
+        int ordinates = 0;
+        for (int i = 0; i < geometries.length; i++) {
+            Geometry g = geometries[i];
+            if (g == null) {
+                continue;
+            } else if (batch && isTransformableInPlace(g, dimension)) {
+                transformed[i] = g.copy();
+                inPlace[i] = true;
+                ordinates += g.getNumPoints() * dimension;
+            } else {
+                transformed[i] = transform(g);
+            }
+        }
+
+        if (ordinates > 0) {
+            double[] buffer = new double[ordinates];
+            OrdinateCopier gather = new OrdinateCopier(buffer, dimension, false);
+            for (int i = 0; i < transformed.length; i++) {
+                if (inPlace[i]) {
+                    transformed[i].apply(gather);
+                }
+            }
+            transform.transform(buffer, 0, buffer, 0, ordinates / dimension);
+            OrdinateCopier scatter = new OrdinateCopier(buffer, dimension, true);
+            for (int i = 0; i < transformed.length; i++) {
+                if (inPlace[i]) {
+                    transformed[i].apply(scatter);
+                }
+            }
+        }
+
+        for (int i = 0; i < transformed.length; i++) {
+            if (inPlace[i]) {
+                copyUserData(geometries[i], transformed[i]);
+            }
+        }
+
+        return transformed;
+    }
+
+    /**
+     * Copies over the user data of the source geometry, replacing the coordinate reference system
+     * with the target one
+     */
+    private void copyUserData(Geometry g, Geometry transformed) {
         transformed.setUserData(g.getUserData());
 
         if ((g.getUserData() == null) || g.getUserData() instanceof CoordinateReferenceSystem) {
@@ -187,8 +258,31 @@ public class GeometryCoordinateSequenceTransformer {
                 transformed.setUserData(crs);
             }
         }
+    }
 
-        return transformed;
+    /**
+     * Checks the geometry has no curved components, and that all its coordinate sequences hold
+     * the ordinates the transform needs, so that a copy of it can be transformed in place
+     */
+    private boolean isTransformableInPlace(Geometry g, final int dimension) {
+        final boolean[] transformable = {true};
+        g.apply(
+                new GeometryComponentFilter() {
+                    @Override
+                    public void filter(Geometry component) {
+                        if (component instanceof CurvedGeometry<?>) {
+                            transformable[0] = false;
+                        } else if (component instanceof Point) {
+                            CoordinateSequence cs = ((Point) component).getCoordinateSequence();
+                            transformable[0] &= cs.getDimension() >= dimension;
+                        } else if (component instanceof LineString) {
+                            CoordinateSequence cs =
+                                    ((LineString) component).getCoordinateSequence();
+                            transformable[0] &= cs.getDimension() >= dimension;
+                        }
+                    }
+                });
+        return transformable[0];
     }
 
     /** @throws TransformException */
@@ -291,4 +385,45 @@ public class GeometryCoordinateSequenceTransformer {
         transformed.setUserData(polygon.getUserData());
         return transformed;
     }
+
+    /**
+     * Copies the first ordinates of every coordinate from the visited sequences into a buffer, or
+     * back from the buffer into the sequences, in visiting order
+     */
+    private static class OrdinateCopier implements CoordinateSequenceFilter {
+        final double[] buffer;
+
+        final int dimension;
+
+        final boolean write;
+
+        int position;
+
+        OrdinateCopier(double[] buffer, int dimension, boolean write) {
+            this.buffer = buffer;
+            this.dimension = dimension;
+            this.write = write;
+        }
+
+        @Override
+        public void filter(CoordinateSequence seq, int i) {
+            for (int d = 0; d < dimension; d++) {
+                if (write) {
+                    seq.setOrdinate(i, d, buffer[position++]);
+                } else {
+                    buffer[position++] = seq.getOrdinate(i, d);
+                }
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public boolean isGeometryChanged() {
+            return write;
+        }
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class DiffFeatureReaderTest {
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    static final GeometryFactory GF = new GeometryFactory();
+
+    SimpleFeatureType type;
+
+    SimpleFeature[] originals;
+
+    Diff diff;
+
+    @Before
+    public void setUp() throws Exception {
+        type = DataUtilities.createType("points", "geom:Point,value:Integer");
+        originals = new SimpleFeature[10];
+        for (int i = 0; i < originals.length; i++) {
+            originals[i] = feature("f." + i, i, i);
+        }
+
+        diff = new Diff();
+        diff.modify("f.1", feature("f.1", 100, 1));
+        diff.remove("f.2");
+        for (int i = 0; i < 1000; i++) {
+            diff.add("new." + i, feature("new." + i, 200 + i, i));
+        }
+    }
+
+    private SimpleFeature feature(String fid, double ordinate, int value) {
+        return SimpleFeatureBuilder.build(
+                type,
+                new Object[] {GF.createPoint(new Coordinate(ordinate, ordinate)), value},
+                fid);
+    }
+
+    /** Reads the matching features, the delegate reader returns the matching originals */
+    private Set<String> read(Diff diff, Filter filter) throws Exception {
+        Set<String> fids = new HashSet<>();
+        FeatureReader<SimpleFeatureType, SimpleFeature> delegate =
+                new FilteringFeatureReader<SimpleFeatureType, SimpleFeature>(
+                        new CollectionFeatureReader(originals), filter);
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                new DiffFeatureReader<SimpleFeatureType, SimpleFeature>(delegate, diff, filter)) {
+            while (reader.hasNext()) {
+                assertTrue(fids.add(reader.next().getID()));
+            }
+        }
+        return fids;
+    }
+
+    private Set<String> fids(String... fids) {
+        return new HashSet<>(Arrays.asList(fids));
+    }
+
+    @Test
+    public void testBBoxAndAttributeFilter() throws Exception {
+        Filter filter =
+                FF.and(
+                        FF.bbox("geom", 0, 0, 5, 5, null),
+                        FF.greaterOrEqual(FF.property("value"), FF.literal(0)));
+        assertEquals(fids("f.0", "f.3", "f.4", "f.5"), read(diff, filter));
+    }
+
+    @Test
+    public void testModifiedIntoBBox() throws Exception {
+        assertEquals(fids("f.1"), read(diff, FF.bbox("geom", 99, 99, 101, 101, null)));
+    }
+
+    @Test
+    public void testAddedInBBox() throws Exception {
+        Filter filter = FF.bbox("geom", 200, 200, 202, 202, null);
+        assertEquals(fids("new.0", "new.1", "new.2"), read(diff, filter));
+
+        diff.remove("new.1");
+        diff.modify("new.2", feature("new.2", -50, 2));
+        assertEquals(fids("new.0"), read(diff, filter));
+        assertEquals(fids("new.2"), read(diff, FF.bbox("geom", -51, -51, -49, -49, null)));
+    }
+
+    @Test
+    public void testNonSpatialFilter() throws Exception {
+        Filter filter = FF.less(FF.property("value"), FF.literal(3));
+        assertEquals(fids("f.0", "f.1", "new.0", "new.1", "new.2"), read(diff, filter));
+    }
+
+    @Test
+    public void testRemovedFid() throws Exception {
+        Filter filter = FF.id(FF.featureId("f.2"), FF.featureId("new.3"));
+        assertEquals(fids("new.3"), read(diff, filter));
+
+        // the delegate does not return the removed feature either
+        originals = new SimpleFeature[] {originals[0]};
+        assertEquals(fids("new.3"), read(diff, filter));
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        Diff copy = new Diff(diff);
+        copy.remove("f.1");
+        assertEquals(fids("f.1"), read(diff, FF.bbox("geom", 99, 99, 101, 101, null)));
+        assertEquals(fids(), read(copy, FF.bbox("geom", 99, 99, 101, 101, null)));
+        assertEquals(fids("new.5"), read(copy, FF.bbox("geom", 205, 205, 205, 205, null)));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class MemoryDataStoreIndexTest {
+
+    static final int SIZE = 100;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    MemoryDataStore store;
+
+    SimpleFeatureType type;
+
+    @Before
+    public void setUp() throws Exception {
+        type = DataUtilities.createType("points", "geom:Point,value:Integer,name:String");
+        store = new MemoryDataStore(type);
+        store.createAttributeIndex("points", "value");
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(type);
+        GeometryFactory gf = new GeometryFactory();
+        for (int i = 0; i < SIZE; i++) {
+            builder.add(gf.createPoint(new Coordinate(i % 10, i / 10)));
+            builder.add(i);
+            builder.add("name" + (i % 5));
+            store.addFeature(builder.buildFeature("points." + i));
+        }
+        store.createAttributeIndex("points", "name");
+    }
+
+    private List<String> ids(Filter filter) throws Exception {
+        List<String> ids = new ArrayList<>();
+        try (SimpleFeatureIterator it =
+                store.getFeatureSource("points").getFeatures(filter).features()) {
+            while (it.hasNext()) {
+                ids.add(it.next().getID());
+            }
+        }
+        // the count is computed without reading the features
+        Query query = new Query("points", filter);
+        assertEquals(ids.size(), store.getFeatureSource("points").getCount(query));
+        return ids;
+    }
+
+    @Test
+    public void testSpatial() throws Exception {
+        List<String> ids = ids(FF.bbox("", 1.5, 1.5, 3.5, 2.5, null));
+        // insertion order is preserved
+        assertEquals(4, ids.size());
+        assertEquals("points.22", ids.get(0));
+        assertEquals("points.33", ids.get(3));
+
+        Filter intersects =
+                FF.intersects(
+                        FF.property("geom"),
+                        FF.literal(new GeometryFactory().createPoint(new Coordinate(5, 5))));
+        assertEquals(1, ids(intersects).size());
+
+        ReferencedEnvelope bounds =
+                store.getFeatureSource("points").getBounds(new Query("points", intersects));
+        assertEquals(new Envelope(5, 5, 5, 5), new Envelope(bounds));
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        assertEquals(1, ids(FF.equals(FF.property("value"), FF.literal(42))).size());
+        // numbers are compared by value, strings are parsed as the filter would
+        assertEquals(1, ids(FF.equals(FF.property("value"), FF.literal(42.0))).size());
+        assertEquals(1, ids(FF.equals(FF.literal("42"), FF.property("value"))).size());
+
+        assertEquals(20, ids(FF.equals(FF.property("name"), FF.literal("name3"))).size());
+        // not case sensitive, cannot use the index but still works
+        assertEquals(20, ids(FF.equal(FF.property("name"), FF.literal("NAME3"), false)).size());
+
+        assertEquals(10, ids(FF.less(FF.property("value"), FF.literal(10))).size());
+        assertEquals(11, ids(FF.lessOrEqual(FF.property("value"), FF.literal(10))).size());
+        assertEquals(89, ids(FF.greater(FF.property("value"), FF.literal(10.5))).size());
+        assertEquals(90, ids(FF.less(FF.literal(9), FF.property("value"))).size());
+        assertEquals(
+                11, ids(FF.between(FF.property("value"), FF.literal(10), FF.literal(20))).size());
+
+        Filter and =
+                FF.and(
+                        FF.bbox("", -0.5, -0.5, 9.5, 4.5, null),
+                        FF.equals(FF.property("name"), FF.literal("name0")));
+        assertEquals(10, ids(and).size());
+        Filter or =
+                FF.or(
+                        FF.equals(FF.property("value"), FF.literal(1)),
+                        FF.id(FF.featureId("points.2")));
+        assertEquals(2, ids(or).size());
+    }
+
+    @Test
+    public void testMaintainedOnWrite() throws Exception {
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("points");
+        Filter value = FF.equals(FF.property("value"), FF.literal(1000));
+
+        // moves the feature out of the current bounds
+        Filter fid = FF.id(FF.featureId("points.99"));
+        fs.modifyFeatures(
+                new String[] {"geom", "value"},
+                new Object[] {new GeometryFactory().createPoint(new Coordinate(50, 50)), 1000},
+                fid);
+        assertEquals(1, ids(value).size());
+        assertEquals(0, ids(FF.equals(FF.property("value"), FF.literal(99))).size());
+        assertEquals(1, ids(FF.bbox("", 49, 49, 51, 51, null)).size());
+        assertEquals(new Envelope(0, 50, 0, 50), new Envelope(fs.getBounds()));
+
+        // removing it shrinks the bounds back
+        fs.removeFeatures(fid);
+        assertEquals(0, ids(value).size());
+        assertEquals(SIZE - 1, fs.getCount(Query.ALL));
+        assertEquals(new Envelope(0, 9, 0, 9), new Envelope(fs.getBounds()));
+
+        // changes in a transaction are seen along with the indexed content
+        try (Transaction t = new DefaultTransaction()) {
+            fs.setTransaction(t);
+            fs.modifyFeatures("value", 1000, FF.id(FF.featureId("points.5")));
+            assertEquals(1, fs.getCount(new Query("points", value)));
+            try (SimpleFeatureIterator it = fs.getFeatures(value).features()) {
+                assertEquals("points.5", it.next().getID());
+            }
+            t.commit();
+        }
+        fs.setTransaction(Transaction.AUTO_COMMIT);
+        assertEquals(1, ids(value).size());
+    }
+
+    @Test
+    public void testDirectChanges() throws Exception {
+        // changes made straight to the memory map are picked up when the size changes
+        MemoryEntry entry = store.entry("points");
+        SimpleFeature feature = entry.getMemory().remove("points.0");
+        assertNotNull(feature);
+        assertEquals(0, ids(FF.id(FF.featureId("points.0"))).size());
+        assertEquals(0, ids(FF.bbox("", -0.5, -0.5, 0.5, 0.5, null)).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAttribute() throws Exception {
+        store.createAttributeIndex("points", "notThere");
+    }
+
+    @Test
+    public void testNoGeometry() throws Exception {
+        SimpleFeatureType plain = DataUtilities.createType("plain", "value:Integer");
+        store.createSchema(plain);
+        store.addFeature(SimpleFeatureBuilder.build(plain, new Object[] {1}, "plain.1"));
+        ReferencedEnvelope bounds = store.getFeatureSource("plain").getBounds();
+        assertNotNull(bounds);
+        assertTrue(bounds.isEmpty());
+        assertNull(bounds.getCoordinateReferenceSystem());
+    }
+}
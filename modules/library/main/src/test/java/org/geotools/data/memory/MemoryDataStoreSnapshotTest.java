@@ -0,0 +1,270 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class MemoryDataStoreSnapshotTest {
+
+    static final int SIZE = 3000;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    MemoryDataStore store;
+
+    SimpleFeatureType type;
+
+    @Before
+    public void setUp() throws Exception {
+        type = DataUtilities.createType("points", "geom:Point,value:Integer");
+        store = new MemoryDataStore();
+        store.setSnapshotReads(true);
+        SimpleFeature[] features = new SimpleFeature[SIZE];
+        GeometryFactory gf = new GeometryFactory();
+        for (int i = 0; i < SIZE; i++) {
+            features[i] =
+                    SimpleFeatureBuilder.build(
+                            type,
+                            new Object[] {gf.createPoint(new Coordinate(i, i)), i},
+                            "points." + i);
+        }
+        store.addFeatures(features);
+    }
+
+    private FeatureReader<SimpleFeatureType, SimpleFeature> reader() throws Exception {
+        return store.getFeatureReader(new Query("points"), Transaction.AUTO_COMMIT);
+    }
+
+    @Test
+    public void testReadersKeepTheirVersion() throws Exception {
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader = reader()) {
+            assertEquals(0, reader.next().getAttribute("value"));
+
+            SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("points");
+            fs.modifyFeatures("value", -1, FF.id(FF.featureId("points.1")));
+            fs.removeFeatures(FF.id(FF.featureId("points.2")));
+
+            // the open reader still iterates the version it started with
+            assertEquals(1, reader.next().getAttribute("value"));
+            assertEquals(2, reader.next().getAttribute("value"));
+            int count = 3;
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+            assertEquals(SIZE, count);
+        }
+
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader = reader()) {
+            assertEquals(0, reader.next().getAttribute("value"));
+            assertEquals(-1, reader.next().getAttribute("value"));
+            assertEquals(3, reader.next().getAttribute("value"));
+        }
+        assertEquals(SIZE - 1, store.getFeatureSource("points").getCount(Query.ALL));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("points");
+        fs.removeFeatures(FF.less(FF.property("value"), FF.literal(SIZE - 10)));
+        assertEquals(10, fs.getCount(Query.ALL));
+
+        // the remaining features keep their order
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader = reader()) {
+            for (int i = SIZE - 10; i < SIZE; i++) {
+                assertEquals(i, reader.next().getAttribute("value"));
+            }
+            assertFalse(reader.hasNext());
+        }
+
+        // added features go last
+        store.addFeature(
+                SimpleFeatureBuilder.build(type, new Object[] {null, SIZE}, "points." + SIZE));
+        assertEquals(11, fs.getCount(Query.ALL));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] =
+                    new Thread() {
+                        public void run() {
+                            try {
+                                for (int i = 0; i < 20; i++) {
+                                    int count = 0;
+                                    try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                                            reader()) {
+                                        while (reader.hasNext()) {
+                                            reader.next();
+                                            count++;
+                                        }
+                                    }
+                                    // each reader sees a consistent version
+                                    assertEquals(SIZE, count);
+                                }
+                            } catch (Throwable e) {
+                                failure.set(e);
+                            }
+                        }
+                    };
+            readers[t].start();
+        }
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("points");
+        for (int i = 0; i < 20; i++) {
+            fs.modifyFeatures("value", i, FF.less(FF.property("value"), FF.literal(100)));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(String.valueOf(failure.get()), failure.get() == null);
+    }
+
+    @Test
+    public void testFilteredReadsDoNotLock() throws Exception {
+        store.createAttributeIndex("points", "value");
+        final Map<String, SimpleFeature> memory = store.entry("points").getMemory();
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // a writer holding the lock for the whole test
+            executor.submit(
+                    () -> {
+                        synchronized (memory) {
+                            locked.countDown();
+                            done.await();
+                        }
+                        return null;
+                    });
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            Future<int[]> counts =
+                    executor.submit(
+                            () ->
+                                    new int[] {
+                                        count(FF.bbox("geom", 10, 10, 19, 19, null)),
+                                        count(FF.less(FF.property("value"), FF.literal(5))),
+                                        count(
+                                                FF.or(
+                                                        FF.equals(
+                                                                FF.property("value"),
+                                                                FF.literal(7)),
+                                                        FF.isNull(FF.property("geom"))))
+                                    });
+            int[] result = counts.get(10, TimeUnit.SECONDS);
+            assertEquals(10, result[0]);
+            assertEquals(5, result[1]);
+            assertEquals(1, result[2]);
+        } finally {
+            done.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPublishReusesBaseIndex() throws Exception {
+        store.createAttributeIndex("points", "value");
+        MemoryVersions versions = store.entry("points").versions;
+        MemoryIndex base = versions.getSnapshot().base;
+
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("points");
+        fs.modifyFeatures("value", -1, FF.id(FF.featureId("points.10")));
+        fs.removeFeatures(FF.id(FF.featureId("points.11")));
+        store.addFeature(
+                SimpleFeatureBuilder.build(
+                        type,
+                        new Object[] {new GeometryFactory().createPoint(new Coordinate(12, 12)), 5},
+                        "points." + SIZE));
+
+        // the publications only indexed the changes
+        MemoryVersions.Snapshot snapshot = versions.getSnapshot();
+        assertSame(base, snapshot.base);
+        assertEquals(3, snapshot.changed.size());
+        assertEquals(2, snapshot.delta.size());
+
+        // and the queries merge the base and the changes in insertion order
+        assertEquals(
+                Arrays.asList("points.10", "points.12", "points." + SIZE),
+                ids(FF.bbox("geom", 10, 10, 12, 12, null)));
+        assertEquals(
+                Arrays.asList("points.5", "points." + SIZE),
+                ids(FF.equals(FF.property("value"), FF.literal(5))));
+        assertEquals(
+                Arrays.asList("points.10"), ids(FF.less(FF.property("value"), FF.literal(0))));
+
+        // the base is rebuilt once the changes outgrow a fraction of the features
+        fs.modifyFeatures("value", 0, FF.less(FF.property("value"), FF.literal(SIZE / 2)));
+        assertNotSame(base, versions.getSnapshot().base);
+        assertEquals(0, versions.getSnapshot().changed.size());
+        assertEquals(SIZE / 2, count(FF.equals(FF.property("value"), FF.literal(0))));
+    }
+
+    private List<String> ids(Filter filter) throws Exception {
+        List<String> ids = new ArrayList<>();
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(new Query("points", filter), Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                ids.add(reader.next().getID());
+            }
+        }
+        return ids;
+    }
+
+    private int count(Filter filter) throws Exception {
+        int count = 0;
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(new Query("points", filter), Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+        }
+        return count;
+    }
+}
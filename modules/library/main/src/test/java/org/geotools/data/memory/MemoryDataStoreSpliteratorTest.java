@@ -0,0 +1,155 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.data.store.ContentFeatureCollection;
+import org.geotools.data.util.FeatureIteratorSpliterator;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.data.util.FeatureStreams;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.StandardDeviationVisitor;
+import org.geotools.feature.visitor.SumVisitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class MemoryDataStoreSpliteratorTest {
+
+    static final int SIZE = 10000;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    MemoryDataStore store;
+
+    SimpleFeatureStore fs;
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("points", "geom:Point,value:Integer");
+        store = new MemoryDataStore();
+        SimpleFeature[] features = new SimpleFeature[SIZE];
+        GeometryFactory gf = new GeometryFactory();
+        for (int i = 0; i < SIZE; i++) {
+            features[i] =
+                    SimpleFeatureBuilder.build(
+                            type,
+                            new Object[] {gf.createPoint(new Coordinate(i, i)), i},
+                            "points." + i);
+        }
+        store.addFeatures(features);
+        fs = (SimpleFeatureStore) store.getFeatureSource("points");
+    }
+
+    private int sum(Stream<SimpleFeature> features) {
+        return features.mapToInt(f -> (Integer) f.getAttribute("value")).sum();
+    }
+
+    @Test
+    public void testSplits() throws Exception {
+        try (FeatureSpliterator<SimpleFeature> spliterator =
+                ((ContentFeatureCollection) fs.getFeatures()).spliterator()) {
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+            assertEquals(SIZE, spliterator.getExactSizeIfKnown());
+            Spliterator<SimpleFeature> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+            assertEquals(SIZE, prefix.estimateSize() + spliterator.estimateSize());
+            // the prefix comes first
+            prefix.tryAdvance(f -> assertEquals("points.0", f.getID()));
+        }
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        int expected = SIZE * (SIZE - 1) / 2;
+        try (Stream<SimpleFeature> features =
+                FeatureStreams.toFeatureStream(fs.getFeatures()).parallel()) {
+            assertEquals(expected, sum(features));
+        }
+
+        Filter filter = FF.less(FF.property("value"), FF.literal(100));
+        try (Stream<SimpleFeature> features =
+                FeatureStreams.toFeatureStream(fs.getFeatures(filter)).parallel()) {
+            assertEquals(99 * 100 / 2, sum(features));
+        }
+
+        // retyped
+        Query query = new Query("points", Filter.INCLUDE, new String[] {"value"});
+        try (Stream<SimpleFeature> features =
+                FeatureStreams.toFeatureStream(fs.getFeatures(query)).parallel()) {
+            assertEquals(expected, sum(features.peek(f -> assertEquals(1, f.getAttributeCount()))));
+        }
+
+        // short circuited, the stream closes the splits left open
+        try (Stream<SimpleFeature> features =
+                FeatureStreams.toFeatureStream(fs.getFeatures()).parallel()) {
+            assertTrue(features.anyMatch(f -> f.getAttribute("value").equals(SIZE / 2)));
+        }
+    }
+
+    @Test
+    public void testParallelVisitors() throws Exception {
+        SumVisitor sum = new SumVisitor(FF.property("value"));
+        fs.getFeatures().accepts(sum, null);
+        assertEquals(SIZE * (SIZE - 1) / 2, sum.getResult().toInt());
+
+        CountVisitor count = new CountVisitor();
+        fs.getFeatures(FF.less(FF.property("value"), FF.literal(100))).accepts(count, null);
+        assertEquals(100, count.getCount());
+
+        StandardDeviationVisitor sequential = new StandardDeviationVisitor(FF.property("value"));
+        for (int i = 0; i < SIZE; i++) {
+            sequential.visit(store.entry("points").getMemory().get("points." + i));
+        }
+        StandardDeviationVisitor parallel = new StandardDeviationVisitor(FF.property("value"));
+        fs.getFeatures().accepts(parallel, null);
+        assertEquals(sequential.getResult().toDouble(), parallel.getResult().toDouble(), 1e-6);
+    }
+
+    @Test
+    public void testTransactionFallback() throws Exception {
+        try (Transaction t = new DefaultTransaction()) {
+            fs.setTransaction(t);
+            fs.removeFeatures(FF.id(FF.featureId("points.1")));
+            ContentFeatureCollection fc = (ContentFeatureCollection) fs.getFeatures();
+            try (FeatureSpliterator<SimpleFeature> spliterator = fc.spliterator()) {
+                assertTrue(spliterator instanceof FeatureIteratorSpliterator);
+            }
+            // the transaction changes are still seen
+            try (Stream<SimpleFeature> features = FeatureStreams.toFeatureStream(fc).parallel()) {
+                assertEquals(SIZE - 1, features.count());
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.util.Date;
 import java.util.NoSuchElementException;
+import org.geotools.data.Query;
 import org.geotools.data.simple.DelegateSimpleFeatureReader;
 import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.data.simple.SimpleFeatureReader;
@@ -15,6 +16,7 @@ import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.util.factory.Hints;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -235,6 +237,38 @@ public class SortedReaderTest {
         }
     }
 
+    @Test
+    public void testMemoryBudgetSort() throws IOException {
+        // a small budget spills plenty of runs, more than can be merged in a single pass
+        Query query = new Query("test");
+        query.setSortBy(peopleDesc);
+        query.setHints(new Hints(Hints.MAX_MEMORY_SORT_BYTES, 4096L));
+        try (SimpleFeatureReader sr = new SortedFeatureReader(fr, query)) {
+            int prev = Integer.MAX_VALUE;
+            int count = 0;
+            while (sr.hasNext()) {
+                SimpleFeature f = sr.next();
+                int curr = (Integer) f.getAttribute("PERSONS");
+                assertTrue(curr <= prev);
+                prev = curr;
+                count++;
+
+                // all values survive the round trip to disk
+                SimpleFeature original = null;
+                try (SimpleFeatureIterator it = fc.features()) {
+                    while (it.hasNext() && original == null) {
+                        SimpleFeature candidate = it.next();
+                        if (candidate.getID().equals(f.getID())) {
+                            original = candidate;
+                        }
+                    }
+                }
+                assertEquals(original.getAttributes(), f.getAttributes());
+            }
+            assertEquals(fc.size(), count);
+        }
+    }
+
     @Test
     public void testSortNaturalPartialLastPage() throws IOException {
         // make it so that we are not going to hit the disk, but
@@ -95,6 +95,41 @@ public class ReprojectingFeatureCollectionTest extends FeatureCollectionWrapperT
         }
     }
 
+    public void testBatchSize() throws Exception {
+        ReprojectingFeatureCollection single = new ReprojectingFeatureCollection(delegate, target);
+        single.setBatchSize(1);
+        ReprojectingFeatureCollection batched = new ReprojectingFeatureCollection(delegate, target);
+        batched.setBatchSize(3);
+
+        SimpleFeatureIterator expected = single.features();
+        SimpleFeatureIterator actual = batched.features();
+        try {
+            int count = 0;
+            while (expected.hasNext()) {
+                assertTrue(actual.hasNext());
+                SimpleFeature f1 = expected.next();
+                SimpleFeature f2 = actual.next();
+                assertEquals(f1.getID(), f2.getID());
+                assertEquals(f1.getFeatureType(), f2.getFeatureType());
+                for (int i = 0; i < f1.getAttributeCount(); i++) {
+                    Object v1 = f1.getAttribute(i);
+                    Object v2 = f2.getAttribute(i);
+                    if (v1 instanceof Geometry) {
+                        assertTrue(((Geometry) v1).equalsExact((Geometry) v2));
+                    } else {
+                        assertEquals(v1, v2);
+                    }
+                }
+                count++;
+            }
+            assertFalse(actual.hasNext());
+            assertEquals(delegate.size(), count);
+        } finally {
+            expected.close();
+            actual.close();
+        }
+    }
+
     public void testBounds() throws Exception {
         ReprojectingFeatureCollection rfc = new ReprojectingFeatureCollection(delegate, target);
         ReferencedEnvelope bounds = delegate.getBounds();
@@ -193,4 +193,35 @@ public class SimpleFeatureBuilderTest extends TestCase {
         assertNotNull(feature);
         assertEquals("bar", feature.getUserData().get("foo"));
     }
+
+    public void testFeatureReuse() throws Exception {
+        GeometryFactory gf = new GeometryFactory();
+        builder.setFeatureReuse(true);
+        builder.add(gf.createPoint(new Coordinate(0, 0)));
+        builder.add(new Integer(1));
+        builder.add(new Float(2.0));
+        builder.featureUserData("foo", "bar");
+        SimpleFeature first = builder.buildFeature("fid.1");
+        assertTrue(first instanceof ReusableSimpleFeature);
+        SimpleFeature copy = ((ReusableSimpleFeature) first).copy();
+
+        builder.add(gf.createPoint(new Coordinate(1, 1)));
+        builder.add(new Integer(3));
+        SimpleFeature second = builder.buildFeature("fid.2");
+
+        // same instance, overwritten with the new values
+        assertSame(first, second);
+        assertEquals("fid.2", second.getID());
+        assertEquals(new Integer(3), second.getAttribute("integer"));
+        assertNull(second.getAttribute("float"));
+        assertNull(second.getUserData().get("foo"));
+
+        // the copy is not affected
+        assertFalse(copy instanceof ReusableSimpleFeature);
+        assertEquals("fid.1", copy.getID());
+        assertEquals(new Integer(1), copy.getAttribute("integer"));
+        assertEquals(new Float(2.0), copy.getAttribute("float"));
+        assertEquals("bar", copy.getUserData().get("foo"));
+        assertSame(copy, ReusableSimpleFeature.detach(copy));
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.Expression;
+
+public class ApproxVisitorsTest {
+
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    static final int SIZE = 20000;
+
+    static final int DISTINCT = 5000;
+
+    List<SimpleFeature> features = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("test", "i:Integer,s:String");
+        for (int i = 0; i < SIZE; i++) {
+            // shuffle the values, the sketches should not depend on the visit order
+            int value = (int) ((i * 7919L) % SIZE);
+            Object[] values = {value, "s" + (i % DISTINCT)};
+            features.add(SimpleFeatureBuilder.build(type, values, "test." + i));
+        }
+        // nulls are skipped
+        features.add(SimpleFeatureBuilder.build(type, new Object[] {null, null}, "test.null"));
+    }
+
+    private <T extends ParallelFeatureVisitor> T visitInParts(T visitor, int parts) {
+        int size = features.size();
+        for (int i = 0; i < parts; i++) {
+            ParallelFeatureVisitor partial = visitor.createPartial();
+            List<SimpleFeature> part = features.subList(size * i / parts, size * (i + 1) / parts);
+            for (SimpleFeature feature : part) {
+                partial.visit(feature);
+            }
+            visitor.combine(partial);
+        }
+        return visitor;
+    }
+
+    @Test
+    public void testDistinctCount() {
+        Expression s = FF.property("s");
+        ApproxDistinctCountVisitor visitor = visitInParts(new ApproxDistinctCountVisitor(s), 1);
+        assertEquals(DISTINCT, visitor.getCount(), DISTINCT * 0.03);
+        assertEquals(visitor.getCount(), visitor.getResult().getValue());
+
+        // the merged partial sketches give the same estimate
+        ApproxDistinctCountVisitor parallel = visitInParts(new ApproxDistinctCountVisitor(s), 7);
+        assertEquals(visitor.getCount(), parallel.getCount());
+
+        ApproxDistinctCountVisitor numbers = new ApproxDistinctCountVisitor(FF.property("i"));
+        assertEquals(SIZE, visitInParts(numbers, 3).getCount(), SIZE * 0.03);
+
+        visitor.reset();
+        assertEquals(0, visitor.getCount());
+        assertEquals(CalcResult.NULL_RESULT, visitor.getResult());
+    }
+
+    @Test
+    public void testMedian() {
+        ApproxMedianVisitor visitor = visitInParts(new ApproxMedianVisitor(FF.property("i")), 5);
+        assertEquals(SIZE / 2, visitor.getMedian(), SIZE * TDigestVisitor.DEFAULT_RANK_ERROR);
+        assertEquals(SIZE, visitor.getCount());
+        assertEquals(1, visitor.getNullCount());
+
+        // value provided by a store
+        visitor.setValue(42);
+        assertEquals(42d, ((Number) visitor.getResult().getValue()).doubleValue(), 0d);
+    }
+
+    @Test
+    public void testQuantiles() {
+        ApproxQuantileVisitor visitor =
+                visitInParts(new ApproxQuantileVisitor(FF.property("i"), 4), 3);
+        List[] bins = (List[]) visitor.getResult().getValue();
+        assertEquals(4, bins.length);
+        assertEquals(0d, (Double) bins[0].get(0), 0d);
+        assertEquals(SIZE - 1, (Double) bins[3].get(1), 0d);
+        for (int i = 0; i < 3; i++) {
+            double expected = SIZE * (i + 1) / 4d;
+            assertEquals(expected, (Double) bins[i].get(1), SIZE * 0.01);
+            // the classes are contiguous
+            assertEquals(bins[i].get(1), bins[i + 1].get(0));
+        }
+    }
+
+    @Test
+    public void testAggregate() {
+        Expression i = FF.property("i");
+        FeatureCalc median = Aggregate.APPROX_MEDIAN.create(i, 0.05);
+        assertTrue(median instanceof ApproxMedianVisitor);
+        assertEquals(0.05, ((ApproxMedianVisitor) median).getRankError(), 0d);
+
+        FeatureCalc distinct = Aggregate.APPROX_COUNT_DISTINCT.create(i);
+        assertTrue(distinct instanceof ApproxDistinctCountVisitor);
+        assertEquals(
+                ApproxDistinctCountVisitor.DEFAULT_ERROR,
+                ((ApproxDistinctCountVisitor) distinct).getError(),
+                0d);
+
+        // other aggregates ignore the error
+        assertTrue(Aggregate.MEDIAN.create(i, 0.05) instanceof MedianVisitor);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.Expression;
+
+public class ParallelFeatureVisitorTest {
+
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    List<SimpleFeature> features = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type =
+                DataUtilities.createType("test", "geom:Point,i:Integer,d:Double,g:String");
+        GeometryFactory gf = new GeometryFactory();
+        for (int i = 0; i < 1000; i++) {
+            Object[] values = {
+                gf.createPoint(new Coordinate(i % 37, i % 101)),
+                // some nulls, which are skipped by the aggregates
+                i % 10 == 0 ? null : i,
+                Math.sqrt(i) * (i % 2 == 0 ? 1 : -1),
+                "g" + (i % 3)
+            };
+            features.add(SimpleFeatureBuilder.build(type, values, "test." + i));
+        }
+    }
+
+    /** Visits the features in uneven parts, and combines the partials in the visitor */
+    private <T extends ParallelFeatureVisitor> T visitInParts(T visitor) {
+        int[] boundaries = {0, 1, 333, 700, 1000, 1000};
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            ParallelFeatureVisitor partial = visitor.createPartial();
+            assertEquals(visitor.getClass(), partial.getClass());
+            for (SimpleFeature feature : features.subList(boundaries[i], boundaries[i + 1])) {
+                partial.visit(feature);
+            }
+            visitor.combine(partial);
+        }
+        return visitor;
+    }
+
+    private <T extends FeatureCalc> T visit(T visitor) {
+        for (SimpleFeature feature : features) {
+            visitor.visit(feature);
+        }
+        return visitor;
+    }
+
+    @Test
+    public void testSimpleAggregates() {
+        Expression i = FF.property("i");
+        Expression d = FF.property("d");
+        List<FeatureCalc> sequential =
+                Arrays.asList(
+                        new CountVisitor(),
+                        new SumVisitor(i),
+                        new SumVisitor(d),
+                        new MinVisitor(d),
+                        new MaxVisitor(i),
+                        new BoundsVisitor());
+        List<ParallelFeatureVisitor> parallel =
+                Arrays.asList(
+                        new CountVisitor(),
+                        new SumVisitor(i),
+                        new SumVisitor(d),
+                        new MinVisitor(d),
+                        new MaxVisitor(i),
+                        new BoundsVisitor());
+        for (int j = 0; j < sequential.size(); j++) {
+            Object expected = visit(sequential.get(j)).getResult().getValue();
+            Object actual = ((FeatureCalc) visitInParts(parallel.get(j))).getResult().getValue();
+            if (expected instanceof Double) {
+                assertEquals((Double) expected, (Double) actual, 1e-9);
+            } else {
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testAverage() {
+        AverageVisitor expected = visit(new AverageVisitor(FF.property("i")));
+        AverageVisitor actual = visitInParts(new AverageVisitor(FF.property("i")));
+        assertEquals(expected.getResult().toDouble(), actual.getResult().toDouble(), 1e-9);
+    }
+
+    @Test
+    public void testStandardDeviation() {
+        StandardDeviationVisitor expected = visit(new StandardDeviationVisitor(FF.property("d")));
+        StandardDeviationVisitor actual =
+                visitInParts(new StandardDeviationVisitor(FF.property("d")));
+        assertEquals(expected.getResult().toDouble(), actual.getResult().toDouble(), 1e-9);
+        assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+        assertEquals(expected.getNullCount(), actual.getNullCount());
+    }
+
+    @Test
+    public void testGroupBy() {
+        List<Expression> groupBy = Arrays.asList(FF.property("g"));
+        GroupByVisitor expected =
+                visit(new GroupByVisitor(Aggregate.SUM, FF.property("i"), groupBy, null));
+        GroupByVisitor actual =
+                visitInParts(new GroupByVisitor(Aggregate.SUM, FF.property("i"), groupBy, null));
+        Map<?, ?> expectedMap = expected.getResult().toMap();
+        assertEquals(3, expectedMap.size());
+        assertEquals(expectedMap, actual.getResult().toMap());
+
+        // the median cannot be computed in parts
+        assertNull(
+                new GroupByVisitor(Aggregate.MEDIAN, FF.property("i"), groupBy, null)
+                        .createPartial());
+    }
+}
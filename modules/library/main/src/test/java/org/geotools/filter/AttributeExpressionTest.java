@@ -46,4 +46,41 @@ public class AttributeExpressionTest extends TestCase {
         ex = new AttributeExpressionImpl("@id");
         assertEquals("fid", ex.evaluate(feature));
     }
+
+    public void testTypeChanges() {
+        SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
+        typeBuilder.setName("first");
+        typeBuilder.add("foo", Integer.class);
+        typeBuilder.add("bar", Double.class);
+        SimpleFeatureType first = typeBuilder.buildFeatureType();
+
+        // same attributes, in another order
+        typeBuilder.setName("second");
+        typeBuilder.add("bar", Double.class);
+        typeBuilder.add("foo", Integer.class);
+        SimpleFeatureType second = typeBuilder.buildFeatureType();
+
+        typeBuilder.setName("third");
+        typeBuilder.add("bar", Double.class);
+        SimpleFeatureType third = typeBuilder.buildFeatureType();
+
+        SimpleFeature f1 = SimpleFeatureBuilder.build(first, new Object[] {1, 2d}, "f1");
+        SimpleFeature f2 = SimpleFeatureBuilder.build(second, new Object[] {3d, 4}, "f2");
+        SimpleFeature f3 = SimpleFeatureBuilder.build(third, new Object[] {5d}, "f3");
+
+        AttributeExpressionImpl ex = new AttributeExpressionImpl("foo");
+        assertEquals(1, ex.evaluate(f1));
+        assertEquals(4, ex.evaluate(f2));
+        assertEquals(1, ex.evaluate(f1));
+        assertNull(ex.evaluate(f3));
+        assertEquals("4", ex.evaluate(f2, String.class));
+
+        // prefixed and indexed names select the same attribute
+        assertEquals(4, new AttributeExpressionImpl("gml:foo").evaluate(f2));
+        assertEquals(4, new AttributeExpressionImpl("foo[1]").evaluate(f2));
+
+        ex.setPropertyName("bar");
+        assertEquals(2d, ex.evaluate(f1));
+        assertEquals(3d, ex.evaluate(f2));
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.visitor.NullFilterVisitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.PropertyIsEqualTo;
+
+public class FilterCompilerTest {
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    SimpleFeatureType type;
+
+    List<SimpleFeature> features = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        type = DataUtilities.createType("test", "geom:Point,i:Integer,d:Double,s:String");
+        GeometryFactory gf = new GeometryFactory();
+        // some strings that compare differently as numbers
+        String[] numbers = {"05", "10", "5.0"};
+        for (int i = 0; i < 100; i++) {
+            Object[] values = {
+                gf.createPoint(new Coordinate(i % 10, i / 10)),
+                i % 7 == 0 ? null : i,
+                i / 4d,
+                i % 5 == 0 ? null : i <= numbers.length ? numbers[i - 1] : "name" + (i % 3)
+            };
+            features.add(SimpleFeatureBuilder.build(type, values, "test." + i));
+        }
+    }
+
+    /** Checks the compiled filter matches the same features as the original one */
+    private void assertSameResults(Filter filter) {
+        Filter compiled = FilterCompiler.compile(filter, type);
+        Filter lazy = FilterCompiler.compile(filter);
+        for (SimpleFeature feature : features) {
+            boolean expected = filter.evaluate(feature);
+            assertEquals(filter + " on " + feature.getID(), expected, compiled.evaluate(feature));
+            assertEquals(filter + " on " + feature.getID(), expected, lazy.evaluate(feature));
+        }
+    }
+
+    @Test
+    public void testComparisons() {
+        List<Filter> filters =
+                Arrays.asList(
+                        FF.equals(FF.property("i"), FF.literal(42)),
+                        FF.equals(FF.property("i"), FF.literal("42")),
+                        FF.equals(FF.literal(42.0), FF.property("i")),
+                        FF.notEqual(FF.property("i"), FF.literal(42L)),
+                        FF.less(FF.property("i"), FF.literal("50")),
+                        FF.lessOrEqual(FF.property("d"), FF.literal(10)),
+                        FF.greater(FF.property("d"), FF.literal(10.5)),
+                        FF.greaterOrEqual(FF.literal(20), FF.property("i")),
+                        FF.equals(FF.property("s"), FF.literal("name1")),
+                        FF.equal(FF.property("s"), FF.literal("NAME2"), false),
+                        FF.greater(FF.property("s"), FF.literal("name1")),
+                        FF.equals(FF.property("s"), FF.literal(5)),
+                        FF.greater(FF.property("s"), FF.literal(9)),
+                        FF.equals(FF.property("i"), FF.property("d")),
+                        FF.less(FF.add(FF.property("i"), FF.literal(1)), FF.literal(30)),
+                        FF.isNull(FF.property("s")),
+                        FF.not(FF.isNull(FF.property("i"))),
+                        FF.between(FF.property("i"), FF.literal(10), FF.literal(20)),
+                        FF.like(FF.property("s"), "name%"),
+                        FF.bbox("geom", 1.5, 1.5, 5.5, 5.5, null),
+                        FF.id(FF.featureId("test.3")));
+        for (Filter filter : filters) {
+            assertSameResults(filter);
+        }
+    }
+
+    @Test
+    public void testLogic() {
+        Filter equals = FF.equals(FF.property("s"), FF.literal("name1"));
+        Filter range = FF.less(FF.property("i"), FF.literal(60));
+        Filter spatial = FF.bbox("geom", -0.5, -0.5, 4.5, 9.5, null);
+        assertSameResults(FF.and(Arrays.asList(spatial, range, equals)));
+        assertSameResults(FF.or(Arrays.asList(spatial, range, equals)));
+        assertSameResults(FF.and(FF.or(equals, spatial), FF.not(range)));
+        assertSameResults(FF.or(FF.and(equals, spatial), FF.isNull(FF.property("i"))));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        SimpleFeature feature = features.get(1);
+        Filter range = new CountingFilter(FF.less(FF.property("i"), FF.literal(60)));
+
+        // the constant parts are not evaluated, and decide the logic operators
+        Filter and = FF.and(range, FF.equals(FF.literal(1), FF.literal(2)));
+        assertFalse(FilterCompiler.compile(and, type).evaluate(feature));
+        Filter or = FF.or(range, FF.less(FF.add(FF.literal(1), FF.literal(1)), FF.literal(3)));
+        assertTrue(FilterCompiler.compile(or, type).evaluate(feature));
+        assertEquals(0, ((CountingFilter) range).count.get());
+
+        Filter include = FF.and(Filter.INCLUDE, range);
+        assertTrue(FilterCompiler.compile(include, type).evaluate(feature));
+        assertEquals(1, ((CountingFilter) range).count.get());
+    }
+
+    @Test
+    public void testShortCircuitOrdering() {
+        // the uncompilable filter goes last, after the cheaper and more selective comparison
+        CountingFilter expensive = new CountingFilter(FF.like(FF.property("s"), "name%"));
+        Filter and = FF.and(expensive, FF.equals(FF.property("i"), FF.literal(43)));
+        Filter compiled = FilterCompiler.compile(and, type);
+        int matches = 0;
+        for (SimpleFeature feature : features) {
+            if (compiled.evaluate(feature)) {
+                matches++;
+            }
+        }
+        assertEquals(1, matches);
+        assertEquals(1, expensive.count.get());
+    }
+
+    @Test
+    public void testOtherTypes() throws Exception {
+        Filter filter = FF.equals(FF.property("s"), FF.literal("name1"));
+        Filter compiled = FilterCompiler.compile(filter, type);
+        assertSame(compiled, FilterCompiler.compile(compiled));
+        assertSame(Filter.INCLUDE, FilterCompiler.compile(Filter.INCLUDE, type));
+        // visitors see the original filter
+        NullFilterVisitor visitor =
+                new NullFilterVisitor() {
+                    @Override
+                    public Object visit(PropertyIsEqualTo filter, Object extraData) {
+                        return filter;
+                    }
+                };
+        assertSame(filter, compiled.accept(visitor, null));
+
+        // attributes in another order
+        SimpleFeatureType other = DataUtilities.createType("other", "s:String,i:Integer");
+        SimpleFeature feature =
+                SimpleFeatureBuilder.build(other, new Object[] {"name1", 1}, "other.1");
+        assertTrue(compiled.evaluate(feature));
+        assertFalse(compiled.evaluate(features.get(0)));
+        assertTrue(compiled.evaluate(feature));
+
+        // not a simple feature
+        assertFalse(compiled.evaluate(null));
+    }
+
+    /** Counts the evaluations of the wrapped filter */
+    static class CountingFilter implements Filter {
+        final Filter delegate;
+
+        final AtomicInteger count = new AtomicInteger();
+
+        CountingFilter(Filter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean evaluate(Object object) {
+            count.incrementAndGet();
+            return delegate.evaluate(object);
+        }
+
+        @Override
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return delegate.accept(visitor, extraData);
+        }
+    }
+}
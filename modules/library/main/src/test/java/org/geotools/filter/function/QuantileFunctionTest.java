@@ -85,6 +85,18 @@ public class QuantileFunctionTest extends FunctionTestSupport {
         assertEquals("29..90", ranged.getTitle(1));
     }
 
+    public void testEvaluateApproximate() throws Exception {
+        Function func =
+                ff.function("Quantile", ff.property("foo"), ff.literal(2), ff.literal(0.01));
+
+        Object value = func.evaluate(featureCollection);
+        assertTrue(value instanceof RangedClassifier);
+        RangedClassifier ranged = (RangedClassifier) value;
+        assertEquals(2, ranged.getSize());
+        assertEquals(4d, ((Number) ranged.getMin(0)).doubleValue(), 0d);
+        assertEquals(90d, ((Number) ranged.getMax(1)).doubleValue(), 0d);
+    }
+
     /**
      * Test a feature collection where each feature will be in it's own bin.
      *
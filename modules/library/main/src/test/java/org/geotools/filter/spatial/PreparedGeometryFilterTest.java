@@ -0,0 +1,152 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter.spatial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.visitor.DuplicatingFilterVisitor;
+import org.geotools.util.factory.Hints;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class PreparedGeometryFilterTest {
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    SimpleFeatureType type;
+
+    Geometry region;
+
+    Geometry[] geometries;
+
+    @Before
+    public void setUp() throws Exception {
+        type = DataUtilities.createType("test", "geom:Geometry");
+        WKTReader reader = new WKTReader();
+        region = reader.read("POLYGON((0 0, 10 0, 10 10, 5 5, 0 10, 0 0))");
+        geometries =
+                new Geometry[] {
+                    reader.read("POINT(1 1)"),
+                    reader.read("POINT(5 8)"),
+                    reader.read("POINT(20 20)"),
+                    reader.read("POINT(10 5)"),
+                    reader.read("LINESTRING(-5 5, 15 5)"),
+                    reader.read("LINESTRING(2 9, 8 9)"),
+                    reader.read("POLYGON((1 1, 2 1, 2 2, 1 2, 1 1))"),
+                    reader.read("POLYGON((-1 -1, 11 -1, 11 11, -1 11, -1 -1))")
+                };
+    }
+
+    @After
+    public void tearDown() {
+        Hints.removeSystemDefault(Hints.PREPARED_GEOMETRY_FILTERS);
+    }
+
+    private SimpleFeature feature(Geometry geometry) {
+        return SimpleFeatureBuilder.build(type, new Object[] {geometry}, null);
+    }
+
+    /** Checks the filters with the region on either side against the plain JTS predicates */
+    private void assertPredicates() {
+        for (Geometry g : geometries) {
+            SimpleFeature f = feature(g);
+            assertEquals(
+                    g.intersects(region),
+                    FF.intersects(FF.property("geom"), FF.literal(region)).evaluate(f));
+            assertEquals(
+                    region.intersects(g),
+                    FF.intersects(FF.literal(region), FF.property("geom")).evaluate(f));
+            assertEquals(
+                    region.contains(g),
+                    FF.contains(FF.literal(region), FF.property("geom")).evaluate(f));
+            assertEquals(
+                    g.within(region),
+                    FF.within(FF.property("geom"), FF.literal(region)).evaluate(f));
+            assertEquals(
+                    g.disjoint(region),
+                    FF.disjoint(FF.property("geom"), FF.literal(region)).evaluate(f));
+            assertEquals(
+                    g.touches(region),
+                    FF.touches(FF.property("geom"), FF.literal(region)).evaluate(f));
+        }
+    }
+
+    @Test
+    public void testPredicates() {
+        assertPredicates();
+    }
+
+    @Test
+    public void testPredicatesNotPrepared() {
+        Hints.putSystemDefault(Hints.PREPARED_GEOMETRY_FILTERS, false);
+        IntersectsImpl filter =
+                (IntersectsImpl) FF.intersects(FF.property("geom"), FF.literal(region));
+        filter.evaluate(feature(geometries[0]));
+        assertNull(filter.getRightPreparedGeometry());
+        assertPredicates();
+    }
+
+    @Test
+    public void testPreparedOnFirstUse() {
+        IntersectsImpl filter =
+                (IntersectsImpl) FF.intersects(FF.property("geom"), FF.literal(region));
+        assertNull(filter.rightPreppedGeom);
+        filter.evaluate(feature(geometries[0]));
+        assertNotNull(filter.rightPreppedGeom);
+        assertSame(region, filter.rightPreppedGeom.getGeometry());
+        assertNull(filter.getLeftPreparedGeometry());
+    }
+
+    @Test
+    public void testEqualLiteralsNotShared() {
+        Geometry equal = region.copy();
+        IntersectsImpl filter =
+                (IntersectsImpl) FF.intersects(FF.property("geom"), FF.literal(region));
+        IntersectsImpl other =
+                (IntersectsImpl) FF.intersects(FF.property("geom"), FF.literal(equal));
+        assertSame(region, filter.getRightPreparedGeometry().getGeometry());
+        assertSame(equal, other.getRightPreparedGeometry().getGeometry());
+    }
+
+    @Test
+    public void testCopiesShareThePreparedGeometry() {
+        IntersectsImpl filter =
+                (IntersectsImpl) FF.intersects(FF.property("geom"), FF.literal(region));
+        Filter copy = (Filter) filter.accept(new DuplicatingFilterVisitor(), null);
+        assertSame(
+                filter.getRightPreparedGeometry(),
+                ((IntersectsImpl) copy).getRightPreparedGeometry());
+
+        // bounding boxes are rebuilt by the copy, but are equal
+        BBOXImpl bbox = (BBOXImpl) FF.bbox("geom", 0, 0, 10, 10, null);
+        BBOXImpl bboxCopy = (BBOXImpl) bbox.accept(new DuplicatingFilterVisitor(), null);
+        assertSame(bbox.getRightPreparedGeometry(), bboxCopy.getRightPreparedGeometry());
+    }
+}
@@ -120,6 +120,38 @@ public class GeometryCoordinateSequenceTransformerTest {
         assertTrue(ls.getCoordinateSequence().size() > 3);
     }
 
+    @Test
+    public void testBatch() throws Exception {
+        Geometry[] geometries = {
+            gb.point(10, 11),
+            null,
+            gb.lineStringZ(10, 11, 1, 20, 21, 2),
+            gb.polygon(gb.boxZ(10, 10, 20, 20, 99), gb.boxZ(11, 11, 19, 19, 99)),
+            gb.multiPolygon(gb.box(10, 10, 20, 20), gb.box(30, 30, 40, 40)),
+            gb.geometryCollection(gb.point(10, 11), gb.lineString(10, 10, 20, 20)),
+            new CurvedGeometryFactory(0.1).createCurvedGeometry(2, 0, 1, 1, 2, 2, 1)
+        };
+        GeometryCoordinateSequenceTransformer gcsTrans =
+                new GeometryCoordinateSequenceTransformer();
+        gcsTrans.setCoordinateReferenceSystem(DefaultGeographicCRS.WGS84);
+        gcsTrans.setMathTransform(ProjectiveTransform.createTranslation(2, 100));
+
+        Geometry[] transformed = gcsTrans.transform(geometries);
+        assertEquals(geometries.length, transformed.length);
+        assertNull(transformed[1]);
+        for (int i = 0; i < geometries.length; i++) {
+            if (geometries[i] != null) {
+                Geometry expected = gcsTrans.transform(geometries[i]);
+                assertEquals(expected.getClass(), transformed[i].getClass());
+                assertTrue(hasSameValuesAndStructure(expected, transformed[i]));
+                assertEquals(DefaultGeographicCRS.WGS84, transformed[i].getUserData());
+                // the source geometries are not modified
+                assertNotSame(geometries[i], transformed[i]);
+                assertFalse(geometries[i].equalsExact(transformed[i], ORD_TOLERANCE));
+            }
+        }
+    }
+
     /**
      * Confirm that testing method is accurate!
      *
@@ -259,6 +259,22 @@ public final class GeoTools {
         bind(ENCODE_WKT, Hints.ENCODE_EWKT);
     }
 
+    /**
+     * The {@linkplain System#getProperty(String) system property} key for the default value to be
+     * assigned to the {@link Hints#PREPARED_GEOMETRY_FILTERS} hint.
+     *
+     * <p>This setting specifies if spatial filters prepare their literal geometries.
+     *
+     * @see Hints#PREPARED_GEOMETRY_FILTERS
+     * @see #getDefaultHints
+     * @since 21.0
+     */
+    public static final String PREPARED_GEOMETRY_FILTERS = "org.geotools.filter.preparedGeometries";
+
+    static {
+        bind(PREPARED_GEOMETRY_FILTERS, Hints.PREPARED_GEOMETRY_FILTERS);
+    }
+
     /** The initial context. Will be created only when first needed. */
     private static InitialContext context;
 
@@ -616,6 +616,20 @@ public class Hints extends RenderingHints {
      */
     public static final Key FEATURE_2D = new Key(Boolean.class);
 
+    /**
+     * Asks the feature readers to return the same feature instance on each call to {@code
+     * next()}, overwriting its values with the ones of the next record, instead of allocating a new
+     * feature each time. Meant for code consuming each feature before reading the next one, like
+     * renderers and aggregate visitors: the returned {@code ReusableSimpleFeature} is only valid
+     * until the reader moves on, and has to be copied to be kept around.
+     *
+     * <p>Feature sources that can reuse features list this hint among their supported ones, the
+     * others ignore it and keep on returning new features.
+     *
+     * @since 21.0
+     */
+    public static final Key FEATURE_REUSE = new Key(Boolean.class);
+
     /**
      * Key to control the maximum number of features that will be kept in memory when performing a
      * fallback merge-sort (used when the datastore does not have native means to handle feature
@@ -625,6 +639,15 @@ public class Hints extends RenderingHints {
      */
     public static final Key MAX_MEMORY_SORT = new Key(Integer.class);
 
+    /**
+     * Key to control the amount of memory, in bytes, used to hold features when performing a
+     * fallback merge-sort. Once the estimated size of the features read goes beyond it, the
+     * features are sorted and spilled to disk in runs that are merged back while reading.
+     *
+     * @since 21.0
+     */
+    public static final Key MAX_MEMORY_SORT_BYTES = new Key(Long.class);
+
     /**
      * Asks a datastore having a vector pyramid (pre-generalized geometries) to return the geometry
      * version whose points have been generalized less than the specified distance (further
@@ -1005,6 +1028,26 @@ public class Hints extends RenderingHints {
     /** A flag to enabled/disable EWKT geometry encoding in ECQL */
     public static final Key ENCODE_EWKT = new Key(Boolean.class);
 
+    /**
+     * Whether spatial filters prepare their literal geometries, speeding up the evaluation of
+     * intersects, contains, within and disjoint tests against many features. Enabled by default,
+     * set it to false as a system default to reduce memory usage when the filters are evaluated
+     * against few features.
+     *
+     * <p>To set on the command line:
+     *
+     * <blockquote>
+     *
+     * <pre>
+     * -D{@value GeoTools#PREPARED_GEOMETRY_FILTERS}=<var>false</var>
+     * </pre>
+     *
+     * </blockquote>
+     *
+     * @since 21.0
+     */
+    public static final Key PREPARED_GEOMETRY_FILTERS = new Key(Boolean.class);
+
     /**
      * Constructs an initially empty set of hints.
      *
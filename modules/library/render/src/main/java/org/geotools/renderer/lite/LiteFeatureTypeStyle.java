@@ -20,9 +20,11 @@ import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.util.List;
 import org.geotools.data.util.ScreenMap;
+import org.geotools.filter.FilterCompiler;
 import org.geotools.map.Layer;
 import org.geotools.renderer.crs.ProjectionHandler;
 import org.geotools.styling.Rule;
+import org.opengis.filter.Filter;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.sort.SortBy;
 
@@ -86,6 +88,9 @@ final class LiteFeatureTypeStyle {
     /** The meta buffer for the current layer */
     int metaBuffer;
 
+    /** The filters of the rules in {@link #ruleList}, compiled for fast evaluation */
+    Filter[] ruleFilters;
+
     /**
      * use this for only the 1st FTS. We don't actually create an image for it -- we just use the
      * graphics. WATCH OUT FOR THIS. NOTE: image=null in this case
@@ -107,4 +112,15 @@ final class LiteFeatureTypeStyle {
         this.elseRules = (Rule[]) elseRuleList.toArray(new Rule[elseRuleList.size()]);
         this.transformation = transformation;
     }
+
+    /**
+     * Compiles the filters of the rules, the rules should not be changed afterwards. A null filter
+     * stays null, matching all the features.
+     */
+    void compileRuleFilters() {
+        ruleFilters = new Filter[ruleList.length];
+        for (int i = 0; i < ruleList.length; i++) {
+            ruleFilters[i] = FilterCompiler.compile(ruleList[i].getFilter());
+        }
+    }
 }
@@ -1838,6 +1838,11 @@ public class StreamingRenderer implements GTRenderer {
 
             // apply the uom and dpi rescale
             applyUnitRescale(result);
+
+            // the rules are final now, compile their filters
+            for (LiteFeatureTypeStyle lfts : result) {
+                lfts.compileRuleFilters();
+            }
         }
 
         return result;
@@ -2027,7 +2032,7 @@ public class StreamingRenderer implements GTRenderer {
 
         // render groups by uniform transformation
         for (List<LiteFeatureTypeStyle> uniform : txClassified) {
-            FeatureCollection features = getFeatures(layer, schema, uniform);
+            FeatureCollection features = getFeatures(layer, schema, uniform, true);
             if (features == null) {
                 continue;
             }
@@ -2047,6 +2052,23 @@ public class StreamingRenderer implements GTRenderer {
             List<LiteFeatureTypeStyle> featureTypeStyles)
             throws IOException, FactoryException, NoninvertibleTransformException, SchemaException,
                     TransformException {
+        return getFeatures(layer, schema, featureTypeStyles, false);
+    }
+
+    /**
+     * Returns the features to be painted with the given styles
+     *
+     * @param reuseFeatures True if each feature is painted before reading the next, so that the
+     *     feature source can reuse the same feature instance (see {@link Hints#FEATURE_REUSE}).
+     *     Ignored when render listeners are registered, as they receive the features later on.
+     */
+    FeatureCollection getFeatures(
+            final Layer layer,
+            final FeatureType schema,
+            List<LiteFeatureTypeStyle> featureTypeStyles,
+            boolean reuseFeatures)
+            throws IOException, FactoryException, NoninvertibleTransformException, SchemaException,
+                    TransformException {
         final FeatureSource featureSource = layer.getFeatureSource();
         Expression transform = featureTypeStyles.get(0).transformation;
 
@@ -2149,6 +2171,14 @@ public class StreamingRenderer implements GTRenderer {
                 mixed.setSortBy(definitionQuery.getSortBy());
             }
             checkAttributeExistence(featureSource.getSchema(), mixed);
+            // rendering transformations might hold on to the features, but here the painted
+            // shapes are built before reading the next one. The feature rendered events are
+            // fired later on the painter thread though, so listeners need their own features
+            if (reuseFeatures
+                    && renderListeners.isEmpty()
+                    && featureSource.getSupportedHints().contains(Hints.FEATURE_REUSE)) {
+                mixed.getHints().put(Hints.FEATURE_REUSE, Boolean.TRUE);
+            }
             features = featureSource.getFeatures(mixed);
             features = RendererUtilities.fixFeatureCollectionReferencing(features, sourceCrs);
         }
@@ -2625,11 +2655,12 @@ public class StreamingRenderer implements GTRenderer {
             Filter filter;
             Graphics2D graphics = fts.graphics;
             // applicable rules
+            Filter[] ruleFilters = fts.ruleFilters;
             final int length = ruleList.length;
             int paintCommands = 0;
             for (int t = 0; t < length; t++) {
                 r = ruleList[t];
-                filter = r.getFilter();
+                filter = ruleFilters != null ? ruleFilters[t] : r.getFilter();
 
                 if (filter == null || filter.evaluate(rf.feature)) {
                     doElse = false;
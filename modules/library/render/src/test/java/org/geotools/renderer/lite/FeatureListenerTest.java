@@ -1,11 +1,18 @@
 package org.geotools.renderer.lite;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.data.DataUtilities;
 import org.geotools.data.property.PropertyDataStore;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.data.simple.SimpleFeatureStore;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.map.FeatureLayer;
 import org.geotools.map.MapContent;
@@ -13,6 +20,7 @@ import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.renderer.RenderListener;
 import org.geotools.styling.Style;
 import org.geotools.test.TestData;
+import org.geotools.util.factory.Hints;
 import org.junit.Before;
 import org.junit.Test;
 import org.opengis.feature.simple.SimpleFeature;
@@ -64,4 +72,50 @@ public class FeatureListenerTest {
         mc.dispose();
         assertEquals(expectedCount, count.get());
     }
+
+    @Test
+    public void testListenersGetDistinctFeatures() throws Exception {
+        // a store reusing features when asked to
+        File shp = new File("./target/featureListenerTest/square.shp");
+        shp.getParentFile().mkdirs();
+        ShapefileDataStore store = new ShapefileDataStore(shp.toURI().toURL());
+        try {
+            store.createSchema(squareFS.getSchema());
+            ((SimpleFeatureStore) store.getFeatureSource())
+                    .addFeatures(DataUtilities.collection(squareFS.getFeatures()));
+            SimpleFeatureSource source = store.getFeatureSource();
+            assertTrue(source.getSupportedHints().contains(Hints.FEATURE_REUSE));
+            Set<String> expected = new HashSet<>();
+            try (SimpleFeatureIterator it = source.getFeatures().features()) {
+                while (it.hasNext()) {
+                    SimpleFeature f = it.next();
+                    expected.add(f.getID() + "/" + f.getAttribute("name"));
+                }
+            }
+
+            Style style = RendererBaseTest.loadStyle(this, "fillSolidTwoRules.sld");
+            MapContent mc = new MapContent(DefaultGeographicCRS.WGS84);
+            mc.addLayer(new FeatureLayer(source, style));
+            StreamingRenderer renderer = new StreamingRenderer();
+            renderer.setMapContent(mc);
+            Set<String> rendered = new HashSet<>();
+            renderer.addRenderListener(
+                    new RenderListener() {
+
+                        public void featureRenderer(SimpleFeature feature) {
+                            // events are fired on the painter thread, after the reader moved on
+                            rendered.add(feature.getID() + "/" + feature.getAttribute("name"));
+                        }
+
+                        public void errorOccurred(Exception e) {}
+                    });
+
+            RendererBaseTest.renderImage(renderer, bounds, null);
+            mc.dispose();
+            assertEquals(2, expected.size());
+            assertEquals(expected, rendered);
+        } finally {
+            store.dispose();
+        }
+    }
 }
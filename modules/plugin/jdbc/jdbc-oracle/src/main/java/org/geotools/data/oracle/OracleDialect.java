@@ -18,6 +18,7 @@ package org.geotools.data.oracle;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -43,6 +44,8 @@ import org.geotools.data.jdbc.datasource.UnWrapper;
 import org.geotools.data.oracle.sdo.GeometryConverter;
 import org.geotools.data.oracle.sdo.SDOSqlDumper;
 import org.geotools.data.oracle.sdo.TT;
+import org.geotools.feature.visitor.ApproxDistinctCountVisitor;
+import org.geotools.feature.visitor.ApproxMedianVisitor;
 import org.geotools.geometry.jts.JTS;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.jdbc.JDBCDataStore;
@@ -51,6 +54,7 @@ import org.geotools.jdbc.PreparedStatementSQLDialect;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.cs.DefaultCoordinateSystemAxis;
 import org.geotools.util.SoftValueHashMap;
+import org.geotools.util.Version;
 import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -63,6 +67,7 @@ import org.locationtech.jts.geom.MultiPoint;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.FeatureVisitor;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
@@ -185,10 +190,51 @@ public class OracleDialect extends PreparedStatementSQLDialect {
     /** Whether to use metadata tables to get bbox */
     boolean metadataBboxEnabled = false;
 
+    /** The first version providing APPROX_COUNT_DISTINCT and APPROX_MEDIAN */
+    static final Version V_12_2 = new Version("12.2");
+
+    /** The database version, read when the first connection is initialized */
+    volatile Version databaseVersion;
+
     public OracleDialect(JDBCDataStore dataStore) {
         super(dataStore);
     }
 
+    @Override
+    public void initializeConnection(Connection cx) throws SQLException {
+        super.initializeConnection(cx);
+        getDatabaseVersion(cx);
+    }
+
+    /** Returns the Oracle database version */
+    public Version getDatabaseVersion(Connection cx) throws SQLException {
+        if (databaseVersion == null) {
+            DatabaseMetaData md = cx.getMetaData();
+            databaseVersion =
+                    new Version(
+                            String.format(
+                                    "%d.%d",
+                                    md.getDatabaseMajorVersion(), md.getDatabaseMinorVersion()));
+        }
+        return databaseVersion;
+    }
+
+    @Override
+    public boolean canCacheAggregateFunctions() {
+        // the approximate functions depend on the version read by initializeConnection
+        return databaseVersion != null;
+    }
+
+    @Override
+    public void registerAggregateFunctions(
+            Map<Class<? extends FeatureVisitor>, String> aggregates) {
+        super.registerAggregateFunctions(aggregates);
+        if (databaseVersion != null && databaseVersion.compareTo(V_12_2) >= 0) {
+            aggregates.put(ApproxDistinctCountVisitor.class, "APPROX_COUNT_DISTINCT");
+            aggregates.put(ApproxMedianVisitor.class, "APPROX_MEDIAN");
+        }
+    }
+
     @Override
     public boolean isAggregatedSortSupported(String function) {
         return "distinct".equalsIgnoreCase(function);
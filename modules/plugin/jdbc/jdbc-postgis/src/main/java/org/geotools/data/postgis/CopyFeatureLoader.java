@@ -0,0 +1,342 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.geometry.jts.CurvedGeometry;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PrimaryKey;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.geotools.util.Converters;
+import org.geotools.util.factory.Hints;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.WKBWriter;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Bulk loads features in a table with the PostgreSQL COPY command, streaming the rows to the
+ * server in the COPY text format. Geometries are sent as hex encoded EWKB, the other values in
+ * their text representation, which the server parses according to the column types.
+ */
+class CopyFeatureLoader {
+
+    static final Logger LOGGER = Logging.getLogger(CopyFeatureLoader.class);
+
+    /** Amount of characters accumulated before sending them to the server */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String NULL = "\\N";
+
+    PostGISDialect dialect;
+
+    JDBCDataStore dataStore;
+
+    CopyFeatureLoader(PostGISDialect dialect, JDBCDataStore dataStore) {
+        this.dialect = dialect;
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Returns the native connection of the driver, or null if the connection cannot be unwrapped
+     */
+    static PGConnection getPGConnection(Connection cx) {
+        if (cx instanceof PGConnection) {
+            return (PGConnection) cx;
+        }
+        try {
+            if (cx.isWrapperFor(PGConnection.class)) {
+                return cx.unwrap(PGConnection.class);
+            }
+        } catch (Throwable t) {
+            // not a mistake, old DBCP versions will throw an Error here, we need to catch it
+            LOGGER.log(Level.FINER, "Failed to unwrap connection using java 6 facilities", t);
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if all the attribute types of the feature type and the geometries of the
+     * features can be encoded for COPY
+     */
+    static boolean canLoad(
+            SimpleFeatureType featureType, Collection<? extends SimpleFeature> features) {
+        for (AttributeDescriptor att : featureType.getAttributeDescriptors()) {
+            Class<?> binding = att.getType().getBinding();
+            if (att instanceof GeometryDescriptor) {
+                if (getDescriptorDimension(att) > 3) {
+                    // WKBWriter does not handle measures
+                    return false;
+                }
+            } else if (!Number.class.isAssignableFrom(binding)
+                    && !CharSequence.class.isAssignableFrom(binding)
+                    && !Character.class.equals(binding)
+                    && !Boolean.class.equals(binding)
+                    && !Date.class.isAssignableFrom(binding)
+                    && !UUID.class.equals(binding)) {
+                // arrays, hstore and the like
+                return false;
+            }
+        }
+
+        // curves are not supported by the WKB writer
+        for (SimpleFeature feature : features) {
+            for (Object value : feature.getAttributes()) {
+                if (value instanceof CurvedGeometry) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Inserts the features, with the provided primary key values */
+    void load(
+            SimpleFeatureType featureType,
+            PrimaryKey key,
+            Collection<? extends SimpleFeature> features,
+            List<List<Object>> keyValues,
+            Connection cx)
+            throws SQLException, IOException {
+        PGConnection pgConnection = getPGConnection(cx);
+        if (pgConnection == null) {
+            throw new IOException("Could not obtain the native connection for " + cx.getClass());
+        }
+
+        String sql = copySQL(featureType, key);
+        dataStore.getLogger().fine(sql);
+        CopyIn copy = pgConnection.getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder rows = new StringBuilder(BUFFER_SIZE + 1024);
+            int i = 0;
+            for (SimpleFeature feature : features) {
+                encodeRow(featureType, key, feature, keyValues.get(i++), rows);
+                if (rows.length() > BUFFER_SIZE) {
+                    write(copy, rows);
+                }
+            }
+            write(copy, rows);
+
+            long inserted = copy.endCopy();
+            if (inserted != features.size()) {
+                throw new IOException("Failed to insert some features");
+            }
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    String copySQL(SimpleFeatureType featureType, PrimaryKey key) {
+        StringBuffer sql = new StringBuffer("COPY ");
+        if (dataStore.getDatabaseSchema() != null) {
+            dialect.encodeSchemaName(dataStore.getDatabaseSchema(), sql);
+            sql.append(".");
+        }
+        dialect.encodeTableName(featureType.getTypeName(), sql);
+        sql.append(" (");
+        for (PrimaryKeyColumn col : key.getColumns()) {
+            dialect.encodeColumnName(null, col.getName(), sql);
+            sql.append(",");
+        }
+        for (AttributeDescriptor att : featureType.getAttributeDescriptors()) {
+            // skip the pk columns in case we have exposed them
+            if (!isKey(key, att.getLocalName())) {
+                dialect.encodeColumnName(null, att.getLocalName(), sql);
+                sql.append(",");
+            }
+        }
+        sql.setLength(sql.length() - 1);
+        sql.append(") FROM STDIN");
+        return sql.toString();
+    }
+
+    void encodeRow(
+            SimpleFeatureType featureType,
+            PrimaryKey key,
+            SimpleFeature feature,
+            List<Object> keyValues,
+            StringBuilder row)
+            throws IOException {
+        for (Object value : keyValues) {
+            encodeValue(value, row);
+            row.append('\t');
+        }
+        for (AttributeDescriptor att : featureType.getAttributeDescriptors()) {
+            String colName = att.getLocalName();
+            if (isKey(key, colName)) {
+                continue;
+            }
+
+            Object value = feature.getAttribute(colName);
+            if (value == null && !att.isNillable()) {
+                throw new IOException("Cannot set a NULL value on the not null column " + colName);
+            }
+
+            if (att instanceof GeometryDescriptor) {
+                encodeGeometry((Geometry) value, att, row);
+            } else {
+                Class<?> binding = att.getType().getBinding();
+                if (value != null
+                        && Number.class.isAssignableFrom(binding)
+                        && !binding.isInstance(value)) {
+                    // the server would not parse a decimal value for an integral column
+                    Object converted = Converters.convert(value, binding);
+                    value = converted != null ? converted : value;
+                }
+                encodeValue(value, row);
+            }
+            row.append('\t');
+        }
+        row.setCharAt(row.length() - 1, '\n');
+    }
+
+    void encodeGeometry(Geometry g, AttributeDescriptor att, StringBuilder row) {
+        // empty geometries are stored as NULL, as in the regular inserts
+        if (g == null || g.isEmpty()) {
+            row.append(NULL);
+            return;
+        }
+        if (g instanceof LinearRing) {
+            // postgis does not handle linear rings, convert to just a line string
+            g = g.getFactory().createLineString(((LinearRing) g).getCoordinateSequence());
+        }
+
+        int srid = g.getSRID();
+        Integer nativeSRID = (Integer) att.getUserData().get(JDBCDataStore.JDBC_NATIVE_SRID);
+        if (nativeSRID != null) {
+            srid = nativeSRID;
+        }
+        int dimension = getDescriptorDimension(att);
+        if (dimension < 2) {
+            dimension = Double.isNaN(g.getCoordinate().getZ()) ? 2 : 3;
+        }
+
+        byte[] wkb = new WKBWriter(dimension, ByteOrderValues.BIG_ENDIAN).write(g);
+        if (srid > 0) {
+            // turn the WKB into EWKB, flagging the geometry type and adding the srid after it
+            byte[] ewkb = new byte[wkb.length + 4];
+            ewkb[0] = wkb[0];
+            writeInt(readInt(wkb, 1) | 0x20000000, ewkb, 1);
+            writeInt(srid, ewkb, 5);
+            System.arraycopy(wkb, 5, ewkb, 9, wkb.length - 5);
+            wkb = ewkb;
+        }
+        row.append(WKBWriter.toHex(wkb));
+    }
+
+    static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24)
+                | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8)
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    static void writeInt(int value, byte[] bytes, int offset) {
+        bytes[offset] = (byte) (value >> 24);
+        bytes[offset + 1] = (byte) (value >> 16);
+        bytes[offset + 2] = (byte) (value >> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    void encodeValue(Object value, StringBuilder row) {
+        if (value == null) {
+            row.append(NULL);
+        } else if (value instanceof BigDecimal) {
+            row.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            row.append(value);
+        } else if (value instanceof Date) {
+            // local time plus offset, the offset is ignored by timestamp without time zone
+            Date date = (Date) value;
+            Timestamp timestamp =
+                    date instanceof Timestamp ? (Timestamp) date : new Timestamp(date.getTime());
+            row.append(timestamp);
+            int offset = TimeZone.getDefault().getOffset(date.getTime()) / 60000;
+            row.append(offset < 0 ? '-' : '+');
+            offset = Math.abs(offset);
+            row.append(String.format("%02d:%02d", offset / 60, offset % 60));
+        } else {
+            escape(value.toString(), row);
+        }
+    }
+
+    /** Escapes the characters that have a special meaning in the COPY text format */
+    static void escape(String value, StringBuilder row) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+    }
+
+    static void write(CopyIn copy, StringBuilder rows) throws SQLException {
+        if (rows.length() > 0) {
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+    }
+
+    static boolean isKey(PrimaryKey key, String name) {
+        for (PrimaryKeyColumn col : key.getColumns()) {
+            if (col.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int getDescriptorDimension(AttributeDescriptor att) {
+        Integer dimension = (Integer) att.getUserData().get(Hints.COORDINATE_DIMENSION);
+        return dimension != null ? dimension : -1;
+    }
+}
@@ -28,6 +28,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,6 +51,7 @@ import org.geotools.geometry.jts.WKTWriter2;
 import org.geotools.jdbc.BasicSQLDialect;
 import org.geotools.jdbc.ColumnMetadata;
 import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PrimaryKey;
 import org.geotools.referencing.CRS;
 import org.geotools.util.Version;
 import org.geotools.util.factory.Hints;
@@ -67,10 +69,12 @@ import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.locationtech.jts.io.WKTWriter;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.postgresql.PGStatement;
 
 public class PostGISDialect extends BasicSQLDialect {
 
@@ -178,6 +182,9 @@ public class PostGISDialect extends BasicSQLDialect {
 
     static final Version PGSQL_V_9_1 = new Version("9.1");
 
+    /** Default minimum number of features an insert must contain to be bulk loaded with COPY */
+    static final int DEFAULT_BULK_INSERT_THRESHOLD = 1000;
+
     public PostGISDialect(JDBCDataStore dataStore) {
         super(dataStore);
     }
@@ -192,6 +199,10 @@ public class PostGISDialect extends BasicSQLDialect {
 
     boolean simplifyEnabled = true;
 
+    boolean binaryTransferEnabled = false;
+
+    int bulkInsertThreshold = DEFAULT_BULK_INSERT_THRESHOLD;
+
     Version version, pgsqlVersion;
 
     public boolean isLooseBBOXEnabled() {
@@ -241,6 +252,40 @@ public class PostGISDialect extends BasicSQLDialect {
         this.simplifyEnabled = simplifyEnabled;
     }
 
+    public boolean isBinaryTransferEnabled() {
+        return binaryTransferEnabled;
+    }
+
+    /**
+     * Enables/disables reading geometries as raw WKB, instead of base64 encoded text. Geography
+     * columns are always read base64 encoded.
+     *
+     * <p>The raw WKB is transferred as binary only if the driver uses the binary protocol, with the
+     * text one the server sends it hex encoded, which is larger than base64. The selects reading
+     * raw WKB are switched to the binary protocol in {@link #onSelect(Statement, Connection,
+     * SimpleFeatureType)}, the other statements are left alone.
+     *
+     * @see PostgisNGDataStoreFactory#BINARY_TRANSFER
+     */
+    public void setBinaryTransferEnabled(boolean binaryTransferEnabled) {
+        this.binaryTransferEnabled = binaryTransferEnabled;
+    }
+
+    @Override
+    public int getBulkInsertThreshold() {
+        return bulkInsertThreshold;
+    }
+
+    /**
+     * Sets the minimum number of features an insert must contain to be bulk loaded with COPY,
+     * instead of using INSERT statements. Zero or a negative value disables bulk loading.
+     *
+     * @see PostgisNGDataStoreFactory#BULK_INSERT_THRESHOLD
+     */
+    public void setBulkInsertThreshold(int bulkInsertThreshold) {
+        this.bulkInsertThreshold = bulkInsertThreshold;
+    }
+
     @Override
     public void initializeConnection(Connection cx) throws SQLException {
         super.initializeConnection(cx);
@@ -282,6 +327,7 @@ public class PostGISDialect extends BasicSQLDialect {
             Hints hints)
             throws IOException, SQLException {
         WKBAttributeIO reader = getWKBReader(factory);
+        reader.setBase64EncodingEnabled(isBase64Encoded(descriptor));
 
         return (Geometry) reader.read(rs, column);
     }
@@ -295,6 +341,7 @@ public class PostGISDialect extends BasicSQLDialect {
             Hints hints)
             throws IOException, SQLException {
         WKBAttributeIO reader = getWKBReader(factory);
+        reader.setBase64EncodingEnabled(isBase64Encoded(descriptor));
 
         return (Geometry) reader.read(rs, column);
     }
@@ -320,13 +367,16 @@ public class PostGISDialect extends BasicSQLDialect {
     public void encodeGeometryColumn(
             GeometryDescriptor gatt, String prefix, int srid, Hints hints, StringBuffer sql) {
 
-        boolean geography =
-                "geography".equals(gatt.getUserData().get(JDBCDataStore.JDBC_NATIVE_TYPENAME));
+        boolean geography = isGeography(gatt);
+        boolean base64 = isBase64Encoded(gatt);
 
+        if (base64) {
+            sql.append("encode(");
+        }
         if (geography) {
-            sql.append("encode(ST_AsBinary(");
+            sql.append("ST_AsBinary(");
             encodeColumnName(prefix, gatt.getLocalName(), sql);
-            sql.append("),'base64')");
+            sql.append(")");
         } else {
             boolean force2D =
                     hints != null
@@ -334,15 +384,56 @@ public class PostGISDialect extends BasicSQLDialect {
                             && Boolean.TRUE.equals(hints.get(Hints.FEATURE_2D));
 
             if (force2D) {
-                sql.append("encode(ST_AsBinary(" + getForce2DFunction() + "(");
+                sql.append("ST_AsBinary(" + getForce2DFunction() + "(");
                 encodeColumnName(prefix, gatt.getLocalName(), sql);
-                sql.append(")),'base64')");
+                sql.append("))");
             } else {
-                sql.append("encode(ST_AsEWKB(");
+                sql.append("ST_AsEWKB(");
                 encodeColumnName(prefix, gatt.getLocalName(), sql);
-                sql.append("),'base64')");
+                sql.append(")");
+            }
+        }
+        if (base64) {
+            sql.append(",'base64')");
+        }
+    }
+
+    private boolean isGeography(GeometryDescriptor gatt) {
+        return "geography".equals(gatt.getUserData().get(JDBCDataStore.JDBC_NATIVE_TYPENAME));
+    }
+
+    /**
+     * Returns true if the geometry column is read as base64 encoded text, false if as raw WKB.
+     * Columns without a descriptor are assumed to be base64 encoded.
+     */
+    boolean isBase64Encoded(GeometryDescriptor gatt) {
+        return !binaryTransferEnabled || gatt == null || isGeography(gatt);
+    }
+
+    /**
+     * Returns true if the selects of the feature type read raw WKB, and are better off with the
+     * binary protocol
+     */
+    boolean isBinaryTransfer(SimpleFeatureType featureType) {
+        if (binaryTransferEnabled && featureType != null) {
+            for (AttributeDescriptor ad : featureType.getAttributeDescriptors()) {
+                if (ad instanceof GeometryDescriptor
+                        && !isBase64Encoded((GeometryDescriptor) ad)) {
+                    return true;
+                }
             }
         }
+        return false;
+    }
+
+    @Override
+    public void onSelect(Statement select, Connection cx, SimpleFeatureType featureType)
+            throws SQLException {
+        if (isBinaryTransfer(featureType) && select.isWrapperFor(PGStatement.class)) {
+            // a negative threshold makes the driver use the binary protocol from the first
+            // execution, only for this statement
+            select.unwrap(PGStatement.class).setPrepareThreshold(-1);
+        }
     }
 
     @Override
@@ -355,21 +446,24 @@ public class PostGISDialect extends BasicSQLDialect {
             // http://postgis.net/docs/manual-2.2/ST_Simplify.html
             String preserveCollapsed = version.compareTo(V_2_2_0) >= 0 ? ", true" : "";
 
-            boolean geography =
-                    "geography".equals(gatt.getUserData().get(JDBCDataStore.JDBC_NATIVE_TYPENAME));
+            boolean geography = isGeography(gatt);
+            boolean base64 = isBase64Encoded(gatt);
 
+            if (base64) {
+                sql.append("encode(");
+            }
             if (geography) {
-                sql.append("encode(ST_AsBinary(");
+                sql.append("ST_AsBinary(");
                 encodeColumnName(prefix, gatt.getLocalName(), sql);
-                sql.append("),'base64')");
+                sql.append(")");
             } else {
                 if (NON_CURVED_GEOMETRY_CLASSES.contains(gatt.getType().getBinding())) {
-                    sql.append("encode(ST_AsBinary(ST_Simplify(" + getForce2DFunction() + "(");
+                    sql.append("ST_AsBinary(ST_Simplify(" + getForce2DFunction() + "(");
                     encodeColumnName(prefix, gatt.getLocalName(), sql);
-                    sql.append("), " + distance + preserveCollapsed + ")),'base64')");
+                    sql.append("), " + distance + preserveCollapsed + "))");
                 } else {
                     // we can have curves mixed in
-                    sql.append("encode(ST_AsBinary(");
+                    sql.append("ST_AsBinary(");
                     sql.append("CASE WHEN ST_HasArc(");
                     encodeColumnName(prefix, gatt.getLocalName(), sql);
                     sql.append(") THEN ");
@@ -377,9 +471,12 @@ public class PostGISDialect extends BasicSQLDialect {
                     sql.append(" ELSE ");
                     sql.append("ST_Simplify(" + getForce2DFunction() + "(");
                     encodeColumnName(prefix, gatt.getLocalName(), sql);
-                    sql.append("), " + distance + preserveCollapsed + ") END),'base64')");
+                    sql.append("), " + distance + preserveCollapsed + ") END)");
                 }
             }
+            if (base64) {
+                sql.append(",'base64')");
+            }
         }
     }
 
@@ -965,6 +1062,56 @@ public class PostGISDialect extends BasicSQLDialect {
         return null;
     }
 
+    @Override
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        Statement st = cx.createStatement();
+        try {
+            String sql =
+                    "SELECT "
+                            + encodeNextSequenceValue(schemaName, sequenceName)
+                            + " FROM generate_series(1, "
+                            + count
+                            + ")";
+
+            dataStore.getLogger().fine(sql);
+            ResultSet rs = st.executeQuery(sql);
+            try {
+                List<Object> values = new ArrayList<Object>(count);
+                while (rs.next()) {
+                    values.add(rs.getLong(1));
+                }
+                return values;
+            } finally {
+                dataStore.closeSafe(rs);
+            }
+        } finally {
+            dataStore.closeSafe(st);
+        }
+    }
+
+    @Override
+    public boolean canBulkInsert(
+            SimpleFeatureType featureType,
+            Collection<? extends SimpleFeature> features,
+            Connection cx)
+            throws SQLException {
+        return CopyFeatureLoader.getPGConnection(cx) != null
+                && CopyFeatureLoader.canLoad(featureType, features);
+    }
+
+    @Override
+    public void bulkInsert(
+            SimpleFeatureType featureType,
+            PrimaryKey key,
+            Collection<? extends SimpleFeature> features,
+            List<List<Object>> keyValues,
+            Connection cx)
+            throws SQLException, IOException {
+        new CopyFeatureLoader(this, dataStore).load(featureType, key, features, keyValues, cx);
+    }
+
     @Override
     public String encodeNextSequenceValue(String schemaName, String sequenceName) {
         return "nextval('" + sequenceName + "')";
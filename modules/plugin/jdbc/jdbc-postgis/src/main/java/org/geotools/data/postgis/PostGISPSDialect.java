@@ -22,17 +22,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import org.geotools.jdbc.ColumnMetadata;
 import org.geotools.jdbc.JDBCDataStore;
 import org.geotools.jdbc.PreparedFilterToSQL;
 import org.geotools.jdbc.PreparedStatementSQLDialect;
+import org.geotools.jdbc.PrimaryKey;
 import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.io.WKBWriter;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
@@ -101,6 +105,12 @@ public class PostGISPSDialect extends PreparedStatementSQLDialect {
         delegate.encodeGeometryEnvelope(tableName, geometryColumn, sql);
     }
 
+    @Override
+    public void onSelect(PreparedStatement select, Connection cx, SimpleFeatureType featureType)
+            throws SQLException {
+        delegate.onSelect(select, cx, featureType);
+    }
+
     public void encodePrimaryKey(String column, StringBuffer sql) {
         delegate.encodePrimaryKey(column, sql);
     }
@@ -142,6 +152,43 @@ public class PostGISPSDialect extends PreparedStatementSQLDialect {
         return delegate.getNextSequenceValue(schemaName, sequenceName, cx);
     }
 
+    @Override
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        return delegate.getNextSequenceValues(schemaName, sequenceName, count, cx);
+    }
+
+    @Override
+    public int getBulkInsertThreshold() {
+        return delegate.getBulkInsertThreshold();
+    }
+
+    @Override
+    public boolean canBulkInsert(
+            SimpleFeatureType featureType,
+            Collection<? extends SimpleFeature> features,
+            Connection cx)
+            throws SQLException {
+        return delegate.canBulkInsert(featureType, features, cx);
+    }
+
+    @Override
+    public void bulkInsert(
+            SimpleFeatureType featureType,
+            PrimaryKey key,
+            Collection<? extends SimpleFeature> features,
+            List<List<Object>> keyValues,
+            Connection cx)
+            throws SQLException, IOException {
+        delegate.bulkInsert(featureType, key, features, keyValues, cx);
+    }
+
+    @Override
+    public boolean isBatchUpdateSupported() {
+        return true;
+    }
+
     @Override
     public String encodeNextSequenceValue(String schemaName, String sequenceName) {
         return delegate.encodeNextSequenceValue(schemaName, sequenceName);
@@ -123,6 +123,35 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
                     false,
                     Boolean.TRUE);
 
+    /**
+     * Enables reading geometries as raw WKB with the binary protocol, instead of base64 encoded
+     * text. Only the statements reading geometries are switched to the binary protocol, which
+     * makes the driver prepare them on the server: they cannot go through a pooler in transaction
+     * mode, such as pgbouncer, and are planned as prepared statements.
+     */
+    public static final Param BINARY_TRANSFER =
+            new Param(
+                    "Binary geometry transfer",
+                    Boolean.class,
+                    "When enabled geometries are transferred as raw WKB using the binary protocol, "
+                            + "instead of base64 encoded text. The queries reading geometries "
+                            + "are then prepared on the server, which is not supported by "
+                            + "poolers in transaction mode such as pgbouncer",
+                    false,
+                    Boolean.FALSE,
+                    new KVP(Param.LEVEL, "advanced"));
+
+    /** Minimum number of features an insert must contain to be bulk loaded with COPY */
+    public static final Param BULK_INSERT_THRESHOLD =
+            new Param(
+                    "Bulk insert threshold",
+                    Integer.class,
+                    "Minimum number of features added at once for them to be bulk loaded "
+                            + "with COPY, instead of INSERT statements. Set to 0 to disable",
+                    false,
+                    PostGISDialect.DEFAULT_BULK_INSERT_THRESHOLD,
+                    new KVP(Param.LEVEL, "advanced"));
+
     @Override
     protected SQLDialect createSQLDialect(JDBCDataStore dataStore) {
         return new PostGISDialect(dataStore);
@@ -192,6 +221,16 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         Boolean simplify = (Boolean) SIMPLIFY.lookUp(params);
         dialect.setSimplifyEnabled(simplify == null || simplify);
 
+        // check binary geometry transfer (off by default)
+        Boolean binaryTransfer = (Boolean) BINARY_TRANSFER.lookUp(params);
+        dialect.setBinaryTransferEnabled(Boolean.TRUE.equals(binaryTransfer));
+
+        // check bulk loading with COPY (on by default)
+        Integer bulkInsertThreshold = (Integer) BULK_INSERT_THRESHOLD.lookUp(params);
+        if (bulkInsertThreshold != null) {
+            dialect.setBulkInsertThreshold(bulkInsertThreshold);
+        }
+
         // encode BBOX filter with wrapping ST_Envelope (GEOT-5167)
         Boolean encodeBBOXAsEnvelope = false;
         String largeGeometriesOptimized =
@@ -219,6 +258,8 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         parameters.put(MAX_OPEN_PREPARED_STATEMENTS.key, MAX_OPEN_PREPARED_STATEMENTS);
         parameters.put(ENCODE_FUNCTIONS.key, ENCODE_FUNCTIONS);
         parameters.put(SIMPLIFY.key, SIMPLIFY);
+        parameters.put(BINARY_TRANSFER.key, BINARY_TRANSFER);
+        parameters.put(BULK_INSERT_THRESHOLD.key, BULK_INSERT_THRESHOLD);
         parameters.put(CREATE_DB_IF_MISSING.key, CREATE_DB_IF_MISSING);
         parameters.put(CREATE_PARAMS.key, CREATE_PARAMS);
     }
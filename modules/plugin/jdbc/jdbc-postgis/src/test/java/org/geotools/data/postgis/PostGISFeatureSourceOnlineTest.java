@@ -16,7 +16,10 @@
  */
 package org.geotools.data.postgis;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.geotools.data.DefaultQuery;
+import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.jdbc.JDBCDataStore;
@@ -24,7 +27,9 @@ import org.geotools.jdbc.JDBCFeatureSourceOnlineTest;
 import org.geotools.jdbc.JDBCTestSetup;
 import org.geotools.referencing.CRS;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.GeometryDescriptor;
 import org.opengis.filter.FilterFactory;
@@ -117,4 +122,33 @@ public class PostGISFeatureSourceOnlineTest extends JDBCFeatureSourceOnlineTest
         GeometryDescriptor gd = schema.getGeometryDescriptor();
         assertTrue(areCRSEqual(CRS.decode("EPSG:4326"), gd.getCoordinateReferenceSystem()));
     }
+
+    public void testBinaryTransfer() throws Exception {
+        PostGISDialect dialect = (PostGISDialect) ((JDBCDataStore) dataStore).getSQLDialect();
+        Map<String, Geometry> expected = readGeometries(tname("ft1"));
+        assertFalse(expected.isEmpty());
+
+        dialect.setBinaryTransferEnabled(true);
+        try {
+            Map<String, Geometry> actual = readGeometries(tname("ft1"));
+            assertEquals(expected.keySet(), actual.keySet());
+            for (String fid : expected.keySet()) {
+                assertTrue(expected.get(fid).equalsExact(actual.get(fid)));
+            }
+        } finally {
+            dialect.setBinaryTransferEnabled(false);
+        }
+    }
+
+    private Map<String, Geometry> readGeometries(String typeName) throws Exception {
+        Map<String, Geometry> geometries = new HashMap<>();
+        try (SimpleFeatureIterator it =
+                dataStore.getFeatureSource(typeName).getFeatures().features()) {
+            while (it.hasNext()) {
+                SimpleFeature f = it.next();
+                geometries.put(f.getID(), (Geometry) f.getDefaultGeometry());
+            }
+        }
+        return geometries;
+    }
 }
@@ -16,8 +16,22 @@
  */
 package org.geotools.data.postgis;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.feature.DefaultFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.jdbc.JDBCFeatureStoreOnlineTest;
 import org.geotools.jdbc.JDBCTestSetup;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.identity.FeatureId;
 
 public class PostgisFeatureStoreOnlineTest extends JDBCFeatureStoreOnlineTest {
 
@@ -25,4 +39,78 @@ public class PostgisFeatureStoreOnlineTest extends JDBCFeatureStoreOnlineTest {
     protected JDBCTestSetup createTestSetup() {
         return new PostGISTestSetup();
     }
+
+    public void testBulkAddFeatures() throws IOException {
+        getDialect().setBulkInsertThreshold(2);
+        try {
+            testAddFeatures();
+        } finally {
+            getDialect().setBulkInsertThreshold(PostGISDialect.DEFAULT_BULK_INSERT_THRESHOLD);
+        }
+    }
+
+    public void testBulkAddFeaturesUseProvidedFid() throws IOException {
+        getDialect().setBulkInsertThreshold(2);
+        try {
+            testAddFeaturesUseProvidedFid();
+        } finally {
+            getDialect().setBulkInsertThreshold(PostGISDialect.DEFAULT_BULK_INSERT_THRESHOLD);
+        }
+    }
+
+    public void testBulkAddInTransaction() throws IOException {
+        getDialect().setBulkInsertThreshold(2);
+        try {
+            testAddInTransaction();
+        } finally {
+            getDialect().setBulkInsertThreshold(PostGISDialect.DEFAULT_BULK_INSERT_THRESHOLD);
+        }
+    }
+
+    public void testBulkAddFeaturesValues() throws IOException {
+        SimpleFeatureStore store = (SimpleFeatureStore) dataStore.getFeatureSource(tname("ft1"));
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder(store.getSchema());
+        DefaultFeatureCollection collection =
+                new DefaultFeatureCollection(null, store.getSchema());
+        String[] strings = {"tab\there", "new\nline", "back\\slash", null};
+        for (int i = 0; i < strings.length; i++) {
+            b.set(aname("intProperty"), i);
+            b.set(aname("doubleProperty"), i + 0.5);
+            b.set(aname("stringProperty"), strings[i]);
+            b.set(aname("geometry"), new GeometryFactory().createPoint(new Coordinate(i, i)));
+            collection.add(b.buildFeature(null));
+        }
+
+        List<FeatureId> fids;
+        getDialect().setBulkInsertThreshold(2);
+        try {
+            fids = store.addFeatures((SimpleFeatureCollection) collection);
+        } finally {
+            getDialect().setBulkInsertThreshold(PostGISDialect.DEFAULT_BULK_INSERT_THRESHOLD);
+        }
+
+        assertEquals(strings.length, fids.size());
+        FilterFactory ff = dataStore.getFilterFactory();
+        for (int i = 0; i < strings.length; i++) {
+            SimpleFeatureCollection features =
+                    store.getFeatures(ff.id(Collections.singleton(fids.get(i))));
+            try (SimpleFeatureIterator it = features.features()) {
+                assertTrue(it.hasNext());
+                SimpleFeature feature = it.next();
+                assertEquals(i, ((Number) feature.getAttribute(aname("intProperty"))).intValue());
+                assertEquals(
+                        i + 0.5,
+                        ((Number) feature.getAttribute(aname("doubleProperty"))).doubleValue(),
+                        0d);
+                assertEquals(strings[i], feature.getAttribute(aname("stringProperty")));
+                Point p = (Point) feature.getAttribute(aname("geometry"));
+                assertEquals(new Coordinate(i, i), p.getCoordinate());
+                assertFalse(it.hasNext());
+            }
+        }
+    }
+
+    private PostGISDialect getDialect() {
+        return (PostGISDialect) dataStore.getSQLDialect();
+    }
 }
@@ -16,8 +16,15 @@
  */
 package org.geotools.data.postgis.ps;
 
+import java.io.IOException;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.FeatureWriter;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
 import org.geotools.jdbc.JDBCFeatureStoreOnlineTest;
 import org.geotools.jdbc.JDBCTestSetup;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 
 public class PostgisFeatureStoreOnlineTest extends JDBCFeatureStoreOnlineTest {
 
@@ -25,4 +32,54 @@ public class PostgisFeatureStoreOnlineTest extends JDBCFeatureStoreOnlineTest {
     protected JDBCTestSetup createTestSetup() {
         return new PostGISPSTestSetup();
     }
+
+    public void testBatchModifyFeatures() throws IOException {
+        dataStore.setBatchUpdateSize(2);
+        try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer =
+                dataStore.getFeatureWriter(tname("ft1"), Transaction.AUTO_COMMIT)) {
+            while (writer.hasNext()) {
+                SimpleFeature feature = writer.next();
+                feature.setAttribute(aname("stringProperty"), "foo");
+                writer.write();
+            }
+        }
+
+        int count = 0;
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                dataStore.getFeatureReader(new Query(tname("ft1")), Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                assertEquals("foo", reader.next().getAttribute(aname("stringProperty")));
+                count++;
+            }
+        }
+        assertEquals(3, count);
+    }
+
+    public void testBatchModifyAndRemoveFeatures() throws IOException {
+        dataStore.setBatchUpdateSize(2);
+        try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer =
+                dataStore.getFeatureWriter(tname("ft1"), Transaction.AUTO_COMMIT)) {
+            while (writer.hasNext()) {
+                SimpleFeature feature = writer.next();
+                Number value = (Number) feature.getAttribute(aname("intProperty"));
+                if (value.intValue() == 1) {
+                    writer.remove();
+                } else {
+                    feature.setAttribute(aname("intProperty"), value.intValue() + 10);
+                    writer.write();
+                }
+            }
+        }
+
+        int count = 0;
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                dataStore.getFeatureReader(new Query(tname("ft1")), Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                Number value = (Number) reader.next().getAttribute(aname("intProperty"));
+                assertTrue(value.intValue() >= 10);
+                count++;
+            }
+        }
+        assertEquals(2, count);
+    }
 }
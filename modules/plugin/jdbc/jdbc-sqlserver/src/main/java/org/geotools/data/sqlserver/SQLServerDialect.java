@@ -37,11 +37,13 @@ import java.util.regex.Pattern;
 import org.geotools.data.Query;
 import org.geotools.data.jdbc.FilterToSQL;
 import org.geotools.data.sqlserver.reader.SqlServerBinaryReader;
+import org.geotools.feature.visitor.ApproxDistinctCountVisitor;
 import org.geotools.filter.function.FilterFunction_area;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.jdbc.BasicSQLDialect;
 import org.geotools.jdbc.JDBCDataStore;
 import org.geotools.referencing.CRS;
+import org.geotools.util.Version;
 import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -57,6 +59,7 @@ import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKBReader;
 import org.locationtech.jts.io.WKTReader;
 import org.locationtech.jts.io.WKTWriter;
+import org.opengis.feature.FeatureVisitor;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
@@ -101,6 +104,12 @@ public class SQLServerDialect extends BasicSQLDialect {
 
     private String tableHints;
 
+    /** SQL Server 2019, the first version providing APPROX_COUNT_DISTINCT */
+    static final Version V_15 = new Version("15.0");
+
+    /** The database version, read when the first connection is initialized */
+    private volatile Version databaseVersion;
+
     static final Map<String, Class> TYPE_TO_CLASS_MAP =
             new HashMap<String, Class>() {
                 {
@@ -141,6 +150,40 @@ public class SQLServerDialect extends BasicSQLDialect {
         super(dataStore);
     }
 
+    @Override
+    public void initializeConnection(Connection cx) throws SQLException {
+        super.initializeConnection(cx);
+        getDatabaseVersion(cx);
+    }
+
+    /** Returns the SQL Server database version */
+    public Version getDatabaseVersion(Connection cx) throws SQLException {
+        if (databaseVersion == null) {
+            DatabaseMetaData md = cx.getMetaData();
+            databaseVersion =
+                    new Version(
+                            String.format(
+                                    "%d.%d",
+                                    md.getDatabaseMajorVersion(), md.getDatabaseMinorVersion()));
+        }
+        return databaseVersion;
+    }
+
+    @Override
+    public boolean canCacheAggregateFunctions() {
+        // the approximate functions depend on the version read by initializeConnection
+        return databaseVersion != null;
+    }
+
+    @Override
+    public void registerAggregateFunctions(
+            Map<Class<? extends FeatureVisitor>, String> aggregates) {
+        super.registerAggregateFunctions(aggregates);
+        if (databaseVersion != null && databaseVersion.compareTo(V_15) >= 0) {
+            aggregates.put(ApproxDistinctCountVisitor.class, "APPROX_COUNT_DISTINCT");
+        }
+    }
+
     @Override
     public void registerFunctions(Map<String, String> functions) {
         super.registerFunctions(functions);
@@ -0,0 +1,197 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.geotools.data.shapefile.index.attribute.AttributeIndex;
+import org.geotools.util.Converters;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Extracts from a filter the value ranges that can be looked up in an {@link AttributeIndex}. The
+ * ranges are always inclusive and can match more records than the filter does (e.g., strict
+ * comparisons, string prefixes), the filter is meant to be evaluated again on the records found.
+ *
+ * <p>Only comparisons between an indexed property and a literal are considered. Numeric columns
+ * support equality, ordering and between comparisons, string columns only case sensitive equality,
+ * the GeoTools comparison semantics between strings being too lenient to be matched by a sorted
+ * index
+ */
+class AttributeIndexPlanner {
+
+    /** An inclusive range of values of an indexed attribute */
+    static class Range {
+        String attribute;
+
+        Object lower;
+
+        Object upper;
+
+        Range(String attribute, Object lower, Object upper) {
+            this.attribute = attribute;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        @Override
+        public String toString() {
+            return "Range [" + attribute + ", " + lower + ", " + upper + "]";
+        }
+    }
+
+    /**
+     * Returns the ranges that all the records matching the filter satisfy, or an empty list if the
+     * index cannot help with the filter
+     */
+    static List<Range> getRanges(Filter filter, AttributeIndex index) {
+        if (filter instanceof And) {
+            List<Range> result = new ArrayList<>();
+            for (Filter child : ((And) filter).getChildren()) {
+                result.addAll(getRanges(child, index));
+            }
+            return result;
+        }
+
+        Range range = null;
+        if (filter instanceof PropertyIsEqualTo) {
+            PropertyIsEqualTo equal = (PropertyIsEqualTo) filter;
+            String name = getIndexedName(equal, index);
+            if (name != null) {
+                Object value = getLiteral(equal, index, name);
+                if (value instanceof String && !equal.isMatchingCase()) {
+                    value = null;
+                }
+                if (value != null) {
+                    range = new Range(name, value, value);
+                }
+            }
+        } else if (filter instanceof PropertyIsLessThan
+                || filter instanceof PropertyIsLessThanOrEqualTo) {
+            range = getComparisonRange((BinaryComparisonOperator) filter, index, true);
+        } else if (filter instanceof PropertyIsGreaterThan
+                || filter instanceof PropertyIsGreaterThanOrEqualTo) {
+            range = getComparisonRange((BinaryComparisonOperator) filter, index, false);
+        } else if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            String name = getPropertyName(between.getExpression());
+            if (name != null && index.isNumeric(name)) {
+                Double lower = getNumber(between.getLowerBoundary());
+                Double upper = getNumber(between.getUpperBoundary());
+                if (lower != null && upper != null) {
+                    range = new Range(name, lower, upper);
+                }
+            }
+        }
+
+        if (range == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(range);
+    }
+
+    /** Builds the range for an ordering comparison, only numeric columns are supported */
+    private static Range getComparisonRange(
+            BinaryComparisonOperator comparison, AttributeIndex index, boolean less) {
+        String name1 = getPropertyName(comparison.getExpression1());
+        String name2 = getPropertyName(comparison.getExpression2());
+        String name;
+        Double value;
+        boolean upperBound;
+        if (name1 != null && index.isNumeric(name1)) {
+            name = name1;
+            value = getNumber(comparison.getExpression2());
+            upperBound = less;
+        } else if (name2 != null && index.isNumeric(name2)) {
+            name = name2;
+            value = getNumber(comparison.getExpression1());
+            upperBound = !less;
+        } else {
+            return null;
+        }
+
+        if (value == null) {
+            return null;
+        } else if (upperBound) {
+            return new Range(name, null, value);
+        } else {
+            return new Range(name, value, null);
+        }
+    }
+
+    private static String getIndexedName(
+            BinaryComparisonOperator comparison, AttributeIndex index) {
+        String name = getPropertyName(comparison.getExpression1());
+        if (name != null && index.isIndexed(name)) {
+            return name;
+        }
+        name = getPropertyName(comparison.getExpression2());
+        if (name != null && index.isIndexed(name)) {
+            return name;
+        }
+        return null;
+    }
+
+    /** Returns the literal compared with the indexed property, converted to the index key type */
+    private static Object getLiteral(
+            BinaryComparisonOperator comparison, AttributeIndex index, String name) {
+        Expression other =
+                name.equals(getPropertyName(comparison.getExpression1()))
+                        ? comparison.getExpression2()
+                        : comparison.getExpression1();
+        if (index.isNumeric(name)) {
+            return getNumber(other);
+        } else if (other instanceof Literal && ((Literal) other).getValue() instanceof String) {
+            return ((Literal) other).getValue();
+        }
+        return null;
+    }
+
+    private static String getPropertyName(Expression expression) {
+        if (expression instanceof PropertyName) {
+            return ((PropertyName) expression).getPropertyName();
+        }
+        return null;
+    }
+
+    private static Double getNumber(Expression expression) {
+        if (!(expression instanceof Literal)) {
+            return null;
+        }
+        Object value = ((Literal) expression).getValue();
+        if (value == null) {
+            return null;
+        }
+        Double number = Converters.convert(value, Double.class);
+        if (number == null || number.isNaN()) {
+            return null;
+        }
+        return number;
+    }
+}
@@ -1,9 +1,12 @@
 package org.geotools.data.shapefile;
 
+import static org.geotools.data.shapefile.files.ShpFileType.AIX;
 import static org.geotools.data.shapefile.files.ShpFileType.FIX;
+import static org.geotools.data.shapefile.files.ShpFileType.PRX;
 import static org.geotools.data.shapefile.files.ShpFileType.QIX;
 import static org.geotools.data.shapefile.files.ShpFileType.SHP;
 import static org.geotools.data.shapefile.files.ShpFileType.SHX;
+import static org.geotools.data.shapefile.files.ShpFileType.STX;
 
 import java.io.File;
 import java.io.IOException;
@@ -16,23 +19,34 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotools.data.CloseableIterator;
 import org.geotools.data.DataSourceException;
+import org.geotools.data.FeatureReader;
 import org.geotools.data.shapefile.fid.FidIndexer;
 import org.geotools.data.shapefile.fid.IndexedFidReader;
 import org.geotools.data.shapefile.files.FileWriter;
 import org.geotools.data.shapefile.files.ShpFileType;
 import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.files.StorageFile;
 import org.geotools.data.shapefile.index.CachedQuadTree;
 import org.geotools.data.shapefile.index.Data;
 import org.geotools.data.shapefile.index.DataDefinition;
 import org.geotools.data.shapefile.index.TreeException;
+import org.geotools.data.shapefile.index.attribute.AttributeIndex;
+import org.geotools.data.shapefile.index.attribute.AttributeIndexer;
+import org.geotools.data.shapefile.index.quadtree.Node;
 import org.geotools.data.shapefile.index.quadtree.QuadTree;
 import org.geotools.data.shapefile.index.quadtree.StoreException;
 import org.geotools.data.shapefile.index.quadtree.fs.FileSystemIndexStore;
+import org.geotools.data.shapefile.index.quadtree.fs.IndexHeader;
+import org.geotools.data.shapefile.index.rtree.PackedRTree;
 import org.geotools.data.shapefile.shp.IndexFile;
 import org.geotools.data.util.NullProgressListener;
 import org.geotools.util.URLs;
 import org.geotools.util.logging.Logging;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
 import org.opengis.filter.Id;
 import org.opengis.filter.identity.Identifier;
 
@@ -47,12 +61,23 @@ class IndexManager {
 
     static final int DEFAULT_MAX_QIX_CACHE_SIZE;
 
+    /**
+     * The max fraction of the records an attribute index lookup can return and still be used, past
+     * this point a sequential scan is faster than reading the records at random
+     */
+    static final double MAX_ATTRIBUTE_INDEX_SELECTIVITY = 0.25;
+
     ShpFiles shpFiles;
 
     int maxQixCacheSize = DEFAULT_MAX_QIX_CACHE_SIZE;
 
     CachedQuadTree cachedTree;
 
+    /** The last statistics read, along with the last modified time of their file */
+    ShapefileStatistics cachedStatistics;
+
+    long cachedStatisticsTime;
+
     ShapefileDataStore store;
 
     /** Used to lock the files when doing accesses to check indexes and the like */
@@ -108,6 +133,322 @@ class IndexManager {
         return false;
     }
 
+    /**
+     * Creates the packed R-tree spatial index if appropriate. Once created, the packed R-tree is
+     * preferred over the quadtree for spatial queries.
+     *
+     * @param force Forces the index re-creation even if the spatial index seems to be up to date
+     * @return true if the spatial index has been created/updated
+     */
+    public boolean createPackedSpatialIndex(boolean force) {
+        try {
+            if (shpFiles.isLocal() && (isIndexStale(PRX) || force)) {
+                ShapefileDataStoreFactory.LOGGER.fine(
+                        "Creating packed R-tree spatial index for " + shpFiles.get(SHP));
+
+                ShapeFileIndexer indexer = new ShapeFileIndexer();
+                indexer.setShapeFileName(shpFiles);
+                indexer.setIndexType(PRX);
+                indexer.index(false, new NullProgressListener());
+
+                return true;
+            }
+        } catch (Throwable t) {
+            ShapefileDataStoreFactory.LOGGER.log(Level.SEVERE, t.getLocalizedMessage(), t);
+        }
+        return false;
+    }
+
+    /**
+     * Creates the attribute index for the specified dbf columns, replacing the existing one, if
+     * any. Once created, the attribute index is rebuilt by the first lookup after the shapefile is
+     * modified.
+     *
+     * @param attributes The columns to be indexed
+     * @throws IOException If the index cannot be created
+     */
+    public void createAttributeIndex(List<String> attributes) throws IOException {
+        if (!shpFiles.isLocal()) {
+            throw new IOException("Attribute indexes can only be created on local shapefiles");
+        }
+        AttributeIndexer.generate(shpFiles, store.getCharset(), attributes);
+    }
+
+    /**
+     * Rebuilds the attribute index if it is present and out of date, or if forced to
+     *
+     * @return true if the attribute index has been rebuilt
+     */
+    boolean refreshAttributeIndex(boolean force) {
+        if (!hasAttributeIndex() || (!force && !isIndexStale(AIX))) {
+            return false;
+        }
+        try {
+            List<String> attributes;
+            AttributeIndex index = readAttributeIndex();
+            try {
+                attributes = index.getAttributeNames();
+            } finally {
+                index.close();
+            }
+            createAttributeIndex(attributes);
+            return true;
+        } catch (Throwable t) {
+            ShapefileDataStoreFactory.LOGGER.log(Level.SEVERE, t.getLocalizedMessage(), t);
+        }
+        return false;
+    }
+
+    /** Returns true if an attribute index file is available */
+    boolean hasAttributeIndex() {
+        return shpFiles.isLocal() && shpFiles.exists(AIX);
+    }
+
+    /**
+     * Opens the attribute index, refreshing it if needed and allowed to
+     *
+     * @return The attribute index, or null if missing, out of date, or unreadable
+     */
+    AttributeIndex openAttributeIndex() {
+        if (!hasAttributeIndex()) {
+            return null;
+        }
+        if (store.isIndexCreationEnabled()) {
+            refreshAttributeIndex(false);
+        }
+        if (isIndexStale(AIX)) {
+            return null;
+        }
+        try {
+            return readAttributeIndex();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the attribute index, ignoring it", e);
+            return null;
+        }
+    }
+
+    private AttributeIndex readAttributeIndex() throws IOException {
+        URL indexURL = shpFiles.acquireRead(AIX, writer);
+        try {
+            return new AttributeIndex(URLs.urlToFile(indexURL));
+        } finally {
+            shpFiles.unlockRead(indexURL, writer);
+        }
+    }
+
+    /** Returns true if the attribute index can be used to look up records matching the filter */
+    boolean isAttributeIndexApplicable(Filter filter) {
+        AttributeIndex index = openAttributeIndex();
+        if (index == null) {
+            return false;
+        }
+        try {
+            return !AttributeIndexPlanner.getRanges(filter, index).isEmpty();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Uses the attribute index to look up the records that can match the filter. The most
+     * selective of the indexed conditions in the filter is used, the filter still needs to be
+     * evaluated on the records returned.
+     *
+     * @return The candidate records, sorted by record number, or null if the attribute index is
+     *     not available, cannot be used with the filter, or would not be selective enough
+     */
+    List<Data> queryAttributeIndex(Filter filter) throws IOException {
+        AttributeIndex index = openAttributeIndex();
+        if (index == null) {
+            return null;
+        }
+        try {
+            List<AttributeIndexPlanner.Range> ranges =
+                    AttributeIndexPlanner.getRanges(filter, index);
+            String attribute = null;
+            int[] best = null;
+            for (AttributeIndexPlanner.Range range : ranges) {
+                int[] positions = index.findRange(range.attribute, range.lower, range.upper);
+                if (best == null || positions[1] - positions[0] < best[1] - best[0]) {
+                    best = positions;
+                    attribute = range.attribute;
+                }
+            }
+            if (best == null
+                    || best[1] - best[0]
+                            > index.getNumRecords() * MAX_ATTRIBUTE_INDEX_SELECTIVITY) {
+                return null;
+            }
+
+            long[] records = index.getRecords(attribute, best[0], best[1]);
+            List<Data> result = new ArrayList<>(records.length);
+            for (long record : records) {
+                Data data = new Data(RecordRangeIterator.DEFINITION);
+                data.addValue(Integer.valueOf((int) (record >>> 32) + 1));
+                data.addValue(Long.valueOf(record & 0xFFFFFFFFL));
+                result.add(data);
+            }
+            return result;
+        } catch (TreeException e) {
+            throw new IOException("Error querying the attribute index", e);
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Rebuilds the indexes of the shapefile after its records have been moved around, creating
+     * the quadtree and fid index too if the store would use them
+     */
+    void rebuildIndexes() {
+        cachedTree = null;
+        if (shpFiles.exists(QIX) || (store.isIndexed() && store.isIndexCreationEnabled())) {
+            createSpatialIndex(true);
+        }
+        if (shpFiles.exists(PRX)) {
+            createPackedSpatialIndex(true);
+        }
+        refreshAttributeIndex(true);
+        if (shpFiles.exists(FIX) || store.isFidIndexed()) {
+            createFidIndex();
+        }
+        if (shpFiles.exists(STX)) {
+            try {
+                createStatistics();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to rebuild the shapefile statistics", e);
+            }
+        }
+    }
+
+    /**
+     * Adds the records appended at the end of the shapefile to the quadtree, without reading the
+     * shapefile again: the tree is loaded in memory, the new records are inserted in it, and the
+     * whole .qix file is written back, as the file format stores the nodes depth first with no
+     * room to grow them in place. The cost is thus proportional to the size of the quadtree rather
+     * than of the shapefile. The quadtree must have been up to date before the append.
+     *
+     * @param firstRecord The zero based number of the first appended record
+     * @param bounds The bounds of the appended records, as minx, miny, maxx, maxy quadruples, NaN
+     *     for the records without a geometry
+     * @param count The number of appended records
+     * @return true if the quadtree has been updated, false if it was not found
+     */
+    boolean appendToSpatialIndex(int firstRecord, double[] bounds, int count) throws IOException {
+        QuadTree fileTree = openQuadTree();
+        if (fileTree == null) {
+            return false;
+        }
+        QuadTree tree;
+        try {
+            tree = new QuadTree(firstRecord + count, fileTree.getMaxDepth(), null);
+            tree.setRoot(copyToMemory(fileTree.getRoot()));
+        } finally {
+            fileTree.close();
+        }
+
+        Node root = tree.getRoot();
+        for (int i = 0; i < count; i++) {
+            int base = i * 4;
+            if (!Double.isNaN(bounds[base])) {
+                Envelope env =
+                        new Envelope(
+                                bounds[base], bounds[base + 2], bounds[base + 1], bounds[base + 3]);
+                // the root has to cover all the records, or searches would miss the new ones
+                root.getBounds().expandToInclude(env);
+                tree.insert(firstRecord + i, env);
+            }
+        }
+
+        StorageFile storage = shpFiles.getStorageFile(QIX);
+        new FileSystemIndexStore(storage.getFile(), IndexHeader.NEW_MSB_ORDER).store(tree);
+        storage.replaceOriginal();
+        cachedTree = null;
+        return true;
+    }
+
+    /** Copies a (lazily loaded) quadtree node and all its descendants into mutable nodes */
+    private Node copyToMemory(Node node) throws StoreException {
+        Node copy = new Node(node.getBounds());
+        int[] ids = new int[node.getNumShapeIds()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = node.getShapeId(i);
+        }
+        copy.setShapesId(ids);
+        for (int i = 0; i < node.getNumSubNodes(); i++) {
+            copy.addSubNode(copyToMemory(node.getSubNode(i)));
+        }
+        return copy;
+    }
+
+    /**
+     * Computes the statistics of the shapefile by reading all of it, and stores them in the .stx
+     * file, replacing the existing one, if any. Once created, the statistics are updated by
+     * appends, while other modifications mark them out of date and they are computed again by the
+     * next aggregate they can answer.
+     *
+     * @throws IOException If the shapefile cannot be read or the statistics cannot be written
+     */
+    public void createStatistics() throws IOException {
+        if (!shpFiles.isLocal()) {
+            throw new IOException("Statistics can only be created on local shapefiles");
+        }
+        ShapefileStatistics statistics = new ShapefileStatistics(store.getSchema());
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader = store.getFeatureReader()) {
+            while (reader.hasNext()) {
+                SimpleFeature feature = reader.next();
+                statistics.add(feature, (Geometry) feature.getDefaultGeometry());
+            }
+        }
+        StorageFile storage = shpFiles.getStorageFile(STX);
+        statistics.write(storage.getFile());
+        storage.replaceOriginal();
+    }
+
+    /**
+     * Recomputes the statistics if they are present and out of date
+     *
+     * @return true if the statistics have been recomputed
+     */
+    synchronized boolean refreshStatistics() {
+        if (!shpFiles.isLocal() || !shpFiles.exists(STX) || !isIndexStale(STX)) {
+            return false;
+        }
+        try {
+            createStatistics();
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to rebuild the shapefile statistics", e);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the shapefile statistics
+     *
+     * @return The statistics, or null if missing, out of date, or unreadable
+     */
+    synchronized ShapefileStatistics openStatistics() {
+        if (!shpFiles.isLocal() || !shpFiles.exists(STX) || isIndexStale(STX)) {
+            return null;
+        }
+        URL url = shpFiles.acquireRead(STX, writer);
+        try {
+            File file = URLs.urlToFile(url);
+            long lastModified = file.lastModified();
+            if (cachedStatistics == null || cachedStatisticsTime != lastModified) {
+                cachedStatistics = ShapefileStatistics.read(file, store.getSchema());
+                cachedStatisticsTime = lastModified;
+            }
+            return cachedStatistics;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the shapefile statistics, ignoring them", e);
+            return null;
+        } finally {
+            shpFiles.unlockRead(url, writer);
+        }
+    }
+
     /**
      * If the fid index can be used and it is missing this method will try to create it
      *
@@ -175,7 +516,7 @@ class IndexManager {
      * @return
      */
     boolean isSpatialIndexAvailable() {
-        return shpFiles.isLocal() && shpFiles.exists(QIX);
+        return shpFiles.isLocal() && (shpFiles.exists(QIX) || shpFiles.exists(PRX));
     }
 
     /**
@@ -220,6 +561,34 @@ class IndexManager {
         }
     }
 
+    /**
+     * Marks the specified index as out of date, see {@link #markIndexStale(ShpFiles, ShpFileType,
+     * FileWriter)}
+     */
+    void markIndexStale(ShpFileType indexType) {
+        markIndexStale(shpFiles, indexType, writer);
+    }
+
+    /**
+     * Marks an index file as out of date without removing it, as its presence is what asks for the
+     * index to be kept: the file last modified time is reset, so that {@link
+     * #isIndexStale(ShpFileType)} reports it and the index is rebuilt the next time a query would
+     * use it. If the time cannot be reset the file is deleted instead.
+     */
+    static void markIndexStale(ShpFiles shpFiles, ShpFileType indexType, FileWriter requestor) {
+        if (!shpFiles.isLocal() || !shpFiles.exists(indexType)) {
+            return;
+        }
+        File file = shpFiles.acquireWriteFile(indexType, requestor);
+        try {
+            if (!file.setLastModified(0)) {
+                file.delete();
+            }
+        } finally {
+            shpFiles.unlockWrite(file, requestor);
+        }
+    }
+
     /**
      * Uses the Fid index to quickly lookup the shp offset and the record number for the list of
      * fids
@@ -300,6 +669,24 @@ class IndexManager {
             throws DataSourceException, IOException, TreeException {
         CloseableIterator<Data> tmp = null;
 
+        // the packed R-tree, if present, is preferred over the quadtree
+        if (shpFiles.isLocal() && shpFiles.exists(PRX)) {
+            if (store.isIndexCreationEnabled()) {
+                createPackedSpatialIndex(false);
+            }
+            if (!isIndexStale(PRX)) {
+                PackedRTree packedTree = openPackedRTree();
+                if (packedTree != null) {
+                    if (!bbox.contains(packedTree.getBounds())) {
+                        return packedTree.search(bbox);
+                    } else {
+                        packedTree.close();
+                        return null;
+                    }
+                }
+            }
+        }
+
         // check if the spatial index needs recreating
         createSpatialIndex(false);
 
@@ -381,6 +768,27 @@ class IndexManager {
         }
     }
 
+    /**
+     * Convenience method for opening the packed R-tree index.
+     *
+     * @return A new PackedRTree, or null if the index is missing or cannot be read
+     */
+    protected PackedRTree openPackedRTree() {
+        URL treeURL = shpFiles.acquireRead(PRX, writer);
+        try {
+            File treeFile = URLs.urlToFile(treeURL);
+            if (treeFile == null || !treeFile.exists() || treeFile.length() == 0) {
+                return null;
+            }
+            return new PackedRTree(treeFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the packed R-tree, ignoring it", e);
+            return null;
+        } finally {
+            shpFiles.unlockRead(treeURL, writer);
+        }
+    }
+
     public void dispose() {
         this.cachedTree = null;
     }
@@ -110,6 +110,10 @@ class IndexedShapefileFeatureWriter extends ShapefileFeatureWriter implements Fi
                 }
 
                 deleteFile(ShpFileType.QIX);
+                // the packed R-tree and attribute index are only there if explicitly requested,
+                // keep them around and let the next query that would use them rebuild them
+                indexes.markIndexStale(ShpFileType.PRX);
+                indexes.markIndexStale(ShpFileType.AIX);
             }
         } catch (Throwable e) {
             ShapefileDataStoreFactory.LOGGER.log(Level.WARNING, "Error creating Spatial index", e);
@@ -0,0 +1,77 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.geotools.data.CloseableIterator;
+import org.geotools.data.shapefile.index.Data;
+
+/**
+ * Intersects the records returned by an index with a set of records found by another index,
+ * returning only the records found by both
+ */
+class RecordFilterIterator implements CloseableIterator<Data> {
+
+    CloseableIterator<Data> delegate;
+
+    /** Sorted record numbers, one based, as found in the {@link Data} objects */
+    int[] accepted;
+
+    Data next;
+
+    /**
+     * @param delegate The records to be filtered, will be closed along with this iterator
+     * @param accepted The records to be retained, as returned by an index
+     */
+    RecordFilterIterator(CloseableIterator<Data> delegate, List<Data> accepted) {
+        this.delegate = delegate;
+        this.accepted = new int[accepted.size()];
+        for (int i = 0; i < this.accepted.length; i++) {
+            this.accepted[i] = (Integer) accepted.get(i).getValue(0);
+        }
+        Arrays.sort(this.accepted);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && delegate.hasNext()) {
+            Data data = delegate.next();
+            if (Arrays.binarySearch(accepted, (Integer) data.getValue(0)) >= 0) {
+                next = data;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Data next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Data result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
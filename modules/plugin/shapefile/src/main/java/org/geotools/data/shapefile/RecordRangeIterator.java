@@ -0,0 +1,96 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import org.geotools.data.CloseableIterator;
+import org.geotools.data.shapefile.index.Data;
+import org.geotools.data.shapefile.index.DataDefinition;
+import org.geotools.data.shapefile.shp.IndexFile;
+
+/**
+ * Walks a contiguous range of records using the offsets stored in the .shx file, returning the
+ * same record number/offset pairs the spatial and fid indexes return, so that the range can be
+ * read by a {@link IndexedShapefileFeatureReader}
+ */
+class RecordRangeIterator implements CloseableIterator<Data> {
+
+    static final DataDefinition DEFINITION;
+
+    static {
+        DEFINITION = new DataDefinition("US-ASCII");
+        DEFINITION.addField(Integer.class);
+        DEFINITION.addField(Long.class);
+    }
+
+    IndexFile shx;
+
+    int current;
+
+    int end;
+
+    /**
+     * Builds a new range iterator
+     *
+     * @param shx The index file, will be closed along with this iterator
+     * @param start The first record to return, zero based
+     * @param end The record past the last one to return, zero based
+     */
+    public RecordRangeIterator(IndexFile shx, int start, int end) {
+        this.shx = shx;
+        this.current = start;
+        this.end = Math.min(end, shx.getRecordCount());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return shx != null && current < end;
+    }
+
+    @Override
+    public Data next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more records in range");
+        }
+        try {
+            Data data = new Data(DEFINITION);
+            data.addValue(Integer.valueOf(current + 1));
+            data.addValue(Long.valueOf(shx.getOffsetInBytes(current)));
+            current++;
+            return data;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read record " + current + " offset", e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Records cannot be removed");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (shx != null) {
+            try {
+                shx.close();
+            } finally {
+                shx = null;
+            }
+        }
+    }
+}
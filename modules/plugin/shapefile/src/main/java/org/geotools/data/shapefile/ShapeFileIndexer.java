@@ -37,7 +37,9 @@ import org.geotools.data.shapefile.index.quadtree.QuadTree;
 import org.geotools.data.shapefile.index.quadtree.StoreException;
 import org.geotools.data.shapefile.index.quadtree.fs.FileSystemIndexStore;
 import org.geotools.data.shapefile.index.quadtree.fs.IndexHeader;
+import org.geotools.data.shapefile.index.rtree.PackedRTreeBuilder;
 import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.shapefile.shp.ShapeType;
 import org.geotools.data.shapefile.shp.ShapefileHeader;
 import org.geotools.data.shapefile.shp.ShapefileReader;
 import org.geotools.data.shapefile.shp.ShapefileReader.Record;
@@ -59,6 +61,7 @@ class ShapeFileIndexer implements FileWriter {
     private int leafSize = 16;
 
     private String byteOrder;
+    private ShpFileType indexType = ShpFileType.QIX;
     private boolean interactive = false;
     private ShpFiles shpFiles;
 
@@ -74,9 +77,10 @@ class ShapeFileIndexer implements FileWriter {
 
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("-t")) {
-                // idx.setIdxType(IndexType.valueOf(args[++i]));
-                // just skip it for backwards compatibility
-                i++;
+                // anything but PRX falls back on the quadtree, for backwards compatibility
+                if ("PRX".equalsIgnoreCase(args[++i])) {
+                    idx.setIndexType(ShpFileType.PRX);
+                }
             } else if (args[i].equals("-M")) {
                 idx.setMax(Integer.parseInt(args[++i]));
             } else if (args[i].equals("-s")) {
@@ -111,7 +115,7 @@ class ShapeFileIndexer implements FileWriter {
     private static void usage() {
         System.out.println(
                 "Usage: ShapeFileIndexer "
-                        + "-t <QIX> "
+                        + "-t <QIX | PRX> "
                         + "[-M <max tree depth>] "
                         + "[-b <byte order NL | NM>] "
                         + "<shape file>"
@@ -120,7 +124,7 @@ class ShapeFileIndexer implements FileWriter {
         System.out.println();
 
         System.out.println("Options:");
-        System.out.println("\t-t Index type: RTREE or QUADTREE");
+        System.out.println("\t-t Index type: QIX (quadtree, default) or PRX (packed R-tree)");
         System.out.println();
         System.out.println("Following options apllies only to QUADTREE:");
         System.out.println("\t-b byte order to use: NL = LSB; " + "NM = MSB (default)");
@@ -155,32 +159,36 @@ class ShapeFileIndexer implements FileWriter {
         ShapefileReader reader = null;
 
         // Temporary file for building...
-        StorageFile storage = shpFiles.getStorageFile(ShpFileType.QIX);
+        StorageFile storage = shpFiles.getStorageFile(indexType);
         File treeFile = storage.getFile();
 
         try {
             reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
 
-            if (max == -1) {
-                // compute a reasonable index max depth, considering a fully developed
-                // 10 levels one already contains 200k index nodes, good for indexing up
-                // to 3M features without consuming too much memory
-                int features = reader.getCount(0);
-                max = 1;
-                int nodes = 1;
-                while (nodes * leafSize < features) {
-                    max++;
-                    nodes *= 4;
-                }
-                if (max < 10) {
-                    max = 10;
+            if (indexType == ShpFileType.PRX) {
+                cnt = this.buildPackedRTree(reader, treeFile, verbose);
+            } else {
+                if (max == -1) {
+                    // compute a reasonable index max depth, considering a fully developed
+                    // 10 levels one already contains 200k index nodes, good for indexing up
+                    // to 3M features without consuming too much memory
+                    int features = reader.getCount(0);
+                    max = 1;
+                    int nodes = 1;
+                    while (nodes * leafSize < features) {
+                        max++;
+                        nodes *= 4;
+                    }
+                    if (max < 10) {
+                        max = 10;
+                    }
+
+                    reader.close();
+                    reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
                 }
 
-                reader.close();
-                reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
+                cnt = this.buildQuadTree(reader, treeFile, verbose);
             }
-
-            cnt = this.buildQuadTree(reader, treeFile, verbose);
         } finally {
             if (reader != null) reader.close();
         }
@@ -191,6 +199,36 @@ class ShapeFileIndexer implements FileWriter {
         return cnt;
     }
 
+    private int buildPackedRTree(ShapefileReader reader, File file, boolean verbose)
+            throws IOException {
+        LOGGER.fine("Building packed R-tree spatial index for file " + file.getAbsolutePath());
+
+        ShapefileHeader header = reader.getHeader();
+        Envelope bounds = new Envelope(header.minX(), header.maxX(), header.minY(), header.maxY());
+        PackedRTreeBuilder builder = new PackedRTreeBuilder(bounds);
+        int cnt = 0;
+        try {
+            while (reader.hasNext()) {
+                Record rec = reader.nextRecord();
+                // null shapes cannot be hit by any bbox query, no need to index them
+                if (rec.type != ShapeType.NULL) {
+                    builder.add(cnt, rec.offset(), rec.minX, rec.minY, rec.maxX, rec.maxY);
+                }
+                cnt++;
+
+                if (verbose && ((cnt % 1000) == 0)) {
+                    System.out.print('.');
+                }
+                if (verbose && cnt % 100000 == 0) System.out.print('\n');
+            }
+            if (verbose) System.out.println("done");
+            builder.build(file);
+        } finally {
+            builder.dispose();
+        }
+        return cnt;
+    }
+
     private int buildQuadTree(ShapefileReader reader, File file, boolean verbose)
             throws IOException, StoreException {
         LOGGER.fine(
@@ -400,6 +438,17 @@ class ShapeFileIndexer implements FileWriter {
         this.shpFiles = shpFiles;
     }
 
+    /**
+     * Sets the type of spatial index to build, either {@link ShpFileType#QIX} (the default) or
+     * {@link ShpFileType#PRX}
+     */
+    public void setIndexType(ShpFileType indexType) {
+        if (indexType != ShpFileType.QIX && indexType != ShpFileType.PRX) {
+            throw new IllegalArgumentException("Not a spatial index type: " + indexType);
+        }
+        this.indexType = indexType;
+    }
+
     /**
      * DOCUMENT ME!
      *
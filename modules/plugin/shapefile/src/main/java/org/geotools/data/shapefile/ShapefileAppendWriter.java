@@ -0,0 +1,539 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.geotools.data.shapefile.files.ShpFileType.AIX;
+import static org.geotools.data.shapefile.files.ShpFileType.DBF;
+import static org.geotools.data.shapefile.files.ShpFileType.FIX;
+import static org.geotools.data.shapefile.files.ShpFileType.PRX;
+import static org.geotools.data.shapefile.files.ShpFileType.QIX;
+import static org.geotools.data.shapefile.files.ShpFileType.SHP;
+import static org.geotools.data.shapefile.files.ShpFileType.SHX;
+import static org.geotools.data.shapefile.files.ShpFileType.STX;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureWriter;
+import org.geotools.data.shapefile.dbf.DbaseFileHeader;
+import org.geotools.data.shapefile.dbf.DbaseFileWriter;
+import org.geotools.data.shapefile.fid.FidIndexer;
+import org.geotools.data.shapefile.fid.IndexedFidReader;
+import org.geotools.data.shapefile.fid.IndexedFidWriter;
+import org.geotools.data.shapefile.files.FileReader;
+import org.geotools.data.shapefile.files.FileWriter;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.files.StorageFile;
+import org.geotools.data.shapefile.shp.JTSUtilities;
+import org.geotools.data.shapefile.shp.ShapeHandler;
+import org.geotools.data.shapefile.shp.ShapeType;
+import org.geotools.data.shapefile.shp.ShapefileHeader;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.data.shapefile.shp.ShapefileWriter;
+import org.geotools.util.URLs;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.GeometryDescriptor;
+
+/**
+ * A FeatureWriter appending features at the end of an existing shapefile. Unlike {@link
+ * ShapefileFeatureWriter} the existing records are neither read nor copied: the new records are
+ * written in place after the last one, accumulating them in large buffers, and the .shp, .shx and
+ * .dbf headers are patched once at close.
+ *
+ * <p>The fid index, quadtree and statistics that were up to date before the append are updated
+ * without reading the shapefile again. The fid index and statistics are cheap to update, while the
+ * quadtree is loaded in memory and written back as a whole, as its nodes cannot grow in place: the
+ * cost is proportional to the size of the .qix, not of the shapefile. The packed R-tree and
+ * attribute index are marked out of date, as the other writers do, and get rebuilt by the next
+ * query that would use them.
+ */
+class ShapefileAppendWriter implements FeatureWriter<SimpleFeatureType, SimpleFeature>, FileWriter {
+
+    protected ShpFiles shpFiles;
+
+    protected IndexManager indexes;
+
+    // the current Feature
+    protected SimpleFeature currentFeature;
+
+    // the FeatureType we are representing
+    protected SimpleFeatureType featureType;
+
+    // an array for reuse in Feature creation
+    protected Object[] emptyAtts;
+
+    // an array for reuse in writing to dbf.
+    protected Object[] transferCache;
+
+    // hold 1 if dbf should write the attribute at the index, 0 if not
+    protected byte[] writeFlags;
+
+    protected ShapeType shapeType;
+
+    protected ShapeHandler handler;
+
+    protected ShapefileWriter shpWriter;
+
+    protected DbaseFileWriter dbfWriter;
+
+    private DbaseFileHeader dbfHeader;
+
+    private FileChannel dbfChannel;
+
+    // the shapefile length, in bytes, including the appended records
+    protected int shapefileLength;
+
+    // the number of records in the shapefile before the append
+    protected int firstRecord;
+
+    // the number of records in the shapefile, including the appended ones
+    protected int records;
+
+    // the bounds of the whole shapefile, including the appended records
+    protected Envelope bounds;
+
+    // the bounds of the appended records, for the quadtree update
+    private double[] appendedBounds = new double[64];
+
+    // the last fid in the fid index, or -1 if the fid index is not kept
+    private long lastFid = -1;
+
+    private boolean fidIndexed;
+
+    private boolean updateSpatialIndex;
+
+    // the statistics being updated, if the shapefile has them
+    protected ShapefileStatistics statistics;
+
+    private long maxShpSize = ShapefileFeatureWriter.DEFAULT_MAX_SHAPE_SIZE;
+
+    private long maxDbfSize = ShapefileFeatureWriter.DEFAULT_MAX_DBF_SIZE;
+
+    private boolean closed;
+
+    /**
+     * Returns true if the shapefile can be appended to in place, that is, if the files are local
+     * and the shapefile already contains records of a known shape type
+     */
+    static boolean canAppend(ShpFiles shpFiles) throws IOException {
+        if (!shpFiles.isLocal()
+                || !shpFiles.exists(SHP)
+                || !shpFiles.exists(SHX)
+                || !shpFiles.exists(DBF)) {
+            return false;
+        }
+        FileReader reader =
+                new FileReader() {
+                    public String id() {
+                        return "Shapefile append check";
+                    }
+                };
+        ReadableByteChannel in = shpFiles.getReadChannel(SHP, reader);
+        try {
+            ShapefileHeader header = readHeader(in);
+            // an empty shapefile still has to pick its shape type from the first feature
+            return header.getFileLength() > 50 && header.getShapeType() != ShapeType.NULL;
+        } finally {
+            in.close();
+        }
+    }
+
+    public ShapefileAppendWriter(
+            IndexManager indexes,
+            SimpleFeatureType featureType,
+            boolean fidIndexed,
+            Charset charset,
+            TimeZone timeZone)
+            throws IOException {
+        this.indexes = indexes;
+        this.shpFiles = indexes.shpFiles;
+        this.featureType = featureType;
+        this.fidIndexed = fidIndexed;
+
+        // the indexes can be updated incrementally only if they are current before the append
+        this.updateSpatialIndex = shpFiles.exists(QIX) && !indexes.isIndexStale(QIX);
+        if (shpFiles.exists(STX) && !indexes.isIndexStale(STX)) {
+            statistics = readStatistics();
+        }
+        long fidCount = -1;
+        if (fidIndexed && !indexes.isIndexStale(FIX)) {
+            IndexedFidReader reader = new IndexedFidReader(shpFiles);
+            try {
+                fidCount = reader.getCount();
+                lastFid = readLastFid(reader);
+            } finally {
+                reader.close();
+            }
+        }
+
+        // set up buffers and write flags
+        emptyAtts = new Object[featureType.getAttributeCount()];
+        writeFlags = new byte[featureType.getAttributeCount()];
+        int cnt = 0;
+        for (int i = 0, ii = featureType.getAttributeCount(); i < ii; i++) {
+            // if its a geometry, we don't want to write it to the dbf...
+            if (!(featureType.getDescriptor(i) instanceof GeometryDescriptor)) {
+                cnt++;
+                writeFlags[i] = (byte) 1;
+            }
+        }
+        transferCache = new Object[cnt];
+
+        // open the original files, locking them for the whole append
+        FileChannel shpChannel = null;
+        FileChannel shxChannel = null;
+        try {
+            shpChannel = (FileChannel) shpFiles.getWriteChannel(SHP, this);
+            shxChannel = (FileChannel) shpFiles.getWriteChannel(SHX, this);
+            dbfChannel = (FileChannel) shpFiles.getWriteChannel(DBF, this);
+
+            ShapefileHeader shpHeader = readHeader(shpChannel);
+            ShapefileHeader shxHeader = readHeader(shxChannel);
+            dbfHeader = new DbaseFileHeader();
+            dbfHeader.readHeader(dbfChannel, charset);
+
+            shapeType = shpHeader.getShapeType();
+            handler = shapeType.getShapeHandler(new GeometryFactory());
+            shapefileLength = shpHeader.getFileLength() * 2;
+            firstRecord = (shxHeader.getFileLength() * 2 - 100) / 8;
+            records = firstRecord;
+            bounds =
+                    new Envelope(
+                            shpHeader.minX(), shpHeader.maxX(), shpHeader.minY(), shpHeader.maxY());
+            if (dbfHeader.getNumRecords() != firstRecord) {
+                throw new IOException(
+                        "The shx and dbf files disagree on the number of records, "
+                                + firstRecord
+                                + " vs "
+                                + dbfHeader.getNumRecords());
+            }
+            if (fidCount != firstRecord) {
+                // the fid index does not match the shapefile, it will have to be regenerated
+                lastFid = -1;
+            }
+
+            shpWriter = new ShapefileWriter(shpChannel, shxChannel);
+            shpWriter.startAppend(shapeType, firstRecord, shapefileLength);
+            dbfChannel.position(dbfHeader.getLengthForRecords(firstRecord));
+            dbfWriter = new DbaseFileWriter(dbfHeader, dbfChannel, charset, timeZone, true);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(shpChannel);
+            closeQuietly(shxChannel);
+            closeQuietly(dbfChannel);
+            throw e;
+        }
+    }
+
+    private static ShapefileHeader readHeader(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        if (channel instanceof FileChannel) {
+            ((FileChannel) channel).position(0);
+        }
+        ShapefileReader.fill(buffer, channel);
+        buffer.flip();
+        ShapefileHeader header = new ShapefileHeader();
+        header.read(buffer, true);
+        return header;
+    }
+
+    private ShapefileStatistics readStatistics() {
+        URL url = shpFiles.acquireRead(STX, this);
+        try {
+            return ShapefileStatistics.read(URLs.urlToFile(url), featureType);
+        } catch (IOException e) {
+            ShapefileDataStoreFactory.LOGGER.log(
+                    Level.WARNING, "Could not read the shapefile statistics, ignoring them", e);
+            return null;
+        } finally {
+            shpFiles.unlockRead(url, this);
+        }
+    }
+
+    /** Returns the fid of the last record, or -1 if the fid index cannot be read */
+    private long readLastFid(IndexedFidReader reader) throws IOException {
+        long count = reader.getCount();
+        if (count == 0) {
+            return 0;
+        }
+        reader.goTo(count - 1);
+        if (!reader.hasNext()) {
+            return -1;
+        }
+        reader.next();
+        return reader.getCurrentFIDIndex();
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                ShapefileDataStoreFactory.LOGGER.log(Level.FINE, "Failed to close channel", e);
+            }
+        }
+    }
+
+    void setMaxShpSize(long maxShapeSize) {
+        this.maxShpSize = maxShapeSize;
+    }
+
+    void setMaxDbfSize(long maxDbfSize) {
+        this.maxDbfSize = maxDbfSize;
+    }
+
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    public boolean hasNext() throws IOException {
+        // the existing features are not visited, only new ones can be added
+        return false;
+    }
+
+    public SimpleFeature next() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+
+        // we have to write the current feature back into the stream
+        if (currentFeature != null) {
+            write();
+        }
+
+        String featureID = getFeatureType().getTypeName() + "." + nextFid();
+        return currentFeature = DataUtilities.template(getFeatureType(), featureID, emptyAtts);
+    }
+
+    private long nextFid() {
+        if (lastFid >= 0) {
+            return lastFid + 1 + (records - firstRecord);
+        }
+        return records + 1;
+    }
+
+    public void remove() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+
+        if (currentFeature == null) {
+            throw new IOException("Current feature is null");
+        }
+
+        // the feature has not been written yet, just forget about it
+        currentFeature = null;
+    }
+
+    public void write() throws IOException {
+        if (currentFeature == null) {
+            throw new IOException("Current feature is null");
+        }
+
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+
+        // convert geometry
+        Geometry g = (Geometry) currentFeature.getDefaultGeometry();
+        g = JTSUtilities.convertToCollection(g, shapeType);
+
+        // file length update
+        int length = g != null ? handler.getLength(g) + 8 : 4 + 8;
+        if (shapefileLength + (long) length > maxShpSize) {
+            currentFeature = null;
+            throw new ShapefileSizeException(
+                    "Writing this feature will make the shapefile exceed the maximum size of "
+                            + maxShpSize
+                            + " bytes");
+        } else if (dbfHeader.getLengthForRecords(records + 1) > maxDbfSize) {
+            currentFeature = null;
+            throw new ShapefileSizeException(
+                    "Writing this feature will make the DBF exceed the maximum size of "
+                            + maxDbfSize
+                            + " bytes");
+        }
+
+        // writing of attributes first, as they are the most likely to fail
+        int idx = 0;
+        for (int i = 0, ii = featureType.getAttributeCount(); i < ii; i++) {
+            // skip geometries
+            if (writeFlags[i] > 0) {
+                transferCache[idx++] = currentFeature.getAttribute(i);
+            }
+        }
+        dbfWriter.write(transferCache);
+
+        // and then the geometry
+        shpWriter.writeGeometry(g);
+        shapefileLength += length;
+
+        // bounds calculations
+        int base = (records - firstRecord) * 4;
+        if (base + 4 > appendedBounds.length) {
+            appendedBounds = Arrays.copyOf(appendedBounds, appendedBounds.length * 2);
+        }
+        Envelope b = g != null ? g.getEnvelopeInternal() : null;
+        if (b != null && !b.isNull()) {
+            bounds.expandToInclude(b);
+            appendedBounds[base] = b.getMinX();
+            appendedBounds[base + 1] = b.getMinY();
+            appendedBounds[base + 2] = b.getMaxX();
+            appendedBounds[base + 3] = b.getMaxY();
+        } else {
+            appendedBounds[base] = Double.NaN;
+        }
+
+        if (statistics != null) {
+            statistics.add(currentFeature, g);
+        }
+
+        // one more down...
+        records++;
+
+        // clear the currentFeature
+        currentFeature = null;
+    }
+
+    /** Writes down the pending records, patches the headers and updates the indexes */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            // make sure to write the last feature...
+            if (currentFeature != null) {
+                write();
+            }
+        } finally {
+            try {
+                // go back and update the headers, unless nothing has been written at all
+                if (records > firstRecord) {
+                    shpWriter.writeHeaders(bounds, shapeType, records, shapefileLength);
+                    dbfWriter.flush();
+                    dbfHeader.setNumRecords(records);
+                    dbfChannel.position(0);
+                    dbfHeader.writeHeader(dbfChannel);
+                }
+            } finally {
+                try {
+                    shpWriter.close();
+                } finally {
+                    dbfWriter.close();
+                }
+            }
+        }
+
+        if (records > firstRecord) {
+            updateIndexes();
+        }
+    }
+
+    /** Brings the indexes and statistics up to date with the appended records */
+    private void updateIndexes() {
+        int appended = records - firstRecord;
+        try {
+            if (fidIndexed) {
+                if (lastFid >= 0) {
+                    appendFids(appended);
+                } else {
+                    FidIndexer.generate(shpFiles);
+                }
+            }
+        } catch (Throwable e) {
+            ShapefileDataStoreFactory.LOGGER.log(
+                    Level.WARNING, "Error updating the Feature ID index", e);
+        }
+
+        try {
+            if (updateSpatialIndex) {
+                indexes.appendToSpatialIndex(firstRecord, appendedBounds, appended);
+            }
+            // the packed R-tree and attribute index cannot be appended to, let the next query
+            // that would use them rebuild them
+            indexes.markIndexStale(PRX);
+            indexes.markIndexStale(AIX);
+        } catch (Throwable e) {
+            ShapefileDataStoreFactory.LOGGER.log(Level.WARNING, "Error updating Spatial index", e);
+        }
+
+        if (statistics != null) {
+            StorageFile storage = shpFiles.getStorageFile(STX);
+            File file = storage.getFile();
+            try {
+                statistics.write(file);
+                storage.replaceOriginal();
+            } catch (IOException e) {
+                ShapefileDataStoreFactory.LOGGER.log(
+                        Level.WARNING, "Failed to write the shapefile statistics", e);
+                file.delete();
+            }
+        }
+    }
+
+    /** Adds the fids of the appended records at the end of the fid index, in place */
+    private void appendFids(int appended) throws IOException {
+        final int recordSize = IndexedFidWriter.RECORD_SIZE;
+        FileChannel channel = (FileChannel) shpFiles.getWriteChannel(FIX, this);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(recordSize * 1024);
+            long position = IndexedFidWriter.HEADER_SIZE + (long) firstRecord * recordSize;
+            for (int i = 0; i < appended; i++) {
+                if (buffer.remaining() < recordSize) {
+                    position += drain(channel, buffer, position);
+                }
+                buffer.putLong(lastFid + 1 + i);
+                buffer.putInt(firstRecord + i);
+            }
+            position += drain(channel, buffer, position);
+            channel.truncate(position);
+
+            // update the record count, the version and removes count stay the same
+            buffer.putLong(records);
+            drain(channel, buffer, 1);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private int drain(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    public String id() {
+        return getClass().getName();
+    }
+}
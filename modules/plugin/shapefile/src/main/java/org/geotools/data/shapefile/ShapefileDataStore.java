@@ -29,11 +29,17 @@ import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 import org.geotools.data.DataSourceException;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.FeatureWriter;
@@ -117,6 +123,11 @@ public class ShapefileDataStore extends ContentDataStore implements FileDataStor
 
     long maxDbfSize = ShapefileFeatureWriter.DEFAULT_MAX_DBF_SIZE;
 
+    int readThreads = 1;
+
+    /** Runs the record range scans of parallel visits, with up to readThreads threads */
+    ExecutorService splitExecutor;
+
     public ShapefileDataStore(URL url) {
         shpFiles = new ShpFiles(url);
         if (TRACE_ENABLED) {
@@ -196,6 +207,74 @@ public class ShapefileDataStore extends ContentDataStore implements FileDataStor
         this.indexed = indexed;
     }
 
+    public int getReadThreads() {
+        return readThreads;
+    }
+
+    /**
+     * Sets the number of threads used to scan the shapefile when computing aggregates (count,
+     * bounds, min, max, sum) that cannot be answered using the indexes. The records are split in
+     * contiguous ranges using the .shx file, each one read on a thread of a pool owned by this
+     * store, which never grows past this number of threads and is shut down on dispose. A value of
+     * 1 (the default) disables parallel reads.
+     *
+     * @param readThreads
+     */
+    public synchronized void setReadThreads(int readThreads) {
+        if (readThreads < 1) {
+            throw new IllegalArgumentException("The number of read threads must be positive");
+        }
+        if (readThreads != this.readThreads && splitExecutor != null) {
+            // the running scans complete on the old threads
+            splitExecutor.shutdown();
+            splitExecutor = null;
+        }
+        this.readThreads = readThreads;
+    }
+
+    /**
+     * Returns the executor running the record range scans, shared by the parallel reads of this
+     * store and bounded to {@link #getReadThreads()} threads
+     */
+    synchronized ExecutorService getSplitExecutor() {
+        if (splitExecutor == null) {
+            ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            readThreads,
+                            readThreads,
+                            60,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            r -> {
+                                Thread thread = new Thread(r, "shapefile-split-reader");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            executor.allowCoreThreadTimeOut(true);
+            splitExecutor = executor;
+        }
+        return splitExecutor;
+    }
+
+    /**
+     * Returns a parallel stream of features matching the query. The shapefile records are split in
+     * contiguous ranges using the .shx offsets, each range being read by its own reader. If the
+     * query cannot be split (e.g., it requires sorting, paging, reprojection, or it's better
+     * served by the spatial or fid indexes), a sequential stream is returned instead.
+     *
+     * <p>The stream must be closed in order to release the underlying files, use it in a
+     * try-with-resources block.
+     *
+     * @param query
+     * @return
+     * @throws IOException
+     */
+    public Stream<SimpleFeature> getParallelFeatureStream(Query query) throws IOException {
+        ShapefileFeatureSource source =
+                new ShapefileFeatureSource(ensureEntry(getTypeName()), shpFiles);
+        return source.getParallelStream(query);
+    }
+
     /**
      * The current max shapefile size
      *
@@ -447,6 +526,12 @@ public class ShapefileDataStore extends ContentDataStore implements FileDataStor
     @Override
     public void dispose() {
         super.dispose();
+        synchronized (this) {
+            if (splitExecutor != null) {
+                splitExecutor.shutdown();
+                splitExecutor = null;
+            }
+        }
         if (shpFiles != null) {
             shpFiles.dispose();
             shpFiles = null;
@@ -541,6 +626,62 @@ public class ShapefileDataStore extends ContentDataStore implements FileDataStor
         this.indexCreationEnabled = indexCreationEnabled;
     }
 
+    /**
+     * Builds (or rebuilds) the packed R-tree spatial index of this shapefile. Once available, the
+     * packed R-tree is used in place of the quadtree for bbox queries. Modifying the shapefile
+     * marks it out of date, and the next bbox query rebuilds it if index creation is enabled
+     *
+     * @return true if the index has been created
+     */
+    public boolean createPackedSpatialIndex() {
+        return indexManager.createPackedSpatialIndex(true);
+    }
+
+    /**
+     * Builds (or rebuilds) the attribute index of this shapefile on the specified dbf columns,
+     * replacing the existing one, if any. Equality and range filters on the indexed columns are
+     * then answered by index lookups instead of full scans. Modifying the shapefile marks the index
+     * out of date, and the next lookup rebuilds it if index creation is enabled. Only character and
+     * numeric columns can be indexed.
+     *
+     * @param attributes The names of the columns to be indexed
+     * @throws IOException If the index cannot be built
+     */
+    public void createAttributeIndex(String... attributes) throws IOException {
+        indexManager.createAttributeIndex(Arrays.asList(attributes));
+    }
+
+    /**
+     * Computes the statistics of this shapefile and stores them in a .stx file, replacing the
+     * existing one, if any. Counts, bounds, min, max and unique values (for columns having few
+     * distinct values) over the whole shapefile are then answered from the statistics without
+     * reading the data. Appends update the statistics, other modifications mark them out of date,
+     * and they are computed again by the next aggregate they can answer if index creation is
+     * enabled.
+     *
+     * @throws IOException If the statistics cannot be computed
+     */
+    public void createStatistics() throws IOException {
+        indexManager.createStatistics();
+    }
+
+    /**
+     * Rewrites the shapefile so that records close in space are close in the .shp and .dbf files
+     * as well, sorting them along a Hilbert curve, and then rebuilds the indexes. Once optimized,
+     * bbox queries read a few contiguous portions of the files instead of seeking all over them.
+     * Shapefiles of any size can be optimized, the sort spills to disk when needed.
+     *
+     * <p>As the records are moved around, the feature ids are reassigned following the new order.
+     *
+     * @param typeName The shapefile type name
+     * @throws IOException If the shapefile cannot be rewritten
+     */
+    public void optimize(String typeName) throws IOException {
+        ensureEntry(new NameImpl(null, typeName));
+        new ShapefileOptimizer(shpFiles, getCharset()).optimize();
+        indexManager.rebuildIndexes();
+    }
+
     @Override
     public void removeSchema(String typeName) throws IOException {
         removeSchema(new NameImpl(null, typeName));
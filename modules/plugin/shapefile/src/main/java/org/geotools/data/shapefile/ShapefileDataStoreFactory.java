@@ -167,6 +167,16 @@ public class ShapefileDataStoreFactory implements FileDataStoreFactorySpi {
                     true,
                     new KVP(Param.LEVEL, "advanced"));
 
+    /** Optional - number of threads used to compute aggregates over a single file */
+    public static final Param READ_THREADS =
+            new Param(
+                    "read threads",
+                    Integer.class,
+                    "threads used to compute aggregates, 1 disables parallel scans",
+                    false,
+                    1,
+                    new KVP(Param.LEVEL, "advanced"));
+
     public String getDisplayName() {
         return "Shapefile";
     }
@@ -185,6 +195,7 @@ public class ShapefileDataStoreFactory implements FileDataStoreFactorySpi {
             DBFTIMEZONE,
             MEMORY_MAPPED,
             CACHE_MEMORY_MAPS,
+            READ_THREADS,
             FILE_TYPE,
             FSTYPE
         };
@@ -206,6 +217,7 @@ public class ShapefileDataStoreFactory implements FileDataStoreFactorySpi {
         Charset dbfCharset = lookup(DBFCHARSET, params, Charset.class);
         TimeZone dbfTimeZone = lookup(DBFTIMEZONE, params, TimeZone.class);
         Boolean isCreateSpatialIndex = lookup(CREATE_SPATIAL_INDEX, params, Boolean.class);
+        Integer readThreads = lookup(READ_THREADS, params, Integer.class);
         Boolean isEnableSpatialIndex = (Boolean) ENABLE_SPATIAL_INDEX.lookUp(params);
         if (isEnableSpatialIndex == null) {
             // should not be needed as default is TRUE
@@ -236,6 +248,7 @@ public class ShapefileDataStoreFactory implements FileDataStoreFactorySpi {
             store.setTimeZone(dbfTimeZone);
             store.setIndexed(enableIndex);
             store.setIndexCreationEnabled(createIndex);
+            store.setReadThreads(Math.max(1, readThreads));
             return store;
         }
     }
@@ -136,6 +136,29 @@ class ShapefileFeatureReader implements FeatureReader<SimpleFeatureType, SimpleF
                     }
                 }
             }
+            setDbfProjection();
+        }
+    }
+
+    /** Skips the dbf columns that are not part of the schema when reading records */
+    private void setDbfProjection() {
+        int numFields = dbf.getHeader().getNumFields();
+        boolean[] used = new boolean[numFields];
+        int count = 0;
+        for (int index : dbfindexes) {
+            if (index >= 0 && !used[index]) {
+                used[index] = true;
+                count++;
+            }
+        }
+        if (count < numFields) {
+            int[] columns = new int[count];
+            for (int i = 0, j = 0; i < numFields; i++) {
+                if (used[i]) {
+                    columns[j++] = i;
+                }
+            }
+            dbf.setProjection(columns);
         }
     }
 
@@ -216,21 +239,21 @@ class ShapefileFeatureReader implements FeatureReader<SimpleFeatureType, SimpleF
      */
     protected Geometry getGeometry(Record record) {
         // read the geometry, so that we can decide if this row is to be skipped or not
-        Envelope envelope = record.envelope();
         Geometry geometry = null;
         if (schema.getGeometryDescriptor() != null) {
-            // ... if geometry is out of the target bbox, skip both geom and row
-            if (targetBBox != null && !targetBBox.isNull() && !targetBBox.intersects(envelope)) {
+            // ... if geometry is out of the target bbox, skip both geom and row, without
+            // reading anything but the record header
+            if (targetBBox != null && !targetBBox.isNull() && !intersectsTargetBBox(record)) {
                 geometry = SKIP;
                 // ... if the geometry is awfully small avoid reading it (unless it's a point)
             } else if (simplificationDistance > 0
-                    && envelope.getWidth() < simplificationDistance
-                    && envelope.getHeight() < simplificationDistance) {
+                    && record.maxX - record.minX < simplificationDistance
+                    && record.maxY - record.minY < simplificationDistance) {
                 try {
                     // if we have the screenmap, we either have no filter, and we
                     // can directly alter the screenmap, or we have a filter, in that
                     // case we just check if the screenmap is already busy
-                    if (screenMap != null && screenMap.get(envelope)) {
+                    if (screenMap != null && screenMap.get(record.envelope())) {
                         geometry = SKIP;
                     } else {
                         // if we are using the screenmap better provide a slightly modified
@@ -249,6 +272,14 @@ class ShapefileFeatureReader implements FeatureReader<SimpleFeatureType, SimpleF
         return geometry;
     }
 
+    /** Checks the record bounds against the target bbox, without allocating an envelope */
+    private boolean intersectsTargetBBox(Record record) {
+        return record.minX <= targetBBox.getMaxX()
+                && record.maxX >= targetBBox.getMinX()
+                && record.minY <= targetBBox.getMaxY()
+                && record.maxY >= targetBBox.getMinY();
+    }
+
     SimpleFeature buildFeature(int number, Geometry geometry, Row row, Envelope envelope)
             throws IOException {
         if (dbfindexes != null) {
@@ -371,6 +402,15 @@ class ShapefileFeatureReader implements FeatureReader<SimpleFeatureType, SimpleF
         return shp.getHeader().getShapeType();
     }
 
+    /**
+     * Makes the reader return the same feature on each call to next(), overwriting its values
+     *
+     * @param reuse
+     */
+    public void setFeatureReuse(boolean reuse) {
+        builder.setFeatureReuse(reuse);
+    }
+
     public Filter getFilter() {
         return filter;
     }
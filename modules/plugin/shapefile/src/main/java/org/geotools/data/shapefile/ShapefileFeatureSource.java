@@ -28,8 +28,12 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import org.geotools.data.CloseableIterator;
 import org.geotools.data.DataSourceException;
 import org.geotools.data.EmptyFeatureReader;
@@ -38,6 +42,7 @@ import org.geotools.data.FeatureSource;
 import org.geotools.data.PrjFileReader;
 import org.geotools.data.Query;
 import org.geotools.data.ReTypeFeatureReader;
+import org.geotools.data.Transaction;
 import org.geotools.data.shapefile.dbf.DbaseFileHeader;
 import org.geotools.data.shapefile.dbf.DbaseFileReader;
 import org.geotools.data.shapefile.fid.IndexedFidReader;
@@ -51,11 +56,14 @@ import org.geotools.data.shapefile.shp.ShapefileHeader;
 import org.geotools.data.shapefile.shp.ShapefileReader;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.data.util.FeatureStreams;
 import org.geotools.data.util.ScreenMap;
 import org.geotools.feature.AttributeTypeBuilder;
 import org.geotools.feature.FeatureTypes;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.feature.type.BasicFeatureTypes;
+import org.geotools.feature.visitor.ParallelFeatureVisitor;
 import org.geotools.filter.FilterAttributeExtractor;
 import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.geotools.geometry.jts.ReferencedEnvelope;
@@ -186,6 +194,15 @@ class ShapefileFeatureSource extends ContentFeatureSource {
 
     static final Logger LOGGER = Logging.getLogger(ShapefileFeatureSource.class);
 
+    /** Minimum number of records in a split, smaller ranges are not worth a separate thread */
+    static final int MIN_SPLIT_RECORDS = 4096;
+
+    /**
+     * Below this number of attribute index matches the records are read directly, without
+     * intersecting them with the spatial index matches
+     */
+    static final int MIN_INTERSECTED_RECORDS = 1024;
+
     ShpFiles shpFiles;
 
     public ShapefileFeatureSource(ContentEntry entry, ShpFiles shpFiles) {
@@ -193,6 +210,7 @@ class ShapefileFeatureSource extends ContentFeatureSource {
         this.shpFiles = shpFiles;
         HashSet<Key> hints = new HashSet<Hints.Key>();
         hints.add(Hints.FEATURE_DETACHED);
+        hints.add(Hints.FEATURE_REUSE);
         hints.add(Hints.JTS_GEOMETRY_FACTORY);
         hints.add(Hints.JTS_COORDINATE_SEQUENCE_FACTORY);
         hints.add(Hints.GEOMETRY_DISTANCE);
@@ -308,17 +326,9 @@ class ShapefileFeatureSource extends ContentFeatureSource {
     protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Query q)
             throws IOException {
         SimpleFeatureType resultSchema = getResultSchema(q);
-        SimpleFeatureType readSchema = getReadSchema(q);
-        GeometryFactory geometryFactory = getGeometryFactory(q);
 
         // grab the target bbox, if any
-        Envelope bbox = new ReferencedEnvelope();
-        if (q.getFilter() != null) {
-            bbox = (Envelope) q.getFilter().accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, bbox);
-            if (bbox == null) {
-                bbox = new ReferencedEnvelope();
-            }
-        }
+        Envelope bbox = getTargetBBox(q);
 
         // see if we can use indexing to speedup the data access
         Filter filter = q != null ? q.getFilter() : null;
@@ -332,17 +342,30 @@ class ShapefileFeatureSource extends ContentFeatureSource {
             if (records != null) {
                 goodRecs = new CloseableIteratorWrapper<Data>(records.iterator());
             }
-        } else if (getDataStore().isIndexed()
-                && !bbox.isNull()
-                && !Double.isInfinite(bbox.getWidth())
-                && !Double.isInfinite(bbox.getHeight())) {
-            try {
-                if (indexManager.isSpatialIndexAvailable()
-                        || getDataStore().isIndexCreationEnabled()) {
-                    goodRecs = indexManager.querySpatialIndex(bbox);
+        } else if (getDataStore().isIndexed()) {
+            List<Data> attributeRecs = null;
+            if (filter != null && indexManager.hasAttributeIndex()) {
+                attributeRecs = indexManager.queryAttributeIndex(filter);
+            }
+            // a handful of attribute matches is cheaper to read directly than to intersect
+            // with the (possibly many) spatial index matches
+            if (isFinite(bbox)
+                    && (attributeRecs == null || attributeRecs.size() > MIN_INTERSECTED_RECORDS)) {
+                try {
+                    if (indexManager.isSpatialIndexAvailable()
+                            || getDataStore().isIndexCreationEnabled()) {
+                        goodRecs = indexManager.querySpatialIndex(bbox);
+                    }
+                } catch (TreeException e) {
+                    throw new IOException("Error querying index: " + e.getMessage());
+                }
+            }
+            if (attributeRecs != null) {
+                if (goodRecs == null) {
+                    goodRecs = new CloseableIteratorWrapper<Data>(attributeRecs.iterator());
+                } else {
+                    goodRecs = new RecordFilterIterator(goodRecs, attributeRecs);
                 }
-            } catch (TreeException e) {
-                throw new IOException("Error querying index: " + e.getMessage());
             }
         }
         // do we have anything to read at all? If not don't bother opening all the files
@@ -364,6 +387,37 @@ class ShapefileFeatureSource extends ContentFeatureSource {
             fidReader = new IndexedFidReader(shpFiles);
         }
 
+        return getReader(q, bbox, goodRecs, fidReader);
+    }
+
+    /**
+     * Returns a reader for the records between start (included) and end (excluded), zero based.
+     * The query filter is applied, but the indexes are not used, the record range is scanned
+     * instead
+     */
+    FeatureReader<SimpleFeatureType, SimpleFeature> getRangeReader(Query q, int start, int end)
+            throws IOException {
+        q = resolvePropertyNames(joinQuery(q));
+        IndexFile shx = getDataStore().shpManager.openIndexFile();
+        if (shx == null) {
+            throw new IOException("Cannot read a record range without the .shx file");
+        }
+        RecordRangeIterator range = new RecordRangeIterator(shx, start, end);
+        if (!range.hasNext()) {
+            range.close();
+            return new EmptyFeatureReader<SimpleFeatureType, SimpleFeature>(getResultSchema(q));
+        }
+        return getReader(q, getTargetBBox(q), range, null);
+    }
+
+    private FeatureReader<SimpleFeatureType, SimpleFeature> getReader(
+            Query q, Envelope bbox, CloseableIterator<Data> goodRecs, IndexedFidReader fidReader)
+            throws IOException {
+        SimpleFeatureType resultSchema = getResultSchema(q);
+        SimpleFeatureType readSchema = getReadSchema(q);
+        GeometryFactory geometryFactory = getGeometryFactory(q);
+        Filter filter = q != null ? q.getFilter() : null;
+
         // setup the feature readers
         ShapefileSetManager shpManager = getDataStore().shpManager;
         ShapefileReader shapeReader = shpManager.openShapeReader(geometryFactory, goodRecs != null);
@@ -404,6 +458,9 @@ class ShapefileFeatureSource extends ContentFeatureSource {
                 if (Boolean.TRUE.equals(hints.get(Hints.FEATURE_2D))) {
                     shapeReader.setFlatGeometry(true);
                 }
+                if (Boolean.TRUE.equals(hints.get(Hints.FEATURE_REUSE))) {
+                    reader.setFeatureReuse(true);
+                }
             }
         }
 
@@ -415,6 +472,114 @@ class ShapefileFeatureSource extends ContentFeatureSource {
         }
     }
 
+    /** Extracts the bounding box of the query filter, returns a null envelope if there is none */
+    Envelope getTargetBBox(Query q) {
+        Envelope bbox = new ReferencedEnvelope();
+        if (q.getFilter() != null) {
+            bbox = (Envelope) q.getFilter().accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, bbox);
+            if (bbox == null) {
+                bbox = new ReferencedEnvelope();
+            }
+        }
+        return bbox;
+    }
+
+    private boolean isFinite(Envelope bbox) {
+        return !bbox.isNull()
+                && !Double.isInfinite(bbox.getWidth())
+                && !Double.isInfinite(bbox.getHeight());
+    }
+
+    /**
+     * Returns true if the query can be answered by reading record ranges in parallel: the files
+     * must be local, the query must not be a candidate for index usage, and must not require
+     * sorting, paging, reprojection or transaction support
+     */
+    boolean canReadInSplits(Query q) {
+        if (!shpFiles.isLocal()
+                || (transaction != null && transaction != Transaction.AUTO_COMMIT)
+                || (q.getSortBy() != null && q.getSortBy().length > 0)
+                || q.getMaxFeatures() != Query.DEFAULT_MAX
+                || q.getStartIndex() != null
+                || q.getCoordinateSystem() != null
+                || q.getCoordinateSystemReproject() != null
+                || !q.getJoins().isEmpty()
+                || (q.getHints() != null && q.getHints().get(Hints.SCREENMAP) != null)) {
+            // screenmaps are not thread safe
+            return false;
+        }
+
+        // the indexes are faster than a full scan, no matter how many threads are used
+        Filter filter = q.getFilter();
+        ShapefileDataStore ds = getDataStore();
+        if (filter instanceof Id && ds.isFidIndexed() && ds.indexManager.hasFidIndex(false)) {
+            return false;
+        }
+        if (ds.isIndexed()
+                && isFinite(getTargetBBox(q))
+                && (ds.indexManager.isSpatialIndexAvailable() || ds.isIndexCreationEnabled())) {
+            return false;
+        }
+        if (ds.isIndexed()
+                && ds.indexManager.hasAttributeIndex()
+                && ds.indexManager.isAttributeIndexApplicable(filter)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Splits the file records in at most the given number of ranges, returning the range
+     * boundaries, or null if the file is too small to be split, or the .shx is not available
+     */
+    int[] getSplitBoundaries(int splits) throws IOException {
+        IndexFile shx = getDataStore().shpManager.openIndexFile();
+        if (shx == null) {
+            return null;
+        }
+        int records;
+        try {
+            records = shx.getRecordCount();
+        } finally {
+            shx.close();
+        }
+
+        splits = Math.min(splits, records / MIN_SPLIT_RECORDS);
+        if (splits < 2) {
+            return null;
+        }
+        int[] boundaries = new int[splits + 1];
+        for (int i = 0; i < splits; i++) {
+            boundaries[i] = (int) ((long) records * i / splits);
+        }
+        boundaries[splits] = records;
+        return boundaries;
+    }
+
+    @Override
+    protected FeatureSpliterator<SimpleFeature> getSpliteratorInternal(Query query)
+            throws IOException {
+        int[] boundaries =
+                canReadInSplits(query) ? getSplitBoundaries(Integer.MAX_VALUE) : null;
+        if (boundaries == null) {
+            return null;
+        }
+        return new ShapefileFeatureSpliterator(this, query, 0, boundaries[boundaries.length - 1]);
+    }
+
+    /**
+     * Returns a stream of features, which reads the shapefile in parallel when the query allows
+     * it, or sequentially otherwise. The stream must be closed to release the files.
+     */
+    Stream<SimpleFeature> getParallelStream(Query q) throws IOException {
+        FeatureSpliterator<SimpleFeature> spliterator = getSpliteratorInternal(q);
+        if (spliterator == null) {
+            return FeatureStreams.toFeatureStream(getFeatures(q));
+        }
+        return FeatureStreams.toFeatureStream(spliterator, true);
+    }
+
     SimpleFeatureType getResultSchema(Query q) {
         if (q.getPropertyNames() == null) {
             return getSchema();
@@ -600,6 +765,103 @@ class ShapefileFeatureSource extends ContentFeatureSource {
 
     @Override
     protected boolean handleVisitor(Query query, FeatureVisitor visitor) throws IOException {
+        if (visitStatistics(query, visitor)) {
+            return true;
+        }
+        int threads = getDataStore().getReadThreads();
+        if (threads > 1 && visitor instanceof ParallelFeatureVisitor && canReadInSplits(query)) {
+            ParallelFeatureVisitor parallel = (ParallelFeatureVisitor) visitor;
+            ParallelFeatureVisitor probe = parallel.createPartial();
+            int[] boundaries =
+                    probe != null && probe.getClass() == visitor.getClass()
+                            ? getSplitBoundaries(threads)
+                            : null;
+            if (boundaries != null) {
+                visitInSplits(query, parallel, boundaries);
+                return true;
+            }
+        }
         return super.handleVisitor(query, visitor);
     }
+
+    /** Parallel visits are run on the split reader threads, as configured in the store */
+    @Override
+    protected boolean canVisitInParallel(Query query) {
+        return false;
+    }
+
+    /**
+     * Answers aggregates over the whole shapefile out of its statistics, if available and up to
+     * date. Out of date statistics are computed again first, if index creation is enabled. The
+     * statistics are in the native coordinate reference system, queries forcing or reprojecting to
+     * another one are scanned instead.
+     *
+     * @return true if the visitor has been handled
+     */
+    boolean visitStatistics(Query query, FeatureVisitor visitor) {
+        if (!ShapefileStatistics.canVisit(visitor)
+                || !Filter.INCLUDE.equals(query.getFilter())
+                || (transaction != null && transaction != Transaction.AUTO_COMMIT)
+                || query.getMaxFeatures() != Query.DEFAULT_MAX
+                || query.getStartIndex() != null
+                || query.getCoordinateSystem() != null
+                || query.getCoordinateSystemReproject() != null) {
+            return false;
+        }
+        IndexManager indexes = getDataStore().indexManager;
+        if (getDataStore().isIndexCreationEnabled()) {
+            indexes.refreshStatistics();
+        }
+        ShapefileStatistics statistics = indexes.openStatistics();
+        return statistics != null && statistics.visit(visitor);
+    }
+
+    /**
+     * Visits each record range on its own thread with a partial copy of the visitor, and then
+     * combines the partial results into the visitor
+     */
+    void visitInSplits(Query query, ParallelFeatureVisitor visitor, int[] boundaries)
+            throws IOException {
+        ExecutorService executor = getDataStore().getSplitExecutor();
+        List<Future<ParallelFeatureVisitor>> futures = new ArrayList<>();
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            final int start = boundaries[i];
+            final int end = boundaries[i + 1];
+            final ParallelFeatureVisitor partial = visitor.createPartial();
+            futures.add(
+                    executor.submit(
+                            () -> {
+                                try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                                        getRangeReader(query, start, end)) {
+                                    while (reader.hasNext()) {
+                                        partial.visit(reader.next());
+                                    }
+                                }
+                                return partial;
+                            }));
+        }
+
+        List<ParallelFeatureVisitor> partials = new ArrayList<>();
+        try {
+            for (Future<ParallelFeatureVisitor> future : futures) {
+                partials.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while visiting the shapefile in parallel", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to visit the shapefile in parallel", cause);
+        } finally {
+            for (Future<ParallelFeatureVisitor> future : futures) {
+                future.cancel(true);
+            }
+        }
+        for (ParallelFeatureVisitor partial : partials) {
+            visitor.combine(partial);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.IOException;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.store.RangeFeatureSpliterator;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A {@link RangeFeatureSpliterator} reading a range of shapefile records, that can be split in two
+ * halves until the ranges reach {@link ShapefileFeatureSource#MIN_SPLIT_RECORDS}. The size
+ * estimate is the number of records, deleted records and filtering can only make the actual
+ * result smaller.
+ */
+class ShapefileFeatureSpliterator extends RangeFeatureSpliterator {
+
+    ShapefileFeatureSource source;
+
+    Query query;
+
+    public ShapefileFeatureSpliterator(
+            ShapefileFeatureSource source, Query query, int start, int end) {
+        super(start, end, ShapefileFeatureSource.MIN_SPLIT_RECORDS, ORDERED | NONNULL);
+        this.source = source;
+        this.query = query;
+    }
+
+    ShapefileFeatureSpliterator(ShapefileFeatureSpliterator parent, int start, int end) {
+        super(parent, start, end);
+        this.source = parent.source;
+        this.query = parent.query;
+    }
+
+    @Override
+    protected FeatureReader<SimpleFeatureType, SimpleFeature> openReader(int start, int end)
+            throws IOException {
+        return source.getRangeReader(query, start, end);
+    }
+
+    @Override
+    protected RangeFeatureSpliterator createSplit(int start, int end) {
+        return new ShapefileFeatureSpliterator(this, start, end);
+    }
+}
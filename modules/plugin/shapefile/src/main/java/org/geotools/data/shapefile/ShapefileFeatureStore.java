@@ -60,30 +60,48 @@ class ShapefileFeatureStore extends ContentFeatureStore {
             throw new IllegalArgumentException("no write flags set");
         }
 
-        ShapefileFeatureReader reader =
-                (ShapefileFeatureReader) delegate.getReaderInternal(Query.ALL);
-        ShapefileFeatureWriter writer;
         ShapefileDataStore ds = getDataStore();
-        if (ds.indexManager.hasFidIndex(false)
-                || ds.isFidIndexed() && ds.indexManager.hasFidIndex(true)) {
-            writer =
-                    new IndexedShapefileFeatureWriter(
-                            ds.indexManager, reader, ds.getCharset(), ds.getTimeZone());
+        boolean fidIndexed =
+                ds.indexManager.hasFidIndex(false)
+                        || ds.isFidIndexed() && ds.indexManager.hasFidIndex(true);
+
+        // if we only have to add, write the new records in place after the existing ones
+        boolean addOnly = (flags | WRITER_ADD) == WRITER_ADD;
+        FeatureWriter<SimpleFeatureType, SimpleFeature> writer;
+        if (addOnly && ShapefileAppendWriter.canAppend(delegate.shpFiles)) {
+            ShapefileAppendWriter appender =
+                    new ShapefileAppendWriter(
+                            ds.indexManager,
+                            getSchema(),
+                            fidIndexed,
+                            ds.getCharset(),
+                            ds.getTimeZone());
+            appender.setMaxShpSize(ds.getMaxShpSize());
+            appender.setMaxDbfSize(ds.getMaxDbfSize());
+            writer = appender;
         } else {
-            writer =
-                    new ShapefileFeatureWriter(
-                            delegate.shpFiles, reader, ds.getCharset(), ds.getTimeZone());
-        }
-        writer.setMaxShpSize(getDataStore().getMaxShpSize());
-        writer.setMaxDbfSize(getDataStore().getMaxDbfSize());
-
-        // if we only have to add move to the end.
-        // TODO: just make the code transfer the bytes in bulk instead and start actual writing at
-        // the end
-        if ((flags | WRITER_ADD) == WRITER_ADD) {
-            while (writer.hasNext()) {
-                writer.next();
+            ShapefileFeatureReader reader =
+                    (ShapefileFeatureReader) delegate.getReaderInternal(Query.ALL);
+            ShapefileFeatureWriter rewriter;
+            if (fidIndexed) {
+                rewriter =
+                        new IndexedShapefileFeatureWriter(
+                                ds.indexManager, reader, ds.getCharset(), ds.getTimeZone());
+            } else {
+                rewriter =
+                        new ShapefileFeatureWriter(
+                                delegate.shpFiles, reader, ds.getCharset(), ds.getTimeZone());
+            }
+            rewriter.setMaxShpSize(ds.getMaxShpSize());
+            rewriter.setMaxDbfSize(ds.getMaxDbfSize());
+
+            // if we only have to add move to the end
+            if (addOnly) {
+                while (rewriter.hasNext()) {
+                    rewriter.next();
+                }
             }
+            writer = rewriter;
         }
 
         // if we are filtering wrap the writer so that it returns only the selected features
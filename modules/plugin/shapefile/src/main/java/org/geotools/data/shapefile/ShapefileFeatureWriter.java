@@ -19,6 +19,7 @@ package org.geotools.data.shapefile;
 import static org.geotools.data.shapefile.files.ShpFileType.DBF;
 import static org.geotools.data.shapefile.files.ShpFileType.SHP;
 import static org.geotools.data.shapefile.files.ShpFileType.SHX;
+import static org.geotools.data.shapefile.files.ShpFileType.STX;
 
 import java.io.IOException;
 import java.nio.channels.FileChannel;
@@ -30,6 +31,7 @@ import org.geotools.data.DataUtilities;
 import org.geotools.data.FeatureWriter;
 import org.geotools.data.shapefile.dbf.DbaseFileHeader;
 import org.geotools.data.shapefile.dbf.DbaseFileWriter;
+import org.geotools.data.shapefile.files.FileWriter;
 import org.geotools.data.shapefile.files.ShpFileType;
 import org.geotools.data.shapefile.files.ShpFiles;
 import org.geotools.data.shapefile.files.StorageFile;
@@ -120,6 +122,14 @@ class ShapefileFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleF
 
     private long maxDbfSize = DEFAULT_MAX_DBF_SIZE;
 
+    /** Locks the statistics sidecar while marking it out of date */
+    private static final FileWriter STATISTICS_WRITER =
+            new FileWriter() {
+                public String id() {
+                    return "Shapefile statistics invalidation";
+                }
+            };
+
     public ShapefileFeatureWriter(
             ShpFiles shpFiles,
             ShapefileFeatureReader featureReader,
@@ -276,8 +286,13 @@ class ShapefileFeatureWriter implements FeatureWriter<SimpleFeatureType, SimpleF
                 }
             }
         } finally {
-            doClose();
-            clean();
+            try {
+                doClose();
+                clean();
+            } finally {
+                // cheaper to compute them again when needed than to decode all the records above
+                IndexManager.markIndexStale(shpFiles, STX, STATISTICS_WRITER);
+            }
         }
     }
 
@@ -0,0 +1,420 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.geotools.data.shapefile.files.ShpFileType.DBF;
+import static org.geotools.data.shapefile.files.ShpFileType.SHP;
+import static org.geotools.data.shapefile.files.ShpFileType.SHX;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.shapefile.dbf.DbaseFileHeader;
+import org.geotools.data.shapefile.files.FileReader;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.files.StorageFile;
+import org.geotools.data.shapefile.index.HilbertCurve;
+import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.shapefile.shp.ShapeType;
+import org.geotools.data.shapefile.shp.ShapefileHeader;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.data.shapefile.shp.ShapefileReader.Record;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Rewrites the .shp, .shx and .dbf files of a shapefile so that the records are sorted along a
+ * Hilbert curve, based on the center of their bounds. Records close in space end up close in the
+ * files as well, so that bbox queries driven by a spatial index read a few contiguous portions of
+ * the files instead of seeking all over them.
+ *
+ * <p>The sort keys are sorted in memory in chunks, chunks that do not fit in memory are spilled to
+ * disk and merged back, allowing to optimize shapefiles of any size. The records are copied byte
+ * by byte, only the record numbers in the .shp file are updated.
+ */
+class ShapefileOptimizer implements FileReader {
+
+    static final Logger LOGGER = Logging.getLogger(ShapefileOptimizer.class);
+
+    /** The number of sort keys sorted in memory at once (8MB worth of keys) */
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** The size of the .shp and .shx headers */
+    static final int HEADER_SIZE = 100;
+
+    /** The size of the .shp record headers, and of the .shx records */
+    static final int RECORD_HEADER_SIZE = 8;
+
+    ShpFiles shpFiles;
+
+    Charset charset;
+
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    ShapefileOptimizer(ShpFiles shpFiles, Charset charset) {
+        this.shpFiles = shpFiles;
+        this.charset = charset;
+    }
+
+    /**
+     * Sorts the shapefile records and replaces the original files with the sorted ones
+     *
+     * @return The number of records sorted
+     */
+    int optimize() throws IOException {
+        if (!shpFiles.isLocal()) {
+            throw new IOException("Only local shapefiles can be optimized");
+        }
+        List<File> runs = new ArrayList<>();
+        StorageFile shpStorage = shpFiles.getStorageFile(SHP);
+        StorageFile shxStorage = shpFiles.getStorageFile(SHX);
+        StorageFile dbfStorage = shpFiles.getStorageFile(DBF);
+        int count;
+        try {
+            KeyIterator keys = sortKeys(runs);
+            count = rewrite(keys, shpStorage, shxStorage, dbfStorage);
+        } finally {
+            for (File run : runs) {
+                if (!run.delete()) {
+                    LOGGER.log(Level.FINE, "Could not delete sort file " + run);
+                }
+            }
+        }
+        StorageFile.replaceOriginals(shpStorage, shxStorage, dbfStorage);
+        return count;
+    }
+
+    /**
+     * Computes the sort keys of all the records, each key being the Hilbert position of the record
+     * in the high 32 bits, and the record number in the low ones. Null shapes go last.
+     */
+    KeyIterator sortKeys(List<File> runs) throws IOException {
+        long[] chunk = new long[chunkSize];
+        int size = 0;
+        ShapefileReader reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
+        try {
+            ShapefileHeader header = reader.getHeader();
+            HilbertCurve curve =
+                    new HilbertCurve(
+                            new Envelope(
+                                    header.minX(), header.maxX(), header.minY(), header.maxY()));
+            int recno = 0;
+            while (reader.hasNext()) {
+                Record record = reader.nextRecord();
+                long position;
+                if (record.type == ShapeType.NULL) {
+                    position = 0xFFFFFFFFL;
+                } else {
+                    position =
+                            curve.position(record.minX, record.minY, record.maxX, record.maxY);
+                }
+                if (size == chunk.length) {
+                    runs.add(writeRun(chunk, size));
+                    size = 0;
+                }
+                // flipping the sign bit makes the signed sort order match the unsigned one
+                chunk[size++] = ((position << 32) | recno) ^ Long.MIN_VALUE;
+                recno++;
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (runs.isEmpty()) {
+            Arrays.sort(chunk, 0, size);
+            return new ChunkIterator(chunk, size);
+        } else {
+            if (size > 0) {
+                runs.add(writeRun(chunk, size));
+            }
+            return new MergeIterator(runs);
+        }
+    }
+
+    /** Sorts the chunk and writes it down in a temporary file */
+    File writeRun(long[] chunk, int size) throws IOException {
+        Arrays.sort(chunk, 0, size);
+        File file = File.createTempFile("shapefile-optimize", ".run");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(chunk[i]);
+            }
+        }
+        return file;
+    }
+
+    /** Copies the records in the order provided by the keys */
+    int rewrite(
+            KeyIterator keys,
+            StorageFile shpStorage,
+            StorageFile shxStorage,
+            StorageFile dbfStorage)
+            throws IOException {
+        IndexFile shx = null;
+        FileChannel shpIn = null;
+        FileChannel dbfIn = null;
+        try (FileChannel shpOut = shpStorage.getWriteChannel();
+                DataOutputStream shxOut = newOutputStream(shxStorage.getWriteChannel());
+                OutputStream dbfOut = newOutputStream(dbfStorage.getWriteChannel())) {
+            keys.open();
+            shx = new IndexFile(shpFiles, false);
+            shpIn = (FileChannel) shpFiles.getReadChannel(SHP, this);
+            dbfIn = (FileChannel) shpFiles.getReadChannel(DBF, this);
+            int count = shx.getRecordCount();
+            DbaseFileHeader dbfHeader = new DbaseFileHeader();
+            dbfHeader.readHeader(dbfIn, charset);
+            if (dbfHeader.getNumRecords() != count) {
+                throw new IOException(
+                        "The .dbf file has "
+                                + dbfHeader.getNumRecords()
+                                + " records, while the .shp has "
+                                + count);
+            }
+            int dbfHeaderLength = dbfHeader.getHeaderLength();
+            int dbfRecordLength = dbfHeader.getRecordLength();
+
+            // shp header, the shx one differs only in the file length
+            ByteBuffer header = read(shpIn, 0, HEADER_SIZE, null);
+            write(shpOut, header);
+            header.putInt(24, (HEADER_SIZE + RECORD_HEADER_SIZE * count) / 2);
+            shxOut.write(header.array(), 0, HEADER_SIZE);
+            // dbf header, and then all the records
+            ByteBuffer buffer = read(dbfIn, 0, dbfHeaderLength, null);
+            dbfOut.write(buffer.array(), 0, dbfHeaderLength);
+
+            int offset = HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                if (!keys.hasNext()) {
+                    throw new IOException("Ran out of sort keys at record " + i);
+                }
+                int recno = (int) keys.next();
+                int contentLength = shx.getContentLength(recno);
+                int length = RECORD_HEADER_SIZE + contentLength * 2;
+                buffer = read(shpIn, shx.getOffsetInBytes(recno), length, buffer);
+                buffer.putInt(0, i + 1);
+                write(shpOut, buffer);
+                shxOut.writeInt(offset / 2);
+                shxOut.writeInt(contentLength);
+                offset += length;
+
+                long dbfOffset = dbfHeaderLength + (long) recno * dbfRecordLength;
+                buffer = read(dbfIn, dbfOffset, dbfRecordLength, buffer);
+                dbfOut.write(buffer.array(), 0, dbfRecordLength);
+            }
+
+            // the original file might have had gaps between the records
+            ByteBuffer fileLength = ByteBuffer.allocate(4);
+            fileLength.putInt(0, offset / 2);
+            shpOut.write(fileLength, 24);
+
+            // dbf end of file marker
+            long tail = dbfHeaderLength + (long) count * dbfRecordLength;
+            if (dbfIn.size() > tail) {
+                buffer = read(dbfIn, tail, (int) (dbfIn.size() - tail), buffer);
+                dbfOut.write(buffer.array(), 0, buffer.limit());
+            }
+
+            return count;
+        } finally {
+            keys.close();
+            if (shx != null) {
+                shx.close();
+            }
+            if (shpIn != null) {
+                shpIn.close();
+            }
+            if (dbfIn != null) {
+                dbfIn.close();
+            }
+        }
+    }
+
+    DataOutputStream newOutputStream(FileChannel channel) {
+        return new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    /** Reads the specified portion of the channel, reusing the buffer if large enough */
+    ByteBuffer read(FileChannel channel, long position, int length, ByteBuffer buffer)
+            throws IOException {
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, 8 * 1024));
+        }
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(
+                        "Premature end of file at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public String id() {
+        return getClass().getName();
+    }
+
+    /** Returns the record numbers in sorted order */
+    abstract static class KeyIterator {
+
+        void open() throws IOException {}
+
+        abstract boolean hasNext();
+
+        abstract long next() throws IOException;
+
+        void close() throws IOException {}
+
+        static long recno(long key) {
+            return key & 0xFFFFFFFFL;
+        }
+    }
+
+    /** Iterates over a single chunk sorted in memory */
+    static class ChunkIterator extends KeyIterator {
+        long[] keys;
+
+        int size;
+
+        int next;
+
+        ChunkIterator(long[] keys, int size) {
+            this.keys = keys;
+            this.size = size;
+        }
+
+        @Override
+        boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        long next() {
+            return recno(keys[next++]);
+        }
+    }
+
+    /** Merges the sorted runs spilled to disk */
+    static class MergeIterator extends KeyIterator {
+        List<File> files;
+
+        PriorityQueue<Run> queue = new PriorityQueue<>();
+
+        MergeIterator(List<File> files) {
+            this.files = files;
+        }
+
+        @Override
+        void open() throws IOException {
+            for (File file : files) {
+                Run run = new Run(file);
+                if (run.advance()) {
+                    queue.add(run);
+                } else {
+                    run.close();
+                }
+            }
+        }
+
+        @Override
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        long next() throws IOException {
+            Run run = queue.poll();
+            long key = run.current;
+            if (run.advance()) {
+                queue.add(run);
+            } else {
+                run.close();
+            }
+            return recno(key);
+        }
+
+        @Override
+        void close() throws IOException {
+            for (Run run : queue) {
+                run.close();
+            }
+            queue.clear();
+        }
+    }
+
+    /** A sorted run being read back from disk */
+    static class Run implements Comparable<Run> {
+        DataInputStream in;
+
+        int remaining;
+
+        long current;
+
+        Run(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            remaining = in.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            current = in.readLong();
+            remaining--;
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            return Long.compare(current, other.current);
+        }
+    }
+}
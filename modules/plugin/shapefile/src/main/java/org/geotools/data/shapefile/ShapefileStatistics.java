@@ -0,0 +1,331 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.feature.visitor.UniqueVisitor;
+import org.geotools.util.Converters;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.FeatureVisitor;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Summary statistics of a shapefile, stored in the .stx sidecar file: the number of records, the
+ * bounds of the geometries, and for each dbf column the min and max values, the number of nulls and
+ * the distinct values, as long as they are not too many. The statistics are used to answer
+ * aggregate visitors on the whole shapefile without reading it.
+ */
+class ShapefileStatistics {
+
+    static final int MAGIC = 0x53545831; // STX1
+
+    /** Columns with more distinct values than this only keep min, max and null count */
+    static final int MAX_DISTINCT_VALUES = 256;
+
+    static final byte NULL = 0;
+
+    static final byte STRING = 1;
+
+    static final byte LONG = 2;
+
+    static final byte DOUBLE = 3;
+
+    static final byte DATE = 4;
+
+    static final byte BOOLEAN = 5;
+
+    static final byte DECIMAL = 6;
+
+    long count;
+
+    Envelope bounds = new Envelope();
+
+    Map<String, ColumnStatistics> columns = new LinkedHashMap<>();
+
+    /** Creates empty statistics for the dbf columns of the specified feature type */
+    ShapefileStatistics(SimpleFeatureType schema) {
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            if (!(ad instanceof GeometryDescriptor)) {
+                columns.put(ad.getLocalName(), new ColumnStatistics());
+            }
+        }
+    }
+
+    private ShapefileStatistics() {}
+
+    /** Adds a feature to the statistics, the geometry being the one actually written out */
+    void add(SimpleFeature feature, Geometry geometry) {
+        count++;
+        if (geometry != null) {
+            bounds.expandToInclude(geometry.getEnvelopeInternal());
+        }
+        for (Map.Entry<String, ColumnStatistics> entry : columns.entrySet()) {
+            entry.getValue().add(feature.getAttribute(entry.getKey()));
+        }
+    }
+
+    /** Returns true if the statistics might answer the visitor, depending on its attribute */
+    static boolean canVisit(FeatureVisitor visitor) {
+        return visitor instanceof CountVisitor
+                || visitor instanceof BoundsVisitor
+                || visitor instanceof MinVisitor
+                || visitor instanceof MaxVisitor
+                || visitor instanceof UniqueVisitor;
+    }
+
+    /**
+     * Tries to answer the visitor from the statistics, as if all the features had been visited
+     *
+     * @return true if the visitor received its result, false if the features have to be visited
+     */
+    boolean visit(FeatureVisitor visitor) {
+        if (visitor instanceof CountVisitor) {
+            if (count > Integer.MAX_VALUE) {
+                return false;
+            }
+            ((CountVisitor) visitor).setValue((int) count);
+            return true;
+        } else if (visitor instanceof BoundsVisitor) {
+            if (!bounds.isNull()) {
+                ((BoundsVisitor) visitor).getBounds().expandToInclude(bounds);
+            }
+            return true;
+        } else if (visitor instanceof MinVisitor) {
+            ColumnStatistics column = getColumn(((MinVisitor) visitor).getExpression());
+            if (column == null) {
+                return false;
+            }
+            if (column.min != null) {
+                ((MinVisitor) visitor).setValue(column.min);
+            }
+            return true;
+        } else if (visitor instanceof MaxVisitor) {
+            ColumnStatistics column = getColumn(((MaxVisitor) visitor).getExpression());
+            if (column == null) {
+                return false;
+            }
+            if (column.max != null) {
+                ((MaxVisitor) visitor).setValue(column.max);
+            }
+            return true;
+        } else if (visitor instanceof UniqueVisitor) {
+            UniqueVisitor unique = (UniqueVisitor) visitor;
+            ColumnStatistics column = getColumn(unique.getExpression());
+            if (column == null || column.distinct == null || unique.hasLimits()) {
+                return false;
+            }
+            unique.setValue(column.distinct);
+            return true;
+        }
+        return false;
+    }
+
+    private ColumnStatistics getColumn(Expression expression) {
+        if (expression instanceof PropertyName) {
+            return columns.get(((PropertyName) expression).getPropertyName());
+        }
+        return null;
+    }
+
+    /** Writes the statistics in the specified file */
+    void write(File file) throws IOException {
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(count);
+            out.writeBoolean(bounds.isNull());
+            if (!bounds.isNull()) {
+                out.writeDouble(bounds.getMinX());
+                out.writeDouble(bounds.getMinY());
+                out.writeDouble(bounds.getMaxX());
+                out.writeDouble(bounds.getMaxY());
+            }
+            out.writeInt(columns.size());
+            for (Map.Entry<String, ColumnStatistics> entry : columns.entrySet()) {
+                ColumnStatistics column = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(column.nulls);
+                writeValue(out, column.min);
+                writeValue(out, column.max);
+                if (column.distinct == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(column.distinct.size());
+                    for (Object value : column.distinct) {
+                        writeValue(out, value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the statistics from the specified file, converting the values to the bindings of the
+     * feature type attributes
+     */
+    static ShapefileStatistics read(File file, SimpleFeatureType schema) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a shapefile statistics file");
+            }
+            ShapefileStatistics statistics = new ShapefileStatistics();
+            statistics.count = in.readLong();
+            if (!in.readBoolean()) {
+                double minX = in.readDouble();
+                double minY = in.readDouble();
+                double maxX = in.readDouble();
+                double maxY = in.readDouble();
+                statistics.bounds = new Envelope(minX, maxX, minY, maxY);
+            }
+            int columns = in.readInt();
+            for (int i = 0; i < columns; i++) {
+                String name = in.readUTF();
+                AttributeDescriptor ad = schema.getDescriptor(name);
+                Class<?> binding = ad == null ? Object.class : ad.getType().getBinding();
+                ColumnStatistics column = new ColumnStatistics();
+                column.nulls = in.readLong();
+                column.min = (Comparable) readValue(in, binding);
+                column.max = (Comparable) readValue(in, binding);
+                int distinct = in.readInt();
+                if (distinct < 0) {
+                    column.distinct = null;
+                } else {
+                    for (int j = 0; j < distinct; j++) {
+                        column.distinct.add(readValue(in, binding));
+                    }
+                }
+                statistics.columns.put(name, column);
+            }
+            return statistics;
+        }
+    }
+
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            out.writeByte(DECIMAL);
+            out.writeUTF(value.toString());
+        } else if (value instanceof Number) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else {
+            out.writeByte(STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    static Object readValue(DataInputStream in, Class<?> binding) throws IOException {
+        Object value;
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                value = in.readUTF();
+                break;
+            case LONG:
+                value = in.readLong();
+                break;
+            case DOUBLE:
+                value = in.readDouble();
+                break;
+            case DATE:
+                value = new Date(in.readLong());
+                break;
+            case BOOLEAN:
+                value = in.readBoolean();
+                break;
+            case DECIMAL:
+                value = new BigDecimal(in.readUTF());
+                break;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+        Object converted = Converters.convert(value, binding);
+        return converted != null ? converted : value;
+    }
+
+    /** The statistics of a single dbf column */
+    static class ColumnStatistics {
+        long nulls;
+
+        Comparable min;
+
+        Comparable max;
+
+        /** The distinct values, or null if there are too many of them */
+        Set<Object> distinct = new LinkedHashSet<>();
+
+        @SuppressWarnings("unchecked")
+        void add(Object value) {
+            if (value == null) {
+                nulls++;
+                return;
+            }
+            if (value instanceof Comparable) {
+                Comparable comparable = (Comparable) value;
+                if (min == null || comparable.compareTo(min) < 0) {
+                    min = comparable;
+                }
+                if (max == null || comparable.compareTo(max) > 0) {
+                    max = comparable;
+                }
+            }
+            if (distinct != null && distinct.add(value) && distinct.size() > MAX_DISTINCT_VALUES) {
+                distinct = null;
+            }
+        }
+    }
+}
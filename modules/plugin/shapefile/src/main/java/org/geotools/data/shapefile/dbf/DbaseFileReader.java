@@ -29,6 +29,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -49,8 +50,10 @@ import org.geotools.util.NIOUtilities;
  *
  * </PRE></CODE> For consumers who wish to be a bit more selective with their reading of rows, the
  * Row object has been added. The semantics are the same as using the readEntry method, but remember
- * that the Row object is always the same. The values are parsed as they are read, so it pays to
- * copy them out (as each call to Row.read() will result in an expensive String parse). <br>
+ * that the Row object is always the same. The values are parsed the first time they are read and
+ * cached until the reader moves to the next record, numeric values can also be parsed without
+ * creating objects using Row.getDouble() and Row.getLong(). When only some of the columns are
+ * needed, {@link #setProjection(int...)} allows to skip the others altogether. <br>
  * <b>EACH CALL TO readEntry OR readRow ADVANCES THE FILE!</b><br>
  * An example of using the Row method of reading: <CODE><PRE>
  *
@@ -70,14 +73,65 @@ public class DbaseFileReader implements FileReader {
 
         boolean deleted;
 
+        /**
+         * Returns the value of the column, decoding it on first access. The value is cached until
+         * the reader moves to another record.
+         */
         public Object read(final int column) throws IOException {
-            final int offset = fieldOffsets[column];
-            return readObject(offset, column);
+            return readValue(column);
+        }
+
+        /**
+         * Returns true if the column value is null, without decoding numeric and character values
+         * into objects
+         */
+        public boolean isNull(final int column) throws IOException {
+            checkProjected(column);
+            switch (fieldTypes[column]) {
+                case 'n':
+                case 'N':
+                case 'f':
+                case 'F':
+                    return Double.isNaN(parseDouble(column));
+                case 'c':
+                case 'C':
+                    return fieldLengths[column] == 0 || bytes[fieldOffsets[column]] == '\0';
+                default:
+                    return readValue(column) == null;
+            }
+        }
+
+        /**
+         * Returns the value of a numeric column as a double, parsing it straight from the record
+         * bytes without creating intermediate objects
+         *
+         * @return The column value, or {@link Double#NaN} if the value is null or not a number
+         * @throws IllegalArgumentException If the column is not a numeric one
+         */
+        public double getDouble(final int column) {
+            checkNumeric(column);
+            return parseDouble(column);
+        }
+
+        /**
+         * Returns the value of a numeric column as a long, parsing it straight from the record
+         * bytes without creating intermediate objects. Floating point values are truncated.
+         *
+         * @return The column value, or 0 if the value is null or not a number, use {@link
+         *     #isNull(int)} to tell the two apart
+         * @throws IllegalArgumentException If the column is not a numeric one
+         */
+        public long getLong(final int column) {
+            checkNumeric(column);
+            return parseLong(column);
         }
 
         public String toString() {
             final StringBuffer ret = new StringBuffer("DBF Row - ");
             for (int i = 0; i < header.getNumFields(); i++) {
+                if (projected != null && !projected[i]) {
+                    continue;
+                }
                 ret.append(header.getFieldName(i)).append(": \"");
                 try {
                     ret.append(this.read(i));
@@ -112,6 +166,27 @@ public class DbaseFileReader implements FileReader {
 
     Row row;
 
+    /** The columns read by {@link #read()}, or null if all columns are read */
+    boolean[] projected;
+
+    /** Pairs of offset and length of the record bytes copied when a projection is set */
+    int[] projectedRanges;
+
+    /** Number of records read so far, used to tell if a cached value belongs to the current row */
+    long rowCount;
+
+    /** The decoded values of the current row */
+    Object[] values;
+
+    /** The {@link #rowCount} at which each value was decoded */
+    long[] decodedAt;
+
+    /** Exactly representable powers of ten, used for the fast number parsing path */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     protected boolean useMemoryMappedBuffer;
 
     protected boolean randomAccessEnabled;
@@ -227,6 +302,8 @@ public class DbaseFileReader implements FileReader {
             if (i > 0) fieldOffsets[i] = fieldOffsets[i - 1] + header.getFieldLength(i - 1);
         }
         bytes = new byte[header.getRecordLength() - 1];
+        values = new Object[header.getNumFields()];
+        decodedAt = new long[header.getNumFields()];
 
         // check if we working with a latin-1 char Charset
         final String cname = stringCharset.name();
@@ -286,6 +363,50 @@ public class DbaseFileReader implements FileReader {
         return header;
     }
 
+    /**
+     * Restricts the columns read by this reader to the specified ones, the bytes of the other
+     * columns are skipped when moving to the next record. Reading a column that is not part of the
+     * projection will result in an {@link IllegalArgumentException}, while {@link
+     * #readEntry(Object[])} will return null values for them.
+     *
+     * @param columns The zero based column numbers to be read, or null to read all of them
+     */
+    public void setProjection(final int... columns) {
+        if (columns == null) {
+            projected = null;
+            projectedRanges = null;
+            return;
+        }
+
+        final int numFields = header.getNumFields();
+        final boolean[] selected = new boolean[numFields];
+        for (int column : columns) {
+            if (column < 0 || column >= numFields) {
+                throw new IllegalArgumentException("Invalid column number: " + column);
+            }
+            selected[column] = true;
+        }
+
+        // merge adjacent columns in a single copy range
+        int[] ranges = new int[numFields * 2];
+        int count = 0;
+        for (int i = 0; i < numFields; i++) {
+            if (!selected[i] || fieldLengths[i] == 0) {
+                continue;
+            }
+            if (count > 0 && ranges[count - 2] + ranges[count - 1] == fieldOffsets[i]) {
+                ranges[count - 1] += fieldLengths[i];
+            } else {
+                ranges[count++] = fieldOffsets[i];
+                ranges[count++] = fieldLengths[i];
+            }
+        }
+        projected = selected;
+        projectedRanges = Arrays.copyOf(ranges, count);
+        // the values cached so far might have been decoded from stale bytes
+        rowCount++;
+    }
+
     /**
      * Clean up all resources associated with this reader.<B>Highly recomended.</B>
      *
@@ -305,6 +426,7 @@ public class DbaseFileReader implements FileReader {
         bytes = null;
         header = null;
         row = null;
+        values = null;
     }
 
     /**
@@ -385,7 +507,11 @@ public class DbaseFileReader implements FileReader {
         final int numFields = header.getNumFields();
 
         for (int j = 0; j < numFields; j++) {
-            entry[j + offset] = readObject(fieldOffsets[j], j);
+            if (projected == null || projected[j]) {
+                entry[j + offset] = readValue(j);
+            } else {
+                entry[j + offset] = null;
+            }
         }
 
         return entry;
@@ -401,7 +527,7 @@ public class DbaseFileReader implements FileReader {
      * @return The value of the field
      */
     public Object readField(final int fieldNum) throws IOException {
-        return readObject(fieldOffsets[fieldNum], fieldNum);
+        return readValue(fieldNum);
     }
 
     /** Transfer, by bytes, the next record to the writer. */
@@ -430,14 +556,25 @@ public class DbaseFileReader implements FileReader {
             final char deleted = (char) buffer.get();
             row.deleted = deleted == '*';
 
-            buffer.limit(buffer.position() + header.getRecordLength() - 1);
-            buffer.get(bytes); // SK: There is a side-effect here!!!
-            buffer.limit(buffer.capacity());
+            if (projectedRanges == null) {
+                buffer.limit(buffer.position() + header.getRecordLength() - 1);
+                buffer.get(bytes); // SK: There is a side-effect here!!!
+                buffer.limit(buffer.capacity());
+            } else {
+                // only copy the bytes of the projected columns
+                final int start = buffer.position();
+                for (int i = 0; i < projectedRanges.length; i += 2) {
+                    buffer.position(start + projectedRanges[i]);
+                    buffer.get(bytes, projectedRanges[i], projectedRanges[i + 1]);
+                }
+                buffer.position(start + header.getRecordLength() - 1);
+            }
 
             foundRecord = true;
         }
 
         cnt++;
+        rowCount++;
     }
 
     /**
@@ -451,6 +588,147 @@ public class DbaseFileReader implements FileReader {
         return readEntry(entry, 0);
     }
 
+    /** Returns the decoded value of a column of the current row, decoding it only once */
+    private Object readValue(final int column) throws IOException {
+        checkProjected(column);
+        if (decodedAt[column] != rowCount) {
+            values[column] = readObject(fieldOffsets[column], column);
+            decodedAt[column] = rowCount;
+        }
+        return values[column];
+    }
+
+    private void checkProjected(final int column) {
+        if (projected != null && !projected[column]) {
+            throw new IllegalArgumentException(
+                    "Column " + header.getFieldName(column) + " is not part of the projection");
+        }
+    }
+
+    private void checkNumeric(final int column) {
+        checkProjected(column);
+        final char type = fieldTypes[column];
+        if (type != 'n' && type != 'N' && type != 'f' && type != 'F') {
+            throw new IllegalArgumentException(
+                    "Column " + header.getFieldName(column) + " is not numeric");
+        }
+    }
+
+    /**
+     * Parses a numeric column of the current row straight from the record bytes. Values with up to
+     * 15 significant digits and no exponent are parsed directly, as both the mantissa and the power
+     * of ten are exactly representable the division is correctly rounded, everything else is
+     * delegated to {@link Double#parseDouble(String)}.
+     *
+     * @return The parsed value, or NaN if null or not a number
+     */
+    double parseDouble(final int column) {
+        int start = fieldOffsets[column];
+        int end = start + fieldLengths[column];
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        // numbers that begin with '*' are considered null
+        if (start == end || bytes[start] == '*') {
+            return Double.NaN;
+        }
+
+        int i = start;
+        final boolean negative = bytes[i] == '-';
+        if (negative || bytes[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        boolean hasDigits = false;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            final byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                hasDigits = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                if (digits > 15 || decimals >= POWERS_OF_TEN.length) {
+                    return slowParseDouble(start, end);
+                }
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return slowParseDouble(start, end);
+            }
+        }
+        if (!hasDigits) {
+            return slowParseDouble(start, end);
+        }
+
+        double value = mantissa;
+        if (decimals > 0) {
+            value = value / POWERS_OF_TEN[decimals];
+        }
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(final int start, final int end) {
+        try {
+            return Double.parseDouble(fastParse(bytes, start, end - start));
+        } catch (final NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses a numeric column of the current row as a long, see {@link #parseDouble(int)}
+     *
+     * @return The parsed value, or 0 if null or not a number
+     */
+    long parseLong(final int column) {
+        int start = fieldOffsets[column];
+        int end = start + fieldLengths[column];
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int i = start;
+        final boolean negative = i < end && bytes[i] == '-';
+        if (negative || (i < end && bytes[i] == '+')) {
+            i++;
+        }
+        // up to 18 digits cannot overflow
+        if (i < end && end - i <= 18) {
+            long value = 0;
+            for (; i < end; i++) {
+                final byte b = bytes[i];
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                value = value * 10 + (b - '0');
+            }
+            if (i == end) {
+                return negative ? -value : value;
+            }
+        } else if (i < end) {
+            try {
+                return Long.parseLong(fastParse(bytes, start, end - start));
+            } catch (NumberFormatException e) {
+                // not an integer or out of range
+            }
+        }
+
+        // decimals, exponents, large numbers and nulls
+        final double value = parseDouble(column);
+        return Double.isNaN(value) ? 0 : (long) value;
+    }
+
     private Object readObject(final int fieldOffset, final int fieldNum) throws IOException {
         final char type = fieldTypes[fieldNum];
         final int fieldLen = fieldLengths[fieldNum];
@@ -55,10 +55,16 @@ import org.geotools.util.NIOUtilities;
  * @author Ian Schneider
  */
 public class DbaseFileWriter {
+
+    /** Size of the buffer used when appending, records are written out in blocks this big */
+    static final int APPEND_BUFFER_SIZE = 1024 * 1024;
+
     private DbaseFileHeader header;
     private DbaseFileWriter.FieldFormatter formatter;
     WritableByteChannel channel;
     private ByteBuffer buffer;
+    // when true the records are accumulated in the buffer, and written only once it is full
+    private boolean buffered;
     /**
      * The null values to use for each column. This will be accessed only when null values are
      * actually encountered, but it is allocated in the ctor to save time and memory.
@@ -106,7 +112,34 @@ public class DbaseFileWriter {
     public DbaseFileWriter(
             DbaseFileHeader header, WritableByteChannel out, Charset charset, TimeZone timeZone)
             throws IOException {
-        header.writeHeader(out);
+        this(header, out, charset, timeZone, false);
+    }
+
+    /**
+     * Create a DbaseFileWriter using the specified header and writing to the given channel.
+     *
+     * <p>In append mode the header is not written, the channel is expected to be positioned right
+     * after the last record of an existing dbf file, and the records are accumulated in a large
+     * buffer that is written out only once full, on {@link #flush()} and on {@link #close()}. The
+     * number of records in the header must be updated by the caller once done.
+     *
+     * @param header The DbaseFileHeader to write, or of the file being appended to.
+     * @param out The Channel to write to.
+     * @param charset The charset the dbf is (will be) encoded in
+     * @param append True to append records to an existing file
+     * @throws IOException If errors occur while initializing.
+     */
+    public DbaseFileWriter(
+            DbaseFileHeader header,
+            WritableByteChannel out,
+            Charset charset,
+            TimeZone timeZone,
+            boolean append)
+            throws IOException {
+        if (!append) {
+            header.writeHeader(out);
+        }
+        this.buffered = append;
         this.header = header;
         this.channel = out;
         this.charset = charset == null ? Charset.defaultCharset() : charset;
@@ -155,7 +188,13 @@ public class DbaseFileWriter {
             nullValues[i] = new byte[header.getFieldLength(i)];
             Arrays.fill(nullValues[i], (byte) nullChar);
         }
-        buffer = NIOUtilities.allocate(header.getRecordLength());
+        if (append) {
+            int recordLength = header.getRecordLength();
+            int records = Math.max(1, APPEND_BUFFER_SIZE / recordLength);
+            buffer = NIOUtilities.allocate(records * recordLength);
+        } else {
+            buffer = NIOUtilities.allocate(header.getRecordLength());
+        }
     }
 
     private void write() throws IOException {
@@ -181,29 +220,57 @@ public class DbaseFileWriter {
                             + header.getNumFields());
         }
 
-        buffer.position(0);
+        if (!buffered) {
+            buffer.position(0);
+        } else if (buffer.remaining() < header.getRecordLength()) {
+            flush();
+        }
 
         // put the 'not-deleted' marker
+        int start = buffer.position();
         buffer.put((byte) ' ');
 
         byte[] bytes;
-        for (int i = 0; i < header.getNumFields(); i++) {
-            // convert this column to bytes
-            if (record[i] == null) {
-                bytes = nullValues[i];
-            } else {
-                bytes = fieldBytes(record[i], i);
-                // if the returned array is not the proper length
-                // write a null instead; this will only happen
-                // when the formatter handles a value improperly.
-                if (bytes.length != nullValues[i].length) {
+        try {
+            for (int i = 0; i < header.getNumFields(); i++) {
+                // convert this column to bytes
+                if (record[i] == null) {
                     bytes = nullValues[i];
+                } else {
+                    bytes = fieldBytes(record[i], i);
+                    // if the returned array is not the proper length
+                    // write a null instead; this will only happen
+                    // when the formatter handles a value improperly.
+                    if (bytes.length != nullValues[i].length) {
+                        bytes = nullValues[i];
+                    }
                 }
+                buffer.put(bytes);
             }
-            buffer.put(bytes);
+        } catch (RuntimeException | IOException e) {
+            // don't leave a partial record among the buffered ones
+            buffer.position(start);
+            throw e;
+        }
+
+        if (!buffered) {
+            write();
         }
+    }
 
-        write();
+    /**
+     * Writes down the records accumulated in append mode, if any
+     *
+     * @throws IOException If IO error occurs.
+     */
+    public void flush() throws IOException {
+        if (buffered && buffer != null && buffer.position() > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
     }
 
     /**
@@ -296,7 +363,11 @@ public class DbaseFileWriter {
         // buffer.put((byte) 0).position(0).limit(1);
         // write();
         if (channel != null && channel.isOpen()) {
-            channel.close();
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
             streamLogger.close();
         }
         if (buffer != null) {
@@ -24,6 +24,8 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A FileChannel that delegates all calls to the underlying FileChannel but for {@link
@@ -39,6 +41,9 @@ public class FileChannelDecorator extends FileChannel implements ReadableByteCha
     private final FileReader reader;
     private final FileWriter writer;
     private boolean closed;
+    /** The pooled memory mapped regions in use by this channel */
+    private final List<MemoryMapPool.Region> mappedRegions =
+            new ArrayList<MemoryMapPool.Region>();
 
     public FileChannelDecorator(
             FileChannel channel, ShpFiles shapefileFiles, URL url, FileReader requestor) {
@@ -68,8 +73,7 @@ public class FileChannelDecorator extends FileChannel implements ReadableByteCha
     }
 
     public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
-        //    	return wrapped.map(mode, position, size)
-        return shapefileFiles.map(wrapped, url, mode, position, size);
+        return shapefileFiles.map(wrapped, url, mode, position, size, mappedRegions);
     }
 
     public long position() throws IOException {
@@ -133,6 +137,7 @@ public class FileChannelDecorator extends FileChannel implements ReadableByteCha
         } finally {
             if (!closed) {
                 closed = true;
+                shapefileFiles.release(mappedRegions);
                 if (reader != null) {
                     shapefileFiles.unlockRead(url, reader);
                 } else {
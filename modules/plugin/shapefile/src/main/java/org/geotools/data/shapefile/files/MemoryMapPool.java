@@ -0,0 +1,310 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.geotools.util.NIOUtilities;
+import org.geotools.util.logging.Logging;
+
+/**
+ * A process wide pool of read only memory mapped buffers, shared among all the shapefiles. Mapping
+ * a file is a synchronized operation, by sharing the mapped regions and handing out light copies
+ * of them the same region can be used by various threads and data stores.
+ *
+ * <p>The pool keeps at most {@link #getMaxSize()} bytes mapped, evicting the least recently used
+ * regions first. Regions are reference counted, a region in use by a reader is never unmapped, so
+ * the pool can temporarily go beyond its max size when many regions are in use at the same time.
+ * The max size can be configured with the {@link #MAX_SIZE_KEY} system property, or at runtime
+ * via JMX, where the pool statistics are published as well.
+ */
+public class MemoryMapPool implements MemoryMapPoolMBean {
+
+    static final Logger LOGGER = Logging.getLogger(MemoryMapPool.class);
+
+    /** System property setting the max number of bytes kept mapped by the pool */
+    public static final String MAX_SIZE_KEY = "org.geotools.shapefile.memoryMapPoolSize";
+
+    /** The default max number of bytes kept mapped */
+    public static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+    /** The name under which the pool is registered in the platform MBean server */
+    public static final String OBJECT_NAME = "org.geotools.data.shapefile:type=MemoryMapPool";
+
+    private static MemoryMapPool INSTANCE;
+
+    /** Returns the process wide pool */
+    public static synchronized MemoryMapPool getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new MemoryMapPool(Long.getLong(MAX_SIZE_KEY, DEFAULT_MAX_SIZE));
+            INSTANCE.register();
+        }
+        return INSTANCE;
+    }
+
+    /** The mapped regions, in least recently used order */
+    private final LinkedHashMap<MappingKey, Region> regions =
+            new LinkedHashMap<MappingKey, Region>(16, 0.75f, true);
+
+    private long maxSize;
+
+    private long mappedBytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    MemoryMapPool(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not register the memory map pool in JMX", e);
+        }
+    }
+
+    /**
+     * Returns a read only copy of the specified file region, mapping it if necessary. The region
+     * is added to the acquired list, and won't be unmapped until {@link #release(Region)} is
+     * called on it.
+     */
+    MappedByteBuffer acquire(FileChannel channel, MappingKey key, List<Region> acquired)
+            throws IOException {
+        synchronized (this) {
+            Region region = regions.get(key);
+            if (region != null) {
+                hits++;
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Using cached map for " + key);
+                }
+            } else {
+                misses++;
+                region = new Region(channel.map(MapMode.READ_ONLY, key.position, key.size));
+                regions.put(key, region);
+                mappedBytes += key.size;
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Mapping and caching " + key);
+                }
+            }
+            region.references++;
+            acquired.add(region);
+            evict();
+            return (MappedByteBuffer) region.buffer.duplicate();
+        }
+    }
+
+    /** Releases a region returned by {@link #acquire(FileChannel, MappingKey, List)} */
+    synchronized void release(Region region) {
+        if (region.references > 0 && --region.references == 0) {
+            if (region.invalidated) {
+                NIOUtilities.clean(region.buffer, true);
+            } else {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Unmaps all the regions of the specified file, for example because the file is about to be
+     * written. Regions in use are removed from the pool, but unmapped only once released.
+     */
+    synchronized void invalidate(File file) {
+        for (Iterator<Map.Entry<MappingKey, Region>> it = regions.entrySet().iterator();
+                it.hasNext(); ) {
+            Map.Entry<MappingKey, Region> entry = it.next();
+            if (entry.getKey().file.equals(file)) {
+                it.remove();
+                Region region = entry.getValue();
+                mappedBytes -= entry.getKey().size;
+                if (region.references == 0) {
+                    NIOUtilities.clean(region.buffer, true);
+                } else {
+                    region.invalidated = true;
+                }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Removed mapping for " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /** Unmaps the least recently used regions not in use until the pool is within its max size */
+    private void evict() {
+        for (Iterator<Map.Entry<MappingKey, Region>> it = regions.entrySet().iterator();
+                it.hasNext() && mappedBytes > maxSize; ) {
+            Map.Entry<MappingKey, Region> entry = it.next();
+            Region region = entry.getValue();
+            if (region.references == 0) {
+                it.remove();
+                mappedBytes -= entry.getKey().size;
+                NIOUtilities.clean(region.buffer, true);
+                evictions++;
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Evicted mapping for " + entry.getKey());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public synchronized void setMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The max size cannot be negative");
+        }
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    @Override
+    public synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    @Override
+    public synchronized int getMappedRegions() {
+        return regions.size();
+    }
+
+    @Override
+    public synchronized int getUsedRegions() {
+        int count = 0;
+        for (Region region : regions.values()) {
+            if (region.references > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Iterator<Map.Entry<MappingKey, Region>> it = regions.entrySet().iterator();
+                it.hasNext(); ) {
+            Map.Entry<MappingKey, Region> entry = it.next();
+            if (entry.getValue().references == 0) {
+                it.remove();
+                mappedBytes -= entry.getKey().size;
+                NIOUtilities.clean(entry.getValue().buffer, true);
+            }
+        }
+    }
+
+    /** A mapped region and the number of readers using it */
+    static class Region {
+        MappedByteBuffer buffer;
+
+        int references;
+
+        /** True if the region has been removed from the pool while still in use */
+        boolean invalidated;
+
+        Region(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /** Tracks a memory mapped region of a certain file */
+    static class MappingKey {
+        File file;
+        long position;
+        long size;
+
+        public MappingKey(File file, long position, long size) {
+            super();
+            this.file = file;
+            this.position = position;
+            this.size = size;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((file == null) ? 0 : file.hashCode());
+            result = prime * result + (int) (position ^ (position >>> 32));
+            result = prime * result + (int) (size ^ (size >>> 32));
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+            MappingKey other = (MappingKey) obj;
+            if (file == null) {
+                if (other.file != null) return false;
+            } else if (!file.equals(other.file)) return false;
+            if (position != other.position) return false;
+            if (size != other.size) return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return file.getAbsolutePath() + " [" + position + ", " + (position + size) + "]";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.files;
+
+/** Management interface of the {@link MemoryMapPool}, published via JMX */
+public interface MemoryMapPoolMBean {
+
+    /** The max number of bytes kept mapped by the pool, when not in use */
+    long getMaxSize();
+
+    /** Sets the max number of bytes kept mapped, evicting unused regions if needed */
+    void setMaxSize(long maxSize);
+
+    /** The number of bytes currently mapped by the pool, including the regions in use */
+    long getMappedBytes();
+
+    /** The number of regions currently mapped by the pool */
+    int getMappedRegions();
+
+    /** The number of regions currently in use by at least one reader */
+    int getUsedRegions();
+
+    /** The number of map requests served by an already mapped region */
+    long getHits();
+
+    /** The number of map requests that required mapping a new region */
+    long getMisses();
+
+    /** The number of regions unmapped to stay within the max size */
+    long getEvictions();
+
+    /** Resets the hits, misses and evictions counters */
+    void resetStatistics();
+
+    /** Unmaps all the regions not currently in use */
+    void clear();
+}
@@ -39,6 +39,21 @@ public enum ShpFileType {
      * mapservers shptree tool generates
      */
     QIX("qix"),
+    /**
+     * the .prx file, a Hilbert sorted, packed R-tree spatial index of the shapefile, designed to be
+     * memory mapped
+     */
+    PRX("prx"),
+    /**
+     * the .aix file, it contains sorted indexes of the values of some of the dbf columns, for fast
+     * attribute lookups
+     */
+    AIX("aix"),
+    /**
+     * the .stx file, it contains the record count, bounds and per column summary statistics, used
+     * to answer aggregates without reading the shapefile
+     */
+    STX("stx"),
     /**
      * the .fix file, it contains all the Feature IDs for constant time lookup by fid also so that
      * the fids stay consistent across deletes and adds
@@ -41,6 +41,7 @@ import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -83,8 +84,8 @@ public class ShpFiles {
     private final Map<Thread, Collection<ShpFilesLocker>> lockers =
             new ConcurrentHashMap<Thread, Collection<ShpFilesLocker>>();
 
-    /** A cache for read only memory mapped buffers */
-    private final MemoryMapCache mapCache = new MemoryMapCache();
+    /** The process wide pool of read only memory mapped buffers */
+    private final MemoryMapPool mapPool = MemoryMapPool.getInstance();
 
     private boolean memoryMapCacheEnabled;
 
@@ -212,7 +213,7 @@ public class ShpFiles {
             logCurrentLockers(Level.SEVERE);
             lockers.clear(); // so as not to get this log again.
         }
-        mapCache.clean();
+        invalidateMappings();
     }
 
     /**
@@ -454,7 +455,7 @@ public class ShpFiles {
         relinquishReadLocks(threadLockers);
         readWriteLock.writeLock().lock();
         threadLockers.add(new ShpFilesLocker(url, requestor));
-        mapCache.cleanFileCache(url);
+        invalidateMappings(url);
         return url;
     }
 
@@ -863,22 +864,66 @@ public class ShpFiles {
 
     /**
      * Internal method that the file channel decorators will call to allow reuse of the memory
-     * mapped buffers
+     * mapped buffers. The pooled regions used are added to the acquired list, and must be given
+     * back using {@link #release(List)} once the channel is closed.
      *
      * @param wrapped
      * @param url
      * @param mode
      * @param position
      * @param size
+     * @param acquired
      * @return
      * @throws IOException
      */
-    MappedByteBuffer map(FileChannel wrapped, URL url, MapMode mode, long position, long size)
+    MappedByteBuffer map(
+            FileChannel wrapped,
+            URL url,
+            MapMode mode,
+            long position,
+            long size,
+            List<MemoryMapPool.Region> acquired)
             throws IOException {
-        if (memoryMapCacheEnabled) {
-            return mapCache.map(wrapped, url, mode, position, size);
-        } else {
-            return wrapped.map(mode, position, size);
+        if (memoryMapCacheEnabled && mode == MapMode.READ_ONLY) {
+            File file = URLs.urlToFile(url);
+            if (file != null) {
+                MemoryMapPool.MappingKey key =
+                        new MemoryMapPool.MappingKey(file.getCanonicalFile(), position, size);
+                return mapPool.acquire(wrapped, key, acquired);
+            }
+        }
+        return wrapped.map(mode, position, size);
+    }
+
+    /** Gives back to the pool the regions acquired by a file channel decorator */
+    void release(List<MemoryMapPool.Region> acquired) {
+        for (MemoryMapPool.Region region : acquired) {
+            mapPool.release(region);
+        }
+        acquired.clear();
+    }
+
+    /** Removes all the files of this shapefile from the memory map pool */
+    private void invalidateMappings() {
+        for (URL url : urls.values()) {
+            invalidateMappings(url);
+        }
+    }
+
+    /** Removes the specified file from the memory map pool, as it's about to be modified */
+    private void invalidateMappings(URL url) {
+        try {
+            final File rawFile = URLs.urlToFile(url);
+            if (rawFile == null) {
+                // not a local file
+                return;
+            }
+            mapPool.invalidate(rawFile.getCanonicalFile());
+        } catch (Throwable t) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "An error occurred while trying to clean the memory map cache",
+                    t);
         }
     }
 
@@ -901,7 +946,7 @@ public class ShpFiles {
     public void setMemoryMapCacheEnabled(boolean memoryMapCacheEnabled) {
         this.memoryMapCacheEnabled = memoryMapCacheEnabled;
         if (!memoryMapCacheEnabled) {
-            mapCache.clean();
+            invalidateMappings();
         }
     }
 
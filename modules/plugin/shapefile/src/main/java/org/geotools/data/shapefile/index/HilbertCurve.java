@@ -0,0 +1,134 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Computes positions along a Hilbert curve covering a 65536x65536 grid, used to sort shapes so
+ * that shapes close in space end up close in the sort order too.
+ *
+ * <p>The grid position computation is a branch free implementation derived from the public domain
+ * "Fast Hilbert curve" code by rawrunprotected.
+ */
+public class HilbertCurve {
+
+    /** The largest grid coordinate */
+    public static final int MAX_COORDINATE = 0xFFFF;
+
+    double minX;
+
+    double minY;
+
+    double scaleX;
+
+    double scaleY;
+
+    /**
+     * Builds a curve covering the specified extent
+     *
+     * @param extent The area containing all the shapes that will be sorted
+     */
+    public HilbertCurve(Envelope extent) {
+        this.minX = extent.getMinX();
+        this.minY = extent.getMinY();
+        this.scaleX = extent.getWidth() > 0 ? MAX_COORDINATE / extent.getWidth() : 0;
+        this.scaleY = extent.getHeight() > 0 ? MAX_COORDINATE / extent.getHeight() : 0;
+    }
+
+    /**
+     * Returns the position along the curve of the center of the specified box, as an unsigned 32
+     * bits value stored in a long
+     */
+    public long position(double minX, double minY, double maxX, double maxY) {
+        int x = toGrid((minX + maxX) / 2 - this.minX, scaleX);
+        int y = toGrid((minY + maxY) / 2 - this.minY, scaleY);
+        return position(x, y);
+    }
+
+    private static int toGrid(double delta, double scale) {
+        int value = (int) Math.floor(delta * scale);
+        if (value < 0) {
+            return 0;
+        } else if (value > MAX_COORDINATE) {
+            return MAX_COORDINATE;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the position along the curve of the specified grid cell, as an unsigned 32 bits value
+     * stored in a long
+     *
+     * @param x The cell column, between 0 and {@link #MAX_COORDINATE}
+     * @param y The cell row, between 0 and {@link #MAX_COORDINATE}
+     */
+    public static long position(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >> 1);
+        int B = (a >> 1) ^ a;
+        int C = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+        int D = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 2)) ^ (b & (b >> 2)));
+        B = ((a & (b >> 2)) ^ (b & ((a ^ b) >> 2)));
+        C ^= ((a & (c >> 2)) ^ (b & (d >> 2)));
+        D ^= ((b & (c >> 2)) ^ ((a ^ b) & (d >> 2)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 4)) ^ (b & (b >> 4)));
+        B = ((a & (b >> 4)) ^ (b & ((a ^ b) >> 4)));
+        C ^= ((a & (c >> 4)) ^ (b & (d >> 4)));
+        D ^= ((b & (c >> 4)) ^ ((a ^ b) & (d >> 4)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >> 8)) ^ (b & (d >> 8)));
+        D ^= ((b & (c >> 8)) ^ ((a ^ b) & (d >> 8)));
+
+        a = C ^ (C >> 1);
+        b = D ^ (D >> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+        i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+        i0 = (i0 | (i0 << 2)) & 0x33333333;
+        i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+        i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+        i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+        i1 = (i1 | (i1 << 2)) & 0x33333333;
+        i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+        return ((i1 << 1) | i0) & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index.attribute;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotools.util.NIOUtilities;
+
+/**
+ * Read access to the sorted attribute indexes stored in a .aix file. Each indexed dbf column is
+ * stored as a section of fixed size entries, sorted by key, holding the key, the record number and
+ * the .shp byte offset of the record. Lookups are binary searches on the memory mapped sections.
+ *
+ * <p>The file is laid out as follows, all values being little endian:
+ *
+ * <ul>
+ *   <li>A {@link #HEADER_SIZE} bytes header with the magic number, the format version, the number
+ *       of indexed columns and the number of records in the shapefile
+ *   <li>A {@link #DIRECTORY_ENTRY_SIZE} bytes directory entry per column, with the column name,
+ *       the key type and width, the number of entries and the position of the column section
+ *   <li>The column sections. Numeric keys are stored as doubles, string keys as a fixed number of
+ *       UTF-16 chars, longer values being truncated to their prefix. Null values are not indexed
+ * </ul>
+ */
+public class AttributeIndex {
+
+    /** The magic number at the beginning of the file, "GTAI" */
+    static final int MAGIC = 0x49415447;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    static final int DIRECTORY_ENTRY_SIZE = 64;
+
+    static final int MAX_NAME_LENGTH = 32;
+
+    static final int NUMERIC = 1;
+
+    static final int STRING = 2;
+
+    /** Max size of a mapped chunk */
+    static final int CHUNK_SIZE = 1 << 30;
+
+    int numRecords;
+
+    Map<String, Column> columns = new LinkedHashMap<>();
+
+    /**
+     * Opens the specified attribute index file
+     *
+     * @param file The .aix file
+     * @throws IOException If the file cannot be read, or is not a valid attribute index
+     */
+    public AttributeIndex(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header == null || header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an attribute index");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported attribute index version " + header.getInt(4));
+            }
+            int numColumns = header.getInt(8);
+            numRecords = header.getInt(12);
+            ByteBuffer directory =
+                    read(channel, HEADER_SIZE, numColumns * DIRECTORY_ENTRY_SIZE);
+            if (directory == null) {
+                throw new IOException(file + " is truncated");
+            }
+            try {
+                for (int i = 0; i < numColumns; i++) {
+                    int position = i * DIRECTORY_ENTRY_SIZE;
+                    int length = 0;
+                    while (length < MAX_NAME_LENGTH && directory.get(position + length) != 0) {
+                        length++;
+                    }
+                    byte[] nameBytes = new byte[length];
+                    directory.position(position);
+                    directory.get(nameBytes);
+                    String name = new String(nameBytes, StandardCharsets.UTF_8);
+                    int type = directory.getInt(position + 32);
+                    int width = directory.getInt(position + 36);
+                    int count = directory.getInt(position + 40);
+                    long start = directory.getLong(position + 48);
+                    Column column = new Column(name, type, width, count);
+                    columns.put(name, column);
+                    column.map(channel, start);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    /** Reads the specified portion of the file, returns null if the file is too short */
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /** Returns the names of the indexed attributes */
+    public List<String> getAttributeNames() {
+        return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+    }
+
+    /** Returns true if the specified attribute is indexed */
+    public boolean isIndexed(String attribute) {
+        return columns.containsKey(attribute);
+    }
+
+    /** Returns true if the specified attribute is indexed by numeric value */
+    public boolean isNumeric(String attribute) {
+        Column column = columns.get(attribute);
+        return column != null && column.type == NUMERIC;
+    }
+
+    /** Returns the number of records in the shapefile at the time the index was built */
+    public int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Looks up the entries whose key is between the specified bounds, both inclusive. For numeric
+     * attributes the bounds must be numbers, for string attributes they must be strings, and
+     * will match all the values sharing the same indexed prefix.
+     *
+     * @param attribute The indexed attribute
+     * @param lower The lower bound, or null if unbounded
+     * @param upper The upper bound, or null if unbounded
+     * @return An array with the start (inclusive) and end (exclusive) positions of the matching
+     *     entries
+     */
+    public int[] findRange(String attribute, Object lower, Object upper) {
+        Column column = getColumn(attribute);
+        int start = lower == null ? 0 : column.search(lower, false);
+        int end = upper == null ? column.count : column.search(upper, true);
+        return new int[] {start, Math.max(start, end)};
+    }
+
+    /**
+     * Returns the records found in the specified range of entries, as a sorted array of longs
+     * holding the zero based record number in the higher 32 bits and the .shp byte offset in the
+     * lower 32 bits
+     */
+    public long[] getRecords(String attribute, int start, int end) {
+        Column column = getColumn(attribute);
+        long[] result = new long[end - start];
+        for (int i = start; i < end; i++) {
+            long position = column.entryPosition(i) + column.keySize;
+            MappedByteBuffer chunk = column.chunk(i);
+            int recno = chunk.getInt((int) position);
+            int offset = chunk.getInt((int) position + 4);
+            result[i - start] = ((long) recno << 32) | (offset & 0xFFFFFFFFL);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    Column getColumn(String attribute) {
+        Column column = columns.get(attribute);
+        if (column == null) {
+            throw new IllegalArgumentException("Attribute " + attribute + " is not indexed");
+        }
+        return column;
+    }
+
+    /** Releases the memory mapped buffers */
+    public void close() {
+        for (Column column : columns.values()) {
+            column.close();
+        }
+        columns.clear();
+    }
+
+    /** A sorted column section, mapped in chunks holding a whole number of entries */
+    static class Column {
+        String name;
+
+        int type;
+
+        int width;
+
+        int count;
+
+        int keySize;
+
+        int entrySize;
+
+        int entriesPerChunk;
+
+        MappedByteBuffer[] chunks;
+
+        Column(String name, int type, int width, int count) {
+            this.name = name;
+            this.type = type;
+            this.width = width;
+            this.count = count;
+            this.keySize = keySize(type, width);
+            this.entrySize = keySize + 8;
+            this.entriesPerChunk = CHUNK_SIZE / entrySize;
+        }
+
+        static int keySize(int type, int width) {
+            return type == NUMERIC ? 8 : width * 2;
+        }
+
+        void map(FileChannel channel, long start) throws IOException {
+            int numChunks = (count + entriesPerChunk - 1) / entriesPerChunk;
+            chunks = new MappedByteBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                long position = start + (long) i * entriesPerChunk * entrySize;
+                long entries = Math.min(entriesPerChunk, count - (long) i * entriesPerChunk);
+                chunks[i] =
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, entries * entrySize);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        MappedByteBuffer chunk(int entry) {
+            return chunks[entry / entriesPerChunk];
+        }
+
+        /** The position of the entry inside its chunk */
+        long entryPosition(int entry) {
+            return (long) (entry % entriesPerChunk) * entrySize;
+        }
+
+        /**
+         * Binary search, returns the first entry whose key is greater or equal than the specified
+         * one, or strictly greater if "after" is true
+         */
+        int search(Object key, boolean after) {
+            double numericKey = 0;
+            String stringKey = null;
+            if (type == NUMERIC) {
+                numericKey = ((Number) key).doubleValue();
+            } else {
+                stringKey = key.toString();
+                if (stringKey.length() > width) {
+                    stringKey = stringKey.substring(0, width);
+                }
+            }
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp;
+                if (type == NUMERIC) {
+                    cmp = Double.compare(getNumericKey(mid), numericKey);
+                } else {
+                    cmp = compareStringKey(mid, stringKey);
+                }
+                if (cmp < 0 || (after && cmp == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        double getNumericKey(int entry) {
+            return chunk(entry).getDouble((int) entryPosition(entry));
+        }
+
+        /** Compares the stored key with the specified one, the same way String.compareTo does */
+        int compareStringKey(int entry, String key) {
+            MappedByteBuffer chunk = chunk(entry);
+            int position = (int) entryPosition(entry);
+            for (int i = 0; i < width; i++) {
+                char stored = chunk.getChar(position + i * 2);
+                if (stored == 0) {
+                    return i < key.length() ? -1 : 0;
+                }
+                if (i >= key.length()) {
+                    return 1;
+                }
+                char c = key.charAt(i);
+                if (stored != c) {
+                    return stored - c;
+                }
+            }
+            return width < key.length() ? -1 : 0;
+        }
+
+        void close() {
+            if (chunks != null) {
+                for (MappedByteBuffer chunk : chunks) {
+                    NIOUtilities.clean(chunk, true);
+                }
+                chunks = null;
+            }
+        }
+    }
+}
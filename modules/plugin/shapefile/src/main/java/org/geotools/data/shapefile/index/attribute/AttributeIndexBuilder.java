@@ -0,0 +1,686 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index.attribute;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Collects the attribute values of a shapefile and writes them as sorted {@link AttributeIndex}
+ * sections. The values are sorted using an external merge sort: each column keeps at most a given
+ * number of values in primitive arrays, sorting them in place and spilling them as sorted runs to
+ * temporary files when full, and the runs are merged while writing the index.
+ */
+public class AttributeIndexBuilder {
+
+    static final Logger LOGGER = Logging.getLogger(AttributeIndexBuilder.class);
+
+    /** The max number of chars of a string value used as the index key */
+    public static final int MAX_STRING_KEY_LENGTH = 32;
+
+    /** The default number of values of each column sorted in memory before spilling to disk */
+    public static final int DEFAULT_MAX_ITEMS_IN_MEMORY = 256 * 1024;
+
+    static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    int numRecords;
+
+    int maxItemsInMemory;
+
+    List<Column> columns = new ArrayList<>();
+
+    /**
+     * Creates a builder with the default memory usage
+     *
+     * @param numRecords The number of records in the shapefile
+     */
+    public AttributeIndexBuilder(int numRecords) {
+        this(numRecords, DEFAULT_MAX_ITEMS_IN_MEMORY);
+    }
+
+    /**
+     * Creates a builder
+     *
+     * @param numRecords The number of records in the shapefile
+     * @param maxItemsInMemory The max number of values of each column sorted in memory before
+     *     spilling a sorted run to disk
+     */
+    public AttributeIndexBuilder(int numRecords, int maxItemsInMemory) {
+        if (maxItemsInMemory < 1) {
+            throw new IllegalArgumentException("Max items in memory must be positive");
+        }
+        this.numRecords = numRecords;
+        this.maxItemsInMemory = maxItemsInMemory;
+    }
+
+    /**
+     * Adds a column indexed by numeric value
+     *
+     * @return The column position, to be used in {@link #add(int, int, int, Object)}
+     */
+    public int addNumericColumn(String name) {
+        return addColumn(new NumericColumn(name, initialCapacity()));
+    }
+
+    /**
+     * Adds a column indexed by string value
+     *
+     * @param name The column name
+     * @param length The max length of the column values
+     * @return The column position, to be used in {@link #add(int, int, int, Object)}
+     */
+    public int addStringColumn(String name, int length) {
+        int width = Math.max(1, Math.min(length, MAX_STRING_KEY_LENGTH));
+        return addColumn(new StringColumn(name, width, initialCapacity()));
+    }
+
+    private int initialCapacity() {
+        return Math.max(1, Math.min(numRecords, maxItemsInMemory));
+    }
+
+    private int addColumn(Column column) {
+        int nameLength = column.name.getBytes(StandardCharsets.UTF_8).length;
+        if (nameLength > AttributeIndex.MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Column name too long: " + column.name);
+        }
+        column.maxItemsInMemory = maxItemsInMemory;
+        columns.add(column);
+        return columns.size() - 1;
+    }
+
+    /**
+     * Adds a value to the specified column. Null values, and non numeric values in numeric columns,
+     * are skipped
+     *
+     * @param column The column position
+     * @param recno The zero based record number
+     * @param offset The byte offset of the record in the .shp file
+     * @param value The attribute value
+     */
+    public void add(int column, int recno, int offset, Object value) throws IOException {
+        Column target = columns.get(column);
+        if (value != null && target.accepts(value)) {
+            target.add(recno, offset, value);
+        }
+    }
+
+    /**
+     * Adds a value to the specified numeric column, without boxing. NaN values are skipped
+     *
+     * @param column The column position
+     * @param recno The zero based record number
+     * @param offset The byte offset of the record in the .shp file
+     * @param value The attribute value
+     */
+    public void add(int column, int recno, int offset, double value) throws IOException {
+        Column target = columns.get(column);
+        if (!(target instanceof NumericColumn)) {
+            throw new IllegalArgumentException("Column " + target.name + " is not numeric");
+        }
+        if (!Double.isNaN(value)) {
+            ((NumericColumn) target).add(recno, offset, value);
+        }
+    }
+
+    /** Sorts the collected values, writes them to the specified file, and releases the runs */
+    public void build(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+
+            int directorySize = columns.size() * AttributeIndex.DIRECTORY_ENTRY_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(AttributeIndex.HEADER_SIZE + directorySize);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(AttributeIndex.MAGIC);
+            header.putInt(AttributeIndex.VERSION);
+            header.putInt(columns.size());
+            header.putInt(numRecords);
+
+            long position = header.capacity();
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (Column column : columns) {
+                // directory entry
+                int entry = header.position();
+                header.put(column.name.getBytes(StandardCharsets.UTF_8));
+                header.position(entry + AttributeIndex.MAX_NAME_LENGTH);
+                header.putInt(column.type());
+                header.putInt(column.width());
+                header.putInt(column.count);
+                header.putInt(0);
+                header.putLong(position);
+                header.position(entry + AttributeIndex.DIRECTORY_ENTRY_SIZE);
+
+                // sorted entries, merging the in memory values with the spilled runs
+                int entrySize = AttributeIndex.Column.keySize(column.type(), column.width()) + 8;
+                List<SortedRun> sources = column.openRuns();
+                try {
+                    PriorityQueue<SortedRun> queue =
+                            new PriorityQueue<>(Math.max(1, sources.size()), column::compare);
+                    for (SortedRun source : sources) {
+                        if (source.next()) {
+                            queue.add(source);
+                        }
+                    }
+                    while (!queue.isEmpty()) {
+                        SortedRun source = queue.poll();
+                        if (buffer.remaining() < entrySize) {
+                            position += write(channel, buffer, position);
+                        }
+                        column.write(source, buffer);
+                        if (source.next()) {
+                            queue.add(source);
+                        }
+                    }
+                } finally {
+                    for (SortedRun source : sources) {
+                        source.close();
+                    }
+                }
+                position += write(channel, buffer, position);
+                column.dispose();
+            }
+
+            write(channel, header, 0);
+        } finally {
+            dispose();
+        }
+    }
+
+    /** Releases the temporary files and memory buffers */
+    public void dispose() {
+        for (Column column : columns) {
+            column.dispose();
+        }
+    }
+
+    private static int write(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /** The current entry of a sorted run of column values, either in memory or spilled to disk */
+    abstract static class SortedRun {
+        int recno;
+
+        int offset;
+
+        double number;
+
+        char[] chars;
+
+        /** Moves to the next entry, returns false if the run is exhausted */
+        abstract boolean next() throws IOException;
+
+        void close() throws IOException {
+            // nothing to do by default
+        }
+    }
+
+    /**
+     * A column of values sorted by key and then record number. The values are collected in arrays
+     * sorted in place, that are spilled to temporary files once full.
+     */
+    abstract static class Column {
+        String name;
+
+        /** The total number of values, including the spilled ones */
+        int count;
+
+        /** The number of values in memory */
+        int size;
+
+        int maxItemsInMemory;
+
+        int[] recnos;
+
+        int[] offsets;
+
+        List<File> runs = new ArrayList<>();
+
+        Column(String name, int capacity) {
+            this.name = name;
+            this.recnos = new int[capacity];
+            this.offsets = new int[capacity];
+        }
+
+        void add(int recno, int offset, Object value) throws IOException {
+            ensureCapacity();
+            recnos[size] = recno;
+            offsets[size] = offset;
+            setKey(size, value);
+            size++;
+            count++;
+        }
+
+        void ensureCapacity() throws IOException {
+            if (size == maxItemsInMemory) {
+                spill();
+            }
+            if (size == recnos.length) {
+                int newSize = (int) Math.min(Math.max(16L, size * 2L), maxItemsInMemory);
+                recnos = Arrays.copyOf(recnos, newSize);
+                offsets = Arrays.copyOf(offsets, newSize);
+                grow(newSize);
+            }
+        }
+
+        abstract int type();
+
+        abstract boolean accepts(Object value);
+
+        abstract int width();
+
+        abstract void grow(int newSize);
+
+        abstract void setKey(int i, Object value);
+
+        abstract int compareKeys(int i, int j);
+
+        abstract void swapKeys(int i, int j);
+
+        /** Copies the key of the specified in memory value into the run */
+        abstract void loadKey(int i, SortedRun run);
+
+        abstract void writeKey(int i, DataOutputStream os) throws IOException;
+
+        abstract void readKey(DataInputStream is, SortedRun run) throws IOException;
+
+        abstract int compareKeys(SortedRun a, SortedRun b);
+
+        abstract void writeKey(SortedRun run, ByteBuffer buffer);
+
+        void write(SortedRun run, ByteBuffer buffer) {
+            writeKey(run, buffer);
+            buffer.putInt(run.recno);
+            buffer.putInt(run.offset);
+        }
+
+        int compare(SortedRun a, SortedRun b) {
+            int result = compareKeys(a, b);
+            return result != 0 ? result : Integer.compare(a.recno, b.recno);
+        }
+
+        int compare(int i, int j) {
+            int result = compareKeys(i, j);
+            return result != 0 ? result : Integer.compare(recnos[i], recnos[j]);
+        }
+
+        void swap(int i, int j) {
+            swapKeys(i, j);
+            int tmp = recnos[i];
+            recnos[i] = recnos[j];
+            recnos[j] = tmp;
+            tmp = offsets[i];
+            offsets[i] = offsets[j];
+            offsets[j] = tmp;
+        }
+
+        /** Sorts the in memory values and writes them to a temporary run file */
+        void spill() throws IOException {
+            sort();
+            File run = File.createTempFile("aix", ".run");
+            runs.add(run);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Spilling " + size + " sorted " + name + " values to " + run);
+            }
+            try (DataOutputStream os =
+                    new DataOutputStream(
+                            new BufferedOutputStream(
+                                    new FileOutputStream(run), WRITE_BUFFER_SIZE))) {
+                for (int i = 0; i < size; i++) {
+                    writeKey(i, os);
+                    os.writeInt(recnos[i]);
+                    os.writeInt(offsets[i]);
+                }
+            }
+            size = 0;
+        }
+
+        /** Sorts the in memory values and returns them along with the spilled runs */
+        List<SortedRun> openRuns() throws IOException {
+            sort();
+            List<SortedRun> sources = new ArrayList<>();
+            try {
+                if (size > 0) {
+                    sources.add(new MemoryRun(this));
+                }
+                for (File run : runs) {
+                    sources.add(new FileRun(this, run));
+                }
+            } catch (IOException e) {
+                for (SortedRun source : sources) {
+                    source.close();
+                }
+                throw e;
+            }
+            return sources;
+        }
+
+        /** Releases the temporary files and memory buffers */
+        void dispose() {
+            for (File run : runs) {
+                if (!run.delete()) {
+                    run.deleteOnExit();
+                }
+            }
+            runs.clear();
+            recnos = new int[0];
+            offsets = new int[0];
+            grow(0);
+            size = 0;
+        }
+
+        /** In place heap sort, no extra memory and no recursion */
+        void sort() {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i, size);
+            }
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int root, int end) {
+            while (true) {
+                int child = root * 2 + 1;
+                if (child >= end) {
+                    return;
+                }
+                if (child + 1 < end && compare(child, child + 1) < 0) {
+                    child++;
+                }
+                if (compare(root, child) >= 0) {
+                    return;
+                }
+                swap(root, child);
+                root = child;
+            }
+        }
+    }
+
+    static class MemoryRun extends SortedRun {
+        Column column;
+
+        int index;
+
+        MemoryRun(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        boolean next() {
+            if (index >= column.size) {
+                return false;
+            }
+            recno = column.recnos[index];
+            offset = column.offsets[index];
+            column.loadKey(index, this);
+            index++;
+            return true;
+        }
+    }
+
+    static class FileRun extends SortedRun {
+        Column column;
+
+        DataInputStream is;
+
+        FileRun(Column column, File file) throws IOException {
+            this.column = column;
+            is =
+                    new DataInputStream(
+                            new BufferedInputStream(new FileInputStream(file), WRITE_BUFFER_SIZE));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            try {
+                column.readKey(is, this);
+            } catch (EOFException e) {
+                return false;
+            }
+            recno = is.readInt();
+            offset = is.readInt();
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            is.close();
+        }
+    }
+
+    static class NumericColumn extends Column {
+        double[] keys;
+
+        NumericColumn(String name, int capacity) {
+            super(name, capacity);
+            keys = new double[capacity];
+        }
+
+        @Override
+        int type() {
+            return AttributeIndex.NUMERIC;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Number;
+        }
+
+        @Override
+        int width() {
+            return 0;
+        }
+
+        @Override
+        void grow(int newSize) {
+            keys = Arrays.copyOf(keys, newSize);
+        }
+
+        @Override
+        void setKey(int i, Object value) {
+            keys[i] = ((Number) value).doubleValue();
+        }
+
+        void add(int recno, int offset, double value) throws IOException {
+            ensureCapacity();
+            recnos[size] = recno;
+            offsets[size] = offset;
+            keys[size] = value;
+            size++;
+            count++;
+        }
+
+        @Override
+        int compareKeys(int i, int j) {
+            return Double.compare(keys[i], keys[j]);
+        }
+
+        @Override
+        void swapKeys(int i, int j) {
+            double tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        @Override
+        void loadKey(int i, SortedRun run) {
+            run.number = keys[i];
+        }
+
+        @Override
+        void writeKey(int i, DataOutputStream os) throws IOException {
+            os.writeDouble(keys[i]);
+        }
+
+        @Override
+        void readKey(DataInputStream is, SortedRun run) throws IOException {
+            run.number = is.readDouble();
+        }
+
+        @Override
+        int compareKeys(SortedRun a, SortedRun b) {
+            return Double.compare(a.number, b.number);
+        }
+
+        @Override
+        void writeKey(SortedRun run, ByteBuffer buffer) {
+            buffer.putDouble(run.number);
+        }
+    }
+
+    static class StringColumn extends Column {
+        int width;
+
+        /** The key chars, "width" chars per value, padded with zeroes */
+        char[] keys;
+
+        StringColumn(String name, int width, int capacity) {
+            super(name, capacity);
+            this.width = width;
+            keys = new char[capacity * width];
+        }
+
+        @Override
+        int type() {
+            return AttributeIndex.STRING;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        int width() {
+            return width;
+        }
+
+        @Override
+        void grow(int newSize) {
+            keys = Arrays.copyOf(keys, newSize * width);
+        }
+
+        @Override
+        void setKey(int i, Object value) {
+            String s = value.toString();
+            int length = Math.min(s.length(), width);
+            s.getChars(0, length, keys, i * width);
+            Arrays.fill(keys, i * width + length, (i + 1) * width, (char) 0);
+        }
+
+        @Override
+        int compareKeys(int i, int j) {
+            return compareChars(keys, i * width, keys, j * width);
+        }
+
+        private int compareChars(char[] a, int pa, char[] b, int pb) {
+            for (int k = 0; k < width; k++) {
+                char ca = a[pa + k];
+                char cb = b[pb + k];
+                if (ca != cb) {
+                    // zero padding sorts before any char, as a shorter string would
+                    return ca - cb;
+                }
+                if (ca == 0) {
+                    return 0;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        void swapKeys(int i, int j) {
+            int pi = i * width;
+            int pj = j * width;
+            for (int k = 0; k < width; k++) {
+                char tmp = keys[pi + k];
+                keys[pi + k] = keys[pj + k];
+                keys[pj + k] = tmp;
+            }
+        }
+
+        private char[] runChars(SortedRun run) {
+            if (run.chars == null) {
+                run.chars = new char[width];
+            }
+            return run.chars;
+        }
+
+        @Override
+        void loadKey(int i, SortedRun run) {
+            System.arraycopy(keys, i * width, runChars(run), 0, width);
+        }
+
+        @Override
+        void writeKey(int i, DataOutputStream os) throws IOException {
+            int p = i * width;
+            for (int k = 0; k < width; k++) {
+                os.writeChar(keys[p + k]);
+            }
+        }
+
+        @Override
+        void readKey(DataInputStream is, SortedRun run) throws IOException {
+            char[] chars = runChars(run);
+            for (int k = 0; k < width; k++) {
+                chars[k] = is.readChar();
+            }
+        }
+
+        @Override
+        int compareKeys(SortedRun a, SortedRun b) {
+            return compareChars(a.chars, 0, b.chars, 0);
+        }
+
+        @Override
+        void writeKey(SortedRun run, ByteBuffer buffer) {
+            char[] chars = run.chars;
+            for (int k = 0; k < width; k++) {
+                buffer.putChar(chars[k]);
+            }
+        }
+    }
+}
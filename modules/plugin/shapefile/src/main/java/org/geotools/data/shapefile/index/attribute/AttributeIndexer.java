@@ -0,0 +1,136 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index.attribute;
+
+import static org.geotools.data.shapefile.files.ShpFileType.AIX;
+import static org.geotools.data.shapefile.files.ShpFileType.SHP;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.logging.Logger;
+import org.geotools.data.shapefile.dbf.DbaseFileHeader;
+import org.geotools.data.shapefile.dbf.DbaseFileReader;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.files.StorageFile;
+import org.geotools.data.shapefile.shp.IndexFile;
+
+/** Creates a .aix file (attribute index) for a set of dbf columns. */
+public class AttributeIndexer {
+    static Logger LOGGER = org.geotools.util.logging.Logging.getLogger(AttributeIndexer.class);
+
+    /**
+     * Returns true if the specified dbf column can be indexed, that is, if it's a character or
+     * numeric one
+     */
+    public static boolean isIndexable(DbaseFileHeader header, int column) {
+        char type = Character.toUpperCase(header.getFieldType(column));
+        return type == 'C' || type == 'N' || type == 'F';
+    }
+
+    /**
+     * Generates the attribute index file for the specified columns of the shpFiles
+     *
+     * @param shpFiles The shapefile
+     * @param charset The dbf charset
+     * @param attributes The names of the dbf columns to be indexed
+     */
+    public static void generate(ShpFiles shpFiles, Charset charset, List<String> attributes)
+            throws IOException {
+        LOGGER.fine("Generating attribute index on " + attributes + " for " + shpFiles.get(SHP));
+
+        StorageFile storage = shpFiles.getStorageFile(AIX);
+        DbaseFileReader dbf = null;
+        IndexFile shx = null;
+        AttributeIndexBuilder builder = null;
+        try {
+            dbf = new DbaseFileReader(shpFiles, false, charset);
+            shx = new IndexFile(shpFiles, false);
+
+            DbaseFileHeader header = dbf.getHeader();
+            int numRecords = header.getNumRecords();
+            builder = new AttributeIndexBuilder(numRecords);
+            int[] fields = new int[attributes.size()];
+            int[] columns = new int[attributes.size()];
+            boolean[] numeric = new boolean[attributes.size()];
+            for (int i = 0; i < attributes.size(); i++) {
+                String name = attributes.get(i);
+                fields[i] = getFieldIndex(header, name);
+                if (Character.toUpperCase(header.getFieldType(fields[i])) == 'C') {
+                    columns[i] = builder.addStringColumn(name, header.getFieldLength(fields[i]));
+                } else {
+                    columns[i] = builder.addNumericColumn(name);
+                    numeric[i] = true;
+                }
+            }
+            dbf.setProjection(fields);
+
+            int records = Math.min(numRecords, shx.getRecordCount());
+            for (int recno = 0; recno < records; recno++) {
+                DbaseFileReader.Row row = dbf.readRow();
+                if (row.isDeleted()) {
+                    continue;
+                }
+                int offset = shx.getOffsetInBytes(recno);
+                for (int i = 0; i < fields.length; i++) {
+                    if (numeric[i]) {
+                        builder.add(columns[i], recno, offset, row.getDouble(fields[i]));
+                    } else {
+                        builder.add(columns[i], recno, offset, row.read(fields[i]));
+                    }
+                }
+            }
+
+            builder.build(storage.getFile());
+        } finally {
+            try {
+                if (dbf != null) {
+                    dbf.close();
+                }
+            } finally {
+                try {
+                    if (shx != null) {
+                        shx.close();
+                    }
+                } finally {
+                    // drops the sorted runs spilled to disk, if the build did not get to it
+                    if (builder != null) {
+                        builder.dispose();
+                    }
+                }
+            }
+        }
+        storage.replaceOriginal();
+    }
+
+    private static int getFieldIndex(DbaseFileHeader header, String name) {
+        for (int i = 0; i < header.getNumFields(); i++) {
+            if (header.getFieldName(i).equals(name)) {
+                if (!isIndexable(header, i)) {
+                    throw new IllegalArgumentException(
+                            "Column "
+                                    + name
+                                    + " of type "
+                                    + header.getFieldType(i)
+                                    + " cannot be indexed, only character and numeric columns can");
+                }
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + name + " not found in the dbf file");
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index.rtree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import org.geotools.data.CloseableIterator;
+import org.geotools.data.shapefile.index.Data;
+import org.geotools.data.shapefile.index.DataDefinition;
+import org.geotools.data.shapefile.index.TreeException;
+import org.geotools.util.NIOUtilities;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A static, Hilbert sorted, packed R-tree stored in a single memory mapped file (the .prx
+ * sidecar). The file is laid out as follows, all values being little endian:
+ *
+ * <ul>
+ *   <li>A {@link #HEADER_SIZE} bytes header with the magic number, the format version, the node
+ *       size, the number of indexed items and the bounds of the tree
+ *   <li>The node boxes, 4 doubles each, leaves first (in Hilbert order), then each upper level up
+ *       to the root, which is the last node
+ *   <li>The node indices, one int each, holding the shapefile record number for leaves and the
+ *       position of the first child for the other nodes
+ *   <li>The leaf .shp byte offsets, one int each, so that no .shx lookup is needed at query time
+ * </ul>
+ *
+ * Each node is packed with up to "node size" children, so a bbox query only touches the few pages
+ * covering the path from the root to the matching leaves.
+ */
+public class PackedRTree {
+
+    /** The magic number at the beginning of the file, "GTPR" */
+    static final int MAGIC = 0x52505447;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    static final int BOX_SIZE = 32;
+
+    /** Max size of a mapped chunk, a multiple of all the value sizes stored in the file */
+    static final long CHUNK_SIZE = 1 << 30;
+
+    /** The max number of record numbers sorted and returned in a single search batch */
+    static final int MAX_BATCH = 32768;
+
+    static final DataDefinition DATA_DEFINITION = new DataDefinition("US-ASCII");
+
+    static {
+        DATA_DEFINITION.addField(Integer.class);
+        DATA_DEFINITION.addField(Long.class);
+    }
+
+    int nodeSize;
+
+    int numItems;
+
+    int numNodes;
+
+    int[] levelBounds;
+
+    Envelope bounds;
+
+    MappedByteBuffer[] chunks;
+
+    long indicesStart;
+
+    long offsetsStart;
+
+    /**
+     * Opens the specified packed R-tree file
+     *
+     * @param file The .prx file
+     * @throws IOException If the file cannot be read, or is not a valid packed R-tree
+     */
+    public PackedRTree(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            int numChunks = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            chunks = new MappedByteBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                long position = i * CHUNK_SIZE;
+                long length = Math.min(CHUNK_SIZE, size - position);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (size < HEADER_SIZE || getInt(0) != MAGIC) {
+                close();
+                throw new IOException(file + " is not a packed R-tree index");
+            }
+            if (getInt(4) != VERSION) {
+                close();
+                throw new IOException("Unsupported packed R-tree version " + getInt(4));
+            }
+            nodeSize = getInt(8);
+            numItems = getInt(12);
+            bounds = new Envelope(getDouble(16), getDouble(32), getDouble(24), getDouble(40));
+            levelBounds = computeLevelBounds(numItems, nodeSize);
+            numNodes = levelBounds.length > 0 ? levelBounds[levelBounds.length - 1] : 0;
+            indicesStart = HEADER_SIZE + (long) numNodes * BOX_SIZE;
+            offsetsStart = indicesStart + (long) numNodes * 4;
+            if (size < offsetsStart + (long) numItems * 4) {
+                close();
+                throw new IOException(file + " is truncated");
+            }
+        }
+    }
+
+    /**
+     * Computes the end position (exclusive) of each level of the tree, from the leaves up to the
+     * root
+     */
+    static int[] computeLevelBounds(int numItems, int nodeSize) {
+        if (numItems == 0) {
+            return new int[0];
+        }
+        int[] result = new int[32];
+        int levels = 0;
+        int n = numItems;
+        int numNodes = n;
+        result[levels++] = numNodes;
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            numNodes += n;
+            result[levels++] = numNodes;
+        } while (n != 1);
+        return Arrays.copyOf(result, levels);
+    }
+
+    /** Returns the bounds of all the indexed shapes */
+    public Envelope getBounds() {
+        return bounds;
+    }
+
+    /** Returns the number of indexed shapes */
+    public int getNumItems() {
+        return numItems;
+    }
+
+    int getInt(long position) {
+        return chunks[(int) (position / CHUNK_SIZE)].getInt((int) (position % CHUNK_SIZE));
+    }
+
+    double getDouble(long position) {
+        return chunks[(int) (position / CHUNK_SIZE)].getDouble((int) (position % CHUNK_SIZE));
+    }
+
+    boolean intersects(int node, Envelope env) {
+        long position = HEADER_SIZE + (long) node * BOX_SIZE;
+        return getDouble(position) <= env.getMaxX()
+                && getDouble(position + 8) <= env.getMaxY()
+                && getDouble(position + 16) >= env.getMinX()
+                && getDouble(position + 24) >= env.getMinY();
+    }
+
+    /**
+     * Returns the records whose bounding box intersects the specified envelope. The record numbers
+     * are returned in ascending order within batches of {@link #MAX_BATCH} records, to make the
+     * subsequent .shp and .dbf reads as sequential as possible
+     */
+    public CloseableIterator<Data> search(Envelope env) {
+        return new SearchIterator(env);
+    }
+
+    /** Releases the memory mapped buffers */
+    public void close() {
+        if (chunks != null) {
+            for (MappedByteBuffer chunk : chunks) {
+                if (chunk != null) {
+                    NIOUtilities.clean(chunk, true);
+                }
+            }
+            chunks = null;
+        }
+    }
+
+    /** Lazy depth first search, collecting the hits in sorted batches */
+    class SearchIterator implements CloseableIterator<Data> {
+
+        Envelope env;
+
+        /** Pairs of node position and level still to be visited */
+        int[] stack = new int[64];
+
+        int stackSize;
+
+        long[] hits = new long[64];
+
+        int hitCount;
+
+        int hitIndex;
+
+        SearchIterator(Envelope env) {
+            this.env = env;
+            if (numNodes > 0) {
+                push(numNodes - 1, levelBounds.length - 1);
+            }
+        }
+
+        void push(int node, int level) {
+            if (stackSize + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[stackSize++] = node;
+            stack[stackSize++] = level;
+        }
+
+        void fillBatch() {
+            hitCount = 0;
+            hitIndex = 0;
+            while (stackSize > 0 && hitCount < MAX_BATCH) {
+                int level = stack[--stackSize];
+                int nodeIndex = stack[--stackSize];
+                int end = Math.min(nodeIndex + nodeSize, levelBounds[level]);
+                for (int pos = nodeIndex; pos < end; pos++) {
+                    if (!intersects(pos, env)) {
+                        continue;
+                    }
+                    int index = getInt(indicesStart + pos * 4L);
+                    if (level == 0) {
+                        int offset = getInt(offsetsStart + pos * 4L);
+                        if (hitCount == hits.length) {
+                            hits = Arrays.copyOf(hits, hits.length * 2);
+                        }
+                        hits[hitCount++] = ((long) index << 32) | (offset & 0xFFFFFFFFL);
+                    } else {
+                        push(index, level - 1);
+                    }
+                }
+            }
+            // sort by record number, so that the reads are as sequential as possible
+            Arrays.sort(hits, 0, hitCount);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (chunks == null) {
+                throw new IllegalStateException("Index has been closed");
+            }
+            if (hitIndex < hitCount) {
+                return true;
+            }
+            if (stackSize > 0) {
+                fillBatch();
+            }
+            return hitIndex < hitCount;
+        }
+
+        @Override
+        public Data next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements available");
+            }
+            long hit = hits[hitIndex++];
+            try {
+                Data data = new Data(DATA_DEFINITION);
+                data.addValue(Integer.valueOf((int) (hit >>> 32) + 1));
+                data.addValue(Long.valueOf(hit & 0xFFFFFFFFL));
+                return data;
+            } catch (TreeException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            PackedRTree.this.close();
+        }
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.index.rtree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.shapefile.index.HilbertCurve;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Builds a {@link PackedRTree} file out of a stream of shapes. The shapes are sorted along a
+ * Hilbert curve using an external merge sort, keeping at most a given number of shapes in memory
+ * and spilling sorted runs to temporary files, and the tree is then written bottom up in a single
+ * pass over the sorted shapes.
+ */
+public class PackedRTreeBuilder {
+
+    static final Logger LOGGER = Logging.getLogger(PackedRTreeBuilder.class);
+
+    /** The default number of children per node */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    /** The default number of shapes sorted in memory before spilling to disk */
+    public static final int DEFAULT_MAX_ITEMS_IN_MEMORY = 1024 * 1024;
+
+    static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    Envelope bounds;
+
+    int nodeSize;
+
+    int maxItemsInMemory;
+
+    HilbertCurve curve;
+
+    // the in memory run, the keys hold the hilbert position and the position in the run
+    long[] keys;
+
+    int[] recnos;
+
+    int[] offsets;
+
+    double[] boxes;
+
+    int size;
+
+    int totalItems;
+
+    List<File> runs = new ArrayList<>();
+
+    /**
+     * Creates a builder with the default node size and memory usage
+     *
+     * @param bounds The bounds of the shapefile
+     */
+    public PackedRTreeBuilder(Envelope bounds) {
+        this(bounds, DEFAULT_NODE_SIZE, DEFAULT_MAX_ITEMS_IN_MEMORY);
+    }
+
+    /**
+     * Creates a builder
+     *
+     * @param bounds The bounds of the shapefile
+     * @param nodeSize The number of children per node
+     * @param maxItemsInMemory The max number of shapes sorted in memory before spilling a sorted
+     *     run to disk
+     */
+    public PackedRTreeBuilder(Envelope bounds, int nodeSize, int maxItemsInMemory) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2");
+        }
+        if (maxItemsInMemory < 1) {
+            throw new IllegalArgumentException("Max items in memory must be positive");
+        }
+        this.bounds = bounds;
+        this.nodeSize = nodeSize;
+        this.maxItemsInMemory = maxItemsInMemory;
+        this.curve = new HilbertCurve(bounds);
+        int initial = Math.min(maxItemsInMemory, 1024);
+        keys = new long[initial];
+        recnos = new int[initial];
+        offsets = new int[initial];
+        boxes = new double[initial * 4];
+    }
+
+    /**
+     * Adds a shape to the index
+     *
+     * @param recno The zero based record number
+     * @param offset The byte offset of the record in the .shp file
+     */
+    public void add(int recno, int offset, double minX, double minY, double maxX, double maxY)
+            throws IOException {
+        if (size == maxItemsInMemory) {
+            spill();
+        }
+        if (size == keys.length) {
+            int newSize = (int) Math.min((long) keys.length * 2, maxItemsInMemory);
+            keys = Arrays.copyOf(keys, newSize);
+            recnos = Arrays.copyOf(recnos, newSize);
+            offsets = Arrays.copyOf(offsets, newSize);
+            boxes = Arrays.copyOf(boxes, newSize * 4);
+        }
+        long hilbert = curve.position(minX, minY, maxX, maxY);
+        // flip the sign bit so that the signed sort follows the unsigned hilbert order
+        keys[size] = ((hilbert << 32) | size) ^ Long.MIN_VALUE;
+        recnos[size] = recno;
+        offsets[size] = offset;
+        boxes[size * 4] = minX;
+        boxes[size * 4 + 1] = minY;
+        boxes[size * 4 + 2] = maxX;
+        boxes[size * 4 + 3] = maxY;
+        size++;
+        totalItems++;
+    }
+
+    /** Sorts the in memory shapes and writes them to a temporary run file */
+    void spill() throws IOException {
+        Arrays.sort(keys, 0, size);
+        File run = File.createTempFile("prx", ".run");
+        runs.add(run);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Spilling " + size + " sorted shapes to " + run);
+        }
+        try (DataOutputStream os =
+                new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(run), WRITE_BUFFER_SIZE))) {
+            for (int i = 0; i < size; i++) {
+                long key = keys[i] ^ Long.MIN_VALUE;
+                int idx = (int) key;
+                os.writeInt((int) (key >>> 32));
+                os.writeInt(recnos[idx]);
+                os.writeInt(offsets[idx]);
+                os.writeDouble(boxes[idx * 4]);
+                os.writeDouble(boxes[idx * 4 + 1]);
+                os.writeDouble(boxes[idx * 4 + 2]);
+                os.writeDouble(boxes[idx * 4 + 3]);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Writes the packed R-tree to the specified file, and releases the temporary files
+     *
+     * @return The number of indexed shapes
+     */
+    public int build(File file) throws IOException {
+        List<SortedRun> sources = new ArrayList<>();
+        try {
+            Arrays.sort(keys, 0, size);
+            if (size > 0) {
+                sources.add(new MemoryRun());
+            }
+            for (File run : runs) {
+                sources.add(new FileRun(run));
+            }
+            PriorityQueue<SortedRun> queue = new PriorityQueue<>(Math.max(1, sources.size()));
+            for (SortedRun source : sources) {
+                if (source.next()) {
+                    queue.add(source);
+                }
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                    FileChannel channel = raf.getChannel()) {
+                channel.truncate(0);
+                TreeWriter writer = new TreeWriter(channel);
+                while (!queue.isEmpty()) {
+                    SortedRun source = queue.poll();
+                    writer.addLeaf(source);
+                    if (source.next()) {
+                        queue.add(source);
+                    }
+                }
+                writer.finish();
+            }
+
+            return totalItems;
+        } finally {
+            for (SortedRun source : sources) {
+                source.close();
+            }
+            dispose();
+        }
+    }
+
+    /** Releases the temporary files and memory buffers */
+    public void dispose() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                run.deleteOnExit();
+            }
+        }
+        runs.clear();
+        keys = null;
+        recnos = null;
+        offsets = null;
+        boxes = null;
+        size = 0;
+    }
+
+    /** A sorted run of shapes, either in memory or spilled to disk */
+    abstract static class SortedRun implements Comparable<SortedRun> {
+        long hilbert;
+
+        int recno;
+
+        int offset;
+
+        double minX, minY, maxX, maxY;
+
+        /** Moves to the next shape, returns false if the run is exhausted */
+        abstract boolean next() throws IOException;
+
+        void close() throws IOException {
+            // nothing to do by default
+        }
+
+        @Override
+        public int compareTo(SortedRun other) {
+            int result = Long.compare(hilbert, other.hilbert);
+            if (result == 0) {
+                result = Integer.compare(recno, other.recno);
+            }
+            return result;
+        }
+    }
+
+    class MemoryRun extends SortedRun {
+        int index;
+
+        @Override
+        boolean next() {
+            if (index >= size) {
+                return false;
+            }
+            long key = keys[index++] ^ Long.MIN_VALUE;
+            int idx = (int) key;
+            hilbert = key >>> 32;
+            recno = recnos[idx];
+            offset = offsets[idx];
+            minX = boxes[idx * 4];
+            minY = boxes[idx * 4 + 1];
+            maxX = boxes[idx * 4 + 2];
+            maxY = boxes[idx * 4 + 3];
+            return true;
+        }
+    }
+
+    static class FileRun extends SortedRun {
+        DataInputStream is;
+
+        FileRun(File file) throws IOException {
+            is =
+                    new DataInputStream(
+                            new BufferedInputStream(new FileInputStream(file), WRITE_BUFFER_SIZE));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            try {
+                hilbert = is.readInt() & 0xFFFFFFFFL;
+            } catch (EOFException e) {
+                return false;
+            }
+            recno = is.readInt();
+            offset = is.readInt();
+            minX = is.readDouble();
+            minY = is.readDouble();
+            maxX = is.readDouble();
+            maxY = is.readDouble();
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            is.close();
+        }
+    }
+
+    /**
+     * Writes the tree levels bottom up. Each level keeps its own buffered writers, the parent nodes
+     * are accumulated as the children come in, and emitted as soon as they are full
+     */
+    class TreeWriter {
+        FileChannel channel;
+
+        int[] levelBounds;
+
+        long indicesStart;
+
+        long offsetsStart;
+
+        RegionWriter[] boxWriters;
+
+        RegionWriter[] indexWriters;
+
+        RegionWriter offsetWriter;
+
+        /** Nodes written so far for each level */
+        int[] levelCounts;
+
+        /** Children accumulated so far for each level, and their union box */
+        int[] childCounts;
+
+        int[] firstChild;
+
+        double[][] levelBoxes;
+
+        TreeWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            levelBounds = PackedRTree.computeLevelBounds(totalItems, nodeSize);
+            int levels = levelBounds.length;
+            int numNodes = levels > 0 ? levelBounds[levels - 1] : 0;
+            indicesStart = PackedRTree.HEADER_SIZE + (long) numNodes * PackedRTree.BOX_SIZE;
+            offsetsStart = indicesStart + (long) numNodes * 4;
+
+            boxWriters = new RegionWriter[levels];
+            indexWriters = new RegionWriter[levels];
+            for (int i = 0; i < levels; i++) {
+                int levelStart = i == 0 ? 0 : levelBounds[i - 1];
+                long boxStart = PackedRTree.HEADER_SIZE + (long) levelStart * PackedRTree.BOX_SIZE;
+                boxWriters[i] = new RegionWriter(channel, boxStart);
+                indexWriters[i] = new RegionWriter(channel, indicesStart + (long) levelStart * 4);
+            }
+            offsetWriter = new RegionWriter(channel, offsetsStart);
+            levelCounts = new int[levels];
+            childCounts = new int[levels];
+            firstChild = new int[levels];
+            levelBoxes = new double[levels][4];
+
+            writeHeader();
+        }
+
+        void writeHeader() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(PackedRTree.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(PackedRTree.MAGIC);
+            header.putInt(PackedRTree.VERSION);
+            header.putInt(nodeSize);
+            header.putInt(totalItems);
+            header.putDouble(bounds.getMinX());
+            header.putDouble(bounds.getMinY());
+            header.putDouble(bounds.getMaxX());
+            header.putDouble(bounds.getMaxY());
+            header.position(0);
+            channel.write(header, 0);
+        }
+
+        void addLeaf(SortedRun leaf) throws IOException {
+            offsetWriter.putInt(leaf.offset);
+            addNode(0, leaf.recno, leaf.minX, leaf.minY, leaf.maxX, leaf.maxY);
+        }
+
+        /** Writes a node in the specified level, and accumulates it in its parent */
+        void addNode(int level, int index, double minX, double minY, double maxX, double maxY)
+                throws IOException {
+            boxWriters[level].putBox(minX, minY, maxX, maxY);
+            indexWriters[level].putInt(index);
+            int position = (level == 0 ? 0 : levelBounds[level - 1]) + levelCounts[level];
+            levelCounts[level]++;
+
+            int parent = level + 1;
+            if (parent >= levelBounds.length) {
+                // this was the root
+                return;
+            }
+            double[] box = levelBoxes[parent];
+            if (childCounts[parent] == 0) {
+                firstChild[parent] = position;
+                box[0] = minX;
+                box[1] = minY;
+                box[2] = maxX;
+                box[3] = maxY;
+            } else {
+                box[0] = Math.min(box[0], minX);
+                box[1] = Math.min(box[1], minY);
+                box[2] = Math.max(box[2], maxX);
+                box[3] = Math.max(box[3], maxY);
+            }
+            childCounts[parent]++;
+            if (childCounts[parent] == nodeSize) {
+                flushParent(parent);
+            }
+        }
+
+        void flushParent(int level) throws IOException {
+            double[] box = levelBoxes[level];
+            childCounts[level] = 0;
+            addNode(level, firstChild[level], box[0], box[1], box[2], box[3]);
+        }
+
+        void finish() throws IOException {
+            // emit the partially filled nodes, bottom up so that they propagate to the root
+            for (int level = 1; level < levelBounds.length; level++) {
+                if (childCounts[level] > 0) {
+                    flushParent(level);
+                }
+            }
+            for (int level = 0; level < levelBounds.length; level++) {
+                boxWriters[level].flush();
+                indexWriters[level].flush();
+            }
+            offsetWriter.flush();
+        }
+    }
+
+    /** Buffers the writes to a contiguous region of the output file */
+    static class RegionWriter {
+        FileChannel channel;
+
+        ByteBuffer buffer;
+
+        long position;
+
+        RegionWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void ensureCapacity(int bytes) throws IOException {
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putInt(int value) throws IOException {
+            ensureCapacity(4);
+            buffer.putInt(value);
+        }
+
+        void putBox(double minX, double minY, double maxX, double maxY) throws IOException {
+            ensureCapacity(PackedRTree.BOX_SIZE);
+            buffer.putDouble(minX);
+            buffer.putDouble(minY);
+            buffer.putDouble(maxX);
+            buffer.putDouble(maxY);
+        }
+
+        void flush() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -17,10 +17,8 @@
 package org.geotools.data.shapefile.shp;
 
 import java.nio.ByteBuffer;
-import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import org.geotools.geometry.jts.JTS;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -126,13 +124,10 @@ public class MultiLineHandler implements ShapeHandler {
         for (int i = 0; i < numParts; i++) {
             partOffsets[i] = buffer.getInt();
         }
-        // read the first two coordinates and start building the coordinate
-        // sequences
+        ShapeCoordinates coords = new ShapeCoordinates(buffer, numPoints, dimensions == 3);
         CoordinateSequence[] lines = new CoordinateSequence[numParts];
         int finish, start = 0;
         int length = 0;
-        boolean clonePoint = false;
-        final DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
         for (int part = 0; part < numParts; part++) {
             start = partOffsets[part];
 
@@ -143,61 +138,13 @@ public class MultiLineHandler implements ShapeHandler {
             }
 
             length = finish - start;
-            int xyLength = length;
-            if (length == 1) {
-                length = 2;
-                clonePoint = true;
-            } else {
-                clonePoint = false;
-            }
-
-            CoordinateSequence cs =
-                    JTS.createCS(
-                            geometryFactory.getCoordinateSequenceFactory(), length, dimensions);
-            double[] xy = new double[xyLength * 2];
-            doubleBuffer.get(xy);
-            for (int i = 0; i < xyLength; i++) {
-                cs.setOrdinate(i, 0, xy[i * 2]);
-                cs.setOrdinate(i, 1, xy[i * 2 + 1]);
-            }
-
-            if (clonePoint) {
-                cs.setOrdinate(1, 0, cs.getOrdinate(0, 0));
-                cs.setOrdinate(1, 1, cs.getOrdinate(0, 1));
-            }
-
-            lines[part] = cs;
-        }
-
-        // if we have another coordinate, read and add to the coordinate
-        // sequences
-        if (dimensions == 3) {
-            // z min, max
-            // buffer.position(buffer.position() + 2 * 8);
-            doubleBuffer.position(doubleBuffer.position() + 2);
-            for (int part = 0; part < numParts; part++) {
-                start = partOffsets[part];
-
-                if (part == (numParts - 1)) {
-                    finish = numPoints;
-                } else {
-                    finish = partOffsets[part + 1];
-                }
-
-                length = finish - start;
-                if (length == 1) {
-                    length = 2;
-                    clonePoint = true;
-                } else {
-                    clonePoint = false;
-                }
-
-                double[] z = new double[length];
-                doubleBuffer.get(z);
-                for (int i = 0; i < length; i++) {
-                    lines[part].setOrdinate(i, 2, z[i]);
-                }
-            }
+            // a single point is cloned to build a valid line string
+            lines[part] =
+                    coords.toSequence(
+                            geometryFactory.getCoordinateSequenceFactory(),
+                            start,
+                            length,
+                            length == 1 ? 2 : length);
         }
 
         // Prepare line strings and return the multilinestring
@@ -17,19 +17,18 @@
 package org.geotools.data.shapefile.shp;
 
 import java.nio.ByteBuffer;
-import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import org.geotools.geometry.jts.JTS;
 import org.geotools.geometry.jts.coordinatesequence.CoordinateSequences;
-import org.locationtech.jts.algorithm.CGAlgorithms;
+import org.locationtech.jts.algorithm.RayCrossingCounter;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Polygon;
 
@@ -65,6 +64,22 @@ public class PolygonHandler implements ShapeHandler {
         this.geometryFactory = gf;
     }
 
+    // returns true if testPoint is a point in the pointList sequence.
+    boolean pointInList(Coordinate testPoint, CoordinateSequence pointList) {
+        for (int t = pointList.size() - 1; t >= 0; t--) {
+            // nan test; x!=x iff x is nan
+            if ((testPoint.x == pointList.getX(t))
+                    && (testPoint.y == pointList.getY(t))
+                    && (!(testPoint.z == testPoint.z)
+                            || (pointList.getDimension() > 2
+                                    && testPoint.z == pointList.getOrdinate(t, 2)))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     // returns true if testPoint is a point in the pointList list.
     boolean pointInList(Coordinate testPoint, Coordinate[] pointList) {
         Coordinate p;
@@ -140,9 +155,8 @@ public class PolygonHandler implements ShapeHandler {
 
         ArrayList shells = new ArrayList();
         ArrayList holes = new ArrayList();
-        CoordinateSequence coords = readCoordinates(buffer, numPoints, dimensions);
+        ShapeCoordinates coords = new ShapeCoordinates(buffer, numPoints, dimensions == 3);
 
-        int offset = 0;
         int start;
         int finish;
         int length;
@@ -158,38 +172,16 @@ public class PolygonHandler implements ShapeHandler {
 
             length = finish - start;
             int close = 0; // '1' if the ring must be closed, '0' otherwise
-            if ((coords.getOrdinate(start, 0) != coords.getOrdinate(finish - 1, 0))
-                    || (coords.getOrdinate(start, 1) != coords.getOrdinate(finish - 1, 1))) {
+            if (!coords.equals(start, finish - 1)) {
                 close = 1;
             }
-            if (dimensions == 3) {
-                if (coords.getOrdinate(start, 2) != coords.getOrdinate(finish - 1, 2)) {
-                    close = 1;
-                }
-            }
 
             CoordinateSequence csRing =
-                    JTS.createCS(
+                    coords.toSequence(
                             geometryFactory.getCoordinateSequenceFactory(),
-                            length + close,
-                            dimensions);
-            // double area = 0;
-            // int sx = offset;
-            for (int i = 0; i < length; i++) {
-                csRing.setOrdinate(i, 0, coords.getOrdinate(offset, 0));
-                csRing.setOrdinate(i, 1, coords.getOrdinate(offset, 1));
-                if (dimensions == 3) {
-                    csRing.setOrdinate(i, 2, coords.getOrdinate(offset, 2));
-                }
-                offset++;
-            }
-            if (close == 1) {
-                csRing.setOrdinate(length, 0, coords.getOrdinate(start, 0));
-                csRing.setOrdinate(length, 1, coords.getOrdinate(start, 1));
-                if (dimensions == 3) {
-                    csRing.setOrdinate(length, 2, coords.getOrdinate(start, 2));
-                }
-            }
+                            start,
+                            length,
+                            length + close);
             // REVISIT: polygons with only 1 or 2 points are not polygons -
             // geometryFactory will bomb so we skip if we find one.
             if (csRing.size() == 0 || csRing.size() > 3) {
@@ -225,36 +217,6 @@ public class PolygonHandler implements ShapeHandler {
         }
     }
 
-    /**
-     * @param buffer
-     * @param numPoints
-     */
-    private CoordinateSequence readCoordinates(
-            final ByteBuffer buffer, final int numPoints, final int dimensions) {
-        CoordinateSequence cs =
-                JTS.createCS(geometryFactory.getCoordinateSequenceFactory(), numPoints, dimensions);
-
-        DoubleBuffer dbuffer = buffer.asDoubleBuffer();
-        double[] ordinates = new double[numPoints * 2];
-        dbuffer.get(ordinates);
-        for (int t = 0; t < numPoints; t++) {
-            cs.setOrdinate(t, 0, ordinates[t * 2]);
-            cs.setOrdinate(t, 1, ordinates[t * 2 + 1]);
-        }
-
-        if (dimensions > 2) {
-            // z
-            dbuffer.position(dbuffer.position() + 2);
-            dbuffer.get(ordinates, 0, numPoints);
-
-            for (int t = 0; t < numPoints; t++) {
-                cs.setOrdinate(t, 2, ordinates[t]);
-            }
-        }
-
-        return cs;
-    }
-
     /**
      * @param shells
      * @param holes
@@ -324,11 +286,14 @@ public class PolygonHandler implements ShapeHandler {
                     minEnv = minShell.getEnvelopeInternal();
                 }
 
+                // work on the sequence directly, packed sequences would have to allocate
+                // coordinates in getCoordinates()
                 boolean isContained = false;
-                Coordinate[] coordList = tryRing.getCoordinates();
+                CoordinateSequence coordList = tryRing.getCoordinateSequence();
 
                 if (tryEnv.contains(testEnv)
-                        && (CGAlgorithms.isPointInRing(testPt, coordList)
+                        && (RayCrossingCounter.locatePointInRing(testPt, coordList)
+                                        != Location.EXTERIOR
                                 || (pointInList(testPt, coordList)))) {
                     isContained = true;
                 }
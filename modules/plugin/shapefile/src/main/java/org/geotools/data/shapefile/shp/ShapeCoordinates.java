@@ -0,0 +1,123 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.shp;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import org.geotools.geometry.jts.JTS;
+import org.geotools.geometry.jts.LiteCoordinateSequenceFactory;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * The ordinates of a multi part shape, read in flat arrays straight from the record buffer. The
+ * coordinate sequences of the parts are built out of the arrays, packed coordinate sequence
+ * factories get the ordinates handed over as a packed array, avoiding the allocation of a
+ * coordinate object per vertex.
+ */
+class ShapeCoordinates {
+
+    /** The interleaved x and y ordinates */
+    final double[] xy;
+
+    /** The z ordinates, or null if the z values have not been read */
+    final double[] z;
+
+    /**
+     * Reads the ordinates from the buffer, which must be positioned at the beginning of the x/y
+     * array of the record
+     *
+     * @param buffer The record buffer
+     * @param numPoints The number of points in the record
+     * @param readZ Whether the z values following the x/y array should be read as well
+     */
+    ShapeCoordinates(ByteBuffer buffer, int numPoints, boolean readZ) {
+        DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
+        xy = new double[numPoints * 2];
+        doubleBuffer.get(xy);
+        if (readZ) {
+            // skip z min, max
+            doubleBuffer.position(doubleBuffer.position() + 2);
+            z = new double[numPoints];
+            doubleBuffer.get(z);
+        } else {
+            z = null;
+        }
+    }
+
+    int getDimension() {
+        return z == null ? 2 : 3;
+    }
+
+    double getX(int i) {
+        return xy[i * 2];
+    }
+
+    double getY(int i) {
+        return xy[i * 2 + 1];
+    }
+
+    /** Returns true if the two points have the same ordinates */
+    boolean equals(int i, int j) {
+        return xy[i * 2] == xy[j * 2]
+                && xy[i * 2 + 1] == xy[j * 2 + 1]
+                && (z == null || z[i] == z[j]);
+    }
+
+    /**
+     * Builds the sequence of the points between start (included) and start + length (excluded),
+     * followed by size - length copies of the start point, used to close rings or to turn single
+     * points into degenerate lines
+     */
+    CoordinateSequence toSequence(
+            CoordinateSequenceFactory csFactory, int start, int length, int size) {
+        final int dimension = getDimension();
+        if (csFactory instanceof LiteCoordinateSequenceFactory
+                || csFactory instanceof PackedCoordinateSequenceFactory) {
+            double[] packed = new double[size * dimension];
+            if (z == null) {
+                System.arraycopy(xy, start * 2, packed, 0, length * 2);
+            } else {
+                for (int i = 0, j = 0; i < length; i++) {
+                    packed[j++] = xy[(start + i) * 2];
+                    packed[j++] = xy[(start + i) * 2 + 1];
+                    packed[j++] = z[start + i];
+                }
+            }
+            for (int i = length; i < size; i++) {
+                System.arraycopy(packed, 0, packed, i * dimension, dimension);
+            }
+            if (csFactory instanceof LiteCoordinateSequenceFactory) {
+                return ((LiteCoordinateSequenceFactory) csFactory).create(packed, dimension);
+            } else {
+                return ((PackedCoordinateSequenceFactory) csFactory).create(packed, dimension);
+            }
+        }
+
+        CoordinateSequence cs = JTS.createCS(csFactory, size, dimension);
+        for (int i = 0; i < size; i++) {
+            int p = start + (i < length ? i : 0);
+            cs.setOrdinate(i, 0, xy[p * 2]);
+            cs.setOrdinate(i, 1, xy[p * 2 + 1]);
+            if (z != null) {
+                cs.setOrdinate(i, 2, z[p]);
+            }
+        }
+        return cs;
+    }
+}
@@ -104,6 +104,11 @@ public class ShapefileReader implements FileReader {
         /** Fetch the shape stored in this record. */
         public Object shape() {
             if (shape == null) {
+                try {
+                    loadRecord();
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read shape record " + number, e);
+                }
                 buffer.position(start);
                 buffer.order(ByteOrder.LITTLE_ENDIAN);
                 if (type == ShapeType.NULL) {
@@ -206,6 +211,12 @@ public class ShapefileReader implements FileReader {
 
     private final Record record = new Record();
 
+    /**
+     * Size of the shape type and bounds at the beginning of a record, the only part of the record
+     * that is read before the shape is requested
+     */
+    private static final int RECORD_BOUNDS_SIZE = 36;
+
     private final boolean randomAccessEnabled;
 
     private boolean useMemoryMappedBuffer;
@@ -549,14 +560,19 @@ public class ShapefileReader implements FileReader {
         // track the record location
         int recordLength = buffer.getInt() * 2;
 
+        // with random access only the shape type and bounds are needed upfront, the rest of the
+        // record is loaded only if the shape is actually read (records not matching the target
+        // bbox are then skipped without reading them)
+        int requiredLength =
+                randomAccessEnabled ? Math.min(recordLength, RECORD_BOUNDS_SIZE) : recordLength;
         if (!buffer.isReadOnly() && !useMemoryMappedBuffer) {
             // capacity is less than required for the record
             // copy the old into the newly allocated
-            if (buffer.capacity() < recordLength + 8) {
+            if (buffer.capacity() < requiredLength + 8) {
                 this.currentOffset += buffer.position();
                 ByteBuffer old = buffer;
                 // ensure enough capacity for one more record header
-                buffer = ensureCapacity(buffer, recordLength + 8, useMemoryMappedBuffer);
+                buffer = ensureCapacity(buffer, requiredLength + 8, useMemoryMappedBuffer);
                 buffer.put(old);
                 NIOUtilities.clean(old, useMemoryMappedBuffer);
                 fill(buffer, channel);
@@ -565,7 +581,7 @@ public class ShapefileReader implements FileReader {
             // remaining is less than record length
             // compact the remaining data and read again,
             // allowing enough room for one more record header
-            if (buffer.remaining() < recordLength + 8) {
+            if (buffer.remaining() < requiredLength + 8) {
                 this.currentOffset += buffer.position();
                 buffer.compact();
                 fill(buffer, channel);
@@ -616,6 +632,41 @@ public class ShapefileReader implements FileReader {
         return record;
     }
 
+    /**
+     * Makes sure the whole current record is available in the buffer, the record might have been
+     * only partially loaded by {@link #nextRecord()}
+     */
+    private void loadRecord() throws IOException {
+        if (buffer.isReadOnly() || useMemoryMappedBuffer) {
+            return;
+        }
+        int recordStart = toFileOffset(record.start);
+        int length = record.end - recordStart;
+        if (record.start >= 0 && record.start + length <= buffer.limit()) {
+            return;
+        }
+        if (!randomAccessEnabled) {
+            throw new UnsupportedOperationException("Random Access not enabled");
+        }
+
+        FileChannel fc = (FileChannel) this.channel;
+        if (buffer.capacity() < length) {
+            int capacity = buffer.capacity();
+            while (capacity < length) {
+                capacity *= 2;
+            }
+            NIOUtilities.clean(buffer, useMemoryMappedBuffer);
+            buffer = NIOUtilities.allocate(capacity);
+        }
+        fc.position(recordStart);
+        currentOffset = recordStart;
+        buffer.position(0);
+        buffer.limit(buffer.capacity());
+        fill(buffer, fc);
+        buffer.flip();
+        record.start = 0;
+    }
+
     /**
      * Moves the reader to the specified byte offset in the file. Mind that:
      *
@@ -46,6 +46,13 @@ import org.locationtech.jts.geom.GeometryFactory;
  * @author Ian Schneider
  */
 public class ShapefileWriter {
+
+    /** Size of the shape buffer used when appending, records are written out in blocks this big */
+    static final int APPEND_SHAPE_BUFFER_SIZE = 1024 * 1024;
+
+    /** Size of the index buffer used when appending, a multiple of the shx record size */
+    static final int APPEND_INDEX_BUFFER_SIZE = 64 * 1024;
+
     FileChannel shpChannel;
     FileChannel shxChannel;
     ByteBuffer shapeBuffer;
@@ -55,6 +62,8 @@ public class ShapefileWriter {
     int offset;
     int lp;
     int cnt;
+    // when true the records are accumulated in the buffers, and drained only once they are full
+    boolean buffered;
     private StreamLogging shpLogger = new StreamLogging("SHP Channel in ShapefileWriter");
     private StreamLogging shxLogger = new StreamLogging("SHX Channel in ShapefileWriter");
     private GeometryFactory gf = new GeometryFactory();
@@ -91,11 +100,14 @@ public class ShapefileWriter {
         indexBuffer = NIOUtilities.allocate(100);
     }
 
-    /** Make sure our buffer is of size. */
-    private void checkShapeBuffer(int size) {
-        if (shapeBuffer.capacity() < size) {
-            if (shapeBuffer != null) NIOUtilities.clean(shapeBuffer, false);
-            shapeBuffer = NIOUtilities.allocate(size);
+    /** Make sure our buffer has room for size more bytes, draining the pending records if needed */
+    private void checkShapeBuffer(int size) throws IOException {
+        if (shapeBuffer.remaining() < size) {
+            if (shapeBuffer.position() > 0) drain();
+            if (shapeBuffer.capacity() < size) {
+                NIOUtilities.clean(shapeBuffer, false);
+                shapeBuffer = NIOUtilities.allocate(size);
+            }
         }
     }
 
@@ -147,6 +159,8 @@ public class ShapefileWriter {
             throw new RuntimeException("unexpected Exception", se);
         }
         if (shapeBuffer == null) allocateBuffers();
+        // write down the pending records before going back to the headers
+        if (buffered) drain();
         ShapefileHeader header = new ShapefileHeader();
         header.write(
                 shapeBuffer,
@@ -187,13 +201,43 @@ public class ShapefileWriter {
         shxChannel.position(100);
     }
 
+    /**
+     * Prepares the writer to append records to an existing shapefile, positioning the channels
+     * after the last record. Records are then accumulated in large buffers and written out in
+     * blocks, instead of one by one. The headers MUST be rewritten after the last record, with the
+     * updated bounds, number of records and file length, or the file will be corrupt.
+     *
+     * @param type The shape type of the existing shapefile
+     * @param numberOfGeometries The number of records already in the shapefile
+     * @param fileLength The length of the existing shapefile (in actual bytes, NOT 16 bit words)
+     */
+    public void startAppend(ShapeType type, int numberOfGeometries, int fileLength)
+            throws IOException {
+        try {
+            handler = type.getShapeHandler(gf);
+        } catch (ShapefileException se) {
+            throw new RuntimeException("unexpected Exception", se);
+        }
+        if (indexBuffer != null) NIOUtilities.clean(indexBuffer, false);
+        if (shapeBuffer != null) NIOUtilities.clean(shapeBuffer, false);
+        shapeBuffer = NIOUtilities.allocate(APPEND_SHAPE_BUFFER_SIZE);
+        indexBuffer = NIOUtilities.allocate(APPEND_INDEX_BUFFER_SIZE);
+
+        this.type = type;
+        this.cnt = numberOfGeometries;
+        this.offset = fileLength / 2;
+        this.buffered = true;
+
+        shpChannel.position(fileLength);
+        shxChannel.position(100 + 8L * numberOfGeometries);
+    }
+
     /**
      * Write a single Geometry to this shapefile. The Geometry must be compatable with the ShapeType
      * assigned during the writing of the headers.
      */
     public void writeGeometry(Geometry g) throws IOException {
         if (shapeBuffer == null) throw new IOException("Must write headers first");
-        lp = shapeBuffer.position();
         int length;
         if (g == null) length = writeNullGeometry();
         else length = writeNonNullGeometry(g);
@@ -207,15 +251,27 @@ public class ShapefileWriter {
         indexBuffer.putInt(length);
         offset += length + 4;
 
-        drain();
-        assert (shapeBuffer.position() == 0);
+        if (!buffered) {
+            drain();
+            assert (shapeBuffer.position() == 0);
+        } else if (indexBuffer.remaining() < 8) {
+            drain();
+        }
+    }
+
+    /** Writes down the records accumulated in the buffers, if any */
+    public void flush() throws IOException {
+        if (shapeBuffer != null && (shapeBuffer.position() > 0 || indexBuffer.position() > 0)) {
+            drain();
+        }
     }
 
-    private int writeNonNullGeometry(Geometry g) {
+    private int writeNonNullGeometry(Geometry g) throws IOException {
         int length = handler.getLength(g);
 
         // must allocate enough for shape + header (2 ints)
         checkShapeBuffer(length + 8);
+        lp = shapeBuffer.position();
 
         length /= 2;
 
@@ -232,6 +288,7 @@ public class ShapefileWriter {
         // two for the headers + the null shape mark
         int length = 4;
         checkShapeBuffer(8 + length);
+        lp = shapeBuffer.position();
 
         length /= 2;
 
@@ -246,6 +303,16 @@ public class ShapefileWriter {
 
     /** Close the underlying Channels. */
     public void close() throws IOException {
+        try {
+            if (buffered && shpChannel != null && shpChannel.isOpen()) {
+                flush();
+            }
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() throws IOException {
         try {
             if (shpChannel != null && shpChannel.isOpen()) {
                 shpChannel.close();
@@ -0,0 +1,202 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import org.geotools.data.CloseableIterator;
+import org.geotools.data.Query;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.geotools.data.shapefile.index.Data;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.util.URLs;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.identity.FeatureId;
+
+public class ShapefileAppendTest extends TestCaseSupport {
+
+    static final int RECORDS = 100;
+
+    // enough to go past the append buffers a few times
+    static final int APPENDED = 40000;
+
+    File file;
+
+    ShapefileDataStore store;
+
+    SimpleFeatureType type;
+
+    @Before
+    public void setupStore() throws Exception {
+        file = getTempFile();
+        type = createPointType("value:Integer,name:String");
+        store = createShapefile(file, createFeatures(0, RECORDS, 0));
+        store.indexManager.createSpatialIndex(true);
+        store.createStatistics();
+    }
+
+    private ListFeatureCollection createFeatures(int start, int count, double offset) {
+        return createPoints(
+                type,
+                start,
+                count,
+                i -> new Object[] {point(offset + i % 10, i / 10), i, "name" + i});
+    }
+
+    private Object fileKey() throws Exception {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    @Test
+    public void testAppendInPlace() throws Exception {
+        assertTrue(store.shpFiles.exists(ShpFileType.FIX));
+        Object key = fileKey();
+
+        // the new points are out of the original bounds, the quadtree has to grow
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        List<FeatureId> fids = fs.addFeatures(createFeatures(RECORDS, APPENDED, 1000));
+        assertEquals(APPENDED, fids.size());
+        assertEquals("points." + (RECORDS + 1), fids.get(0).getID());
+        assertEquals("points." + (RECORDS + APPENDED), fids.get(APPENDED - 1).getID());
+
+        // the shapefile has not been replaced by a rewritten copy
+        if (key != null) {
+            assertEquals(key, fileKey());
+        }
+
+        // the indexes and statistics have been kept up to date
+        assertFalse(store.indexManager.isIndexStale(ShpFileType.QIX));
+        assertFalse(store.indexManager.isIndexStale(ShpFileType.FIX));
+        ShapefileStatistics statistics = store.indexManager.openStatistics();
+        assertNotNull(statistics);
+        assertEquals(RECORDS + APPENDED, statistics.count);
+        assertEquals(RECORDS + APPENDED - 1, statistics.columns.get("value").max);
+
+        ShapefileDataStore review = new ShapefileDataStore(URLs.fileToUrl(file));
+        try {
+            assertEquals(RECORDS + APPENDED, review.getFeatureSource().getCount(Query.ALL));
+            int count = 0;
+            try (SimpleFeatureIterator it = review.getFeatureSource().getFeatures().features()) {
+                while (it.hasNext()) {
+                    SimpleFeature feature = it.next();
+                    assertEquals(count, feature.getAttribute("value"));
+                    assertEquals("name" + count, feature.getAttribute("name"));
+                    assertEquals("points." + (count + 1), feature.getID());
+                    count++;
+                }
+            }
+            assertEquals(RECORDS + APPENDED, count);
+
+            // spatial queries go through the updated quadtree
+            Filter bbox = ff.bbox("", 999.5, 19.5, 1001.5, 20.5, null);
+            assertEquals(2, review.getFeatureSource().getFeatures(bbox).size());
+            Filter old = ff.bbox("", -0.5, -0.5, 0.5, 0.5, null);
+            assertEquals(1, review.getFeatureSource().getFeatures(old).size());
+
+            // fid lookups go through the updated fid index
+            Filter id = ff.id(ff.featureId("points." + (RECORDS + APPENDED)));
+            try (SimpleFeatureIterator it =
+                    review.getFeatureSource().getFeatures(id).features()) {
+                SimpleFeature feature = it.next();
+                assertEquals(RECORDS + APPENDED - 1, feature.getAttribute("value"));
+                assertEquals(
+                        1000 + (RECORDS + APPENDED - 1) % 10,
+                        ((Point) feature.getDefaultGeometry()).getX(),
+                        0d);
+                assertFalse(it.hasNext());
+            }
+        } finally {
+            review.dispose();
+        }
+    }
+
+    @Test
+    public void testAppendMarksPackedIndexesStale() throws Exception {
+        assertTrue(store.createPackedSpatialIndex());
+        store.createAttributeIndex("value");
+
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.addFeatures(createFeatures(RECORDS, 10, 0));
+
+        // not rebuilt by the append, but by the next query that uses them
+        assertTrue(store.shpFiles.exists(ShpFileType.PRX));
+        assertTrue(store.shpFiles.exists(ShpFileType.AIX));
+        assertTrue(store.indexManager.isIndexStale(ShpFileType.PRX));
+        assertTrue(store.indexManager.isIndexStale(ShpFileType.AIX));
+
+        Filter value = ff.equals(ff.property("value"), ff.literal(RECORDS + 5));
+        assertEquals(1, store.indexManager.queryAttributeIndex(value).size());
+        assertFalse(store.indexManager.isIndexStale(ShpFileType.AIX));
+        try (CloseableIterator<Data> records =
+                store.indexManager.querySpatialIndex(new Envelope(-0.5, 9.5, 9.5, 10.5))) {
+            assertNotNull(records);
+        }
+        assertFalse(store.indexManager.isIndexStale(ShpFileType.PRX));
+        Filter bbox = ff.bbox("", -0.5, 9.5, 9.5, 10.5, null);
+        assertEquals(10, fs.getFeatures(bbox).size());
+    }
+
+    @Test
+    public void testAppendAfterRemove() throws Exception {
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.removeFeatures(ff.id(ff.featureId("points.50")));
+
+        List<FeatureId> fids = fs.addFeatures(createFeatures(RECORDS, 1, 0));
+        // fids keep on growing from the last one, they are not positional
+        assertEquals("points." + (RECORDS + 1), fids.get(0).getID());
+        assertEquals(RECORDS, fs.getCount(Query.ALL));
+
+        Filter id = ff.id(ff.featureId("points." + (RECORDS + 1)));
+        try (SimpleFeatureIterator it = fs.getFeatures(id).features()) {
+            assertEquals(RECORDS, it.next().getAttribute("value"));
+        }
+    }
+
+    @Test
+    public void testAppendToEmpty() throws Exception {
+        File emptyFile = getTempFile();
+        ShapefileDataStore empty = new ShapefileDataStore(URLs.fileToUrl(emptyFile));
+        try {
+            empty.createSchema(type);
+            assertFalse(ShapefileAppendWriter.canAppend(empty.shpFiles));
+
+            // the shape type is picked from the first feature, as usual
+            SimpleFeatureStore fs = (SimpleFeatureStore) empty.getFeatureSource();
+            fs.addFeatures(createFeatures(0, 10, 0));
+            assertTrue(ShapefileAppendWriter.canAppend(empty.shpFiles));
+            fs.addFeatures(createFeatures(10, 10, 0));
+            assertEquals(20, fs.getCount(Query.ALL));
+        } finally {
+            empty.dispose();
+        }
+    }
+}
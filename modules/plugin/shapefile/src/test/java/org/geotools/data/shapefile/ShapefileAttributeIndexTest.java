@@ -0,0 +1,210 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.geotools.data.Query;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.geotools.data.shapefile.index.Data;
+import org.geotools.data.shapefile.index.attribute.AttributeIndex;
+import org.geotools.data.shapefile.index.attribute.AttributeIndexBuilder;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.util.URLs;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+public class ShapefileAttributeIndexTest extends TestCaseSupport {
+
+    static final int RECORDS = 10000;
+
+    URL url;
+
+    ShapefileDataStore store;
+
+    @Before
+    public void setupStore() throws Exception {
+        File file = getTempFile();
+        url = URLs.fileToUrl(file);
+        // leave some nulls around
+        store =
+                createPointShapefile(
+                        file,
+                        "value:Integer,name:String",
+                        RECORDS,
+                        i ->
+                                new Object[] {
+                                    point(i % 100, i / 100),
+                                    i % 97 == 0 ? null : i,
+                                    "name" + (i % 50)
+                                });
+        store.createAttributeIndex("value", "name");
+        assertTrue(store.shpFiles.exists(ShpFileType.AIX));
+    }
+
+    @Test
+    public void testNumericLookups() throws Exception {
+        assertIndexedCount(ff.equals(ff.property("value"), ff.literal(1234)), 1);
+        assertIndexedCount(ff.equals(ff.property("value"), ff.literal("1234")), 1);
+        assertIndexedCount(ff.equals(ff.property("value"), ff.literal(97)), 0);
+        assertIndexedCount(ff.less(ff.property("value"), ff.literal(100)), 98);
+        assertIndexedCount(ff.lessOrEqual(ff.literal(9990), ff.property("value")), 9);
+        assertIndexedCount(ff.between(ff.property("value"), ff.literal(10), ff.literal(19)), 10);
+        assertIndexedCount(
+                ff.and(
+                        ff.greater(ff.property("value"), ff.literal(5000)),
+                        ff.lessOrEqual(ff.property("value"), ff.literal(5010))),
+                10);
+    }
+
+    @Test
+    public void testStringLookups() throws Exception {
+        // 200 matches out of 10000
+        assertIndexedCount(ff.equals(ff.property("name"), ff.literal("name7")), RECORDS / 50);
+        assertIndexedCount(ff.equals(ff.property("name"), ff.literal("name")), 0);
+        // case insensitive comparisons cannot use the index
+        Filter insensitive = ff.equal(ff.property("name"), ff.literal("NAME7"), false);
+        assertNull(store.indexManager.queryAttributeIndex(insensitive));
+        assertCount(insensitive, RECORDS / 50);
+    }
+
+    @Test
+    public void testUnselective() throws Exception {
+        Filter filter = ff.greater(ff.property("value"), ff.literal(10));
+        assertNull(store.indexManager.queryAttributeIndex(filter));
+        assertCount(filter, RECORDS - 11 - (RECORDS - 1) / 97);
+    }
+
+    @Test
+    public void testCombinedWithSpatial() throws Exception {
+        // bbox covers x in [0, 9] and y in [0, 99], value < 2000 covers y < 20
+        Filter filter =
+                ff.and(
+                        ff.bbox("", -0.5, -0.5, 9.5, 99.5, null),
+                        ff.less(ff.property("value"), ff.literal(2000)));
+        assertCount(filter, 200 - countNullsInBox(20));
+    }
+
+    @Test
+    public void testIndexRebuiltAfterChanges() throws Exception {
+        Filter filter = ff.equals(ff.property("value"), ff.literal(1234));
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.modifyFeatures("value", 1, filter);
+        // marked out of date, the next lookup rebuilds it
+        assertTrue(store.indexManager.isIndexStale(ShpFileType.AIX));
+        assertIndexedCount(filter, 0);
+        assertFalse(store.indexManager.isIndexStale(ShpFileType.AIX));
+        assertIndexedCount(ff.equals(ff.property("value"), ff.literal(1)), 2);
+    }
+
+    @Test
+    public void testBuilderSpills() throws Exception {
+        // small in memory runs, to exercise the external sort
+        int count = 5000;
+        Random random = new Random(0);
+        int[] numbers = new int[count];
+        String[] strings = new String[count];
+        AttributeIndexBuilder builder = new AttributeIndexBuilder(count, 300);
+        int number = builder.addNumericColumn("number");
+        int string = builder.addStringColumn("string", 10);
+        for (int i = 0; i < count; i++) {
+            numbers[i] = random.nextInt(1000);
+            strings[i] = "s" + random.nextInt(1000);
+            builder.add(number, i, i * 10, numbers[i]);
+            builder.add(string, i, i * 10, strings[i]);
+        }
+        File file = getTempFile();
+        builder.build(file);
+
+        AttributeIndex index = new AttributeIndex(file);
+        try {
+            for (int q = 0; q < 20; q++) {
+                int lower = random.nextInt(1000);
+                int upper = lower + random.nextInt(50);
+                String value = "s" + random.nextInt(1000);
+                Set<Integer> expectedNumbers = new TreeSet<>();
+                Set<Integer> expectedStrings = new TreeSet<>();
+                for (int i = 0; i < count; i++) {
+                    if (numbers[i] >= lower && numbers[i] <= upper) {
+                        expectedNumbers.add(i);
+                    }
+                    if (strings[i].equals(value)) {
+                        expectedStrings.add(i);
+                    }
+                }
+                assertEquals(expectedNumbers, lookup(index, "number", lower, upper));
+                assertEquals(expectedStrings, lookup(index, "string", value, value));
+            }
+        } finally {
+            index.close();
+        }
+    }
+
+    private Set<Integer> lookup(AttributeIndex index, String attribute, Object lower, Object upper)
+            throws Exception {
+        int[] range = index.findRange(attribute, lower, upper);
+        Set<Integer> result = new TreeSet<>();
+        for (long record : index.getRecords(attribute, range[0], range[1])) {
+            int recno = (int) (record >>> 32);
+            assertEquals(recno * 10L, record & 0xFFFFFFFFL);
+            result.add(recno);
+        }
+        return result;
+    }
+
+    private int countNullsInBox(int rows) {
+        int count = 0;
+        for (int i = 0; i < rows * 100; i++) {
+            if (i % 97 == 0 && i % 100 < 10) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void assertIndexedCount(Filter filter, int expected) throws Exception {
+        List<Data> records = store.indexManager.queryAttributeIndex(filter);
+        assertNotNull(records);
+        assertTrue(records.size() >= expected);
+        assertCount(filter, expected);
+    }
+
+    private void assertCount(Filter filter, int expected) throws Exception {
+        Query query = new Query(store.getTypeNames()[0], filter);
+        assertEquals(expected, store.getFeatureSource().getFeatures(query).size());
+
+        // same result without indexes
+        ShapefileDataStore scanning = new ShapefileDataStore(url);
+        try {
+            scanning.setIndexed(false);
+            assertEquals(expected, scanning.getFeatureSource().getFeatures(query).size());
+        } finally {
+            scanning.dispose();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -70,15 +71,20 @@ import org.geotools.data.store.ContentFeatureSource;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.FeatureTypes;
+import org.geotools.feature.simple.ReusableSimpleFeature;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.feature.type.BasicFeatureTypes;
+import org.geotools.feature.visitor.CalcResult;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.FeatureCalc;
 import org.geotools.filter.IllegalFilterException;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.util.URLs;
 import org.geotools.util.factory.FactoryRegistryException;
+import org.geotools.util.factory.Hints;
 import org.junit.After;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
@@ -184,6 +190,62 @@ public class ShapefileDataStoreTest extends TestCaseSupport {
         loadFeatures(STATE_POP, Query.ALL);
     }
 
+    @Test
+    public void testFeatureReuse() throws Exception {
+        List<SimpleFeature> expected = new ArrayList<>();
+        try (SimpleFeatureIterator it = loadFeatures(STATE_POP, Query.ALL).features()) {
+            while (it.hasNext()) {
+                expected.add(it.next());
+            }
+        }
+
+        Query query = new Query(store.getTypeNames()[0]);
+        query.setHints(new Hints(Hints.FEATURE_REUSE, Boolean.TRUE));
+        SimpleFeatureSource fs = store.getFeatureSource(store.getTypeNames()[0]);
+        assertTrue(fs.getSupportedHints().contains(Hints.FEATURE_REUSE));
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(query, Transaction.AUTO_COMMIT)) {
+            SimpleFeature previous = null;
+            for (SimpleFeature feature : expected) {
+                SimpleFeature reused = reader.next();
+                assertTrue(reused instanceof ReusableSimpleFeature);
+                if (previous != null) {
+                    assertSame(previous, reused);
+                }
+                previous = reused;
+                assertEquals(feature, ((ReusableSimpleFeature) reused).copy());
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testFeatureCalcNotReused() throws Exception {
+        SimpleFeatureCollection features = loadFeatures(STATE_POP, Query.ALL);
+
+        // a third party visitor holding on to the features it visits
+        final List<Feature> visited = new ArrayList<>();
+        FeatureCalc collector =
+                new FeatureCalc() {
+                    public void visit(Feature feature) {
+                        visited.add(feature);
+                    }
+
+                    public CalcResult getResult() {
+                        return new CountVisitor.CountResult(visited.size());
+                    }
+                };
+        features.accepts(collector, null);
+
+        assertEquals(features.size(), visited.size());
+        Set<String> ids = new HashSet<>();
+        for (Feature feature : visited) {
+            assertFalse(feature instanceof ReusableSimpleFeature);
+            ids.add(feature.getIdentifier().getID());
+        }
+        assertEquals(visited.size(), ids.size());
+    }
+
     @Test
     public void testNullReproject() throws Exception {
         // try to reproject to the target CRS, used to fail due to a missing check in
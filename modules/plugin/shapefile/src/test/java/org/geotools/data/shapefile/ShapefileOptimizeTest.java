@@ -0,0 +1,152 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import org.geotools.data.Query;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.geotools.data.shapefile.index.HilbertCurve;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.util.URLs;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
+
+public class ShapefileOptimizeTest extends TestCaseSupport {
+
+    static final int RECORDS = 2000;
+
+    URL url;
+
+    ShapefileDataStore store;
+
+    @Before
+    public void setupStore() throws Exception {
+        File file = getTempFile();
+        url = URLs.fileToUrl(file);
+
+        // scatter the points around, so that the file order has no spatial locality
+        store =
+                createPointShapefile(
+                        file,
+                        "value:Integer",
+                        RECORDS,
+                        i -> {
+                            int cell = (i * 7919) % RECORDS;
+                            return new Object[] {
+                                i % 101 == 0 ? null : point(cell % 50, cell / 50), i
+                            };
+                        });
+    }
+
+    @Test
+    public void testOptimize() throws Exception {
+        Map<Integer, Point> original = readAll();
+        Filter bbox = ff.bbox("", 10.5, 10.5, 20.5, 15.5, null);
+        int matches = store.getFeatureSource().getFeatures(bbox).size();
+
+        store.optimize(store.getTypeNames()[0]);
+
+        assertOptimized(original);
+        assertTrue(store.shpFiles.exists(ShpFileType.QIX));
+        assertTrue(store.shpFiles.exists(ShpFileType.FIX));
+        assertEquals(matches, store.getFeatureSource().getFeatures(bbox).size());
+    }
+
+    @Test
+    public void testOptimizeSpillingToDisk() throws Exception {
+        Map<Integer, Point> original = readAll();
+
+        ShapefileOptimizer optimizer = new ShapefileOptimizer(store.shpFiles, store.getCharset());
+        optimizer.chunkSize = 128;
+        assertEquals(RECORDS, optimizer.optimize());
+        store.indexManager.rebuildIndexes();
+
+        assertOptimized(original);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void testOptimizeUnknownType() throws Exception {
+        store.optimize("notThere");
+    }
+
+    private void assertOptimized(Map<Integer, Point> original) throws Exception {
+        ShapefileDataStore review = new ShapefileDataStore(url);
+        try {
+            Envelope bounds = review.getFeatureSource().getBounds();
+            HilbertCurve curve = new HilbertCurve(bounds);
+            long previous = -1;
+            int count = 0;
+            boolean nulls = false;
+            try (SimpleFeatureIterator it = review.getFeatureSource().getFeatures().features()) {
+                while (it.hasNext()) {
+                    SimpleFeature feature = it.next();
+                    Point point = (Point) feature.getDefaultGeometry();
+                    Integer value = (Integer) feature.getAttribute("value");
+                    assertEquals(original.get(value), point);
+                    if (point == null) {
+                        nulls = true;
+                    } else {
+                        // null shapes go last, and the others follow the curve
+                        assertFalse(nulls);
+                        double x = point.getX();
+                        double y = point.getY();
+                        long position = curve.position(x, y, x, y);
+                        assertTrue(position >= previous);
+                        previous = position;
+                    }
+                    count++;
+                }
+            }
+            assertEquals(RECORDS, count);
+
+            Query query = new Query(review.getTypeNames()[0]);
+            query.setFilter(ff.equals(ff.property("value"), ff.literal(101)));
+            try (SimpleFeatureIterator it =
+                    review.getFeatureSource().getFeatures(query).features()) {
+                assertNull(it.next().getDefaultGeometry());
+            }
+        } finally {
+            review.dispose();
+        }
+    }
+
+    private Map<Integer, Point> readAll() throws Exception {
+        Map<Integer, Point> result = new HashMap<>();
+        try (SimpleFeatureIterator it = store.getFeatureSource().getFeatures().features()) {
+            while (it.hasNext()) {
+                SimpleFeature feature = it.next();
+                result.put(
+                        (Integer) feature.getAttribute("value"),
+                        (Point) feature.getDefaultGeometry());
+            }
+        }
+        assertEquals(RECORDS, result.size());
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.geotools.data.CloseableIterator;
+import org.geotools.data.Query;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.geotools.data.shapefile.index.Data;
+import org.geotools.data.shapefile.index.rtree.PackedRTree;
+import org.geotools.data.shapefile.index.rtree.PackedRTreeBuilder;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.filter.Filter;
+
+public class ShapefilePackedRTreeTest extends TestCaseSupport {
+
+    @Test
+    public void testBuildAndSearch() throws Exception {
+        // small in memory runs and node size, to exercise the external sort and a deep tree
+        int count = 5000;
+        Envelope bounds = new Envelope(0, 1000, 0, 1000);
+        Envelope[] boxes = new Envelope[count];
+        Random random = new Random(0);
+        PackedRTreeBuilder builder = new PackedRTreeBuilder(bounds, 4, 700);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 990;
+            double y = random.nextDouble() * 990;
+            double maxX = x + random.nextDouble() * 10;
+            double maxY = y + random.nextDouble() * 10;
+            boxes[i] = new Envelope(x, maxX, y, maxY);
+            builder.add(i, i * 10, x, y, maxX, maxY);
+        }
+        File file = getTempFile();
+        assertEquals(count, builder.build(file));
+
+        PackedRTree tree = new PackedRTree(file);
+        try {
+            assertEquals(count, tree.getNumItems());
+            for (int q = 0; q < 20; q++) {
+                double x = random.nextDouble() * 900;
+                double y = random.nextDouble() * 900;
+                Envelope query = new Envelope(x, x + 100, y, y + 100);
+                Set<Integer> expected = new TreeSet<>();
+                for (int i = 0; i < count; i++) {
+                    if (boxes[i].intersects(query)) {
+                        expected.add(i);
+                    }
+                }
+
+                Set<Integer> actual = new TreeSet<>();
+                int previous = -1;
+                try (CloseableIterator<Data> it = tree.search(query)) {
+                    while (it.hasNext()) {
+                        Data data = it.next();
+                        int recno = (Integer) data.getValue(0) - 1;
+                        assertEquals(recno * 10L, data.getValue(1));
+                        // results are sorted by record number
+                        assertTrue(recno > previous);
+                        previous = recno;
+                        actual.add(recno);
+                    }
+                }
+                assertEquals(expected, actual);
+            }
+        } finally {
+            tree.close();
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        File file = getTempFile();
+        assertEquals(0, new PackedRTreeBuilder(new Envelope(0, 1, 0, 1)).build(file));
+        PackedRTree tree = new PackedRTree(file);
+        try (CloseableIterator<Data> it = tree.search(new Envelope(0, 1, 0, 1))) {
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void testShapefileQueries() throws Exception {
+        File shp = copyShapefiles("shapes/statepop.shp");
+        ShapefileDataStore ds = new ShapefileDataStore(shp.toURI().toURL());
+        try {
+            assertTrue(ds.createPackedSpatialIndex());
+            assertTrue(ds.shpFiles.exists(ShpFileType.PRX));
+
+            String typeName = ds.getTypeNames()[0];
+            Filter filter = ff.bbox("", -100, 30, -90, 40, null);
+            int indexed = ds.getFeatureSource().getFeatures(new Query(typeName, filter)).size();
+            assertTrue(indexed > 0);
+            // the packed R-tree took over, no quadtree got created
+            assertFalse(ds.shpFiles.exists(ShpFileType.QIX));
+
+            ds.setIndexed(false);
+            int scanned = ds.getFeatureSource().getFeatures(new Query(typeName, filter)).size();
+            assertEquals(scanned, indexed);
+        } finally {
+            ds.dispose();
+        }
+    }
+
+    @Test
+    public void testRebuiltLazilyAfterChanges() throws Exception {
+        File shp = copyShapefiles("shapes/statepop.shp");
+        ShapefileDataStore ds = new ShapefileDataStore(shp.toURI().toURL());
+        try {
+            assertTrue(ds.createPackedSpatialIndex());
+            SimpleFeatureStore fs = (SimpleFeatureStore) ds.getFeatureSource();
+            fs.removeFeatures(ff.equals(ff.property("STATE_NAME"), ff.literal("Texas")));
+
+            // closing the writer only marks the index out of date
+            assertTrue(ds.shpFiles.exists(ShpFileType.PRX));
+            assertTrue(ds.indexManager.isIndexStale(ShpFileType.PRX));
+
+            // the next spatial query rebuilds it
+            String typeName = ds.getTypeNames()[0];
+            Filter filter = ff.bbox("", -100, 30, -90, 40, null);
+            int indexed = ds.getFeatureSource().getFeatures(new Query(typeName, filter)).size();
+            assertFalse(ds.indexManager.isIndexStale(ShpFileType.PRX));
+
+            ds.setIndexed(false);
+            int scanned = ds.getFeatureSource().getFeatures(new Query(typeName, filter)).size();
+            assertEquals(scanned, indexed);
+        } finally {
+            ds.dispose();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.stream.Stream;
+import org.geotools.data.Query;
+import org.geotools.data.util.FeatureSpliterator;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.feature.visitor.ParallelFeatureVisitor;
+import org.geotools.feature.visitor.SumVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.URLs;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
+
+public class ShapefileParallelReadTest extends TestCaseSupport {
+
+    static final int RECORDS = ShapefileFeatureSource.MIN_SPLIT_RECORDS * 4 + 17;
+
+    ShapefileDataStore store;
+
+    @Before
+    public void setupStore() throws Exception {
+        File file = getTempFile();
+        createPointShapefile(
+                        file, "value:Integer", RECORDS, i -> new Object[] {point(i, i * 2), i})
+                .dispose();
+
+        store = new ShapefileDataStore(URLs.fileToUrl(file));
+        store.setReadThreads(4);
+    }
+
+    @After
+    public void disposeStore() {
+        if (store != null) {
+            store.dispose();
+        }
+    }
+
+    @Test
+    public void testSplitBoundaries() throws Exception {
+        ShapefileFeatureSource source = getSource();
+        int[] boundaries = source.getSplitBoundaries(4);
+        assertNotNull(boundaries);
+        assertEquals(5, boundaries.length);
+        assertEquals(0, boundaries[0]);
+        assertEquals(RECORDS, boundaries[4]);
+        for (int i = 1; i < boundaries.length; i++) {
+            assertTrue(
+                    boundaries[i] - boundaries[i - 1] >= ShapefileFeatureSource.MIN_SPLIT_RECORDS);
+        }
+    }
+
+    @Test
+    public void testParallelAggregates() throws Exception {
+        SplitCountVisitor count = new SplitCountVisitor();
+        BoundsVisitor bounds = new BoundsVisitor();
+        MinVisitor min = new MinVisitor("value");
+        MaxVisitor max = new MaxVisitor("value");
+        SumVisitor sum = new SumVisitor("value", store.getSchema());
+        store.getFeatureSource().accepts(Query.ALL, count, null);
+        store.getFeatureSource().accepts(Query.ALL, bounds, null);
+        store.getFeatureSource().accepts(Query.ALL, min, null);
+        store.getFeatureSource().accepts(Query.ALL, max, null);
+        store.getFeatureSource().accepts(Query.ALL, sum, null);
+
+        assertEquals(RECORDS, count.getCount());
+        assertEquals(4, count.combined);
+        ReferencedEnvelope expected =
+                new ReferencedEnvelope(0, RECORDS - 1, 0, (RECORDS - 1) * 2, null);
+        assertEquals(expected, bounds.getBounds());
+        assertEquals(0, min.getMin());
+        assertEquals(RECORDS - 1, max.getMax());
+        assertEquals((long) RECORDS * (RECORDS - 1) / 2, ((Number) sum.getSum()).longValue());
+    }
+
+    @Test
+    public void testParallelFilteredCount() throws Exception {
+        Filter filter = ff.less(ff.property("value"), ff.literal(5000));
+        SplitCountVisitor count = new SplitCountVisitor();
+        store.getFeatureSource().accepts(new Query(store.getTypeNames()[0], filter), count, null);
+        assertEquals(5000, count.getCount());
+        assertEquals(4, count.combined);
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        try (FeatureSpliterator<SimpleFeature> spliterator =
+                getSource().getSpliteratorInternal(Query.ALL)) {
+            assertTrue(spliterator instanceof ShapefileFeatureSpliterator);
+            assertNotNull(spliterator.trySplit());
+        }
+        try (Stream<SimpleFeature> features = store.getParallelFeatureStream(Query.ALL)) {
+            assertTrue(features.isParallel());
+            assertEquals(RECORDS, features.count());
+        }
+        Filter filter = ff.greaterOrEqual(ff.property("value"), ff.literal(RECORDS - 10));
+        try (Stream<SimpleFeature> features =
+                store.getParallelFeatureStream(new Query(store.getTypeNames()[0], filter))) {
+            int total = features.mapToInt(f -> (Integer) f.getAttribute("value")).sum();
+            int expected = 0;
+            for (int i = RECORDS - 10; i < RECORDS; i++) {
+                expected += i;
+            }
+            assertEquals(expected, total);
+        }
+    }
+
+    @Test
+    public void testSequentialFallback() throws Exception {
+        Query query = new Query(store.getTypeNames()[0]);
+        query.setMaxFeatures(10);
+        assertNull(getSource().getSpliteratorInternal(query));
+        try (Stream<SimpleFeature> features = store.getParallelFeatureStream(query)) {
+            assertEquals(10, features.count());
+        }
+    }
+
+    /** Counts the partial visits combined into it, that is, the record ranges read in parallel */
+    static class SplitCountVisitor extends CountVisitor {
+
+        int combined;
+
+        @Override
+        public SplitCountVisitor createPartial() {
+            return new SplitCountVisitor();
+        }
+
+        @Override
+        public void combine(ParallelFeatureVisitor partial) {
+            super.combine(partial);
+            combined++;
+        }
+    }
+
+    private ShapefileFeatureSource getSource() throws Exception {
+        Object source = store.getFeatureSource();
+        if (source instanceof ShapefileFeatureStore) {
+            return ((ShapefileFeatureStore) source).delegate;
+        }
+        return (ShapefileFeatureSource) source;
+    }
+}
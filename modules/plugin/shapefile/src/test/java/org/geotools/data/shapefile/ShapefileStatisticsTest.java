@@ -0,0 +1,169 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import org.geotools.data.Query;
+import org.geotools.data.shapefile.files.ShpFileType;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.feature.visitor.UniqueVisitor;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+public class ShapefileStatisticsTest extends TestCaseSupport {
+
+    static final int RECORDS = 1000;
+
+    File file;
+
+    ShapefileDataStore store;
+
+    @Before
+    public void setupStore() throws Exception {
+        file = getTempFile();
+        store =
+                createPointShapefile(
+                        file,
+                        "value:Integer,name:String,code:String",
+                        RECORDS,
+                        i ->
+                                new Object[] {
+                                    point(i % 10, i / 10),
+                                    i % 97 == 0 ? null : i,
+                                    "name" + (i % 50),
+                                    "code" + i
+                                });
+        assertFalse(store.shpFiles.exists(ShpFileType.STX));
+        store.createStatistics();
+        assertTrue(store.shpFiles.exists(ShpFileType.STX));
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        ShapefileStatistics statistics = store.indexManager.openStatistics();
+        assertNotNull(statistics);
+        assertEquals(RECORDS, statistics.count);
+        assertEquals(11, statistics.columns.get("value").nulls);
+        assertNull(statistics.columns.get("code").distinct);
+
+        SimpleFeatureCollection features = store.getFeatureSource().getFeatures();
+        CountVisitor count = new CountVisitor();
+        features.accepts(count, null);
+        assertEquals(RECORDS, count.getCount());
+
+        MinVisitor min = new MinVisitor("value");
+        features.accepts(min, null);
+        assertEquals(1, min.getMin());
+
+        MaxVisitor max = new MaxVisitor("value");
+        features.accepts(max, null);
+        assertEquals(RECORDS - 1, max.getMax());
+
+        MaxVisitor maxName = new MaxVisitor("name");
+        features.accepts(maxName, null);
+        assertEquals("name9", maxName.getMax());
+
+        UniqueVisitor unique = new UniqueVisitor("name");
+        features.accepts(unique, null);
+        assertEquals(50, unique.getUnique().size());
+        assertTrue(unique.getUnique().contains("name7"));
+
+        // too many distinct values to be kept, the data is read instead
+        UniqueVisitor uniqueCode = new UniqueVisitor("code");
+        features.accepts(uniqueCode, null);
+        assertEquals(RECORDS, uniqueCode.getUnique().size());
+
+        BoundsVisitor bounds = new BoundsVisitor();
+        features.accepts(bounds, null);
+        assertEquals(new Envelope(0, 9, 0, 99), new Envelope(bounds.getBounds()));
+    }
+
+    @Test
+    public void testRecomputedAfterChanges() throws Exception {
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.modifyFeatures("value", 5000, ff.equals(ff.property("value"), ff.literal(5)));
+        fs.removeFeatures(ff.equals(ff.property("value"), ff.literal(1)));
+
+        // the rewrites only mark the statistics out of date
+        assertTrue(store.shpFiles.exists(ShpFileType.STX));
+        assertTrue(store.indexManager.isIndexStale(ShpFileType.STX));
+        assertNull(store.indexManager.openStatistics());
+
+        // and the next aggregate computes them again
+        MinVisitor min = new MinVisitor("value");
+        fs.getFeatures().accepts(min, null);
+        assertEquals(2, min.getMin());
+        ShapefileStatistics statistics = store.indexManager.openStatistics();
+        assertNotNull(statistics);
+        assertEquals(RECORDS - 1, statistics.count);
+
+        MaxVisitor max = new MaxVisitor("value");
+        fs.getFeatures().accepts(max, null);
+        assertEquals(5000, max.getMax());
+    }
+
+    @Test
+    public void testNotRecomputedWithoutIndexCreation() throws Exception {
+        store.setIndexCreationEnabled(false);
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.removeFeatures(ff.equals(ff.property("value"), ff.literal(1)));
+
+        CountVisitor count = new CountVisitor();
+        fs.getFeatures().accepts(count, null);
+        assertEquals(RECORDS - 1, count.getCount());
+        assertTrue(store.indexManager.isIndexStale(ShpFileType.STX));
+    }
+
+    @Test
+    public void testForcedCrsScanned() throws Exception {
+        ShapefileFeatureSource source =
+                ((ShapefileFeatureStore) store.getFeatureSource()).delegate;
+        assertTrue(source.visitStatistics(Query.ALL, new BoundsVisitor()));
+
+        // the statistics bounds are in the native CRS
+        Query forced = new Query(Query.ALL);
+        forced.setCoordinateSystem(DefaultGeographicCRS.WGS84);
+        assertFalse(source.visitStatistics(forced, new BoundsVisitor()));
+        Query reprojected = new Query(Query.ALL);
+        reprojected.setCoordinateSystemReproject(DefaultGeographicCRS.WGS84);
+        assertFalse(source.visitStatistics(reprojected, new BoundsVisitor()));
+    }
+
+    @Test
+    public void testStaleIgnored() throws Exception {
+        assertTrue(file.setLastModified(System.currentTimeMillis() + 60000));
+        assertNull(store.indexManager.openStatistics());
+
+        // still the right answer, computed from the data
+        CountVisitor count = new CountVisitor();
+        store.getFeatureSource().getFeatures().accepts(count, null);
+        assertEquals(RECORDS, count.getCount());
+    }
+}
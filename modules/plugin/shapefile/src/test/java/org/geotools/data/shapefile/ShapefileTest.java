@@ -195,6 +195,34 @@ public class ShapefileTest extends TestCaseSupport {
         }
     }
 
+    @Test
+    public void testReadingShapesAfterSkippingRecords() throws Exception {
+        // the non memory mapped reader loads the record contents only when the shape is requested
+        final URL url = TestData.url(STATEPOP);
+        final ShapefileReader mapped =
+                new ShapefileReader(new ShpFiles(url), false, true, new GeometryFactory());
+        final ShapefileReader plain =
+                new ShapefileReader(new ShpFiles(url), false, false, new GeometryFactory());
+        try {
+            int idx = 0;
+            while (mapped.hasNext()) {
+                assertTrue(plain.hasNext());
+                ShapefileReader.Record expected = mapped.nextRecord();
+                ShapefileReader.Record actual = plain.nextRecord();
+                assertEquals(expected.envelope(), actual.envelope());
+                if (idx++ % 3 == 0) {
+                    Geometry expectedShape = (Geometry) expected.shape();
+                    assertTrue(expectedShape.equalsExact((Geometry) actual.shape()));
+                }
+            }
+            assertFalse(plain.hasNext());
+            assertEquals(49, idx);
+        } finally {
+            mapped.close();
+            plain.close();
+        }
+    }
+
     @Test
     public void testDuplicateColumnNames() throws Exception {
         File file = TestData.file(TestCaseSupport.class, "bad/state.shp");
@@ -25,18 +25,31 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.IntFunction;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.geotools.TestData;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Transaction;
+import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.shapefile.index.CloseableIterator;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
 import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.util.URLs;
 import org.junit.After;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.FilterFactory2;
 
 /**
@@ -70,6 +83,8 @@ public class TestCaseSupport {
     /** References a known test file provided by sample data. */
     static final FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
 
+    static final GeometryFactory gf = new GeometryFactory();
+
     /**
      * Set to {@code true} if {@code println} are wanted during normal execution. It doesn't apply
      * to message displayed in case of errors.
@@ -78,12 +93,19 @@ public class TestCaseSupport {
     /** Stores all temporary files here - delete on tear down. */
     private final List<File> tmpFiles = new ArrayList<File>();
 
+    /** Stores created by {@link #createShapefile} - disposed on tear down. */
+    private final List<ShapefileDataStore> stores = new ArrayList<ShapefileDataStore>();
+
     /**
      * Deletes all temporary files created by {@link #getTempFile}. This method is automatically run
      * after each test.
      */
     @After
     public void tearDown() throws Exception {
+        for (ShapefileDataStore store : stores) {
+            store.dispose();
+        }
+        stores.clear();
 
         Runtime.getRuntime().runFinalization();
         // it seems that not all files marked as temp will get erased, perhaps
@@ -99,6 +121,12 @@ public class TestCaseSupport {
             dieDieDIE(sibling(targetFile, "shx"));
             // Quad tree index
             dieDieDIE(sibling(targetFile, "qix"));
+            // Packed R-tree index
+            dieDieDIE(sibling(targetFile, "prx"));
+            // Attribute index
+            dieDieDIE(sibling(targetFile, "aix"));
+            // Statistics sidecar
+            dieDieDIE(sibling(targetFile, "stx"));
             // Feature ID index
             dieDieDIE(sibling(targetFile, "fix"));
             // R-Tree index
@@ -226,6 +254,70 @@ public class TestCaseSupport {
         return copy;
     }
 
+    /**
+     * Writes the features in a new shapefile, and returns a store opened on it. The store is
+     * disposed on tear down.
+     *
+     * @param file the shapefile to be created, usually a {@link #getTempFile temporary file}
+     * @param features the features to be written, along with their schema
+     */
+    protected ShapefileDataStore createShapefile(File file, SimpleFeatureCollection features)
+            throws IOException {
+        ShapefileDataStore store = new ShapefileDataStore(URLs.fileToUrl(file));
+        stores.add(store);
+        store.createSchema(features.getSchema());
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        try (Transaction t = new DefaultTransaction()) {
+            fs.setTransaction(t);
+            fs.addFeatures(features);
+            t.commit();
+        }
+        return store;
+    }
+
+    /**
+     * Writes a "points" fixture in a new shapefile, and returns a store opened on it. The store is
+     * disposed on tear down.
+     *
+     * @param file the shapefile to be created, usually a {@link #getTempFile temporary file}
+     * @param attributes the attributes following the point geometry, in {@link
+     *     DataUtilities#createType} syntax
+     * @param count the number of records
+     * @param values computes the values of the i-th record, the geometry first
+     */
+    protected ShapefileDataStore createPointShapefile(
+            File file, String attributes, int count, IntFunction<Object[]> values)
+            throws IOException, SchemaException {
+        return createShapefile(file, createPoints(createPointType(attributes), 0, count, values));
+    }
+
+    /**
+     * Returns the type of a "points" fixture, a point geometry followed by the given attributes in
+     * {@link DataUtilities#createType} syntax.
+     */
+    protected static SimpleFeatureType createPointType(String attributes) throws SchemaException {
+        return DataUtilities.createType("points", "geom:Point," + attributes);
+    }
+
+    /**
+     * Builds the records {@code start} to {@code start + count - 1} of a "points" fixture.
+     *
+     * @param values computes the values of the i-th record, the geometry first
+     */
+    protected static ListFeatureCollection createPoints(
+            SimpleFeatureType type, int start, int count, IntFunction<Object[]> values) {
+        ListFeatureCollection collection = new ListFeatureCollection(type);
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(type);
+        for (int i = start; i < start + count; i++) {
+            collection.add(builder.buildFeature(null, values.apply(i)));
+        }
+        return collection;
+    }
+
+    protected static Point point(double x, double y) {
+        return gf.createPoint(new Coordinate(x, y));
+    }
+
     protected int countIterator(CloseableIterator it) {
         int count = 0;
         while (it.hasNext()) {
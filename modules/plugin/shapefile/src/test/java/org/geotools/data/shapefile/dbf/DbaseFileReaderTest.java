@@ -19,6 +19,7 @@ package org.geotools.data.shapefile.dbf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.InputStream;
 import java.nio.channels.Channels;
@@ -60,4 +61,64 @@ public class DbaseFileReaderTest {
         assertThat(records.get(98289L), nullValue());
         assertThat(records.get(98245L), nullValue()); // this fails with 0.0
     }
+
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        InputStream dbf =
+                this.getClass()
+                        .getResourceAsStream(
+                                "/org/geotools/data/shapefile/test-data/dbase-file-reader/nulls.dbf");
+        DbaseFileReader dbfReader =
+                new DbaseFileReader(Channels.newChannel(dbf), false, StandardCharsets.UTF_8);
+
+        Map<Long, Double> records = new HashMap<>();
+        while (dbfReader.hasNext()) {
+            DbaseFileReader.Row row = dbfReader.readRow();
+            assertThat(row.getLong(0), is(row.read(0)));
+            assertThat(row.isNull(1), is(row.read(1) == null));
+            if (!row.isNull(1)) {
+                assertThat(row.getDouble(1), is(row.read(1)));
+            } else {
+                assertThat(Double.isNaN(row.getDouble(1)), is(true));
+            }
+            records.put(row.getLong(0), row.isNull(1) ? null : row.getDouble(1));
+        }
+        dbfReader.close();
+        dbf.close();
+
+        assertThat(records.get(98586L), is(5.21));
+        assertThat(records.get(98538L), is(0.0));
+        assertThat(records.get(98289L), nullValue());
+        assertThat(records.get(98245L), nullValue());
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        InputStream dbf =
+                this.getClass()
+                        .getResourceAsStream(
+                                "/org/geotools/data/shapefile/test-data/dbase-file-reader/nulls.dbf");
+        DbaseFileReader dbfReader =
+                new DbaseFileReader(Channels.newChannel(dbf), false, StandardCharsets.UTF_8);
+        dbfReader.setProjection(1);
+
+        int count = 0;
+        while (dbfReader.hasNext()) {
+            Object[] values = dbfReader.readEntry();
+            assertThat(values[0], nullValue());
+            if (values[1] != null) {
+                count++;
+            }
+            try {
+                dbfReader.readField(0);
+                fail("Column 0 is not part of the projection");
+            } catch (IllegalArgumentException e) {
+                // fine
+            }
+        }
+        dbfReader.close();
+        dbf.close();
+
+        assertThat(count, is(2));
+    }
 }
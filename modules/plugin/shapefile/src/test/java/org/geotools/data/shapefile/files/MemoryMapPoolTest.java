@@ -0,0 +1,133 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryMapPoolTest {
+
+    File file;
+
+    RandomAccessFile raf;
+
+    FileChannel channel;
+
+    MemoryMapPool pool = new MemoryMapPool(3000);
+
+    List<MemoryMapPool.Region> acquired = new ArrayList<>();
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("pool", ".shp").getCanonicalFile();
+        raf = new RandomAccessFile(file, "rw");
+        for (int i = 0; i < 4096; i++) {
+            raf.write(i);
+        }
+        channel = raf.getChannel();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        pool.clear();
+        channel.close();
+        raf.close();
+        file.delete();
+    }
+
+    @Test
+    public void testSharedRegions() throws Exception {
+        MappedByteBuffer first = pool.acquire(channel, key(0, 1024), acquired);
+        MappedByteBuffer second = pool.acquire(channel, key(0, 1024), acquired);
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMappedRegions());
+        assertEquals(1024, pool.getMappedBytes());
+
+        // the copies have independent positions
+        first.position(10);
+        assertEquals(0, second.position());
+        assertEquals(10, first.get());
+        assertEquals(0, second.get());
+
+        pool.release(acquired.get(0));
+        assertEquals(1, pool.getUsedRegions());
+        pool.release(acquired.get(1));
+        assertEquals(0, pool.getUsedRegions());
+        assertEquals(1, pool.getMappedRegions());
+    }
+
+    @Test
+    public void testEvictionSkipsRegionsInUse() throws Exception {
+        pool.acquire(channel, key(0, 1024), acquired);
+        pool.acquire(channel, key(1024, 1024), acquired);
+        pool.release(acquired.get(1));
+        // goes beyond the max size, the least recently used region is still in use
+        pool.acquire(channel, key(2048, 2048), acquired);
+        assertEquals(1, pool.getEvictions());
+        assertEquals(2, pool.getMappedRegions());
+        assertEquals(3072, pool.getMappedBytes());
+
+        // releasing the first region brings the pool back within its max size
+        pool.release(acquired.get(0));
+        assertEquals(2, pool.getEvictions());
+        assertEquals(2048, pool.getMappedBytes());
+
+        pool.release(acquired.get(2));
+        pool.setMaxSize(0);
+        assertEquals(0, pool.getMappedRegions());
+        assertEquals(0, pool.getMappedBytes());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        pool.acquire(channel, key(0, 1024), acquired);
+        pool.acquire(channel, key(1024, 1024), acquired);
+        pool.release(acquired.get(1));
+
+        pool.invalidate(file);
+        assertEquals(0, pool.getMappedRegions());
+        assertEquals(0, pool.getMappedBytes());
+        MemoryMapPool.Region inUse = acquired.get(0);
+        assertTrue(inUse.invalidated);
+        assertFalse(acquired.get(1).invalidated);
+
+        // a new request maps the file again, and does not get confused with the old region
+        pool.acquire(channel, key(0, 1024), acquired);
+        assertEquals(3, pool.getMisses());
+        pool.release(inUse);
+        assertEquals(0, inUse.references);
+        assertEquals(1, pool.getUsedRegions());
+        pool.release(acquired.get(2));
+        assertEquals(0, pool.getUsedRegions());
+    }
+
+    private MemoryMapPool.MappingKey key(long position, long size) {
+        return new MemoryMapPool.MappingKey(file, position, size);
+    }
+}
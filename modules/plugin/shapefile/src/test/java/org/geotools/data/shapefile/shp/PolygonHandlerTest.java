@@ -18,14 +18,23 @@ package org.geotools.data.shapefile.shp;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import org.geotools.data.shapefile.TestCaseSupport;
+import org.geotools.geometry.jts.LiteCoordinateSequenceFactory;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.CoordinateArraySequenceFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.locationtech.jts.io.WKTReader;
 
 /**
  * @version $Id$
@@ -83,6 +92,41 @@ public class PolygonHandlerTest extends TestCaseSupport {
         assertEquals(((ArrayList) assigned.get(0)).size(), holes.size());
     }
 
+    @Test
+    public void testReadPackedCoordinates() throws Exception {
+        GeometryFactory gf = new GeometryFactory();
+        Polygon polygon =
+                (Polygon)
+                        new WKTReader(gf)
+                                .read(
+                                        "POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), "
+                                                + "(2 2, 2 4, 4 4, 4 2, 2 2))");
+        MultiPolygon expected = gf.createMultiPolygon(new Polygon[] {polygon});
+        PolygonHandler writer = new PolygonHandler(gf);
+        ByteBuffer buffer = ByteBuffer.allocate(writer.getLength(expected));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        writer.write(buffer, expected);
+
+        CoordinateSequenceFactory[] factories = {
+            CoordinateArraySequenceFactory.instance(),
+            new LiteCoordinateSequenceFactory(),
+            PackedCoordinateSequenceFactory.DOUBLE_FACTORY,
+            PackedCoordinateSequenceFactory.FLOAT_FACTORY
+        };
+        for (CoordinateSequenceFactory csf : factories) {
+            buffer.position(0);
+            PolygonHandler handler = new PolygonHandler(new GeometryFactory(csf));
+            MultiPolygon read = (MultiPolygon) handler.read(buffer, ShapeType.POLYGON, false);
+            assertEquals(1, read.getNumGeometries());
+            Polygon readPolygon = (Polygon) read.getGeometryN(0);
+            assertEquals(1, readPolygon.getNumInteriorRing());
+            assertTrue(readPolygon.equalsTopo(polygon));
+            assertSame(
+                    csf.create(1, 2).getClass(),
+                    readPolygon.getExteriorRing().getCoordinateSequence().getClass());
+        }
+    }
+
     public static Geometry rectangle(PrecisionModel pm, int SRID) {
         Coordinate[] coords = new Coordinate[5];
         for (int i = 0; i < coords.length; i++) {
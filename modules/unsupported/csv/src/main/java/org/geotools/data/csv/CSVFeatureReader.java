@@ -23,6 +23,8 @@ import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.csv.parse.CSVIterator;
 import org.geotools.data.csv.parse.CSVStrategy;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.util.factory.Hints;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
@@ -38,7 +40,13 @@ public class CSVFeatureReader implements FeatureReader<SimpleFeatureType, Simple
 
     public CSVFeatureReader(CSVStrategy csvStrategy, Query query) throws IOException {
         this.featureType = csvStrategy.getFeatureType();
-        this.iterator = csvStrategy.iterator();
+        if (query != null && Boolean.TRUE.equals(query.getHints().get(Hints.FEATURE_REUSE))) {
+            SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
+            builder.setFeatureReuse(true);
+            this.iterator = csvStrategy.iterator(builder);
+        } else {
+            this.iterator = csvStrategy.iterator();
+        }
     }
 
     @Override
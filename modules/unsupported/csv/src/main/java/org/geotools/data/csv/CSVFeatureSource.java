@@ -18,11 +18,13 @@
 package org.geotools.data.csv;
 
 import java.io.IOException;
+import java.util.Set;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentFeatureSource;
 import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.factory.Hints;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
@@ -94,4 +96,10 @@ public class CSVFeatureSource extends ContentFeatureSource {
         return getDataStore().getSchema();
     }
     // docs end buildFeatureType
+
+    @Override
+    protected void addHints(Set<Hints.Key> hints) {
+        // the reader can overwrite the same feature on each record
+        hints.add(Hints.FEATURE_REUSE);
+    }
 }
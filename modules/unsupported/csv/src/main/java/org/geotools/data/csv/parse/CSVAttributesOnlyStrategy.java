@@ -81,8 +81,12 @@ public class CSVAttributesOnlyStrategy extends CSVStrategy {
 
     @Override
     public SimpleFeature decode(String recordId, String[] csvRecord) {
+        return decode(recordId, csvRecord, new SimpleFeatureBuilder(getFeatureType()));
+    }
+
+    @Override
+    public SimpleFeature decode(String recordId, String[] csvRecord, SimpleFeatureBuilder builder) {
         SimpleFeatureType featureType = getFeatureType();
-        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(featureType);
         String[] headers;
         headers = csvFileState.getCSVHeaders();
         for (int i = 0; i < headers.length; i++) {
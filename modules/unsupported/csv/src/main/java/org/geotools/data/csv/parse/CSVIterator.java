@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import org.geotools.data.csv.CSVFileState;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.opengis.feature.simple.SimpleFeature;
 
 public class CSVIterator implements Iterator<SimpleFeature> {
@@ -34,8 +35,21 @@ public class CSVIterator implements Iterator<SimpleFeature> {
 
     private final CSVStrategy csvStrategy;
 
+    private final SimpleFeatureBuilder builder;
+
     public CSVIterator(CSVFileState csvFileState, CSVStrategy csvStrategy) throws IOException {
+        this(csvFileState, csvStrategy, null);
+    }
+
+    /**
+     * Builds an iterator decoding all the records with the provided builder, or with a new builder
+     * for each record if null
+     */
+    public CSVIterator(
+            CSVFileState csvFileState, CSVStrategy csvStrategy, SimpleFeatureBuilder builder)
+            throws IOException {
         this.csvStrategy = csvStrategy;
+        this.builder = builder;
         csvReader = csvFileState.openCSVReader();
         idx = 1;
         next = null;
@@ -43,7 +57,10 @@ public class CSVIterator implements Iterator<SimpleFeature> {
 
     private SimpleFeature buildFeature(String[] csvRecord) {
         String id = "fid" + idx;
-        SimpleFeature feature = csvStrategy.decode(id, csvRecord);
+        SimpleFeature feature =
+                builder == null
+                        ? csvStrategy.decode(id, csvRecord)
+                        : csvStrategy.decode(id, csvRecord, builder);
         idx++;
         return feature;
     }
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.geotools.data.csv.CSVFileState;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
@@ -42,12 +43,28 @@ public abstract class CSVStrategy {
     }
     // docs end CSVStrategy
 
+    /**
+     * Returns an iterator decoding all the records with the provided builder, which can be set to
+     * reuse features
+     */
+    public CSVIterator iterator(SimpleFeatureBuilder builder) throws IOException {
+        return new CSVIterator(csvFileState, this, builder);
+    }
+
     protected abstract SimpleFeatureType buildFeatureType();
 
     public abstract void createSchema(SimpleFeatureType featureType) throws IOException;
 
     public abstract SimpleFeature decode(String recordId, String[] csvRecord);
 
+    /**
+     * Decodes the record with the provided builder, instead of creating a new one. Strategies
+     * should override it, the default implementation ignores the builder.
+     */
+    public SimpleFeature decode(String recordId, String[] csvRecord, SimpleFeatureBuilder builder) {
+        return decode(recordId, csvRecord);
+    }
+
     public abstract String[] encode(SimpleFeature feature);
 
     protected volatile SimpleFeatureType featureType = null;